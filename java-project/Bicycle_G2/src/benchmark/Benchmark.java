@@ -0,0 +1,123 @@
+package benchmark;
+
+import java.util.ArrayList;
+
+/**
+ * This class measures the average time of an operation, like a JMH benchmark in average time mode: the operation is repeated during
+ * warmup iterations, whose results are ignored so that the JIT compiler can optimize the code, and then during measurement iterations.
+ * The score is the mean time of an operation over the measurement iterations, and the error is the standard deviation between the iterations.
+ * @author Pietro Dellino
+ * @see NetworkBenchmark
+ */
+public class Benchmark {
+
+	/**
+	 * An operation to measure. It can throw any exception, which stops the benchmark.
+	 */
+	public interface Operation {
+		void run() throws Exception;
+	}
+
+	/**
+	 * The result of the last operation is stored here, so that the JIT compiler cannot remove the code whose result is not used.
+	 */
+	private static volatile Object sink;
+
+	private int warmupIterations;
+	private int iterations;
+	private long iterationTime;
+
+	/**
+	 * @param warmupIterations the number of iterations whose result is ignored
+	 * @param iterations the number of iterations measured
+	 * @param iterationMillis the duration of an iteration, in milliseconds
+	 */
+	public Benchmark(int warmupIterations, int iterations, long iterationMillis) {
+		this.warmupIterations = warmupIterations;
+		this.iterations = iterations;
+		this.iterationTime = iterationMillis*1000000;
+	}
+
+	/**
+	 * This method has to be called with the result of an operation, so that it is not optimized away.
+	 * @param o
+	 */
+	public static void consume(Object o) { sink = o; }
+
+	/**
+	 * This method runs the operation during an iteration. The operation is run at least once.
+	 * @param op
+	 * @return the mean time of an operation during the iteration, in nanoseconds
+	 * @throws Exception
+	 */
+	private double iteration(Operation op) throws Exception {
+		long start = System.nanoTime();
+		long end = start + this.iterationTime;
+		long n = 0;
+		long now;
+		do {
+			op.run();
+			n++;
+			now = System.nanoTime();
+		} while (now < end);
+		return (double) (now - start)/n;
+	}
+
+	/**
+	 * This method measures an operation.
+	 * @param name the name of the benchmark
+	 * @param size the size of the network
+	 * @param op
+	 * @return the result of the benchmark
+	 * @throws Exception if the operation throws an exception
+	 */
+	public Result run(String name, int size, Operation op) throws Exception {
+		for (int i = 0; i < this.warmupIterations; i++) {
+			this.iteration(op);
+		}
+		ArrayList<Double> times = new ArrayList<Double>();
+		for (int i = 0; i < this.iterations; i++) {
+			times.add(this.iteration(op));
+		}
+		double mean = 0;
+		for (double t : times) { mean += t; }
+		mean /= times.size();
+		double variance = 0;
+		for (double t : times) { variance += (t - mean)*(t - mean); }
+		double error = times.size() > 1 ? Math.sqrt(variance/(times.size() - 1)) : 0;
+		return new Result(name, size, mean, error);
+	}
+
+	/**
+	 * The result of a benchmark: the mean time of an operation and its standard deviation, in nanoseconds.
+	 */
+	public static class Result {
+
+		private String name;
+		private int size;
+		private double score;
+		private double error;
+
+		public Result(String name, int size, double score, double error) {
+			this.name = name;
+			this.size = size;
+			this.score = score;
+			this.error = error;
+		}
+
+		public String getName() { return name; }
+
+		public int getSize() { return size; }
+
+		public double getScore() { return score; }
+
+		public double getError() { return error; }
+
+		@Override
+		public String toString() {
+			return String.format("%-40s %8d %16.1f %14.1f  ns/op", this.name, this.size, this.score, this.error);
+		}
+
+	}
+
+}
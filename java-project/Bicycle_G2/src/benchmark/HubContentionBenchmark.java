@@ -0,0 +1,97 @@
+package benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import bike.MechanicBike;
+import card.Card;
+import card.CardFactory;
+import controller.NetworkManager;
+import ride.Network;
+import station.Station;
+import user.User;
+
+/**
+ * This class measures the number of rentals and returns per second at a hub of 60 slots and 30 bikes, used by several threads at the same time.
+ * The slots are claimed one by one, with a compare-and-set; the same operations are then run while each of them holds the lock of the station,
+ * like the {@code synchronized} methods of the station did before, so that the two throughputs can be compared. The gain of the slot claims
+ * depends on the number of processors: with a single processor, the threads never run at the same time and both throughputs are close.
+ * <br> Each operation adds states to the history of the slots and a ride to the network, so the heap grows with the number of operations.
+ * <br> The number of threads and of rentals per thread are given as arguments, for example: <br>
+ * {@code java -cp bin benchmark.HubContentionBenchmark 8 20000}
+ * @author Pietro Dellino
+ * @see Station#pickUpBike(Card, LocalDateTime)
+ */
+public class HubContentionBenchmark {
+
+	public static final int DEFAULT_THREADS = 8;
+	public static final int DEFAULT_OPERATIONS = 20000;
+
+	private static final int ROUNDS = 5;
+
+	/**
+	 * The user of each card rents and returns a bike at the hub, in its own thread.
+	 * @param stationLock whether each rental and return holds the lock of the station
+	 * @return the number of rentals and returns per second
+	 */
+	private static double run(Station hub, Card[] cards, int nOperations, LocalDateTime time, boolean stationLock) throws InterruptedException {
+		AtomicInteger errors = new AtomicInteger();
+		ArrayList<Thread> threads = new ArrayList<Thread>();
+		long start = System.nanoTime();
+		for (Card card : cards) {
+			Thread t = new Thread(() -> {
+				for (int k = 0; k < nOperations; k++) {
+					try {
+						if (stationLock) {
+							synchronized (hub) {
+								hub.pickUpBike(card, time);
+							}
+							synchronized (hub) {
+								hub.dropBike(card, time);
+							}
+						} else {
+							hub.pickUpBike(card, time);
+							hub.dropBike(card, time);
+						}
+					} catch (Exception e) {
+						errors.incrementAndGet();
+					}
+				}
+			});
+			threads.add(t);
+			t.start();
+		}
+		for (Thread t : threads) { t.join(); }
+		long duration = System.nanoTime() - start;
+		if (errors.get() > 0) {
+			throw new IllegalStateException(errors.get() + " operations failed");
+		}
+		return 2.0*nOperations*cards.length/(duration/1e9);
+	}
+
+	public static void main(String[] args) throws Exception {
+		int nThreads = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_THREADS;
+		int nOperations = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_OPERATIONS;
+		Network net = new NetworkManager().setupNetwork("hub", 1, 60, 1, 0);
+		Station hub = net.getStations().get(0);
+		for (int i = 0; i < 30; i++) {
+			hub.availableSlot().setBike(new MechanicBike(), NetworkManager.ADDING_DATE);
+		}
+		CardFactory cf = new CardFactory(net);
+		Card[] cards = new Card[nThreads];
+		for (int i = 0; i < cards.length; i++) {
+			cards[i] = cf.createCard(CardFactory.VMAX, new User("user" + i));
+		}
+		LocalDateTime time = LocalDateTime.of(2019, 1, 2, 0, 0);
+		System.out.println(String.format("%-24s %16s %16s", "hub of 60 slots", "station lock", "slot claims"));
+		for (int r = 0; r <= ROUNDS; r++) {
+			double locked = run(hub, cards, nOperations, time.plusDays(r), true);
+			double claimed = run(hub, cards, nOperations, time.plusDays(r).plusHours(12), false);
+			if (r > 0) {
+				System.out.println(String.format("%-24s %12.0f op/s %12.0f op/s", nThreads + " threads, round " + r, locked, claimed));
+			}
+		}
+	}
+
+}
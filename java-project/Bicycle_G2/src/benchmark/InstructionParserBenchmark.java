@@ -0,0 +1,141 @@
+package benchmark;
+
+import java.time.LocalDateTime;
+
+import tools.Date;
+import ui.clui.BatchCommand;
+import ui.clui.Command;
+import ui.clui.CommandLineController;
+import ui.clui.CommandLineDisplay;
+import ui.clui.CommandLineReader;
+import ui.clui.InstructionParser;
+
+/**
+ * This class measures the paths which run the instructions of the CLUI, from their text to the call of the method of the {@code CommandLineController}:
+ * <ul>
+ * <li>the former path, which splits the instruction in {@code String}s with {@link CommandLineReader#parseCommand(String)} and
+ * {@link CommandLineReader#parseArgs(String)}, then converts them,</li>
+ * <li>the path of the instructions typed on the console, which are parsed by an {@code InstructionParser} and run with
+ * {@link CommandLineReader#interpreteCommand(InstructionParser, CommandLineController)},</li>
+ * <li>the path of the instructions of a file, which are converted to a {@code ParsedInstruction} by {@link BatchCommand#parse(String, int)} and run later.</li>
+ * </ul>
+ * The controller only adds the arguments it is given to a checksum, so that the time of the rentals and returns is not measured.
+ * <br> The instructions are the rentals and returns of a test scenario. The number of instructions is given as argument, for example: <br>
+ * {@code java -cp bin benchmark.InstructionParserBenchmark 1000000}
+ * @author Pietro Dellino
+ */
+public class InstructionParserBenchmark {
+
+	public static final int DEFAULT_INSTRUCTIONS = 1000000;
+
+	private static final int ROUNDS = 5;
+
+	/**
+	 * This class is a {@code CommandLineController} which adds the arguments of the rentals and returns to a checksum instead of running them.
+	 */
+	private static class ChecksumController extends CommandLineController {
+
+		private long sum;
+
+		@Override
+		public void rentBike(int userID, int stationID, LocalDateTime time, String netName) {
+			this.sum += Command.RENT_BIKE.ordinal() + userID + stationID + time.getMinute() + netName.length();
+		}
+
+		@Override
+		public void returnBike(int userID, int stationID, LocalDateTime time, String netName) {
+			this.sum += Command.RETURN_BIKE.ordinal() + userID + stationID + time.getMinute() + netName.length();
+		}
+
+		/**
+		 * @return the checksum since the last call
+		 */
+		long reset() {
+			long sum = this.sum;
+			this.sum = 0;
+			return sum;
+		}
+
+	}
+
+	/**
+	 * This method writes the instructions, like the lines read from the console or from a scenario file.
+	 */
+	private static String[] writeInstructions(int n) {
+		String[] lines = new String[n];
+		LocalDateTime t = LocalDateTime.of(2019, 1, 2, 8, 0);
+		for (int i = 0; i < n; i++) {
+			String time = t.plusMinutes(i % 600).toString().replace('T', ' ');
+			if (i % 2 == 0) {
+				lines[i] = "rentBike <" + (i % 500) + "> <" + (i % 37) + "> <" + time + "> <myVelib>";
+			} else {
+				lines[i] = "returnBike <" + (i % 500) + "> <" + (i % 41) + "> <" + time + "> <myVelib>";
+			}
+		}
+		return lines;
+	}
+
+	/**
+	 * @return a checksum of the arguments, so that the conversions are not removed by the JIT
+	 */
+	private static long parseSplit(String[] lines, CommandLineReader clr) throws Exception {
+		long sum = 0;
+		for (String s : lines) {
+			Command com = clr.parseCommand(s);
+			String[] args = clr.parseArgs(s);
+			sum += com.ordinal() + Integer.parseInt(args[0]) + Integer.parseInt(args[1]) + Date.dateInput(args[2]).getMinute() + args[3].length();
+		}
+		return sum;
+	}
+
+	/**
+	 * This method runs the instructions like the console does, each one being parsed and run before the next one is read.
+	 * @return the checksum of the controller
+	 */
+	private static long runInteractive(String[] lines, CommandLineReader clr, InstructionParser p, ChecksumController clc) throws Exception {
+		for (String s : lines) {
+			p.parse(s);
+			clr.interpreteCommand(p, clc);
+		}
+		return clc.reset();
+	}
+
+	/**
+	 * This method runs the instructions like a {@code CommandBatch} does: they are all parsed and converted, then run.
+	 * @return the checksum of the controller
+	 */
+	private static long runBatch(String[] lines, CommandLineReader clr, ChecksumController clc) {
+		BatchCommand[] commands = new BatchCommand[lines.length];
+		for (int i = 0; i < lines.length; i++) {
+			commands[i] = BatchCommand.parse(lines[i], i + 1);
+		}
+		CommandLineDisplay cld = new CommandLineDisplay();
+		for (BatchCommand c : commands) {
+			c.run(clr, clc, cld);
+		}
+		return clc.reset();
+	}
+
+	public static void main(String[] args) throws Exception {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_INSTRUCTIONS;
+		String[] lines = writeInstructions(n);
+		CommandLineReader clr = new CommandLineReader();
+		InstructionParser p = new InstructionParser();
+		ChecksumController clc = new ChecksumController();
+		for (int r = 0; r < ROUNDS; r++) {
+			long t0 = System.nanoTime();
+			long a = parseSplit(lines, clr);
+			long t1 = System.nanoTime();
+			long b = runInteractive(lines, clr, p, clc);
+			long t2 = System.nanoTime();
+			long c = runBatch(lines, clr, clc);
+			long t3 = System.nanoTime();
+			if (a != b || a != c) {
+				throw new IllegalStateException("The paths do not read the same arguments");
+			}
+			System.out.println(String.format("round %d: split %.0f ns/instruction, console %.0f ns/instruction, batch %.0f ns/instruction",
+				r, (t1 - t0) / (double) n, (t2 - t1) / (double) n, (t3 - t2) / (double) n));
+		}
+	}
+
+}
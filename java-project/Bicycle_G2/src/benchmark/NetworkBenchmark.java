@@ -0,0 +1,168 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Random;
+
+import bike.BikeFactory;
+import card.Card;
+import card.CardFactory;
+import controller.NetworkManager;
+import ride.Network;
+import ride.path.AvoidPlusStrategy;
+import ride.path.FastestPathStrategy;
+import ride.path.MinimalWalkingStrategy;
+import ride.path.PathStrategy;
+import ride.path.PreferPlusStrategy;
+import ride.path.UniformityStrategy;
+import sorting.station.LeastOccupiedStation;
+import sorting.station.MoreUsedStation;
+import sorting.station.OccupationRateCache;
+import station.NoSlotStateAtDateException;
+import station.Station;
+import tools.Point;
+import ui.clui.CommandLineDisplay;
+
+/**
+ * This class measures the operations of the application that depend on the size of the network: renting and returning a bike, finding a path
+ * with each {@code PathStrategy}, sorting the stations with each {@code SortingStrategy}, computing the occupation rate of a station and displaying a network.
+ * <br> The networks are created with {@code NetworkManager.setupNetwork}, with 10 slots per station and 5 bikes per station on average.
+ * The sizes of the networks (in number of stations) are given as arguments, for example: <br>
+ * {@code java -cp bin benchmark.NetworkBenchmark 10 1000 100000} <br>
+ * Without arguments, the networks have 10, 100, 1000, 10000 and 100000 stations.
+ * @author Pietro Dellino
+ * @see Benchmark
+ */
+public class NetworkBenchmark {
+
+	public static final int[] DEFAULT_SIZES = {10, 100, 1000, 10000, 100000};
+
+	private static final int N_USERS = 100;
+	private static final int N_POINTS = 1024;
+
+	private Benchmark benchmark;
+	private ArrayList<Benchmark.Result> results;
+
+	public NetworkBenchmark(Benchmark benchmark) {
+		this.benchmark = benchmark;
+		this.results = new ArrayList<Benchmark.Result>();
+	}
+
+	public ArrayList<Benchmark.Result> getResults() { return results; }
+
+	private void run(String name, int size, Benchmark.Operation op) throws Exception {
+		Benchmark.Result res = this.benchmark.run(name, size, op);
+		this.results.add(res);
+		System.out.println(res);
+	}
+
+	/**
+	 * This method runs all the benchmarks on a network of the given size.
+	 * @param size the number of stations of the network
+	 * @throws Exception
+	 */
+	public void runAll(int size) throws Exception {
+		NetworkManager nm = new NetworkManager();
+		String name = "benchmark" + size;
+		double side = 4*Math.sqrt(size/10.0);
+		Network net = nm.setupNetwork(name, size, 10, side, 5*size);
+		for (int i = 0; i < N_USERS; i++) {
+			nm.addUser("user" + i, CardFactory.VLIBRE, name);
+		}
+		ArrayList<Card> cards = net.getCards();
+		ArrayList<Station> stations = net.getStations();
+		Random rand = new Random(size);
+		Point[][] points = new Point[N_POINTS][2];
+		for (int i = 0; i < N_POINTS; i++) {
+			points[i][0] = new Point(rand.nextDouble()*side, rand.nextDouble()*side);
+			points[i][1] = new Point(rand.nextDouble()*side, rand.nextDouble()*side);
+		}
+		int[] counter = {0};
+		LocalDateTime[] clock = {LocalDateTime.of(2019, 1, 2, 0, 0)};
+
+		this.run("rentBike+returnBike", size, () -> {
+			int i = counter[0]++;
+			int userId = cards.get(i % N_USERS).getUser().getId();
+			Station s = stations.get(rand.nextInt(size));
+			clock[0] = clock[0].plusMinutes(1);
+			if (s.getNumberBikes() > 0) {
+				nm.rentBike(userId, s.getId(), clock[0], net);
+				clock[0] = clock[0].plusMinutes(1);
+				Benchmark.consume(nm.returnBike(userId, s.getId(), clock[0], net));
+			}
+		});
+
+		PathStrategy[] strategies = {new MinimalWalkingStrategy(net), new AvoidPlusStrategy(net), new PreferPlusStrategy(net),
+				new UniformityStrategy(net), new FastestPathStrategy(net)};
+		for (PathStrategy ps : strategies) {
+			String strategyName = ps.getClass().getSimpleName();
+			this.run(strategyName + ".findPath", size, () -> {
+				Point[] p = points[counter[0]++ % N_POINTS];
+				Benchmark.consume(ps.findPath(p[0], p[1]));
+			});
+			this.run(strategyName + ".findPath(ELECTRIC)", size, () -> {
+				Point[] p = points[counter[0]++ % N_POINTS];
+				Benchmark.consume(ps.findPath(p[0], p[1], BikeFactory.ELECTRIC));
+			});
+		}
+
+		LocalDateTime start = NetworkManager.CREATION_DATE;
+		LocalDateTime end = clock[0];
+		this.run("sortingStations(MoreUsed)", size, () -> {
+			Benchmark.consume(net.sortingStations(new MoreUsedStation()));
+		});
+		this.run("sortingStations(LeastOccupied)", size, () -> {
+			OccupationRateCache.getInstance().clear();
+			Benchmark.consume(net.sortingStations(new LeastOccupiedStation(start, end)));
+		});
+		this.run("sortingStations(LeastOccupied) cached", size, () -> {
+			Benchmark.consume(net.sortingStations(new LeastOccupiedStation(start, end)));
+		});
+		this.run("getRateOccupation", size, () -> {
+			Station s = stations.get(counter[0]++ % size);
+			try {
+				Benchmark.consume(s.getRateOccupation(start, end));
+			} catch (NoSlotStateAtDateException e) {
+				Benchmark.consume(e);
+			}
+		});
+
+		CommandLineDisplay cld = new CommandLineDisplay();
+		PrintStream out = System.out;
+		System.setOut(new PrintStream(new OutputStream() {
+			@Override
+			public void write(int b) {}
+			@Override
+			public void write(byte[] b, int off, int len) {}
+		}));
+		Benchmark.Result res;
+		try {
+			res = this.benchmark.run("display(Network)", size, () -> {
+				cld.display(net);
+			});
+		} finally {
+			System.setOut(out);
+		}
+		this.results.add(res);
+		System.out.println(res);
+		OccupationRateCache.getInstance().clear();
+	}
+
+	public static void main(String[] args) throws Exception {
+		int[] sizes = DEFAULT_SIZES;
+		if (args.length > 0) {
+			sizes = new int[args.length];
+			for (int i = 0; i < args.length; i++) {
+				sizes[i] = Integer.parseInt(args[i]);
+			}
+		}
+		NetworkBenchmark nb = new NetworkBenchmark(new Benchmark(3, 5, 200));
+		System.out.println(String.format("%-40s %8s %16s %14s", "Benchmark", "Size", "Score", "Error"));
+		for (int size : sizes) {
+			nb.runAll(size);
+		}
+	}
+
+}
@@ -0,0 +1,59 @@
+package benchmark;
+
+import java.time.LocalDateTime;
+
+import controller.NetworkManager;
+import rebalancing.DemandForecast;
+import rebalancing.DemandForecaster;
+import rebalancing.RebalancingPlan;
+import rebalancing.RebalancingPlanner;
+import ride.Network;
+import ride.path.FastestPathStrategy;
+import simulation.HotspotDemand;
+import simulation.Simulation;
+import tools.Point;
+
+/**
+ * This class measures the time of the forecast and of the planning of a {@code RebalancingPlanner}, on a network created with {@code NetworkManager.setupNetwork}
+ * with 10 slots per station and 5 bikes per station on average, after a simulation where half of the users go to 4 hotspots.
+ * The number of stations, of simulated days and of trucks are given as arguments, for example: <br>
+ * {@code java -cp bin benchmark.RebalancingBenchmark 10000 2 50}
+ * @author Pietro Dellino
+ * @see RebalancingPlanner
+ */
+public class RebalancingBenchmark {
+
+	public static final int DEFAULT_SIZE = 10000;
+	public static final int DEFAULT_DAYS = 2;
+	public static final int DEFAULT_TRUCKS = 50;
+	public static final int TRUCK_CAPACITY = 20;
+
+	public static void main(String[] args) throws Exception {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SIZE;
+		int days = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_DAYS;
+		int trucks = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_TRUCKS;
+		NetworkManager nm = new NetworkManager();
+		double side = 4*Math.sqrt(size/10.0);
+		Network net = nm.setupNetwork("rebalancing", size, 10, side, 5*size);
+		LocalDateTime start = LocalDateTime.of(2019, 1, 2, 0, 0);
+		double[] rates = new double[24];
+		for (int h = 0; h < 24; h++) {
+			rates[h] = h >= 7 && h < 20 ? 0.5*size : 0.05*size;
+		}
+		Point[] hotspots = {new Point(side/4, side/4), new Point(3*side/4, side/4), new Point(side/4, 3*side/4), new Point(3*side/4, 3*side/4)};
+		Simulation sim = new Simulation(nm, net, new FastestPathStrategy(net), new HotspotDemand(side, rates, hotspots, side/16, 0.5), start, size);
+		long t0 = System.nanoTime();
+		sim.runUntil(start.plusDays(days));
+		System.out.println(String.format("%s in %.2f s", sim, (System.nanoTime() - t0)/1e9));
+		LocalDateTime planStart = start.plusDays(days).plusHours(6);
+		for (int i = 0; i < 3; i++) {
+			t0 = System.nanoTime();
+			DemandForecast forecast = new DemandForecaster(net).forecast(planStart);
+			System.out.println(String.format("forecast of %d stations in %.0f ms", forecast.getStations().size(), (System.nanoTime() - t0)/1e6));
+			RebalancingPlan plan = new RebalancingPlanner(net).plan(planStart, 4, trucks, TRUCK_CAPACITY, RebalancingPlanner.DEFAULT_TIME_BUDGET);
+			System.out.println(String.format("plan in %d ms: %d stations expected to run empty (%d bikes needed), %d full; %d bikes moved by %d trucks, distance %.1f",
+				plan.getPlanningMillis(), plan.getEmptyStations(), plan.getBikesNeeded(), plan.getFullStations(), plan.getBikesMoved(), plan.getRoutes().size(), plan.getDistance()));
+		}
+	}
+
+}
@@ -0,0 +1,59 @@
+package benchmark;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.Random;
+
+import ride.path.RoadGraph;
+
+/**
+ * This class measures the loading time of a {@code RoadGraph} and the number of travel time queries it answers per second without its cache.
+ * The graph is a square grid of streets with random speeds, where one street out of 10 is a fast avenue, and 5% of the streets are missing.
+ * The side of the grid and the number of queries are given as arguments, for example: <br>
+ * {@code java -cp bin benchmark.RoadGraphBenchmark 400 10000}
+ * @author Pietro Dellino
+ * @see RoadGraph
+ */
+public class RoadGraphBenchmark {
+
+	public static final int DEFAULT_SIDE = 400;
+	public static final int DEFAULT_QUERIES = 10000;
+
+	public static void main(String[] args) throws Exception {
+		int side = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SIDE;
+		int queries = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_QUERIES;
+		Random r = new Random(0);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < side; i++) {
+			for (int j = 0; j < side; j++) {
+				sb.append("node ").append(i*side + j).append(' ').append(0.1*j).append(' ').append(0.1*i).append('\n');
+			}
+		}
+		for (int i = 0; i < side; i++) {
+			for (int j = 0; j < side; j++) {
+				if (j + 1 < side && r.nextDouble() > 0.05) {
+					int speed = i % 10 == 0 ? 25 : 5 + r.nextInt(11);
+					sb.append("edge ").append(i*side + j).append(' ').append(i*side + j + 1).append(' ').append(speed).append('\n');
+				}
+				if (i + 1 < side && r.nextDouble() > 0.05) {
+					int speed = j % 10 == 0 ? 25 : 5 + r.nextInt(11);
+					sb.append("edge ").append(i*side + j).append(' ').append((i + 1)*side + j).append(' ').append(speed).append('\n');
+				}
+			}
+		}
+		long t0 = System.nanoTime();
+		RoadGraph graph = RoadGraph.read(new BufferedReader(new StringReader(sb.toString())));
+		System.out.println(String.format("%d nodes, %d arcs, %d shortcuts loaded in %.0f ms", graph.getNumberNodes(), graph.getNumberArcs(),
+			graph.getNumberShortcuts(), (System.nanoTime() - t0)/1e6));
+		for (int round = 0; round < 3; round++) {
+			t0 = System.nanoTime();
+			double total = 0;
+			for (int q = 0; q < queries; q++) {
+				total += Math.min(1e6, graph.travelTime(r.nextInt(graph.getNumberNodes()), r.nextInt(graph.getNumberNodes())));
+			}
+			double seconds = (System.nanoTime() - t0)/1e9;
+			System.out.println(String.format("%d random queries in %.2f s: %.0f queries per second (total time %.1f)", queries, seconds, queries/seconds, total));
+		}
+	}
+
+}
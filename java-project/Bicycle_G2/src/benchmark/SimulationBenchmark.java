@@ -0,0 +1,41 @@
+package benchmark;
+
+import java.time.LocalDateTime;
+
+import controller.NetworkManager;
+import ride.Network;
+import ride.path.FastestPathStrategy;
+import simulation.Simulation;
+import simulation.UniformDemand;
+
+/**
+ * This class measures the number of rides a {@code Simulation} processes per second, on a network created with {@code NetworkManager.setupNetwork}
+ * with 10 slots per station and 5 bikes per station on average. Each station has 2 users arriving per hour.
+ * The number of stations and of simulated days are given as arguments, for example: <br>
+ * {@code java -cp bin benchmark.SimulationBenchmark 1000 7}
+ * @author Pietro Dellino
+ * @see Simulation
+ */
+public class SimulationBenchmark {
+
+	public static final int DEFAULT_SIZE = 1000;
+	public static final int DEFAULT_DAYS = 7;
+
+	public static void main(String[] args) throws Exception {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SIZE;
+		int days = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_DAYS;
+		NetworkManager nm = new NetworkManager();
+		double side = 4*Math.sqrt(size/10.0);
+		Network net = nm.setupNetwork("simulation", size, 10, side, 5*size);
+		LocalDateTime start = LocalDateTime.of(2019, 1, 2, 0, 0);
+		Simulation sim = new Simulation(nm, net, new FastestPathStrategy(net), new UniformDemand(side, 2.0*size), start, size);
+		for (int d = 1; d <= days; d++) {
+			long t0 = System.nanoTime();
+			long rides = sim.getRides();
+			sim.runUntil(start.plusDays(d));
+			double seconds = (System.nanoTime() - t0)/1e9;
+			System.out.println(String.format("%s in %.2f s, %.0f rides/s", sim, seconds, (sim.getRides() - rides)/seconds));
+		}
+	}
+
+}
@@ -0,0 +1,102 @@
+package benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+import bike.Bike;
+import bike.MechanicBike;
+import station.SlotHistory;
+import station.SlotState;
+import station.StandardStation;
+import station.Station;
+import tools.Point;
+
+/**
+ * This class measures the heap used by the history of the slots: the {@code SlotHistory} of the slots, which stores the states in arrays of primitives,
+ * is compared to lists of {@code SlotState} objects, as the history was stored before.
+ * <br> Each slot gets a bike and loses it every 24 minutes (30 times a day). The number of slots and of states per slot are given as arguments, for example: <br>
+ * {@code java -cp bin benchmark.SlotHistoryFootprint 1000 1000}
+ * @author Pietro Dellino
+ */
+public class SlotHistoryFootprint {
+
+	public static final int DEFAULT_SLOTS = 1000;
+	public static final int DEFAULT_STATES = 1000;
+
+	private static final int N_BIKES = 100;
+
+	private static long usedMemory() throws InterruptedException {
+		Runtime rt = Runtime.getRuntime();
+		for (int i = 0; i < 4; i++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		return rt.totalMemory() - rt.freeMemory();
+	}
+
+	/**
+	 * This method builds the histories with the {@code Slot} objects, then keeps only their {@code SlotHistory}.
+	 */
+	private static ArrayList<SlotHistory> buildHistories(int nSlots, int nStates, Bike[] bikes) throws Exception {
+		ArrayList<SlotHistory> histories = new ArrayList<SlotHistory>();
+		LocalDateTime start = LocalDateTime.of(2019, 1, 1, 0, 0);
+		for (int i = 0; i < nSlots; i++) {
+			Station s = new StandardStation(new Point(i, 0), null);
+			s.addSlot();
+			station.Slot slot = s.getParkingSlots().get(0);
+			for (int j = 0; j < nStates; j++) {
+				slot.setBike(j % 2 == 0 ? bikes[(i + j) % bikes.length] : null, start.plusMinutes(24*j));
+			}
+			histories.add(slot.getSlotHistory());
+		}
+		return histories;
+	}
+
+	/**
+	 * This method builds the same histories as lists of {@code SlotState} objects, where the time at which a state ends is the object at which the next one starts.
+	 */
+	private static ArrayList<ArrayList<SlotState>> buildStates(int nSlots, int nStates, Bike[] bikes) throws Exception {
+		ArrayList<ArrayList<SlotState>> lists = new ArrayList<ArrayList<SlotState>>();
+		LocalDateTime start = LocalDateTime.of(2019, 1, 1, 0, 0);
+		for (int i = 0; i < nSlots; i++) {
+			ArrayList<SlotState> states = new ArrayList<SlotState>();
+			for (int j = 0; j < nStates; j++) {
+				LocalDateTime t = start.plusMinutes(24*j);
+				if (j > 0) {
+					states.get(j-1).setEndTime(t);
+				}
+				states.add(new SlotState(t, true, j % 2 == 0 ? bikes[(i + j) % bikes.length] : null));
+			}
+			lists.add(states);
+		}
+		return lists;
+	}
+
+	public static void main(String[] args) throws Exception {
+		int nSlots = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SLOTS;
+		int nStates = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_STATES;
+		long total = (long) nSlots*nStates;
+		Bike[] bikes = new Bike[N_BIKES];
+		for (int i = 0; i < N_BIKES; i++) {
+			bikes[i] = new MechanicBike();
+		}
+
+		long before = usedMemory();
+		ArrayList<SlotHistory> histories = buildHistories(nSlots, nStates, bikes);
+		long primitive = usedMemory() - before;
+		Benchmark.consume(histories);
+		histories = null;
+
+		before = usedMemory();
+		ArrayList<ArrayList<SlotState>> lists = buildStates(nSlots, nStates, bikes);
+		long objects = usedMemory() - before;
+		Benchmark.consume(lists);
+		lists = null;
+
+		System.out.println(String.format("%d slots, %d states", nSlots, total));
+		System.out.println(String.format("%-28s %14d bytes %8.1f bytes/state", "SlotHistory (primitives)", primitive, (double) primitive/total));
+		System.out.println(String.format("%-28s %14d bytes %8.1f bytes/state", "List<SlotState> (objects)", objects, (double) objects/total));
+		System.out.println(String.format("Heap saved: %.1f%%", 100.0*(objects - primitive)/objects));
+	}
+
+}
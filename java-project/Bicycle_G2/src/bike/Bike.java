@@ -11,8 +11,15 @@ public abstract class Bike implements CardVisitable {
 	private int id;
 	
 	public Bike() {
-		BikeIdGenerator idGenerator = BikeIdGenerator.getInstance();
-		this.id = idGenerator.getNextId();
+		this.id = BikeIdGenerator.getInstance().getNextId();
+	}
+	
+	/**
+	 * This constructor creates again a bike which had the given id, when a journal or a snapshot is read.
+	 * @param id
+	 */
+	public Bike(int id) {
+		this.id = BikeIdGenerator.getInstance().restoreId(id);
 	}
 
 	public int getId() { return id; }
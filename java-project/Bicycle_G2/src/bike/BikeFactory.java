@@ -20,5 +20,22 @@ public class BikeFactory {
 			return null;
 		}
 	}
+	
+	/**
+	 * This method creates again a bike which had the given id, when a journal or a snapshot is read.
+	 * @param bikeType
+	 * @param id
+	 * @return the bike, or {@code null} if the type is unknown
+	 */
+	public static Bike createBike(int bikeType, int id) {
+		switch (bikeType) {
+		case ELECTRIC:
+			return new ElectricBike(id);
+		case MECHANIC:
+			return new MechanicBike(id);
+		default:
+			return null;
+		}
+	}
 
 }
@@ -25,6 +25,17 @@ public class BikeIdGenerator implements Serializable {
 	
 	public synchronized int getNextId() { return this.numBikes++; }
 	
+	/**
+	 * This method is called by the constructor of a bike created again with the id it had before.
+	 * @param id
+	 * @return id, which {@link #getNextId()} will not return
+	 * @see Bike#Bike(int)
+	 */
+	synchronized int restoreId(int id) {
+		if (id >= this.numBikes) this.numBikes = id + 1;
+		return id;
+	}
+	
 	/**
 	 * This methods ensures that even when an {@code CardIdGenerator} is serialized, the unique instance is always returned.
 	 * @return The unique instance of the class.
@@ -0,0 +1,69 @@
+package bike;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * This class finds the bikes from their ids, for the histories of the slots, which only store the ids of the bikes.
+ * A bike is registered when it is put in a slot whose history uses the registry.
+ * <br> Each {@code NetworkManager} has its own registry, so that the copy of the networks rebuilt to write a snapshot does not change the bikes
+ * found by the histories of the networks in use, even when it replays a reset. The networks created without a {@code NetworkManager} use the shared registry.
+ * <br> The bikes are registered while holding the lock of the registry, and are read without lock, since the history of each slot reads them.
+ * <br> The registry only grows: a bike stays in it until the networks are reset, even once it is no longer in any slot, since the histories still
+ * refer to it. Its array has one reference for each id given, up to the largest id registered, so it uses about 4 or 8 bytes per bike ever created.
+ * @author Pietro Dellino
+ * @see station.SlotHistory
+ */
+public class BikeRegistry {
+
+	private static final BikeRegistry shared = new BikeRegistry();
+
+	private volatile AtomicReferenceArray<Bike> bikes;
+
+	public BikeRegistry() {
+		this.bikes = new AtomicReferenceArray<Bike>(64);
+	}
+
+	/**
+	 * @return the registry of the networks which are not created by a {@code NetworkManager}
+	 */
+	public static BikeRegistry getShared() { return shared; }
+
+	/**
+	 * This method keeps a bike, so that it can be found from its id. If several bikes have the same id, the first one is kept.
+	 * @param bike
+	 */
+	public void register(Bike bike) {
+		int id = bike.getId();
+		AtomicReferenceArray<Bike> bikes = this.bikes;
+		if (id < bikes.length() && bikes.get(id) != null) return;
+		synchronized (this) {
+			bikes = this.bikes;
+			if (id >= bikes.length()) {
+				AtomicReferenceArray<Bike> larger = new AtomicReferenceArray<Bike>(Math.max(2*bikes.length(), id + 1));
+				for (int i = 0; i < bikes.length(); i++) {
+					larger.set(i, bikes.get(i));
+				}
+				bikes = larger;
+				this.bikes = larger;
+			}
+			bikes.compareAndSet(id, null, bike);
+		}
+	}
+
+	/**
+	 * @param id
+	 * @return the bike which got this id, or {@code null}
+	 */
+	public Bike getBike(int id) {
+		AtomicReferenceArray<Bike> bikes = this.bikes;
+		return id >= 0 && id < bikes.length() ? bikes.get(id) : null;
+	}
+
+	/**
+	 * This method forgets the bikes registered, when the networks are reset, so that they can be garbage collected.
+	 */
+	public synchronized void clear() {
+		this.bikes = new AtomicReferenceArray<Bike>(64);
+	}
+
+}
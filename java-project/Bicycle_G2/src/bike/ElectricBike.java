@@ -4,6 +4,18 @@ import card.CardVisitor;
 
 public class ElectricBike extends Bike {
 
+	public ElectricBike() {
+		super();
+	}
+
+	/**
+	 * @param id the id the bike had before
+	 * @see Bike#Bike(int)
+	 */
+	public ElectricBike(int id) {
+		super(id);
+	}
+
 	/**
 	 * This methods computes the price of a ride according to the user card.
 	 * @see Bike#ridePrice(card.Card, int)
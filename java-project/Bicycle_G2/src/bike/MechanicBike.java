@@ -3,6 +3,18 @@ package bike;
 import card.CardVisitor;
 
 public class MechanicBike extends Bike {
+
+	public MechanicBike() {
+		super();
+	}
+
+	/**
+	 * @param id the id the bike had before
+	 * @see Bike#Bike(int)
+	 */
+	public MechanicBike(int id) {
+		super(id);
+	}
 	
 	/**
 	 * This methods computes the price of a ride according to the user card.
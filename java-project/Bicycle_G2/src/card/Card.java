@@ -23,17 +23,27 @@ public abstract class Card implements CardVisitor {
 		this.id = idGenerator.getNextId();
 		this.user = user;
 	}
+	
+	/**
+	 * This constructor creates again a card which had the given id, when a journal or a snapshot is read.
+	 * @param user
+	 * @param id
+	 */
+	public Card(User user, int id) {
+		this.id = CardIdGenerator.getInstance().restoreId(id);
+		this.user = user;
+	}
 
 	public int getId() { return id; }
 
-	public int getTimeCredit() { return timeCredit; }
+	public synchronized int getTimeCredit() { return timeCredit; }
 
 	public User getUser() { return user; }
 
 	/**
 	 * @param timeCredit the timeCredit to set
 	 */
-	public void setTimeCredit(int timeCredit) {
+	public synchronized void setTimeCredit(int timeCredit) {
 		if (timeCredit >= 0) this.timeCredit = timeCredit;
 	}
 	
@@ -41,7 +51,7 @@ public abstract class Card implements CardVisitor {
 	 * This method adds credit to the card and updates the total time-credit earned by a user
 	 * @param newCredit the credit to add to the previous timeCredit
 	 */
-	public void addCredit(int newCredit) {
+	public synchronized void addCredit(int newCredit) {
 		this.timeCredit += newCredit;
 		UserStat us = user.getUserStat();
 		us.addCreditEarned(newCredit);
@@ -51,7 +61,7 @@ public abstract class Card implements CardVisitor {
 	 * If the {@code timeCredit} is high enough, it removes {@code credit} from it. If not, it raises a {@code InsufficientCreditException}.
 	 * @param credit the credit to use.
 	 */
-	public void useCredit(int credit) throws InsufficientCreditException {
+	public synchronized void useCredit(int credit) throws InsufficientCreditException {
 		if (this.timeCredit >= credit) {
 			this.timeCredit -= credit;
 		} else {
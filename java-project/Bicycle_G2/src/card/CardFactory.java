@@ -21,6 +21,16 @@ public class CardFactory {
 	public static final int VMAX = 2;
 	public static final int CREDIT = 3;
 	
+	/**
+	 * @param card
+	 * @return the constant of the type of the card
+	 */
+	public static int getCardType(Card card) {
+		if (card instanceof VmaxCard) return VMAX;
+		if (card instanceof CreditCard) return CREDIT;
+		return VLIBRE;
+	}
+	
 	public Card createCard(int cardType, User user) {
 		switch (cardType) {
 		case VLIBRE:
@@ -39,5 +49,31 @@ public class CardFactory {
 			return null;
 		}
 	}
+	
+	/**
+	 * This method creates again a card which had the given id, when a journal or a snapshot is read, and adds it to the network.
+	 * @param cardType
+	 * @param user
+	 * @param id
+	 * @return the card, or {@code null} if the type is unknown
+	 */
+	public Card createCard(int cardType, User user, int id) {
+		Card c;
+		switch (cardType) {
+		case VLIBRE:
+			c = new VlibreCard(user, id);
+			break;
+		case VMAX:
+			c = new VmaxCard(user, id);
+			break;
+		case CREDIT:
+			c = new CreditCard(user, id);
+			break;
+		default:
+			return null;
+		}
+		this.net.addCard(c);
+		return c;
+	}
 
 }
@@ -28,7 +28,19 @@ public class CardIdGenerator implements Serializable {
 		return instance;
 	}
 	
-	public synchronized int getNextId() { return numCards++; }
+	public synchronized int getNextId() {
+		return numCards++;
+	}
+	
+	/**
+	 * @param id the id of a card read in a journal or a snapshot
+	 * @return id, after the next ids have been moved past it
+	 * @see Card#Card(user.User, int)
+	 */
+	synchronized int restoreId(int id) {
+		if (id >= this.numCards) this.numCards = id + 1;
+		return id;
+	}
 	
 	/**
 	 * This methods ensures that even when an {@code CardIdGenerator} is serialized, the unique instance is always returned.
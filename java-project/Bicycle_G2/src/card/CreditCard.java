@@ -16,6 +16,10 @@ public class CreditCard extends Card {
 	public CreditCard(User user) {
 		super(user);
 	}
+	
+	public CreditCard(User user, int id) {
+		super(user, id);
+	}
 
 	@Override
 	public float computeRidePrice(ElectricBike bike, int rideTime) {
@@ -15,6 +15,10 @@ public class VlibreCard extends Card {
 	public VlibreCard(User user) {
 		super(user);
 	}
+	
+	public VlibreCard(User user, int id) {
+		super(user, id);
+	}
 
 	/**
 	 * This method calculates the price of a ride for a user having a {@code VlibreCard} when he uses an {@code ElectricBike}.
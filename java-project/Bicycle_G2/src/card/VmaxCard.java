@@ -16,6 +16,10 @@ public class VmaxCard extends Card {
 	public VmaxCard(User user) {
 		super(user);
 	}
+	
+	public VmaxCard(User user, int id) {
+		super(user, id);
+	}
 
 	/**
 	 * This method calculates the price of a ride for a user having a {@code VmaxCard} when he uses an {@code ElectricBike}.
@@ -0,0 +1,157 @@
+package controller;
+
+import java.io.Closeable;
+import java.time.LocalDateTime;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import ride.Itinerary;
+import ride.Network;
+import ride.path.PathStrategy;
+import ride.path.TimedPathStrategy;
+import tools.Point;
+
+/**
+ * This class runs the operations of a {@code NetworkManager} asynchronously, with one thread for each {@code Network}: the operations on a network
+ * are run one after the other on the thread of this network, in the order in which they were submitted, and the operations on different networks run in parallel.
+ * <br> Since a network is only changed by its thread, the locks of its stations, slots and users are never contended, and the results of an operation are seen by
+ * the next ones. The results are returned as {@code CompletableFuture} objects, which are completed with the exception thrown by the operation if it fails.
+ * <br> The networks must not be set up or reset while operations are running, since the list of the networks of the {@code NetworkManager} is not synchronized.
+ * @author Pietro Dellino
+ * @see NetworkManager
+ */
+public class NetworkExecutor implements Closeable {
+
+	private NetworkManager nm;
+	private ConcurrentHashMap<Network, ExecutorService> executors;
+	private volatile boolean closed;
+
+	public NetworkExecutor(NetworkManager nm) {
+		this.nm = nm;
+		this.executors = new ConcurrentHashMap<Network, ExecutorService>();
+	}
+
+	public NetworkManager getNetworkManager() { return nm; }
+
+	private ExecutorService executorOf(Network net) {
+		return this.executors.computeIfAbsent(net, n -> Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "network-" + n.getName());
+			t.setDaemon(true);
+			return t;
+		}));
+	}
+
+	/**
+	 * This method runs a task on the thread of a network.
+	 * @param net
+	 * @param task
+	 * @return a {@code CompletableFuture} completed with the result of the task, or with the exception it threw
+	 */
+	public <T> CompletableFuture<T> submit(Network net, Callable<T> task) {
+		CompletableFuture<T> res = new CompletableFuture<T>();
+		if (this.closed) {
+			res.completeExceptionally(new RejectedExecutionException("The executor is closed"));
+			return res;
+		}
+		try {
+			this.executorOf(net).execute(() -> {
+				try {
+					res.complete(task.call());
+				} catch (Throwable e) {
+					res.completeExceptionally(e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			res.completeExceptionally(e);
+		}
+		return res;
+	}
+
+	/**
+	 * @see NetworkManager#rentBike(int, int, LocalDateTime, Network)
+	 */
+	public CompletableFuture<Void> rentBike(int userId, int stationId, LocalDateTime pickUpTime, Network net) {
+		return this.submit(net, () -> {
+			this.nm.rentBike(userId, stationId, pickUpTime, net);
+			return null;
+		});
+	}
+
+	/**
+	 * @see NetworkManager#rentBike(int, int, int, LocalDateTime, Network)
+	 */
+	public CompletableFuture<Void> rentBike(int userId, int stationId, int bikeType, LocalDateTime pickUpTime, Network net) {
+		return this.submit(net, () -> {
+			this.nm.rentBike(userId, stationId, bikeType, pickUpTime, net);
+			return null;
+		});
+	}
+
+	/**
+	 * @return a {@code CompletableFuture} completed with the price of the ride
+	 * @see NetworkManager#returnBike(int, int, LocalDateTime, Network)
+	 */
+	public CompletableFuture<Double> returnBike(int userId, int stationId, LocalDateTime returnTime, Network net) {
+		return this.submit(net, () -> this.nm.returnBike(userId, stationId, returnTime, net));
+	}
+
+	/**
+	 * This method calculates an itinerary for a user of a network, without setting it.
+	 * @param userId
+	 * @param start
+	 * @param arrival
+	 * @param ps a {@code PathStrategy} of the network
+	 * @param net
+	 * @return a {@code CompletableFuture} completed with the {@code Itinerary}
+	 * @see user.User#calculateItinerary(Point, Point, PathStrategy)
+	 */
+	public CompletableFuture<Itinerary> calculateItinerary(int userId, Point start, Point arrival, PathStrategy ps, Network net) {
+		return this.submit(net, () -> this.nm.findUserById(userId, net).calculateItinerary(start, arrival, TimedPathStrategy.of(ps, net)));
+	}
+
+	/**
+	 * @see #calculateItinerary(int, Point, Point, PathStrategy, Network)
+	 * @see user.User#calculateItinerary(Point, Point, PathStrategy, int)
+	 */
+	public CompletableFuture<Itinerary> calculateItinerary(int userId, Point start, Point arrival, PathStrategy ps, int bikeType, Network net) {
+		return this.submit(net, () -> this.nm.findUserById(userId, net).calculateItinerary(start, arrival, TimedPathStrategy.of(ps, net), bikeType));
+	}
+
+	/**
+	 * This method sets the itinerary of a user of a network, so that he is notified if the end station becomes full.
+	 * @param userId
+	 * @param itinerary the {@code Itinerary}, or {@code null} to remove the itinerary of the user
+	 * @param net
+	 * @see user.User#setItinerary(Itinerary)
+	 */
+	public CompletableFuture<Void> setItinerary(int userId, Itinerary itinerary, Network net) {
+		return this.submit(net, () -> {
+			this.nm.findUserById(userId, net).setItinerary(itinerary);
+			return null;
+		});
+	}
+
+	/**
+	 * This method stops accepting operations, and waits until the operations already submitted are over.
+	 */
+	@Override
+	public void close() {
+		this.closed = true;
+		for (ExecutorService ex : this.executors.values()) {
+			ex.shutdown();
+		}
+		try {
+			for (ExecutorService ex : this.executors.values()) {
+				ex.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
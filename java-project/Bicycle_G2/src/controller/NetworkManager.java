@@ -3,15 +3,25 @@
  */
 package controller;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Random;
 
 import bike.Bike;
 import bike.BikeFactory;
+import bike.BikeRegistry;
 import card.Card;
 import card.CardFactory;
+import controller.journal.InvalidJournalException;
+import controller.journal.Journal;
+import controller.journal.JournalRecord;
+import controller.journal.Snapshotter;
 import ride.Network;
+import ride.RideArchive;
 import sorting.station.SortingStrategy;
 import station.NoBikeAvailableException;
 import station.NoElectricBikeAvailableException;
@@ -19,6 +29,7 @@ import station.NoMechanicBikeAvailableException;
 import station.NoOngoingRideException;
 import station.NoSlotAvailableException;
 import station.OngoingRideException;
+import station.PlusStation;
 import station.Slot;
 import station.Station;
 import station.StationFactory;
@@ -32,6 +43,9 @@ import user.User;
 
 /**
  * This class provides the methods to set up a network and manage it, which is useful in both CLUI and GUI.
+ * <br> If a {@code Journal} is set, each change made by the methods of this class is written to it once the change has succeeded,
+ * and the method returns when the journal is on the disk. The networks can then be rebuilt with {@link #openJournal(File)},
+ * and a {@code Snapshotter} keeps the time to rebuild them short.
  * @author Pietro Dellino
  *
  */
@@ -41,11 +55,152 @@ public class NetworkManager {
 	public static final LocalDateTime ADDING_DATE = LocalDateTime.of(2019, 1, 1, 0, 1);
 
 	private ArrayList<Network> networks;
+	private HashMap<String, Network> networksByName;
+	private Journal journal;
+	private BikeRegistry bikeRegistry;
+	private HashMap<String, RideArchive> rideArchives;
+	private HashMap<String, Integer> recentRides;
+	private boolean restoring;
 	
-	public NetworkManager() { this.networks = new ArrayList<Network>(); }
+	public NetworkManager() {
+		this(new BikeRegistry());
+	}
+	
+	/**
+	 * This constructor creates a {@code NetworkManager} whose networks find their bikes in the given registry, which is cleared when the networks are reset.
+	 * Each {@code NetworkManager} must have its own registry: the copy of the networks built to write a snapshot, for instance,
+	 * must not change the bikes of the networks in use.
+	 * @param bikeRegistry
+	 */
+	public NetworkManager(BikeRegistry bikeRegistry) {
+		this.networks = new ArrayList<Network>();
+		this.networksByName = new HashMap<String, Network>();
+		this.bikeRegistry = bikeRegistry;
+		this.rideArchives = new HashMap<String, RideArchive>();
+		this.recentRides = new HashMap<String, Integer>();
+	}
+	
+	public BikeRegistry getBikeRegistry() { return bikeRegistry; }
 	
 	public ArrayList<Network> getNetworks() { return this.networks; }
 	
+	public Journal getJournal() { return journal; }
+	
+	/**
+	 * @param journal the {@code Journal} where the changes are written, or {@code null} to stop writing them
+	 */
+	public void setJournal(Journal journal) { this.journal = journal; }
+	
+	/**
+	 * This method rebuilds the networks from the last snapshot of a journal file and the journals written after it, and then writes the next changes at the end of this file.
+	 * If the file does not exist, it is created.
+	 * @param f
+	 * @return the {@code Journal} opened
+	 * @throws IOException
+	 * @throws InvalidJournalException if the file is not a journal
+	 * @see Snapshotter
+	 */
+	public Journal openJournal(File f) throws IOException, InvalidJournalException {
+		this.journal = null;
+		this.restoring = true;
+		try {
+			this.journal = Snapshotter.restore(this, f);
+		} finally {
+			this.restoring = false;
+		}
+		for (Network net : this.networks) {
+			this.attachRideArchive(net);
+		}
+		return this.journal;
+	}
+	
+	/**
+	 * This method makes the network of a given name write the rides that end to an archive stored in a directory, and only keep the last ones in its ride history.
+	 * <br> The archive is kept by the {@code NetworkManager}, and is attached to the network as soon as it exists: now, when it is set up,
+	 * or when it is rebuilt by {@link #openJournal(File)}. In this case, it is attached once the snapshot and the journals are replayed,
+	 * since the rides they contain were written to the archive when they ended. The archive is kept when the networks are reset.
+	 * @param netName
+	 * @param dir the directory of the archive, which is created if it does not exist
+	 * @param recentRides the number of rides kept in the ride history
+	 * @return the archive
+	 * @throws IOException if the archive cannot be opened
+	 * @see Network#setRideArchive(RideArchive, int)
+	 */
+	public RideArchive openRideArchive(String netName, File dir, int recentRides) throws IOException {
+		RideArchive archive = new RideArchive(dir);
+		RideArchive previous = this.rideArchives.put(netName, archive);
+		this.recentRides.put(netName, recentRides);
+		Network net = this.networksByName.get(netName);
+		if (net != null) {
+			this.attachRideArchive(net);
+		}
+		if (previous != null) {
+			previous.close();
+		}
+		return archive;
+	}
+	
+	private void attachRideArchive(Network net) {
+		RideArchive archive = this.rideArchives.get(net.getName());
+		if (archive != null) {
+			net.setRideArchive(archive, this.recentRides.get(net.getName()));
+		}
+	}
+	
+	/**
+	 * This method adds a record to the journal, if there is one. Since the change is already made, an error of the journal is thrown as an {@code UncheckedIOException}.
+	 * @param record
+	 */
+	private void log(JournalRecord record) {
+		if (this.journal != null) {
+			try {
+				this.journal.append(record);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+	
+	/**
+	 * This method waits until the records added to the journal are written on the disk.
+	 */
+	private void commit() {
+		if (this.journal != null) {
+			try {
+				this.journal.commit();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+	
+	private void logStation(Network net, Station s) {
+		if (this.journal != null) {
+			int index = this.networks.indexOf(net);
+			this.log(JournalRecord.station(index, s.getId(), s instanceof PlusStation, s.getP()));
+			this.logSlots(net, s, s.getParkingSlots().size());
+		}
+	}
+	
+	/**
+	 * This method adds the records of the last {@code n} slots of a station to the journal.
+	 */
+	private void logSlots(Network net, Station s, int n) {
+		if (this.journal != null) {
+			int index = this.networks.indexOf(net);
+			ArrayList<Slot> slots = s.getParkingSlots();
+			for (int i = slots.size() - n; i < slots.size(); i++) {
+				this.log(JournalRecord.slot(index, s.getId(), slots.get(i).getId()));
+			}
+		}
+	}
+	
+	private void logBike(Network net, Slot sl, Bike b, int bikeType, LocalDateTime changeTime) {
+		if (this.journal != null) {
+			this.log(JournalRecord.bike(this.networks.indexOf(net), sl.getId(), b.getId(), bikeType, changeTime));
+		}
+	}
+	
 	/**
 	 * This method returns a {@code Network} object with 10 stations placed in a square area of size 4km, each station has 10 slots and the occupation rate of the network is 75%.
 	 * @param name ({@code String}) The name of the network
@@ -71,12 +226,16 @@ public class NetworkManager {
 	 */
 	public Network setupNetwork(String name, int nStation, int nSlot, double s, int nBikes) throws ExistingNameException {
 		Network net = new Network(name);
-		for (Network n : this.networks) {
-			if (net.getName().equals(n.getName())) {
-				throw new ExistingNameException(name);
-			}
+		net.setBikeRegistry(this.bikeRegistry);
+		if (this.networksByName.containsKey(name)) {
+			throw new ExistingNameException(name);
 		}
 		this.networks.add(net);
+		this.networksByName.put(name, net);
+		if (!this.restoring) {
+			this.attachRideArchive(net);
+		}
+		this.log(JournalRecord.network(name));
 		Random rand = new Random();
 		StationFactory sf = new StationFactory(net);
 		Point[] points = this.getPointDistribution(nStation, s);
@@ -91,6 +250,7 @@ public class NetworkManager {
 				e.printStackTrace();
 			}
 			station.addSlot(nSlot);
+			this.logStation(net, station);
 		}
 		for (int i = 0; i < nBikes; i++) {
 			Station randomStation = net.getStations().get(rand.nextInt(nStation));
@@ -100,6 +260,7 @@ public class NetworkManager {
 				this.addBike(randomStation, BikeFactory.MECHANIC, ADDING_DATE);
 			}
 		}
+		this.commit();
 		return net;
 	}
 	
@@ -115,6 +276,7 @@ public class NetworkManager {
 			try {
 				Bike b = BikeFactory.createBike(bikeType);
 				slot.setBike(b, changeTime);
+				this.logBike(s.getNet(), slot, b, bikeType, changeTime);
 			} catch (NegativeTimeException e) {
 				System.out.println("This shouldn't happen");
 				e.printStackTrace();
@@ -155,10 +317,11 @@ public class NetworkManager {
 	 * @throws InexistingNetworkNameException
 	 */
 	public Network findNetworkByName(String name) throws InexistingNetworkNameException {
-		for (Network n : this.networks) {
-			if (name.equals(n.getName())) { return n; }
+		Network n = this.networksByName.get(name);
+		if (n == null) {
+			throw new InexistingNetworkNameException(name);
 		}
-		throw new InexistingNetworkNameException(name);
+		return n;
 	}
 	
 	/**
@@ -169,10 +332,11 @@ public class NetworkManager {
 	 * @throws InexistingStationIdException
 	 */
 	public Station findStationByID(int id, Network net) throws InexistingStationIdException {
-		for (Station s : net.getStations()) {
-			if (s.getId() == id) { return s; }
+		Station s = net.getStationById(id);
+		if (s == null) {
+			throw new InexistingStationIdException(id, net);
 		}
-		throw new InexistingStationIdException(id, net);
+		return s;
 	}
 
 	/**
@@ -186,7 +350,11 @@ public class NetworkManager {
 		User user = new User(userName);
 		Network net = this.findNetworkByName(networkName);
 		CardFactory cf = new CardFactory(net);
-		cf.createCard(cardType, user);
+		Card card = cf.createCard(cardType, user);
+		if (card != null) {
+			this.log(JournalRecord.user(this.networks.indexOf(net), user.getId(), card.getId(), userName, cardType));
+		}
+		this.commit();
 	}
 	
 	/**
@@ -200,6 +368,8 @@ public class NetworkManager {
 		Network net = this.findNetworkByName(networkName);
 		Station s = this.findStationByID(stationID, net);
 		s.setOnline(false);
+		this.log(JournalRecord.stationOnline(this.networks.indexOf(net), stationID, false));
+		this.commit();
 	}
 	
 	/**
@@ -213,6 +383,8 @@ public class NetworkManager {
 		Network net = this.findNetworkByName(networkName);
 		Station s = this.findStationByID(stationID, net);
 		s.setOnline(true);
+		this.log(JournalRecord.stationOnline(this.networks.indexOf(net), stationID, true));
+		this.commit();
 	}
 	
 	/**
@@ -223,17 +395,7 @@ public class NetworkManager {
 	 * @throws InexistingUserIdException
 	 */
 	public User findUserById(int id, Network net) throws InexistingUserIdException {
-		User user = null;
-		for (Card c : net.getCards()) {
-			if (c.getUser().getId() == id) {
-				user = c.getUser();
-			}
-		}
-		if (user == null) {
-			throw new InexistingUserIdException(id);
-		} else {
-			return user;
-		}
+		return this.findCardByUserId(id, net).getUser();
 	}
 	
 	/**
@@ -244,17 +406,11 @@ public class NetworkManager {
 	 * @throws InexistingUserIdException
 	 */
 	public Card findCardByUserId(int id, Network net) throws InexistingUserIdException {
-		Card card = null;
-		for (Card c : net.getCards()) {
-			if (c.getUser().getId() == id) {
-				card = c;
-			}
-		}
+		Card card = net.getCardByUserId(id);
 		if (card == null) {
 			throw new InexistingUserIdException(id);
-		} else {
-			return card;
 		}
+		return card;
 	}
 	
 	/**
@@ -271,9 +427,18 @@ public class NetworkManager {
 	 * @throws StationOfflineException
 	 */
 	public void rentBike(int userId, int stationId, LocalDateTime pickUpTime, Network net) throws InexistingUserIdException, InexistingStationIdException, NegativeTimeException, OngoingRideException, NoBikeAvailableException, StationOfflineException {
-		Card card = this.findCardByUserId(userId, net);
-		Station station = this.findStationByID(stationId, net);
-		station.pickUpBike(card, pickUpTime);
+		long start = System.nanoTime();
+		try {
+			Card card = this.findCardByUserId(userId, net);
+			Station station = this.findStationByID(stationId, net);
+			station.pickUpBike(card, pickUpTime);
+		} catch (Exception e) {
+			net.getMetrics().rent(System.nanoTime() - start, e);
+			throw e;
+		}
+		net.getMetrics().rent(System.nanoTime() - start, null);
+		this.log(JournalRecord.rentBike(this.networks.indexOf(net), userId, stationId, 0, pickUpTime));
+		this.commit();
 	}
 	
 	/**
@@ -292,13 +457,24 @@ public class NetworkManager {
 	 * @throws NoMechanicBikeAvailableException
 	 */
 	public void rentBike(int userId, int stationId, int bikeType, LocalDateTime pickUpTime, Network net) throws InexistingUserIdException, InexistingStationIdException, NegativeTimeException, NoElectricBikeAvailableException, OngoingRideException, StationOfflineException, NoMechanicBikeAvailableException {
-		Card card = this.findCardByUserId(userId, net);
-		Station station = this.findStationByID(stationId, net);
-		if (bikeType == BikeFactory.ELECTRIC) {
-			station.pickUpElectricBike(card, pickUpTime);
-		} else if (bikeType == BikeFactory.MECHANIC) {
-			station.pickUpMechanicBike(card, pickUpTime);
+		long start = System.nanoTime();
+		try {
+			Card card = this.findCardByUserId(userId, net);
+			Station station = this.findStationByID(stationId, net);
+			if (bikeType == BikeFactory.ELECTRIC) {
+				station.pickUpElectricBike(card, pickUpTime);
+			} else if (bikeType == BikeFactory.MECHANIC) {
+				station.pickUpMechanicBike(card, pickUpTime);
+			} else {
+				return;
+			}
+		} catch (Exception e) {
+			net.getMetrics().rent(System.nanoTime() - start, e);
+			throw e;
 		}
+		net.getMetrics().rent(System.nanoTime() - start, null);
+		this.log(JournalRecord.rentBike(this.networks.indexOf(net), userId, stationId, bikeType, pickUpTime));
+		this.commit();
 	}
 	
 	/**
@@ -317,9 +493,19 @@ public class NetworkManager {
 	 * @throws OngoingRideException 
 	 */
 	public double returnBike(int userId, int stationId, LocalDateTime returnTime, Network net) throws InexistingUserIdException, InexistingStationIdException, NegativeTimeException, NullDateException, NoSlotAvailableException, NoOngoingRideException, StationOfflineException, OngoingRideException {
-		Card card = this.findCardByUserId(userId, net);
-		Station station = this.findStationByID(stationId, net);
-		double price = station.dropBike(card, returnTime);
+		long start = System.nanoTime();
+		double price;
+		try {
+			Card card = this.findCardByUserId(userId, net);
+			Station station = this.findStationByID(stationId, net);
+			price = station.dropBike(card, returnTime);
+		} catch (Exception e) {
+			net.getMetrics().giveBack(System.nanoTime() - start, e);
+			throw e;
+		}
+		net.getMetrics().giveBack(System.nanoTime() - start, null);
+		this.log(JournalRecord.returnBike(this.networks.indexOf(net), userId, stationId, returnTime));
+		this.commit();
 		return price;
 	}
 	
@@ -331,26 +517,11 @@ public class NetworkManager {
 	 * @throws InexistingSlotIdException
 	 */
 	public Slot findSlotById(int id, Network net) throws InexistingSlotIdException {
-		int stationId = id/1000;
-		Station s = null;
-		Slot sl = null;
-		try {
-			s = this.findStationByID(stationId, net);
-		} catch (InexistingStationIdException e) {
-			throw new InexistingSlotIdException(id);
-		}
-		if (s != null) {
-			for (Slot slot : s.getParkingSlots()) {
-				if (slot.getId() == id) {
-					sl = slot;
-				}
-			}
-		}
-		if (sl != null) {
-			return sl;
-		} else {
+		Slot sl = net.getSlotById(id);
+		if (sl == null) {
 			throw new InexistingSlotIdException(id);
 		}
+		return sl;
 	}
 	
 	/**
@@ -366,6 +537,8 @@ public class NetworkManager {
 		Network net = this.findNetworkByName(networkName);
 		Slot s = this.findSlotById(slotID, net);
 		s.setOnline(true, changeTime);
+		this.log(JournalRecord.slotOnline(this.networks.indexOf(net), slotID, true, changeTime));
+		this.commit();
 	}
 	
 	/**
@@ -381,6 +554,8 @@ public class NetworkManager {
 		Network net = this.findNetworkByName(networkName);
 		Slot s = this.findSlotById(slotID, net);
 		s.setOnline(false, changeTime);
+		this.log(JournalRecord.slotOnline(this.networks.indexOf(net), slotID, false, changeTime));
+		this.commit();
 	}
 
 	/**
@@ -393,6 +568,8 @@ public class NetworkManager {
 	public void addSlot(Network net, int stationID, int numSlots) throws InexistingStationIdException {
 		Station s = this.findStationByID(stationID, net);
 		s.addSlot(numSlots);
+		this.logSlots(net, s, numSlots);
+		this.commit();
 	}
 	
 	/**
@@ -408,6 +585,8 @@ public class NetworkManager {
 		StationFactory sf = new StationFactory(net);
 		Station s = sf.createStation("Standard", new Point(x, y));
 		s.addSlot(numSlots);
+		this.logStation(net, s);
+		this.commit();
 	}
 	
 	/**
@@ -423,6 +602,8 @@ public class NetworkManager {
 		StationFactory sf = new StationFactory(net);
 		Station s = sf.createStation("Plus", new Point(x, y));
 		s.addSlot(numSlots);
+		this.logStation(net, s);
+		this.commit();
 	}
 	
 	/**
@@ -437,8 +618,10 @@ public class NetworkManager {
 			Slot sl = s.availableSlot();
 			if (sl != null) {
 				sl.setBike(b, changeTime);
+				this.logBike(net, sl, b, BikeFactory.ELECTRIC, changeTime);
 			}
 		}
+		this.commit();
 	}
 	
 	public void addElectricBike(Network net, Station st, LocalDateTime changeTime) throws NoSlotAvailableException {
@@ -446,6 +629,7 @@ public class NetworkManager {
 			throw new NoSlotAvailableException();
 		} else {
 			this.addBike(st, BikeFactory.ELECTRIC, changeTime);
+			this.commit();
 		}
 	}
 	
@@ -454,6 +638,7 @@ public class NetworkManager {
 			throw new NoSlotAvailableException();
 		} else {
 			this.addBike(st, BikeFactory.MECHANIC, changeTime);
+			this.commit();
 		}
 	}
 	
@@ -469,8 +654,10 @@ public class NetworkManager {
 			Slot sl = s.availableSlot();
 			if (sl != null) {
 				sl.setBike(b, changeTime);
+				this.logBike(net, sl, b, BikeFactory.MECHANIC, changeTime);
 			}
 		}
+		this.commit();
 	}
 	
 	/**
@@ -484,10 +671,14 @@ public class NetworkManager {
 	}
 	
 	/**
-	 * This function resets the networks.
+	 * This function resets the networks, and forgets the bikes they had.
 	 */
 	public void resetNetworks() {
 		this.networks = new ArrayList<Network>();
+		this.networksByName = new HashMap<String, Network>();
+		this.bikeRegistry.clear();
+		this.log(JournalRecord.reset());
+		this.commit();
 	}
 
 }
@@ -0,0 +1,26 @@
+package controller.journal;
+
+import java.io.File;
+
+/**
+ * This exception is thrown when a file that is read as a journal does not start like a journal.
+ * @author Pietro Dellino
+ *
+ */
+public class InvalidJournalException extends Exception {
+
+	/**
+	 * Generated by Papyrus
+	 */
+	private static final long serialVersionUID = 4127315306951748307L;
+	private File file;
+
+	public InvalidJournalException(File file) { this.file = file; }
+
+	@Override
+	public String getMessage() {
+		String message = "The file " + this.file.getPath() + " is not a journal.";
+		return message;
+	}
+
+}
@@ -0,0 +1,222 @@
+package controller.journal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+
+/**
+ * This class writes the changes of state of a {@code NetworkManager} to an append-only file, so that the networks can be rebuilt after a restart.
+ * <br> The records are written by batches: the records appended while a batch is written to the disk form the next batch (group commit),
+ * so that the cost of forcing the file to the disk is shared by all of them. A batch is written as its length, its CRC32 and its records,
+ * and a batch that was not completely written (if the application stopped while writing it) is ignored when the journal is read.
+ * <br> {@link #append(JournalRecord)} does not wait for the record to be written, {@link #commit()} waits until all the records appended before are on the disk.
+ * <br> The file starts with the generation of the journal. When a snapshot is taken, the journal is rotated: the file is renamed
+ * and the next records are written to a new file with the next generation, so that the old file can be deleted once the snapshot is written.
+ * @author Pietro Dellino
+ * @see JournalRecord
+ * @see JournalReader
+ */
+public class Journal implements Closeable {
+
+	/**
+	 * The first bytes of a journal file.
+	 */
+	static final byte[] MAGIC = {'V', 'L', 'I', 'B', 'J', 'N', 'L', '1'};
+
+	/**
+	 * The length of the magic bytes and of the generation.
+	 */
+	static final int HEADER_LENGTH = MAGIC.length + 8;
+
+	private File path;
+	private long generation;
+	private RandomAccessFile file;
+	private FileChannel channel;
+	private ByteArrayOutputStream buffer;
+	private DataOutputStream data;
+	private long appended;
+	private long written;
+	private boolean closed;
+	private IOException error;
+	private Thread writer;
+
+	/**
+	 * This constructor opens a journal file to add records at the end of it. The file is cut at {@code validLength}, so that an incomplete batch
+	 * at the end of the file is removed.
+	 * @param f
+	 * @param validLength the length of the valid part of the file, as returned by {@link JournalReader#getValidLength()}, or 0 for a new journal
+	 * @param generation the generation of the journal, as returned by {@link JournalReader#getGeneration()} for an existing journal
+	 * @throws IOException
+	 */
+	public Journal(File f, long validLength, long generation) throws IOException {
+		this.path = f;
+		this.generation = generation;
+		this.open(validLength);
+		this.buffer = new ByteArrayOutputStream();
+		this.data = new DataOutputStream(this.buffer);
+		this.writer = new Thread(this::writeBatches, "journal-writer");
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	/**
+	 * This method opens the file of the journal, and writes its header if the file is new.
+	 * @param validLength
+	 * @throws IOException
+	 */
+	private void open(long validLength) throws IOException {
+		this.file = new RandomAccessFile(this.path, "rw");
+		this.channel = this.file.getChannel();
+		if (validLength < HEADER_LENGTH) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+			header.put(MAGIC);
+			header.putLong(this.generation);
+			header.flip();
+			this.channel.truncate(0);
+			this.channel.write(header, 0);
+			this.channel.force(true);
+			validLength = HEADER_LENGTH;
+		} else {
+			this.channel.truncate(validLength);
+		}
+		this.channel.position(validLength);
+	}
+
+	public File getFile() { return path; }
+
+	public synchronized long getGeneration() { return generation; }
+
+	/**
+	 * This method renames the file of the journal, once all the records appended are written, and starts a new file with the next generation.
+	 * The records appended during the rotation are written to the new file.
+	 * @param archive the new name of the current file
+	 * @return the generation of the new file
+	 * @throws IOException
+	 */
+	public synchronized long rotate(File archive) throws IOException {
+		boolean interrupted = false;
+		while (this.written < this.appended && this.error == null) {
+			try {
+				this.wait();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) Thread.currentThread().interrupt();
+		if (this.error != null) throw this.error;
+		if (this.closed) throw new IOException("The journal is closed");
+		this.file.close();
+		Files.move(this.path.toPath(), archive.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		this.generation++;
+		this.open(0);
+		return this.generation;
+	}
+
+	/**
+	 * This method adds a record to the next batch. It does not wait for the record to be written.
+	 * @param record
+	 * @throws IOException if the journal is closed or could not be written
+	 */
+	public synchronized void append(JournalRecord record) throws IOException {
+		if (this.error != null) throw this.error;
+		if (this.closed) throw new IOException("The journal is closed");
+		record.write(this.data);
+		this.appended++;
+		this.notifyAll();
+	}
+
+	/**
+	 * This method waits until all the records appended before are written on the disk.
+	 * @throws IOException if the journal could not be written
+	 */
+	public synchronized void commit() throws IOException {
+		long target = this.appended;
+		boolean interrupted = false;
+		while (this.written < target && this.error == null) {
+			try {
+				this.wait();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) Thread.currentThread().interrupt();
+		if (this.error != null) throw this.error;
+	}
+
+	/**
+	 * This method is run by the writer thread: it writes the pending records as a batch and forces them to the disk, until the journal is closed.
+	 */
+	private void writeBatches() {
+		CRC32 crc = new CRC32();
+		while (true) {
+			byte[] batch;
+			long target;
+			FileChannel ch;
+			synchronized (this) {
+				while (this.buffer.size() == 0 && !this.closed) {
+					try {
+						this.wait();
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+				if (this.buffer.size() == 0) return;
+				batch = this.buffer.toByteArray();
+				this.buffer.reset();
+				target = this.appended;
+				ch = this.channel;
+			}
+			try {
+				crc.reset();
+				crc.update(batch, 0, batch.length);
+				ByteBuffer bytes = ByteBuffer.allocate(8 + batch.length);
+				bytes.putInt(batch.length);
+				bytes.putInt((int) crc.getValue());
+				bytes.put(batch);
+				bytes.flip();
+				while (bytes.hasRemaining()) {
+					ch.write(bytes);
+				}
+				ch.force(false);
+				synchronized (this) {
+					this.written = target;
+					this.notifyAll();
+				}
+			} catch (IOException e) {
+				synchronized (this) {
+					this.error = e;
+					this.notifyAll();
+				}
+				return;
+			}
+		}
+	}
+
+	/**
+	 * This method writes the pending records and closes the file.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			if (this.closed) return;
+			this.closed = true;
+			this.notifyAll();
+		}
+		try {
+			this.writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		this.file.close();
+		if (this.error != null) throw this.error;
+	}
+
+}
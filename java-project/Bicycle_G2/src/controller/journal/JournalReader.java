@@ -0,0 +1,106 @@
+package controller.journal;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * This class reads the records of a journal file written by a {@code Journal}, batch by batch.
+ * The reading stops at the first batch that is incomplete or whose CRC32 is wrong: it is the batch that was being written when the application stopped.
+ * @author Pietro Dellino
+ * @see Journal
+ */
+public class JournalReader implements AutoCloseable {
+
+	private DataInputStream in;
+	private long generation;
+	private long validLength;
+	private boolean ended;
+
+	/**
+	 * @param f
+	 * @throws IOException if the file cannot be opened
+	 * @throws InvalidJournalException if the file is not a journal
+	 */
+	public JournalReader(File f) throws IOException, InvalidJournalException {
+		this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)));
+		byte[] magic = new byte[Journal.MAGIC.length];
+		try {
+			this.in.readFully(magic);
+		} catch (EOFException e) {
+			this.ended = true;
+			return;
+		}
+		if (!Arrays.equals(magic, Journal.MAGIC)) {
+			this.in.close();
+			throw new InvalidJournalException(f);
+		}
+		try {
+			this.generation = this.in.readLong();
+		} catch (EOFException e) {
+			this.ended = true;
+			return;
+		}
+		this.validLength = Journal.HEADER_LENGTH;
+	}
+
+	/**
+	 * @return the generation written at the start of the journal, or 0 if the file is empty
+	 */
+	public long getGeneration() { return generation; }
+
+	/**
+	 * @return the length of the part of the file that was read and is valid
+	 */
+	public long getValidLength() { return validLength; }
+
+	/**
+	 * This method reads the next batch of records.
+	 * @return the records of the batch, or {@code null} if there is no more valid batch
+	 * @throws IOException
+	 */
+	public ArrayList<JournalRecord> nextBatch() throws IOException {
+		if (this.ended) return null;
+		byte[] batch;
+		int checksum;
+		try {
+			int length = this.in.readInt();
+			checksum = this.in.readInt();
+			if (length < 0) {
+				this.ended = true;
+				return null;
+			}
+			batch = new byte[length];
+			this.in.readFully(batch);
+		} catch (EOFException e) {
+			this.ended = true;
+			return null;
+		}
+		CRC32 crc = new CRC32();
+		crc.update(batch, 0, batch.length);
+		if ((int) crc.getValue() != checksum) {
+			this.ended = true;
+			return null;
+		}
+		ArrayList<JournalRecord> records = new ArrayList<JournalRecord>();
+		DataInputStream batchIn = new DataInputStream(new ByteArrayInputStream(batch));
+		while (batchIn.available() > 0) {
+			records.add(JournalRecord.read(batchIn));
+		}
+		this.validLength += 8 + batch.length;
+		return records;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.in.close();
+	}
+
+}
@@ -0,0 +1,330 @@
+package controller.journal;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import tools.Point;
+
+/**
+ * This class represents a change of state of a {@code NetworkManager}, as it is written in the {@code Journal}.
+ * <br> The networks are identified by their index in the list of networks of the {@code NetworkManager}, and the stations, slots, bikes, users
+ * and cards by the ids they had when the record was written. Each type of record only uses some of the attributes, the others are 0 or {@code null}.
+ * @author Pietro Dellino
+ * @see Journal
+ * @see JournalReplayer
+ */
+public class JournalRecord {
+
+	public static final byte NETWORK = 1;
+	public static final byte STATION = 2;
+	public static final byte SLOT = 3;
+	public static final byte BIKE = 4;
+	public static final byte USER = 5;
+	public static final byte STATION_ONLINE = 6;
+	public static final byte SLOT_ONLINE = 7;
+	public static final byte RENT = 8;
+	public static final byte RETURN = 9;
+	public static final byte RESET = 10;
+
+	private byte type;
+	private int network;
+	private int stationId;
+	private int slotId;
+	private int userId;
+	private int bikeId;
+	private int cardId;
+	private int value;
+	private double x;
+	private double y;
+	private LocalDateTime time;
+	private String name;
+
+	private JournalRecord(byte type, int network) {
+		this.type = type;
+		this.network = network;
+	}
+
+	/**
+	 * @param name
+	 * @return the record of the creation of an empty network
+	 */
+	public static JournalRecord network(String name) {
+		JournalRecord r = new JournalRecord(NETWORK, 0);
+		r.name = name;
+		return r;
+	}
+
+	/**
+	 * @param network
+	 * @param stationId
+	 * @param plus whether the station is a {@code PlusStation}
+	 * @param p
+	 * @return the record of the creation of a station without slots
+	 */
+	public static JournalRecord station(int network, int stationId, boolean plus, Point p) {
+		JournalRecord r = new JournalRecord(STATION, network);
+		r.stationId = stationId;
+		r.value = plus ? 1 : 0;
+		r.x = p.getX();
+		r.y = p.getY();
+		return r;
+	}
+
+	/**
+	 * @param network
+	 * @param stationId
+	 * @param slotId
+	 * @return the record of the creation of a slot
+	 */
+	public static JournalRecord slot(int network, int stationId, int slotId) {
+		JournalRecord r = new JournalRecord(SLOT, network);
+		r.stationId = stationId;
+		r.slotId = slotId;
+		return r;
+	}
+
+	/**
+	 * @param network
+	 * @param slotId
+	 * @param bikeId
+	 * @param bikeType a constant of {@code BikeFactory}
+	 * @param time
+	 * @return the record of a new bike parked on a slot
+	 */
+	public static JournalRecord bike(int network, int slotId, int bikeId, int bikeType, LocalDateTime time) {
+		JournalRecord r = new JournalRecord(BIKE, network);
+		r.slotId = slotId;
+		r.bikeId = bikeId;
+		r.value = bikeType;
+		r.time = time;
+		return r;
+	}
+
+	/**
+	 * @param network
+	 * @param userId
+	 * @param cardId
+	 * @param userName
+	 * @param cardType a constant of {@code CardFactory}
+	 * @return the record of a new user and its card
+	 */
+	public static JournalRecord user(int network, int userId, int cardId, String userName, int cardType) {
+		JournalRecord r = new JournalRecord(USER, network);
+		r.userId = userId;
+		r.cardId = cardId;
+		r.name = userName;
+		r.value = cardType;
+		return r;
+	}
+
+	public static JournalRecord stationOnline(int network, int stationId, boolean online) {
+		JournalRecord r = new JournalRecord(STATION_ONLINE, network);
+		r.stationId = stationId;
+		r.value = online ? 1 : 0;
+		return r;
+	}
+
+	public static JournalRecord slotOnline(int network, int slotId, boolean online, LocalDateTime time) {
+		JournalRecord r = new JournalRecord(SLOT_ONLINE, network);
+		r.slotId = slotId;
+		r.value = online ? 1 : 0;
+		r.time = time;
+		return r;
+	}
+
+	/**
+	 * @param network
+	 * @param userId
+	 * @param stationId
+	 * @param bikeType a constant of {@code BikeFactory}, or 0 if the type of the bike was not chosen
+	 * @param time
+	 * @return the record of a bike rental
+	 */
+	public static JournalRecord rentBike(int network, int userId, int stationId, int bikeType, LocalDateTime time) {
+		JournalRecord r = new JournalRecord(RENT, network);
+		r.userId = userId;
+		r.stationId = stationId;
+		r.value = bikeType;
+		r.time = time;
+		return r;
+	}
+
+	public static JournalRecord returnBike(int network, int userId, int stationId, LocalDateTime time) {
+		JournalRecord r = new JournalRecord(RETURN, network);
+		r.userId = userId;
+		r.stationId = stationId;
+		r.time = time;
+		return r;
+	}
+
+	/**
+	 * @return the record of the reset of all the networks
+	 */
+	public static JournalRecord reset() {
+		return new JournalRecord(RESET, 0);
+	}
+
+	public byte getType() { return type; }
+
+	public int getNetwork() { return network; }
+
+	public int getStationId() { return stationId; }
+
+	public int getSlotId() { return slotId; }
+
+	public int getUserId() { return userId; }
+
+	public int getBikeId() { return bikeId; }
+
+	public int getCardId() { return cardId; }
+
+	public int getValue() { return value; }
+
+	public Point getPoint() { return new Point(x, y); }
+
+	public LocalDateTime getTime() { return time; }
+
+	public String getName() { return name; }
+
+	static void writeTime(DataOutputStream out, LocalDateTime t) throws IOException {
+		out.writeLong(t.toEpochSecond(ZoneOffset.UTC));
+		out.writeInt(t.getNano());
+	}
+
+	static LocalDateTime readTime(DataInputStream in) throws IOException {
+		long seconds = in.readLong();
+		int nanos = in.readInt();
+		return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+	}
+
+	/**
+	 * This method writes the record: its type, and then the attributes used by this type.
+	 * @param out
+	 * @throws IOException
+	 */
+	void write(DataOutputStream out) throws IOException {
+		out.writeByte(this.type);
+		switch (this.type) {
+		case NETWORK:
+			out.writeUTF(this.name);
+			break;
+		case STATION:
+			out.writeInt(this.network);
+			out.writeInt(this.stationId);
+			out.writeByte(this.value);
+			out.writeDouble(this.x);
+			out.writeDouble(this.y);
+			break;
+		case SLOT:
+			out.writeInt(this.network);
+			out.writeInt(this.stationId);
+			out.writeInt(this.slotId);
+			break;
+		case BIKE:
+			out.writeInt(this.network);
+			out.writeInt(this.slotId);
+			out.writeInt(this.bikeId);
+			out.writeByte(this.value);
+			writeTime(out, this.time);
+			break;
+		case SLOT_ONLINE:
+			out.writeInt(this.network);
+			out.writeInt(this.slotId);
+			out.writeByte(this.value);
+			writeTime(out, this.time);
+			break;
+		case USER:
+			out.writeInt(this.network);
+			out.writeInt(this.userId);
+			out.writeInt(this.cardId);
+			out.writeByte(this.value);
+			out.writeUTF(this.name);
+			break;
+		case STATION_ONLINE:
+			out.writeInt(this.network);
+			out.writeInt(this.stationId);
+			out.writeByte(this.value);
+			break;
+		case RENT:
+		case RETURN:
+			out.writeInt(this.network);
+			out.writeInt(this.userId);
+			out.writeInt(this.stationId);
+			out.writeByte(this.value);
+			writeTime(out, this.time);
+			break;
+		}
+	}
+
+	/**
+	 * This method reads a record written by {@link #write(DataOutputStream)}.
+	 * @param in
+	 * @return the record read
+	 * @throws IOException if the type of the record is unknown
+	 */
+	static JournalRecord read(DataInputStream in) throws IOException {
+		byte type = in.readByte();
+		JournalRecord r;
+		switch (type) {
+		case NETWORK:
+			r = new JournalRecord(type, 0);
+			r.name = in.readUTF();
+			break;
+		case STATION:
+			r = new JournalRecord(type, in.readInt());
+			r.stationId = in.readInt();
+			r.value = in.readByte();
+			r.x = in.readDouble();
+			r.y = in.readDouble();
+			break;
+		case SLOT:
+			r = new JournalRecord(type, in.readInt());
+			r.stationId = in.readInt();
+			r.slotId = in.readInt();
+			break;
+		case BIKE:
+			r = new JournalRecord(type, in.readInt());
+			r.slotId = in.readInt();
+			r.bikeId = in.readInt();
+			r.value = in.readByte();
+			r.time = readTime(in);
+			break;
+		case SLOT_ONLINE:
+			r = new JournalRecord(type, in.readInt());
+			r.slotId = in.readInt();
+			r.value = in.readByte();
+			r.time = readTime(in);
+			break;
+		case USER:
+			r = new JournalRecord(type, in.readInt());
+			r.userId = in.readInt();
+			r.cardId = in.readInt();
+			r.value = in.readByte();
+			r.name = in.readUTF();
+			break;
+		case STATION_ONLINE:
+			r = new JournalRecord(type, in.readInt());
+			r.stationId = in.readInt();
+			r.value = in.readByte();
+			break;
+		case RENT:
+		case RETURN:
+			r = new JournalRecord(type, in.readInt());
+			r.userId = in.readInt();
+			r.stationId = in.readInt();
+			r.value = in.readByte();
+			r.time = readTime(in);
+			break;
+		case RESET:
+			r = new JournalRecord(type, 0);
+			break;
+		default:
+			throw new IOException("Unknown journal record type: " + type);
+		}
+		return r;
+	}
+
+}
@@ -0,0 +1,127 @@
+package controller.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import bike.BikeFactory;
+import card.CardFactory;
+import controller.NetworkManager;
+import ride.Network;
+import station.Slot;
+import station.Station;
+import station.StationFactory;
+import tools.Point;
+import user.User;
+
+/**
+ * This class rebuilds the networks of a {@code NetworkManager} by applying the records of a journal, in the order in which they were written.
+ * <br> The stations, bikes, users and cards are created again with the ids written in the journal, so that the records written after a replay
+ * can be replayed too. The records are applied with the methods of the {@code NetworkManager},
+ * so the rides, the prices and the credits of the cards are computed again.
+ * <br> The journal of the {@code NetworkManager} must not be set during the replay, otherwise the records would be written twice.
+ * @author Pietro Dellino
+ * @see Journal
+ */
+public class JournalReplayer {
+
+	private NetworkManager nm;
+
+	public JournalReplayer(NetworkManager nm) {
+		this.nm = nm;
+	}
+
+	/**
+	 * This method applies all the valid records of a journal file.
+	 * @param f
+	 * @return the length of the valid part of the file, to open the {@code Journal} after the last valid batch, or 0 if the file does not exist
+	 * @throws IOException if the file cannot be read or a record cannot be applied
+	 * @throws InvalidJournalException if the file is not a journal
+	 */
+	public long replay(File f) throws IOException, InvalidJournalException {
+		if (!f.exists()) return 0;
+		try (JournalReader reader = new JournalReader(f)) {
+			this.replay(reader);
+			return reader.getValidLength();
+		}
+	}
+
+	/**
+	 * This method applies all the valid records that remain to be read by a {@code JournalReader}.
+	 * @param reader
+	 * @throws IOException if the file cannot be read or a record cannot be applied
+	 */
+	public void replay(JournalReader reader) throws IOException {
+		ArrayList<JournalRecord> batch;
+		while ((batch = reader.nextBatch()) != null) {
+			for (JournalRecord r : batch) {
+				try {
+					this.apply(r);
+				} catch (IOException e) {
+					throw e;
+				} catch (Exception e) {
+					throw new IOException("The record of type " + r.getType() + " cannot be applied", e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * This method applies one record.
+	 * @param r
+	 * @throws Exception the exception thrown by the {@code NetworkManager} if the record cannot be applied
+	 */
+	public void apply(JournalRecord r) throws Exception {
+		Network net = null;
+		if (r.getType() != JournalRecord.NETWORK && r.getType() != JournalRecord.RESET) {
+			if (r.getNetwork() < 0 || r.getNetwork() >= this.nm.getNetworks().size()) {
+				throw new IOException("Unknown network in the journal: " + r.getNetwork());
+			}
+			net = this.nm.getNetworks().get(r.getNetwork());
+		}
+		switch (r.getType()) {
+		case JournalRecord.NETWORK:
+			this.nm.setupNetwork(r.getName(), 0, 0, 1, 0);
+			break;
+		case JournalRecord.STATION:
+			StationFactory sf = new StationFactory(net);
+			sf.createStation(r.getValue() == 1 ? "Plus" : "Standard", r.getPoint(), r.getStationId());
+			break;
+		case JournalRecord.SLOT:
+			Station st = this.nm.findStationByID(r.getStationId(), net);
+			st.addSlot();
+			ArrayList<Slot> stationSlots = st.getParkingSlots();
+			if (stationSlots.get(stationSlots.size() - 1).getId() != r.getSlotId()) {
+				throw new IOException("The slot " + r.getSlotId() + " of the journal cannot be created again");
+			}
+			break;
+		case JournalRecord.BIKE:
+			this.nm.findSlotById(r.getSlotId(), net).setBike(BikeFactory.createBike(r.getValue(), r.getBikeId()), r.getTime());
+			break;
+		case JournalRecord.USER:
+			User u = new User(r.getUserId(), r.getName(), new Point(0, 0));
+			new CardFactory(net).createCard(r.getValue(), u, r.getCardId());
+			break;
+		case JournalRecord.STATION_ONLINE:
+			this.nm.findStationByID(r.getStationId(), net).setOnline(r.getValue() == 1);
+			break;
+		case JournalRecord.SLOT_ONLINE:
+			this.nm.findSlotById(r.getSlotId(), net).setOnline(r.getValue() == 1, r.getTime());
+			break;
+		case JournalRecord.RENT:
+			if (r.getValue() == 0) {
+				this.nm.rentBike(r.getUserId(), r.getStationId(), r.getTime(), net);
+			} else {
+				this.nm.rentBike(r.getUserId(), r.getStationId(), r.getValue(), r.getTime(), net);
+			}
+			break;
+		case JournalRecord.RETURN:
+			this.nm.returnBike(r.getUserId(), r.getStationId(), r.getTime(), net);
+			break;
+		case JournalRecord.RESET:
+			this.nm.resetNetworks();
+			break;
+		}
+	}
+
+}
@@ -0,0 +1,313 @@
+package controller.journal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import bike.Bike;
+import bike.BikeFactory;
+import bike.ElectricBike;
+import card.Card;
+import card.CardFactory;
+import controller.NetworkManager;
+import ride.Network;
+import ride.Ride;
+import station.PlusStation;
+import station.Slot;
+import station.SlotHistory;
+import station.SlotState;
+import station.Station;
+import station.StationFactory;
+import tools.Point;
+import user.User;
+import user.UserStat;
+
+/**
+ * This class writes the whole state of a {@code NetworkManager} to a binary file, and rebuilds it from this file:
+ * the users and their statistics, and for each network its stations, their slots with the history of their states, the cards,
+ * the rides of the ride history and the ongoing rides. Every object is rebuilt with its id.
+ * <br> A snapshot has the generation of the first journal that is not included in it, so that only the next journals are replayed after it.
+ * The itineraries of the users and the observers of the stations are not written.
+ * @author Pietro Dellino
+ * @see Snapshotter
+ */
+public class Snapshot {
+
+	/**
+	 * The first bytes of a snapshot file.
+	 */
+	static final byte[] MAGIC = {'V', 'L', 'I', 'B', 'S', 'N', 'P', '1'};
+
+	private Snapshot() {}
+
+	/**
+	 * This method writes the state of the {@code NetworkManager} to a temporary file, forces it to the disk and then renames it to {@code f},
+	 * so that {@code f} always contains a complete snapshot. The {@code NetworkManager} must not change while it is written.
+	 * @param nm
+	 * @param generation the generation of the first journal which is not included in the snapshot
+	 * @param f
+	 * @throws IOException
+	 */
+	public static void write(NetworkManager nm, long generation, File f) throws IOException {
+		File tmp = new File(f.getPath() + ".tmp");
+		FileOutputStream fos = new FileOutputStream(tmp);
+		try {
+			CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(fos), new CRC32());
+			DataOutputStream out = new DataOutputStream(checked);
+			out.write(MAGIC);
+			out.writeLong(generation);
+			writeState(nm, out);
+			out.flush();
+			out.writeLong(checked.getChecksum().getValue());
+			out.flush();
+			fos.getFD().sync();
+		} finally {
+			fos.close();
+		}
+		Files.move(tmp.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * This method rebuilds the state written in a snapshot file, in a {@code NetworkManager} without networks.
+	 * @param f
+	 * @param nm
+	 * @return the generation of the snapshot
+	 * @throws IOException if the file cannot be read or its checksum is wrong
+	 * @throws InvalidJournalException if the file is not a snapshot
+	 */
+	public static long read(File f, NetworkManager nm) throws IOException, InvalidJournalException {
+		try (FileInputStream fis = new FileInputStream(f)) {
+			CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(fis), new CRC32());
+			DataInputStream in = new DataInputStream(checked);
+			byte[] magic = new byte[MAGIC.length];
+			in.readFully(magic);
+			if (!Arrays.equals(magic, MAGIC)) {
+				throw new InvalidJournalException(f);
+			}
+			long generation = in.readLong();
+			try {
+				readState(nm, in);
+			} catch (IOException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new IOException("The snapshot " + f.getPath() + " cannot be read", e);
+			}
+			long checksum = checked.getChecksum().getValue();
+			if (in.readLong() != checksum) {
+				throw new IOException("The checksum of the snapshot " + f.getPath() + " is wrong");
+			}
+			return generation;
+		}
+	}
+
+	private static void writeBike(DataOutputStream out, Bike b) throws IOException {
+		if (b == null) {
+			out.writeInt(-1);
+		} else {
+			out.writeInt(b.getId());
+			out.writeByte(b instanceof ElectricBike ? BikeFactory.ELECTRIC : BikeFactory.MECHANIC);
+		}
+	}
+
+	private static void writeStation(DataOutputStream out, Station s) throws IOException {
+		out.writeInt(s == null ? -1 : s.getId());
+	}
+
+	/**
+	 * This method reads a bike written by {@link #writeBike(DataOutputStream, Bike)}. A bike is created only once, so that a bike
+	 * which appears in several states, slots or rides is the same object, as before.
+	 */
+	private static Bike readBike(DataInputStream in, HashMap<Integer, Bike> bikes) throws IOException {
+		int id = in.readInt();
+		if (id < 0) return null;
+		int type = in.readByte();
+		Bike b = bikes.get(id);
+		if (b == null) {
+			b = BikeFactory.createBike(type, id);
+			bikes.put(id, b);
+		}
+		return b;
+	}
+
+	private static void writeState(NetworkManager nm, DataOutputStream out) throws IOException {
+		ArrayList<Network> networks = nm.getNetworks();
+		IdentityHashMap<User, Boolean> users = new IdentityHashMap<User, Boolean>();
+		for (Network net : networks) {
+			for (Card c : net.getCards()) {
+				users.put(c.getUser(), true);
+			}
+		}
+		out.writeInt(users.size());
+		for (User u : users.keySet()) {
+			UserStat us = u.getUserStat();
+			out.writeInt(u.getId());
+			out.writeUTF(u.getUserName());
+			out.writeDouble(u.getPosition().getX());
+			out.writeDouble(u.getPosition().getY());
+			out.writeInt(us.getNumberRides());
+			out.writeDouble(us.getTotalTime());
+			out.writeDouble(us.getTotalAmount());
+			out.writeDouble(us.getTotalCreditEarned());
+		}
+		out.writeInt(networks.size());
+		for (Network net : networks) {
+			out.writeUTF(net.getName());
+			ArrayList<Station> stations = net.getStations();
+			out.writeInt(stations.size());
+			for (Station s : stations) {
+				out.writeInt(s.getId());
+				out.writeBoolean(s instanceof PlusStation);
+				out.writeDouble(s.getP().getX());
+				out.writeDouble(s.getP().getY());
+				out.writeBoolean(s.isOnline());
+				out.writeInt(s.getTotalRents());
+				out.writeInt(s.getTotalReturns());
+				ArrayList<Slot> slots = s.getParkingSlots();
+				out.writeInt(slots.size());
+				for (Slot sl : slots) {
+					SlotHistory history = sl.getSlotHistory();
+					out.writeInt(sl.getId());
+					out.writeInt(history.size());
+					for (SlotState state : history) {
+						JournalRecord.writeTime(out, state.getStartTime());
+						out.writeBoolean(state.isOnline());
+						writeBike(out, state.getBike());
+					}
+				}
+			}
+			ArrayList<Card> cards = net.getCards();
+			out.writeInt(cards.size());
+			for (Card c : cards) {
+				out.writeInt(c.getId());
+				out.writeByte(CardFactory.getCardType(c));
+				out.writeInt(c.getUser().getId());
+				out.writeInt(c.getTimeCredit());
+			}
+			List<Ride> history = net.getRideHistory();
+			synchronized (history) {
+				out.writeInt(history.size());
+				for (Ride r : history) {
+					out.writeInt(r.getCard().getId());
+					writeBike(out, r.getBike());
+					JournalRecord.writeTime(out, r.getStartRide());
+					JournalRecord.writeTime(out, r.getEndRide());
+					writeStation(out, r.getStartStation());
+					writeStation(out, r.getEndStation());
+					out.writeDouble(r.getPrice());
+				}
+			}
+			ArrayList<Ride> ongoing = new ArrayList<Ride>();
+			for (Card c : cards) {
+				Ride r = c.getUser().getOngoingRide();
+				if (r != null && r.getNet() == net && r.getCard() == c) {
+					ongoing.add(r);
+				}
+			}
+			out.writeInt(ongoing.size());
+			for (Ride r : ongoing) {
+				out.writeInt(r.getCard().getId());
+				writeBike(out, r.getBike());
+				JournalRecord.writeTime(out, r.getStartRide());
+				writeStation(out, r.getStartStation());
+			}
+		}
+	}
+
+	private static void readState(NetworkManager nm, DataInputStream in) throws Exception {
+		HashMap<Integer, User> users = new HashMap<Integer, User>();
+		HashMap<Integer, Bike> bikes = new HashMap<Integer, Bike>();
+		int nUsers = in.readInt();
+		for (int i = 0; i < nUsers; i++) {
+			int id = in.readInt();
+			String name = in.readUTF();
+			Point position = new Point(in.readDouble(), in.readDouble());
+			User u = new User(id, name, position);
+			UserStat us = u.getUserStat();
+			int numberRides = in.readInt();
+			for (int j = 0; j < numberRides; j++) {
+				us.addRide();
+			}
+			us.addTime(in.readDouble());
+			us.addAmount(in.readDouble());
+			us.addCreditEarned(in.readDouble());
+			users.put(id, u);
+		}
+		int nNetworks = in.readInt();
+		for (int i = 0; i < nNetworks; i++) {
+			Network net = nm.setupNetwork(in.readUTF(), 0, 0, 1, 0);
+			StationFactory sf = new StationFactory(net);
+			int nStations = in.readInt();
+			for (int j = 0; j < nStations; j++) {
+				int id = in.readInt();
+				boolean plus = in.readBoolean();
+				Point p = new Point(in.readDouble(), in.readDouble());
+				Station s = sf.createStation(plus ? "Plus" : "Standard", p, id);
+				boolean online = in.readBoolean();
+				s.setTotalRents(in.readInt());
+				s.setTotalReturns(in.readInt());
+				int nSlots = in.readInt();
+				for (int k = 0; k < nSlots; k++) {
+					int slotId = in.readInt();
+					s.addSlot();
+					Slot sl = s.getParkingSlots().get(k);
+					if (sl.getId() != slotId) {
+						throw new IOException("The slot " + slotId + " of the snapshot cannot be created again");
+					}
+					int nStates = in.readInt();
+					for (int l = 0; l < nStates; l++) {
+						LocalDateTime t = JournalRecord.readTime(in);
+						boolean slotOnline = in.readBoolean();
+						sl.restoreState(t, slotOnline, readBike(in, bikes));
+					}
+				}
+				s.setOnline(online);
+			}
+			HashMap<Integer, Card> cards = new HashMap<Integer, Card>();
+			CardFactory cf = new CardFactory(net);
+			int nCards = in.readInt();
+			for (int j = 0; j < nCards; j++) {
+				int id = in.readInt();
+				int type = in.readByte();
+				User u = users.get(in.readInt());
+				Card c = cf.createCard(type, u, id);
+				c.setTimeCredit(in.readInt());
+				cards.put(id, c);
+			}
+			int nRides = in.readInt();
+			for (int j = 0; j < nRides; j++) {
+				Card c = cards.get(in.readInt());
+				Bike b = readBike(in, bikes);
+				Ride r = new Ride(net, b, c.getUser(), c, JournalRecord.readTime(in));
+				r.endRide(JournalRecord.readTime(in));
+				r.setStartStation(net.getStationById(in.readInt()));
+				r.setEndStation(net.getStationById(in.readInt()));
+				r.setPrice(in.readDouble());
+				net.archiveRide(r);
+			}
+			int nOngoing = in.readInt();
+			for (int j = 0; j < nOngoing; j++) {
+				Card c = cards.get(in.readInt());
+				Bike b = readBike(in, bikes);
+				c.getUser().startOngoingRide(net, b, JournalRecord.readTime(in), c);
+				c.getUser().getOngoingRide().setStartStation(net.getStationById(in.readInt()));
+			}
+		}
+	}
+
+}
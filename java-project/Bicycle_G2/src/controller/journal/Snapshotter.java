@@ -0,0 +1,192 @@
+package controller.journal;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import bike.BikeRegistry;
+import controller.NetworkManager;
+
+/**
+ * This class takes snapshots of the state of a {@code NetworkManager} which writes its changes to a {@code Journal}, and deletes the journals
+ * that are included in a snapshot, so that the time to restart does not grow with the number of changes since the creation of the networks.
+ * <br> For a journal file {@code f}, the snapshot is the file {@code f.snapshot}, and the journals waiting for a snapshot are the files {@code f.1},
+ * {@code f.2}, ... named after their generation. To take a snapshot, the journal is rotated: this is the only step that is done on the
+ * {@code NetworkManager}. Then, on a background thread, a copy of the networks is rebuilt from the last snapshot and the rotated journals,
+ * the new snapshot is written from this copy, and the rotated journals are deleted. The rents and returns are therefore never stopped
+ * while the snapshot is written.
+ * <br> The copy does not change the networks in use: it has its own {@code BikeRegistry}, which is the one cleared when a reset of the journal is replayed.
+ * The objects of the copy are created with the ids of the journal, which the id generators have already given, so the next ids do not change either.
+ * <br> Since each step leaves complete files, the state can be restored with {@link #restore(NetworkManager, File)} whenever the application stopped.
+ * @author Pietro Dellino
+ * @see Snapshot
+ * @see Journal
+ */
+public class Snapshotter implements Closeable {
+
+	private NetworkManager nm;
+	private File file;
+	private ScheduledExecutorService executor;
+
+	/**
+	 * @param nm a {@code NetworkManager} whose journal was opened with {@link NetworkManager#openJournal(File)}
+	 */
+	public Snapshotter(NetworkManager nm) {
+		this.nm = nm;
+		this.file = nm.getJournal().getFile();
+		this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "snapshotter");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * @param f a journal file
+	 * @return the snapshot file of the journal
+	 */
+	public static File snapshotFile(File f) { return new File(f.getPath() + ".snapshot"); }
+
+	/**
+	 * @param f a journal file
+	 * @param generation
+	 * @return the name of the journal file once it is rotated
+	 */
+	public static File archiveFile(File f, long generation) { return new File(f.getPath() + "." + generation); }
+
+	/**
+	 * This method finds the rotated journals of a journal file.
+	 * @param f
+	 * @return the rotated journals, sorted by generation
+	 */
+	static TreeMap<Long, File> archiveFiles(File f) {
+		TreeMap<Long, File> archives = new TreeMap<Long, File>();
+		File dir = f.getAbsoluteFile().getParentFile();
+		String prefix = f.getName() + ".";
+		File[] files = dir.listFiles();
+		if (files != null) {
+			for (File a : files) {
+				String name = a.getName();
+				if (name.startsWith(prefix) && name.length() > prefix.length() && name.substring(prefix.length()).matches("[0-9]+")) {
+					archives.put(Long.parseLong(name.substring(prefix.length())), a);
+				}
+			}
+		}
+		return archives;
+	}
+
+	/**
+	 * This method rebuilds the state of a {@code NetworkManager} without networks from the last snapshot of a journal file and the journals written after it,
+	 * and opens the journal to write the next changes.
+	 * @param nm
+	 * @param f the journal file
+	 * @return the {@code Journal} opened
+	 * @throws IOException
+	 * @throws InvalidJournalException if a file is not a journal or a snapshot
+	 */
+	public static Journal restore(NetworkManager nm, File f) throws IOException, InvalidJournalException {
+		long generation = replayAll(nm, f);
+		long validLength = 0;
+		if (f.exists()) {
+			JournalReplayer replayer = new JournalReplayer(nm);
+			try (JournalReader reader = new JournalReader(f)) {
+				if (reader.getValidLength() > 0 && reader.getGeneration() >= generation) {
+					replayer.replay(reader);
+					validLength = reader.getValidLength();
+					generation = reader.getGeneration();
+				}
+			}
+		}
+		return new Journal(f, validLength, generation);
+	}
+
+	/**
+	 * This method reads the last snapshot and replays the rotated journals that are not included in it.
+	 * @return the generation of the next journal
+	 */
+	private static long replayAll(NetworkManager nm, File f) throws IOException, InvalidJournalException {
+		long generation = 0;
+		File snapshot = snapshotFile(f);
+		if (snapshot.exists()) {
+			generation = Snapshot.read(snapshot, nm);
+		}
+		JournalReplayer replayer = new JournalReplayer(nm);
+		for (File a : archiveFiles(f).tailMap(generation).values()) {
+			try (JournalReader reader = new JournalReader(a)) {
+				replayer.replay(reader);
+				generation = reader.getGeneration() + 1;
+			}
+		}
+		return generation;
+	}
+
+	/**
+	 * This method rotates the journal of the {@code NetworkManager} and writes the snapshot in the background.
+	 * @return the future result of the snapshot: its file, once it is written and the journals included in it are deleted
+	 */
+	public Future<File> snapshot() {
+		return this.executor.submit(this.task());
+	}
+
+	/**
+	 * This method takes a snapshot periodically, until the {@code Snapshotter} is closed.
+	 * @param period
+	 * @param unit
+	 */
+	public void schedule(long period, TimeUnit unit) {
+		Callable<File> task = this.task();
+		this.executor.scheduleWithFixedDelay(() -> {
+			try {
+				task.call();
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}, period, period, unit);
+	}
+
+	private Callable<File> task() {
+		return () -> {
+			Journal journal = this.nm.getJournal();
+			long generation = journal.getGeneration();
+			journal.rotate(archiveFile(this.file, generation));
+			return this.compact();
+		};
+	}
+
+	/**
+	 * This method writes a new snapshot which includes all the rotated journals, and deletes them.
+	 * @return the snapshot file
+	 * @throws IOException
+	 * @throws InvalidJournalException
+	 */
+	private File compact() throws IOException, InvalidJournalException {
+		NetworkManager copy = new NetworkManager(new BikeRegistry());
+		long generation = replayAll(copy, this.file);
+		File snapshot = snapshotFile(this.file);
+		Snapshot.write(copy, generation, snapshot);
+		for (File a : archiveFiles(this.file).headMap(generation).values()) {
+			a.delete();
+		}
+		return snapshot;
+	}
+
+	/**
+	 * This method stops taking snapshots. A snapshot which is being written is completed.
+	 */
+	@Override
+	public void close() {
+		this.executor.shutdown();
+		try {
+			this.executor.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,26 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class counts events. It is a {@code LongAdder}, which is striped when several threads increment it at the same time,
+ * so that incrementing a counter costs little even when it is shared by the threads of several networks.
+ * @author Pietro Dellino
+ * @see MetricsRegistry#counter(String)
+ */
+public class Counter {
+
+	private final LongAdder count = new LongAdder();
+
+	public void increment() { this.count.increment(); }
+
+	public void add(long n) { this.count.add(n); }
+
+	/**
+	 * @return the number of events counted, which is exact only if no thread increments the counter at the same time
+	 */
+	public long get() { return this.count.sum(); }
+
+	public void reset() { this.count.reset(); }
+
+}
@@ -0,0 +1,114 @@
+package metrics;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class records the distribution of values, such as latencies or durations, in buckets whose bounds are powers of two:
+ * the bucket k contains the values between 2<sup>k-1</sup> and 2<sup>k</sup>-1 (the bucket 0 contains 0).
+ * <br> Each bucket is a {@code LongAdder}, so that recording a value is a few additions, without lock. The percentiles are given by the upper
+ * bound of their bucket, hence they are overestimated by less than a factor of 2.
+ * @author Pietro Dellino
+ * @see MetricsRegistry#histogram(String, String)
+ */
+public class Histogram {
+
+	public static final int BUCKETS = 64;
+
+	private final String unit;
+	private final LongAdder[] buckets;
+	private final LongAdder sum;
+	private final LongAccumulator max;
+
+	/**
+	 * @param unit the unit of the values, which is written with them
+	 */
+	public Histogram(String unit) {
+		this.unit = unit;
+		this.buckets = new LongAdder[BUCKETS];
+		for (int k = 0; k < BUCKETS; k++) {
+			this.buckets[k] = new LongAdder();
+		}
+		this.sum = new LongAdder();
+		this.max = new LongAccumulator(Math::max, 0);
+	}
+
+	public String getUnit() { return unit; }
+
+	/**
+	 * This method records a value. The negative values are recorded as 0.
+	 * @param value
+	 */
+	public void record(long value) {
+		if (value < 0) value = 0;
+		this.buckets[BUCKETS - Long.numberOfLeadingZeros(value)].increment();
+		this.sum.add(value);
+		this.max.accumulate(value);
+	}
+
+	public long getCount() {
+		long count = 0;
+		for (LongAdder b : this.buckets) {
+			count += b.sum();
+		}
+		return count;
+	}
+
+	public long getSum() { return this.sum.sum(); }
+
+	public long getMax() { return this.max.get(); }
+
+	public double getMean() {
+		long count = this.getCount();
+		return count == 0 ? 0 : this.getSum() / (double) count;
+	}
+
+	/**
+	 * @param q a number between 0 and 1
+	 * @return the upper bound of the bucket which contains the q-quantile of the values, or 0 if there are none
+	 */
+	public long getPercentile(double q) {
+		long[] counts = new long[BUCKETS];
+		long count = 0;
+		for (int k = 0; k < BUCKETS; k++) {
+			counts[k] = this.buckets[k].sum();
+			count += counts[k];
+		}
+		long rank = (long) Math.ceil(q * count);
+		long seen = 0;
+		for (int k = 0; k < BUCKETS; k++) {
+			seen += counts[k];
+			if (seen >= rank && seen > 0) {
+				long bound = k == BUCKETS - 1 ? Long.MAX_VALUE : (1L << k) - 1;
+				return Math.min(bound, this.getMax());
+			}
+		}
+		return 0;
+	}
+
+	public void reset() {
+		for (LongAdder b : this.buckets) {
+			b.reset();
+		}
+		this.sum.reset();
+		this.max.reset();
+	}
+
+	/**
+	 * This method writes the count, the mean, the percentiles 50, 90 and 99 and the maximum of the values, on one line, without line separator.
+	 * @param out
+	 * @throws IOException
+	 */
+	public void write(Appendable out) throws IOException {
+		out.append("count=").append(String.valueOf(this.getCount()))
+			.append(" mean=").append(String.format(Locale.ROOT, "%.1f", this.getMean()))
+			.append(" p50<=").append(String.valueOf(this.getPercentile(0.5)))
+			.append(" p90<=").append(String.valueOf(this.getPercentile(0.9)))
+			.append(" p99<=").append(String.valueOf(this.getPercentile(0.99)))
+			.append(" max=").append(String.valueOf(this.getMax()))
+			.append(' ').append(this.unit);
+	}
+
+}
@@ -0,0 +1,207 @@
+package metrics;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class records latencies in nanoseconds, like an HdrHistogram: each power of two is split in {@value #SUB_BUCKETS} buckets of the same width,
+ * so that a percentile is given with a relative error below 1/{@value #SUB_BUCKETS}, from 1 ns to 2<sup>{@value #MAX_EXPONENT}</sup> ns (about 18 minutes).
+ * The longer latencies are counted in the last bucket.
+ * <br> A histogram can also be created with fewer buckets, for example with {@value #STATION_SUB_BUCKETS} buckets per power of two up to
+ * 2<sup>{@value #STATION_MAX_EXPONENT}</sup> ns (about 4 seconds), which is precise enough for the latencies of a single station and takes less than half the memory.
+ * <br> Recording a latency is an increment of an {@code AtomicLongArray}, without lock and without allocation. The counts are read without stopping the
+ * threads which record, hence a histogram read while latencies are recorded may miss the last ones.
+ * @author Pietro Dellino
+ * @see StationLatencies
+ */
+public class LatencyHistogram {
+
+	public static final int SUB_BITS = 4;
+	public static final int SUB_BUCKETS = 1 << SUB_BITS;
+	public static final int MAX_EXPONENT = 40;
+	public static final int LENGTH = (MAX_EXPONENT - SUB_BITS + 1) * SUB_BUCKETS;
+
+	public static final int STATION_SUB_BITS = 3;
+	public static final int STATION_SUB_BUCKETS = 1 << STATION_SUB_BITS;
+	public static final int STATION_MAX_EXPONENT = 32;
+
+	private final int subBits;
+	private final int maxExponent;
+	private final int length;
+	private final AtomicLongArray counts;
+	private final AtomicLong max;
+
+	public LatencyHistogram() {
+		this(SUB_BITS, MAX_EXPONENT);
+	}
+
+	/**
+	 * @param subBits the logarithm of the number of buckets of each power of two
+	 * @param maxExponent the logarithm of the latency from which the latencies are counted in the last bucket
+	 */
+	public LatencyHistogram(int subBits, int maxExponent) {
+		this.subBits = subBits;
+		this.maxExponent = maxExponent;
+		this.length = (maxExponent - subBits + 1) << subBits;
+		this.counts = new AtomicLongArray(this.length);
+		this.max = new AtomicLong();
+	}
+
+	/**
+	 * @return an empty histogram with the same buckets as this one
+	 */
+	private LatencyHistogram empty() { return new LatencyHistogram(this.subBits, this.maxExponent); }
+
+	/**
+	 * @return the number of buckets of each power of two
+	 */
+	public int getSubBuckets() { return 1 << subBits; }
+
+	/**
+	 * @param nanos a latency, which is not negative
+	 * @return the index of the bucket of the latency
+	 */
+	int index(long nanos) {
+		int subBuckets = 1 << this.subBits;
+		if (nanos < subBuckets) return (int) Math.max(nanos, 0);
+		int e = 63 - Long.numberOfLeadingZeros(nanos);
+		if (e >= this.maxExponent) return this.length - 1;
+		int shift = e - this.subBits;
+		return ((shift + 1) << this.subBits) + (int) ((nanos >>> shift) & (subBuckets - 1));
+	}
+
+	/**
+	 * @param index
+	 * @return the lowest latency of the bucket
+	 */
+	long lowestValue(int index) {
+		int subBuckets = 1 << this.subBits;
+		if (index < subBuckets) return index;
+		int shift = (index >> this.subBits) - 1;
+		return (long) (subBuckets + (index & (subBuckets - 1))) << shift;
+	}
+
+	/**
+	 * @param index
+	 * @return the highest latency of the bucket, which has no limit for the last bucket
+	 */
+	long highestValue(int index) {
+		if (index < 1 << this.subBits) return index;
+		if (index == this.length - 1) return Long.MAX_VALUE;
+		int shift = (index >> this.subBits) - 1;
+		return this.lowestValue(index) + (1L << shift) - 1;
+	}
+
+	/**
+	 * This method records a latency.
+	 * @param nanos
+	 */
+	public void record(long nanos) {
+		this.counts.incrementAndGet(index(nanos));
+		long m = this.max.get();
+		while (nanos > m && !this.max.compareAndSet(m, nanos)) {
+			m = this.max.get();
+		}
+	}
+
+	public long getCount() {
+		long count = 0;
+		for (int i = 0; i < this.length; i++) {
+			count += this.counts.get(i);
+		}
+		return count;
+	}
+
+	/**
+	 * @return the highest latency recorded, or 0 if there are none
+	 */
+	public long getMax() { return this.max.get(); }
+
+	/**
+	 * @param q a number between 0 and 1
+	 * @return the highest latency of the bucket of the q-quantile, and at most the highest latency recorded, or 0 if there are none
+	 */
+	public long getPercentile(double q) {
+		long count = this.getCount();
+		if (count == 0) return 0;
+		long rank = Math.max(1, (long) Math.ceil(q * count));
+		long seen = 0;
+		for (int i = 0; i < this.length; i++) {
+			seen += this.counts.get(i);
+			if (seen >= rank) {
+				return Math.min(highestValue(i), this.getMax());
+			}
+		}
+		return this.getMax();
+	}
+
+	/**
+	 * @return a copy of the histogram, which is not changed by the latencies recorded afterwards
+	 */
+	public LatencyHistogram copy() {
+		LatencyHistogram h = this.empty();
+		for (int i = 0; i < this.length; i++) {
+			h.counts.set(i, this.counts.get(i));
+		}
+		h.max.set(this.max.get());
+		return h;
+	}
+
+	/**
+	 * This method gives the latencies recorded since a copy of this histogram was made. The maximum of these latencies is not known exactly:
+	 * it is the highest latency of the highest bucket which is not empty.
+	 * @param previous a copy of this histogram
+	 * @return a new histogram with the latencies recorded after the copy
+	 */
+	public LatencyHistogram since(LatencyHistogram previous) {
+		LatencyHistogram h = this.empty();
+		long max = 0;
+		for (int i = 0; i < this.length; i++) {
+			long n = this.counts.get(i) - previous.counts.get(i);
+			if (n > 0) {
+				h.counts.set(i, n);
+				max = Math.min(highestValue(i), this.getMax());
+			}
+		}
+		h.max.set(max);
+		return h;
+	}
+
+	/**
+	 * This method adds the latencies of another histogram to this one. If the histograms do not have the same buckets,
+	 * the latencies of each bucket of the other histogram are added to the bucket of this one which contains its lowest latency.
+	 * @param other
+	 */
+	public void add(LatencyHistogram other) {
+		boolean same = other.subBits == this.subBits && other.maxExponent == this.maxExponent;
+		for (int i = 0; i < other.length; i++) {
+			long n = other.counts.get(i);
+			if (n != 0) this.counts.addAndGet(same ? i : this.index(other.lowestValue(i)), n);
+		}
+		long m = this.max.get();
+		long o = other.getMax();
+		while (o > m && !this.max.compareAndSet(m, o)) {
+			m = this.max.get();
+		}
+	}
+
+	private static String micros(long nanos) {
+		return String.format(Locale.ROOT, "%.1fus", nanos / 1000.0);
+	}
+
+	/**
+	 * This method writes the count, the percentiles 50, 99 and 99.9 and the maximum of the latencies, in microseconds, on one line, without line separator.
+	 * @param out
+	 * @throws IOException
+	 */
+	public void write(Appendable out) throws IOException {
+		out.append("count=").append(String.valueOf(this.getCount()))
+			.append(" p50=").append(micros(this.getPercentile(0.5)))
+			.append(" p99=").append(micros(this.getPercentile(0.99)))
+			.append(" p999=").append(micros(this.getPercentile(0.999)))
+			.append(" max=").append(micros(this.getMax()));
+	}
+
+}
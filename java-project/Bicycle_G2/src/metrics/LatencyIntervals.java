@@ -0,0 +1,47 @@
+package metrics;
+
+/**
+ * This class cuts the latencies recorded by a {@code StationLatencies} in successive intervals: each call of {@link #next()} gives the latencies
+ * recorded since the previous one, so that the latencies can be read at regular intervals, like rolling snapshots.
+ * Several {@code LatencyIntervals} can read the same {@code StationLatencies} independently.
+ * @author Pietro Dellino
+ */
+public class LatencyIntervals {
+
+	private StationLatencies latencies;
+	private LatencyHistogram[] previous;
+	private long previousTime;
+	private double lastSeconds;
+
+	/**
+	 * @param latencies
+	 */
+	public LatencyIntervals(StationLatencies latencies) {
+		this.latencies = latencies;
+		this.previous = latencies.snapshot();
+		this.previousTime = System.nanoTime();
+	}
+
+	/**
+	 * This method gives the latencies recorded since the last call of this method, or since the creation of the {@code LatencyIntervals}.
+	 * @return the histograms of the operations for this interval, in the order of {@code StationOperation}
+	 */
+	public synchronized LatencyHistogram[] next() {
+		LatencyHistogram[] now = this.latencies.snapshot();
+		long time = System.nanoTime();
+		LatencyHistogram[] interval = new LatencyHistogram[now.length];
+		for (int i = 0; i < now.length; i++) {
+			interval[i] = now[i].since(this.previous[i]);
+		}
+		this.previous = now;
+		this.lastSeconds = (time - this.previousTime) / 1e9;
+		this.previousTime = time;
+		return interval;
+	}
+
+	/**
+	 * @return the length, in seconds, of the interval given by the last call of {@link #next()}
+	 */
+	public synchronized double getLastSeconds() { return this.lastSeconds; }
+
+}
@@ -0,0 +1,97 @@
+package metrics;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * This class contains named metrics: counters, histograms and gauges, which are values computed when they are read.
+ * The metrics are created the first time they are asked for, and can be used by several threads.
+ * <br> The metrics are written as text, one per line, sorted by name: <br>
+ * {@code counter <name> <value>} <br>
+ * {@code gauge <name> <value>} <br>
+ * {@code histogram <name> count=<n> mean=<mean> p50<=<value> p90<=<value> p99<=<value> max=<value> <unit>}
+ * @author Pietro Dellino
+ */
+public class MetricsRegistry {
+
+	private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+	private final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+	private final ConcurrentHashMap<String, LongSupplier> gauges = new ConcurrentHashMap<String, LongSupplier>();
+
+	/**
+	 * @param name
+	 * @return the counter with this name, which is created if there is none
+	 */
+	public Counter counter(String name) {
+		Counter c = this.counters.get(name);
+		return c != null ? c : this.counters.computeIfAbsent(name, n -> new Counter());
+	}
+
+	/**
+	 * @param name
+	 * @param unit the unit of the values, used if the histogram is created
+	 * @return the histogram with this name, which is created if there is none
+	 */
+	public Histogram histogram(String name, String unit) {
+		Histogram h = this.histograms.get(name);
+		return h != null ? h : this.histograms.computeIfAbsent(name, n -> new Histogram(unit));
+	}
+
+	/**
+	 * This method adds a gauge, or replaces the gauge with the same name.
+	 * @param name
+	 * @param value the function which computes the value of the gauge when it is read
+	 */
+	public void gauge(String name, LongSupplier value) {
+		this.gauges.put(name, value);
+	}
+
+	/**
+	 * @param name
+	 * @return the value of the gauge, or 0 if there is no gauge with this name
+	 */
+	public long getGauge(String name) {
+		LongSupplier g = this.gauges.get(name);
+		return g == null ? 0 : g.getAsLong();
+	}
+
+	/**
+	 * This method resets the counters and the histograms.
+	 */
+	public void reset() {
+		for (Counter c : this.counters.values()) {
+			c.reset();
+		}
+		for (Histogram h : this.histograms.values()) {
+			h.reset();
+		}
+	}
+
+	/**
+	 * This method writes all the metrics, one per line.
+	 * @param out
+	 * @throws IOException
+	 */
+	public void write(Appendable out) throws IOException {
+		TreeMap<String, Object> metrics = new TreeMap<String, Object>();
+		metrics.putAll(this.counters);
+		metrics.putAll(this.histograms);
+		metrics.putAll(this.gauges);
+		for (Map.Entry<String, Object> e : metrics.entrySet()) {
+			Object m = e.getValue();
+			if (m instanceof Counter) {
+				out.append("counter ").append(e.getKey()).append(' ').append(String.valueOf(((Counter) m).get()));
+			} else if (m instanceof Histogram) {
+				out.append("histogram ").append(e.getKey()).append(' ');
+				((Histogram) m).write(out);
+			} else {
+				out.append("gauge ").append(e.getKey()).append(' ').append(String.valueOf(((LongSupplier) m).getAsLong()));
+			}
+			out.append('\n');
+		}
+	}
+
+}
@@ -0,0 +1,206 @@
+package metrics;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import ride.Network;
+import ride.Ride;
+import station.Station;
+
+/**
+ * This class contains the metrics of a network, in a {@code MetricsRegistry}:
+ * <ul>
+ * <li> the latencies of the rentals and of the returns, in nanoseconds ({@value #RENT_LATENCY} and {@value #RETURN_LATENCY}),
+ * <li> the number of rentals and returns which failed, for each type of exception ({@value #RENT_FAILED}{@code .<exception>} and {@value #RETURN_FAILED}{@code .<exception>}),
+ * <li> the durations of the rides, in minutes ({@value #RIDE_DURATION}),
+ * <li> the latencies of the {@code PathStrategy} of each type ({@code path.<strategy>.findPath} and {@code path.<strategy>.findEndStation}),
+ * <li> the number of stations which are empty, full or offline, computed when they are read ({@value #EMPTY_STATIONS}, {@value #FULL_STATIONS} and {@value #OFFLINE_STATIONS}),
+ * <li> the number of rides which could not be written to the {@code RideArchive} of the network, for each type of exception ({@value #ARCHIVE_FAILED}{@code .<exception>}),
+ * and the number of rides waiting to be written to it ({@value #ARCHIVE_PENDING}),
+ * <li> the latencies of the operations of all the stations, in a {@code StationLatencies}, whose percentiles are precise.
+ * </ul>
+ * The metrics are recorded by the {@code NetworkManager}, the {@code Network}, the stations and {@code TimedPathStrategy}.
+ * <br> The latencies of the stations can be written regularly to a log file, with {@link #startLatencyLog(String, long)}.
+ * @author Pietro Dellino
+ * @see Network#getMetrics()
+ */
+public class NetworkMetrics {
+
+	public static final String RENT_LATENCY = "rent.latency";
+	public static final String RETURN_LATENCY = "return.latency";
+	public static final String RENT_FAILED = "rent.failed";
+	public static final String RETURN_FAILED = "return.failed";
+	public static final String RIDE_DURATION = "ride.duration";
+	public static final String EMPTY_STATIONS = "stations.empty";
+	public static final String FULL_STATIONS = "stations.full";
+	public static final String OFFLINE_STATIONS = "stations.offline";
+	public static final String ARCHIVE_FAILED = "archive.failed";
+	public static final String ARCHIVE_PENDING = "archive.pending";
+
+	private final MetricsRegistry registry;
+	private final Histogram rentLatency;
+	private final Histogram returnLatency;
+	private final Histogram rideDuration;
+	private final StationLatencies latencies;
+	private final LatencyIntervals intervals;
+	private final String name;
+	private ScheduledExecutorService latencyLog;
+
+	public NetworkMetrics(Network net) {
+		this.name = net.getName();
+		this.latencies = new StationLatencies();
+		this.intervals = new LatencyIntervals(this.latencies);
+		this.registry = new MetricsRegistry();
+		this.rentLatency = this.registry.histogram(RENT_LATENCY, "ns");
+		this.returnLatency = this.registry.histogram(RETURN_LATENCY, "ns");
+		this.rideDuration = this.registry.histogram(RIDE_DURATION, "min");
+		this.registry.gauge(EMPTY_STATIONS, () -> {
+			long n = 0;
+			for (Station s : net.getStations()) {
+				if (s.isOnline() && s.getNumberBikes() == 0) n++;
+			}
+			return n;
+		});
+		this.registry.gauge(FULL_STATIONS, () -> {
+			long n = 0;
+			for (Station s : net.getStations()) {
+				if (s.isOnline() && s.getNumberFreeSlots() == 0) n++;
+			}
+			return n;
+		});
+		this.registry.gauge(OFFLINE_STATIONS, () -> {
+			long n = 0;
+			for (Station s : net.getStations()) {
+				if (!s.isOnline()) n++;
+			}
+			return n;
+		});
+		this.registry.gauge(ARCHIVE_PENDING, net::getNumberUnarchivedRides);
+	}
+
+	public MetricsRegistry getRegistry() { return registry; }
+
+	/**
+	 * @return the latencies of the operations of all the stations of the network
+	 */
+	public StationLatencies getLatencies() { return latencies; }
+
+	/**
+	 * This method records a rental.
+	 * @param nanos the time spent by the rental
+	 * @param e the exception thrown by the rental, or {@code null} if it succeeded
+	 */
+	public void rent(long nanos, Exception e) {
+		this.rentLatency.record(nanos);
+		if (e != null) {
+			this.registry.counter(RENT_FAILED + '.' + e.getClass().getSimpleName()).increment();
+		}
+	}
+
+	/**
+	 * This method records a return.
+	 * @param nanos the time spent by the return
+	 * @param e the exception thrown by the return, or {@code null} if it succeeded
+	 */
+	public void giveBack(long nanos, Exception e) {
+		this.returnLatency.record(nanos);
+		if (e != null) {
+			this.registry.counter(RETURN_FAILED + '.' + e.getClass().getSimpleName()).increment();
+		}
+	}
+
+	/**
+	 * This method records the duration of a ride which is ended.
+	 * @param r
+	 */
+	public void rideEnded(Ride r) {
+		if (r.getStartRide() != null && r.getEndRide() != null) {
+			this.rideDuration.record(Duration.between(r.getStartRide(), r.getEndRide()).toMinutes());
+		}
+	}
+
+	/**
+	 * This method records a ride which could not be written to the {@code RideArchive} of the network.
+	 * @param e the exception thrown by the archive
+	 */
+	public void archiveFailed(Exception e) {
+		this.registry.counter(ARCHIVE_FAILED + '.' + e.getClass().getSimpleName()).increment();
+	}
+
+	/**
+	 * @param strategy the name of the type of {@code PathStrategy}
+	 * @param method the name of the method
+	 * @return the histogram of the latencies of a method of the strategies of this type
+	 */
+	public Histogram pathLatency(String strategy, String method) {
+		return this.registry.histogram("path." + strategy + '.' + method, "ns");
+	}
+
+	/**
+	 * This method writes the latencies of the operations of the stations: since the creation of the network, then since the last call of this method.
+	 * @param out
+	 * @throws IOException
+	 * @see StationLatencies#write(LatencyHistogram[], Appendable)
+	 */
+	public void writeLatencies(Appendable out) throws IOException {
+		LatencyHistogram[] interval = this.intervals.next();
+		out.append("Latencies of the stations of network ").append(this.name).append(":\n");
+		StationLatencies.write(this.latencies.snapshot(), out);
+		out.append(String.format(Locale.ROOT, "Latencies of the last %.1f seconds:\n", this.intervals.getLastSeconds()));
+		StationLatencies.write(interval, out);
+	}
+
+	/**
+	 * This method makes a thread append the latencies of the operations of the stations to a file, at regular intervals.
+	 * Each interval is written as a line with the time and the length of the interval, followed by the latencies of the interval.
+	 * The log which was running before, if any, is stopped.
+	 * @param fileName
+	 * @param periodSeconds the length of the intervals
+	 */
+	public synchronized void startLatencyLog(String fileName, long periodSeconds) {
+		this.stopLatencyLog();
+		LatencyIntervals logIntervals = new LatencyIntervals(this.latencies);
+		this.latencyLog = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "latency-log-" + this.name);
+			t.setDaemon(true);
+			return t;
+		});
+		this.latencyLog.scheduleAtFixedRate(() -> {
+			LatencyHistogram[] interval = logIntervals.next();
+			try (BufferedWriter w = new BufferedWriter(new FileWriter(fileName, true))) {
+				w.append(LocalDateTime.now().toString()).append(String.format(Locale.ROOT, " interval=%.1fs\n", logIntervals.getLastSeconds()));
+				StationLatencies.write(interval, w);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * This method stops the log of the latencies, if it is running.
+	 */
+	public synchronized void stopLatencyLog() {
+		if (this.latencyLog != null) {
+			this.latencyLog.shutdown();
+			this.latencyLog = null;
+		}
+	}
+
+	/**
+	 * This method writes the metrics.
+	 * @param out
+	 * @throws IOException
+	 * @see MetricsRegistry#write(Appendable)
+	 */
+	public void write(Appendable out) throws IOException {
+		this.registry.write(out);
+	}
+
+}
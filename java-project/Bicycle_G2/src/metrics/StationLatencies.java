@@ -0,0 +1,95 @@
+package metrics;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * This class records the latencies of the operations of a station, or of all the stations of a network, in a {@code LatencyHistogram} for each operation.
+ * A histogram is created the first time a latency of its operation is recorded, so that the stations which are not used take little memory.
+ * The histograms of a station have fewer buckets than the histograms of a network (see {@link LatencyHistogram#STATION_SUB_BITS}), since a network has many stations.
+ * @author Pietro Dellino
+ * @see station.Station#getLatencies()
+ * @see NetworkMetrics#getLatencies()
+ * @see LatencyIntervals
+ */
+public class StationLatencies {
+
+	private static final StationOperation[] OPERATIONS = StationOperation.values();
+
+	private final int subBits;
+	private final int maxExponent;
+	private final AtomicReferenceArray<LatencyHistogram> histograms;
+
+	/**
+	 * This constructor creates the latencies of a network, whose histograms have all the buckets of a {@code LatencyHistogram}.
+	 */
+	public StationLatencies() {
+		this(LatencyHistogram.SUB_BITS, LatencyHistogram.MAX_EXPONENT);
+	}
+
+	/**
+	 * @param subBits the logarithm of the number of buckets of each power of two of the histograms
+	 * @param maxExponent the logarithm of the latency from which the latencies are counted in the last bucket of the histograms
+	 * @see LatencyHistogram#LatencyHistogram(int, int)
+	 */
+	public StationLatencies(int subBits, int maxExponent) {
+		this.subBits = subBits;
+		this.maxExponent = maxExponent;
+		this.histograms = new AtomicReferenceArray<LatencyHistogram>(OPERATIONS.length);
+	}
+
+	/**
+	 * @return the latencies of a station, whose histograms have {@value LatencyHistogram#STATION_SUB_BUCKETS} buckets per power of two
+	 */
+	public static StationLatencies forStation() {
+		return new StationLatencies(LatencyHistogram.STATION_SUB_BITS, LatencyHistogram.STATION_MAX_EXPONENT);
+	}
+
+	/**
+	 * This method records the latency of an operation.
+	 * @param op
+	 * @param nanos
+	 */
+	public void record(StationOperation op, long nanos) {
+		LatencyHistogram h = this.histograms.get(op.ordinal());
+		if (h == null) {
+			this.histograms.compareAndSet(op.ordinal(), null, new LatencyHistogram(this.subBits, this.maxExponent));
+			h = this.histograms.get(op.ordinal());
+		}
+		h.record(nanos);
+	}
+
+	/**
+	 * @param op
+	 * @return the histogram of the latencies of the operation, or {@code null} if none was recorded
+	 */
+	public LatencyHistogram get(StationOperation op) { return this.histograms.get(op.ordinal()); }
+
+	/**
+	 * @return copies of the histograms of the operations, in the order of {@code StationOperation}, which are empty for the operations without latency
+	 */
+	public LatencyHistogram[] snapshot() {
+		LatencyHistogram[] copies = new LatencyHistogram[OPERATIONS.length];
+		for (int i = 0; i < copies.length; i++) {
+			LatencyHistogram h = this.histograms.get(i);
+			copies[i] = h == null ? new LatencyHistogram(this.subBits, this.maxExponent) : h.copy();
+		}
+		return copies;
+	}
+
+	/**
+	 * This method writes the latencies of each operation, one per line: <br>
+	 * {@code <operation> count=<n> p50=<latency> p99=<latency> p999=<latency> max=<latency>}
+	 * @param histograms the histograms of the operations, in the order of {@code StationOperation}
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void write(LatencyHistogram[] histograms, Appendable out) throws IOException {
+		for (StationOperation op : OPERATIONS) {
+			out.append(op.getMethod()).append(' ');
+			histograms[op.ordinal()].write(out);
+			out.append('\n');
+		}
+	}
+
+}
@@ -0,0 +1,23 @@
+package metrics;
+
+/**
+ * This {@code enum} contains the operations of a {@code Station} whose latencies are recorded, with the name of their method.
+ * @author Pietro Dellino
+ * @see StationLatencies
+ */
+public enum StationOperation {
+
+	PICK_UP_BIKE("pickUpBike"),
+	PICK_UP_ELECTRIC_BIKE("pickUpElectricBike"),
+	PICK_UP_MECHANIC_BIKE("pickUpMechanicBike"),
+	DROP_BIKE("dropBike");
+
+	private String method;
+
+	StationOperation(String method) {
+		this.method = method;
+	}
+
+	public String getMethod() { return this.method; }
+
+}
@@ -0,0 +1,92 @@
+package rebalancing;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+
+import station.Station;
+
+/**
+ * This class contains the forecast of the net flow of bikes of each station of a network, for each hour of the day: the expected number of bikes
+ * returned to the station minus the expected number of bikes rented from it during this hour.
+ * @author Pietro Dellino
+ * @see DemandForecaster
+ */
+public class DemandForecast {
+
+	public static final int HOURS = 24;
+
+	private final LocalDateTime start;
+	private final List<Station> stations;
+	private final HashMap<Integer, Integer> indexes;
+	private final double[] flows;
+
+	/**
+	 * @param start the time from which the forecast is used
+	 * @param stations
+	 * @param flows the flows of the stations, {@code flows[HOURS*i + h]} being the flow of station i during the hour h of the day
+	 */
+	DemandForecast(LocalDateTime start, List<Station> stations, double[] flows) {
+		this.start = start;
+		this.stations = stations;
+		this.flows = flows;
+		this.indexes = new HashMap<Integer, Integer>();
+		for (int i = 0; i < stations.size(); i++) {
+			this.indexes.put(stations.get(i).getId(), i);
+		}
+	}
+
+	public LocalDateTime getStart() { return start; }
+
+	/**
+	 * @return the stations of the forecast, in the order of their indexes
+	 */
+	public List<Station> getStations() { return stations; }
+
+	/**
+	 * @param s
+	 * @return the index of the station in the forecast, or -1 if the station is not in it
+	 */
+	public int indexOf(Station s) {
+		Integer i = this.indexes.get(s.getId());
+		return i == null ? -1 : i;
+	}
+
+	/**
+	 * @param i the index of a station
+	 * @param hourOfDay
+	 * @return the expected net flow of bikes of the station during this hour of the day
+	 */
+	public double getFlow(int i, int hourOfDay) { return this.flows[HOURS*i + hourOfDay]; }
+
+	/**
+	 * This method gives the expected change of the number of bikes of a station at the end of each hour after the start of the forecast.
+	 * The first hour is the hour of the day of the start time.
+	 * @param i the index of a station
+	 * @param hours
+	 * @return an array whose element k is the expected change after k+1 hours
+	 */
+	public double[] cumulativeFlows(int i, int hours) {
+		double[] res = new double[hours];
+		double cumulative = 0;
+		int hour = this.start.getHour();
+		for (int k = 0; k < hours; k++) {
+			cumulative += this.flows[HOURS*i + (hour + k) % HOURS];
+			res[k] = cumulative;
+		}
+		return res;
+	}
+
+	/**
+	 * @param s
+	 * @param hours
+	 * @return the expected change of the number of bikes of the station during the first hours of the forecast
+	 */
+	public double getNetFlow(Station s, int hours) {
+		int i = this.indexOf(s);
+		if (i < 0 || hours <= 0) return 0;
+		double[] cumulative = this.cumulativeFlows(i, hours);
+		return cumulative[hours - 1];
+	}
+
+}
@@ -0,0 +1,151 @@
+package rebalancing;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import ride.ArchivedRide;
+import ride.Network;
+import ride.Ride;
+import ride.RideArchive;
+import station.Slot;
+import station.SlotHistory;
+import station.Station;
+
+/**
+ * This class forecasts the hourly net flow of bikes of the stations of a network from the rides of the last days.
+ * <br> The rentals and returns of each station are counted for each hour of the day. A ride of d days ago weighs {@code decay}<sup>d</sup>,
+ * so that the recent days count more than the old ones. The counts of a station for an hour are divided by the weight of the days when the station existed
+ * at this hour, which is known from the first state of the histories of its slots: a new station is not expected to be less used than the older ones.
+ * <br> The rides are read from the {@code RideArchive} of the network if it has one, and from its ride history otherwise.
+ * The counts are read once, and the forecasts of the stations are then computed in parallel.
+ * @author Pietro Dellino
+ * @see DemandForecast
+ * @see RebalancingPlanner
+ */
+public class DemandForecaster {
+
+	public static final int DEFAULT_HISTORY_DAYS = 28;
+	public static final double DEFAULT_DECAY = 0.9;
+
+	private static final int DAY = 24*60;
+
+	private final Network net;
+	private final int historyDays;
+	private final double decay;
+
+	public DemandForecaster(Network net) {
+		this(net, DEFAULT_HISTORY_DAYS, DEFAULT_DECAY);
+	}
+
+	/**
+	 * @param net
+	 * @param historyDays the number of days before the start of the forecast whose rides are read
+	 * @param decay the weight of the rides of the day before a day, compared to this day, between 0 and 1
+	 */
+	public DemandForecaster(Network net, int historyDays, double decay) {
+		this.net = net;
+		this.historyDays = historyDays;
+		this.decay = decay;
+	}
+
+	private static int toMinutes(LocalDateTime t) {
+		return (int) Math.floorDiv(t.toEpochSecond(ZoneOffset.UTC), 60);
+	}
+
+	/**
+	 * This method adds the weight of a rental or a return to the counts of a station.
+	 * @param counts the counts of the stations, for each hour of the day
+	 * @param station the index of the station, or {@code null} if the station is not in the network any more
+	 * @param minute the time of the rental or return, in minutes since 1970
+	 * @param startMinute the start of the forecast
+	 */
+	private void count(double[] counts, Integer station, int minute, int startMinute) {
+		if (station == null || minute >= startMinute) return;
+		int daysAgo = (startMinute - 1 - minute) / DAY;
+		if (daysAgo >= this.historyDays) return;
+		int hour = Math.floorMod(minute, DAY) / 60;
+		counts[DemandForecast.HOURS*station + hour] += Math.pow(this.decay, daysAgo);
+	}
+
+	/**
+	 * This method forecasts the net flow of bikes of each station of the network.
+	 * @param start the time from which the forecast is used: the rides of the {@code historyDays} days before are read
+	 * @return the forecast
+	 */
+	public DemandForecast forecast(LocalDateTime start) {
+		List<Station> stations = new ArrayList<Station>(this.net.getStations());
+		int n = stations.size();
+		HashMap<Integer, Integer> indexes = new HashMap<Integer, Integer>();
+		for (int i = 0; i < n; i++) {
+			indexes.put(stations.get(i).getId(), i);
+		}
+		int startMinute = toMinutes(start);
+		int fromMinute = startMinute - this.historyDays*DAY;
+		double[] rentals = new double[DemandForecast.HOURS*n];
+		double[] returns = new double[DemandForecast.HOURS*n];
+		RideArchive archive = this.net.getRideArchive();
+		if (archive != null) {
+			Iterator<ArchivedRide> it = archive.query(start.minusDays(this.historyDays + 1), start);
+			while (it.hasNext()) {
+				ArchivedRide r = it.next();
+				this.count(rentals, indexes.get(r.getStartStationId()), r.getStartMinute(), startMinute);
+				this.count(returns, indexes.get(r.getEndStationId()), r.getEndMinute(), startMinute);
+			}
+		} else {
+			List<Ride> history = this.net.getRideHistory();
+			synchronized (history) {
+				for (Ride r : history) {
+					if (r.getStartStation() != null) {
+						this.count(rentals, indexes.get(r.getStartStation().getId()), toMinutes(r.getStartRide()), startMinute);
+					}
+					if (r.getEndStation() != null && r.getEndRide() != null) {
+						this.count(returns, indexes.get(r.getEndStation().getId()), toMinutes(r.getEndRide()), startMinute);
+					}
+				}
+			}
+		}
+		double[] flows = new double[DemandForecast.HOURS*n];
+		IntStream.range(0, n).parallel().forEach(i -> {
+			double[] weights = this.observedWeights(stations.get(i), fromMinute, startMinute);
+			for (int h = 0; h < DemandForecast.HOURS; h++) {
+				int k = DemandForecast.HOURS*i + h;
+				if (weights[h] > 0) {
+					flows[k] = (returns[k] - rentals[k]) / weights[h];
+				}
+			}
+		});
+		return new DemandForecast(start, stations, flows);
+	}
+
+	/**
+	 * This method computes, for each hour of the day, the sum of the weights of the days when the station existed at this hour, before the start of the forecast.
+	 * The station exists since the first state of the histories of its slots.
+	 * @param s
+	 * @param fromMinute the beginning of the history which is read
+	 * @param startMinute the start of the forecast
+	 * @return the weights of the hours of the day, which are 0 if the station has no history before the start of the forecast
+	 */
+	private double[] observedWeights(Station s, int fromMinute, int startMinute) {
+		double[] weights = new double[DemandForecast.HOURS];
+		int first = Integer.MAX_VALUE;
+		for (Slot slot : new ArrayList<Slot>(s.getParkingSlots())) {
+			SlotHistory history = slot.getSlotHistory();
+			if (history.size() > 0) {
+				first = Math.min(first, history.getStartMinutes(0));
+			}
+		}
+		for (int m = Math.max(first, fromMinute) / 60 * 60; m < startMinute; m += 60) {
+			int daysAgo = (startMinute - 1 - m) / DAY;
+			if (daysAgo < this.historyDays) {
+				weights[Math.floorMod(m, DAY) / 60] += Math.pow(this.decay, daysAgo);
+			}
+		}
+		return weights;
+	}
+
+}
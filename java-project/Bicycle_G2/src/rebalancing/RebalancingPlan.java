@@ -0,0 +1,94 @@
+package rebalancing;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This class contains the routes of the trucks computed by a {@code RebalancingPlanner}, with the number of stations which were expected
+ * to run empty or full without them.
+ * @author Pietro Dellino
+ * @see RebalancingPlanner
+ */
+public class RebalancingPlan {
+
+	private final String networkName;
+	private final LocalDateTime start;
+	private final int hours;
+	private final List<TruckRoute> routes;
+	private final int emptyStations;
+	private final int fullStations;
+	private final int bikesNeeded;
+	private final long planningMillis;
+
+	RebalancingPlan(String networkName, LocalDateTime start, int hours, List<TruckRoute> routes, int emptyStations, int fullStations, int bikesNeeded, long planningMillis) {
+		this.networkName = networkName;
+		this.start = start;
+		this.hours = hours;
+		this.routes = routes;
+		this.emptyStations = emptyStations;
+		this.fullStations = fullStations;
+		this.bikesNeeded = bikesNeeded;
+		this.planningMillis = planningMillis;
+	}
+
+	public LocalDateTime getStart() { return start; }
+
+	public int getHours() { return hours; }
+
+	public List<TruckRoute> getRoutes() { return routes; }
+
+	/**
+	 * @return the number of stations which were expected to run out of bikes during the period of the plan
+	 */
+	public int getEmptyStations() { return emptyStations; }
+
+	/**
+	 * @return the number of stations which were expected to have no free slot during the period of the plan
+	 */
+	public int getFullStations() { return fullStations; }
+
+	/**
+	 * @return the number of bikes the stations which were expected to run out of bikes needed
+	 */
+	public int getBikesNeeded() { return bikesNeeded; }
+
+	/**
+	 * @return the time spent to compute the plan, in milliseconds
+	 */
+	public long getPlanningMillis() { return planningMillis; }
+
+	public int getBikesMoved() {
+		int moved = 0;
+		for (TruckRoute r : this.routes) {
+			moved += r.getBikesMoved();
+		}
+		return moved;
+	}
+
+	public double getDistance() {
+		double d = 0;
+		for (TruckRoute r : this.routes) {
+			d += r.getDistance();
+		}
+		return d;
+	}
+
+	/**
+	 * This method writes the plan: a summary line, then the stops of each truck.
+	 * @param out
+	 * @throws IOException
+	 */
+	public void write(Appendable out) throws IOException {
+		out.append("Rebalancing plan of network ").append(this.networkName).append(" from ").append(this.start.toString())
+			.append(" for ").append(String.valueOf(this.hours)).append(" hours:\n");
+		out.append(String.format(Locale.ROOT, "%d stations expected to run empty (%d bikes needed), %d expected to be full; %d bikes moved by %d trucks, distance %.2f, planned in %d ms\n",
+			this.emptyStations, this.bikesNeeded, this.fullStations, this.getBikesMoved(), this.routes.size(), this.getDistance(), this.planningMillis));
+		for (int i = 0; i < this.routes.size(); i++) {
+			out.append("Truck ").append(String.valueOf(i + 1)).append(": ");
+			this.routes.get(i).write(out);
+		}
+	}
+
+}
@@ -0,0 +1,353 @@
+package rebalancing;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import ride.Network;
+import ride.StationIndex;
+import station.Station;
+import tools.Point;
+
+/**
+ * This class plans the routes of trucks which move bikes from the stations expected to have too many bikes to the stations expected to run out of them.
+ * <br> The need of each station is computed, in parallel, from the {@code DemandForecast} of the network: a station needs the smallest number of bikes
+ * which keeps its expected number of bikes between 0 and its number of slots during the period of the plan, and has a surplus if bikes have to be taken
+ * from it. The stations without need can also give the bikes they are not expected to use, since the stations expected to be full rarely have enough
+ * bikes for all the others. The routes are then built by a heuristic, within a time budget:
+ * <ol>
+ * <li>each truck starts at one of the stations with the most bikes to give, then the trucks take turns to choose their next stop, which is the stop
+ * moving the most bikes per unit of distance. The candidates are visited in a {@code StationIndex} of the stations which still have a surplus or a need,
+ * the closest first, and the search stops as soon as no further station can be better, so that a stop costs a few cells of the index even with 10,000 stations,</li>
+ * <li>the bikes picked up at the end of a route which cannot be dropped anywhere are left in their stations,</li>
+ * <li>the time left is used to shorten each route with 2-opt moves which keep the load of the truck between 0 and its capacity.</li>
+ * </ol>
+ * The construction stops when {@value #CONSTRUCTION_SHARE} of the time budget is spent, so that the plan is given in time for very big networks.
+ * @author Pietro Dellino
+ * @see DemandForecaster
+ * @see RebalancingPlan
+ */
+public class RebalancingPlanner {
+
+	public static final long DEFAULT_TIME_BUDGET = 1000;
+	public static final double CONSTRUCTION_SHARE = 0.8;
+
+	private static final double EPSILON = 1e-6;
+
+	private final Network net;
+	private final DemandForecaster forecaster;
+
+	public RebalancingPlanner(Network net) {
+		this(net, new DemandForecaster(net));
+	}
+
+	public RebalancingPlanner(Network net, DemandForecaster forecaster) {
+		this.net = net;
+		this.forecaster = forecaster;
+	}
+
+	/**
+	 * This method computes the number of bikes a station needs, so that its expected number of bikes stays between 0 and its number of slots.
+	 * If no number of bikes can achieve it, the station gets the number in the middle of the two limits.
+	 * @param s
+	 * @param cumulative the expected change of the number of bikes of the station after each hour
+	 * @return the number of bikes to bring to the station (if positive) or to take from it (if negative)
+	 */
+	static int need(Station s, double[] cumulative) {
+		if (!s.isOnline()) return 0;
+		int bikes = s.getNumberBikes();
+		int capacity = bikes + s.getNumberFreeSlots();
+		double min = 0, max = 0;
+		for (double c : cumulative) {
+			min = Math.min(min, c);
+			max = Math.max(max, c);
+		}
+		long lower = Math.round(-min - bikes);
+		long upper = Math.round(capacity - bikes - max);
+		long need;
+		if (lower > upper) {
+			need = Math.floorDiv(lower + upper, 2);
+		} else if (lower > 0) {
+			need = lower;
+		} else if (upper < 0) {
+			need = upper;
+		} else {
+			need = 0;
+		}
+		return (int) Math.max(-bikes, Math.min(capacity - bikes, need));
+	}
+
+	/**
+	 * This method computes the number of bikes which can be taken from a station while its expected number of bikes stays positive.
+	 * @param s
+	 * @param cumulative the expected change of the number of bikes of the station after each hour
+	 * @return the number of bikes the station can give
+	 */
+	static int spare(Station s, double[] cumulative) {
+		if (!s.isOnline()) return 0;
+		int bikes = s.getNumberBikes();
+		double min = 0;
+		for (double c : cumulative) {
+			min = Math.min(min, c);
+		}
+		return (int) Math.max(0, Math.min(bikes, Math.round(bikes + min)));
+	}
+
+	/**
+	 * This method plans the routes of the trucks.
+	 * @param start the beginning of the period of the plan
+	 * @param hours the length of the period of the plan
+	 * @param trucks the number of trucks
+	 * @param truckCapacity the number of bikes each truck can carry
+	 * @param timeBudgetMillis the time given to the planning, in milliseconds
+	 * @return the plan
+	 */
+	public RebalancingPlan plan(LocalDateTime start, int hours, int trucks, int truckCapacity, long timeBudgetMillis) {
+		long begin = System.nanoTime();
+		long deadline = begin + timeBudgetMillis*1000000;
+		long constructionDeadline = begin + (long) (CONSTRUCTION_SHARE*timeBudgetMillis*1000000);
+		DemandForecast forecast = this.forecaster.forecast(start);
+		List<Station> stations = forecast.getStations();
+		int n = stations.size();
+		int[] needs = new int[n];
+		int[] spares = new int[n];
+		boolean[] empty = new boolean[n];
+		boolean[] full = new boolean[n];
+		IntStream.range(0, n).parallel().forEach(i -> {
+			Station s = stations.get(i);
+			double[] cumulative = forecast.cumulativeFlows(i, hours);
+			needs[i] = need(s, cumulative);
+			spares[i] = needs[i] == 0 ? spare(s, cumulative) : 0;
+			if (s.isOnline()) {
+				double min = 0, max = 0;
+				for (double c : cumulative) {
+					min = Math.min(min, c);
+					max = Math.max(max, c);
+				}
+				empty[i] = s.getNumberBikes() + min <= -0.5;
+				full[i] = s.getNumberBikes() + max >= s.getNumberBikes() + s.getNumberFreeSlots() + 0.5;
+			}
+		});
+		int emptyStations = 0, fullStations = 0, bikesNeeded = 0;
+		for (int i = 0; i < n; i++) {
+			if (empty[i]) emptyStations++;
+			if (full[i]) fullStations++;
+			if (needs[i] > 0) bikesNeeded += needs[i];
+		}
+		Solver solver = new Solver(forecast, needs, spares, truckCapacity);
+		List<TruckRoute> routes = solver.construct(trucks, constructionDeadline);
+		for (TruckRoute r : routes) {
+			improve(r, deadline);
+		}
+		long millis = (System.nanoTime() - begin) / 1000000;
+		return new RebalancingPlan(this.net.getName(), start, hours, routes, emptyStations, fullStations, bikesNeeded, millis);
+	}
+
+	/**
+	 * This class builds the routes of the trucks, from the needs of the stations. The stations with a surplus and the stations which need bikes
+	 * are kept in two {@code StationIndex}, from which they are removed once their need is met, so that the search of the next stop of a truck only
+	 * visits the stations where bikes can be picked up or dropped.
+	 */
+	private class Solver {
+		private final List<Station> stations;
+		private final HashMap<Station, Integer> indexes;
+		private final int[] left;
+		private final int capacity;
+		private final StationIndex surplus;
+		private final StationIndex deficit;
+		private final int maxSurplus;
+		private final int maxDeficit;
+
+		/**
+		 * @param forecast
+		 * @param needs the number of bikes each station needs (if positive) or has to give (if negative)
+		 * @param spares the number of bikes each station without need can give
+		 * @param capacity the number of bikes a truck can carry
+		 */
+		Solver(DemandForecast forecast, int[] needs, int[] spares, int capacity) {
+			this.stations = forecast.getStations();
+			this.indexes = new HashMap<Station, Integer>();
+			this.left = new int[needs.length];
+			this.capacity = capacity;
+			this.surplus = new StationIndex();
+			this.deficit = new StationIndex();
+			int maxSurplus = 0, maxDeficit = 0;
+			for (int i = 0; i < needs.length; i++) {
+				this.left[i] = needs[i] != 0 ? needs[i] : -spares[i];
+				if (this.left[i] != 0) {
+					Station s = this.stations.get(i);
+					this.indexes.put(s, i);
+					(this.left[i] < 0 ? this.surplus : this.deficit).add(s);
+					maxSurplus = Math.max(maxSurplus, -this.left[i]);
+					maxDeficit = Math.max(maxDeficit, this.left[i]);
+				}
+			}
+			this.maxSurplus = maxSurplus;
+			this.maxDeficit = maxDeficit;
+		}
+
+		/**
+		 * @param i
+		 * @param load
+		 * @return the number of bikes a truck with this load can pick up (if positive) or drop (if negative) at the station i
+		 */
+		private int quantity(int i, int load) {
+			if (this.left[i] < 0) return Math.min(this.capacity - load, -this.left[i]);
+			if (this.left[i] > 0) return -Math.min(load, this.left[i]);
+			return 0;
+		}
+
+		/**
+		 * This method looks for a better stop than {@code best} in an index, the closest stations first.
+		 * The search stops when the stations are too far to be better, even with the biggest quantity of bikes which can be moved.
+		 * @param index
+		 * @param p the position of the truck
+		 * @param load
+		 * @param maxQuantity the biggest quantity of bikes which can be moved at a station of the index
+		 * @param best the index of the best station found, or -1
+		 * @param bestScore the number of bikes moved per unit of distance by the best station
+		 * @return the best station, with its score in {@code bestScore[0]}
+		 */
+		private int search(StationIndex index, Point p, int load, int maxQuantity, int best, double[] bestScore) {
+			if (maxQuantity <= 0 || index.size() == 0) return best;
+			for (Station s : index.nearestFirst(p)) {
+				double dist = p.distancePoint(s.getP());
+				if (maxQuantity / (dist + EPSILON) <= bestScore[0]) break;
+				int i = this.indexes.get(s);
+				double score = Math.abs(this.quantity(i, load)) / (dist + EPSILON);
+				if (score > bestScore[0]) {
+					best = i;
+					bestScore[0] = score;
+				}
+			}
+			return best;
+		}
+
+		/**
+		 * This method finds the best next stop of a truck: the stop moving the most bikes per unit of distance.
+		 * @param p the position of the truck
+		 * @param load
+		 * @return the index of the station of the stop, or -1 if the truck cannot move any bike
+		 */
+		private int next(Point p, int load) {
+			if (this.deficit.size() == 0) return -1;
+			double[] bestScore = {0};
+			int best = this.search(this.deficit, p, load, Math.min(load, this.maxDeficit), -1, bestScore);
+			return this.search(this.surplus, p, load, Math.min(this.capacity - load, this.maxSurplus), best, bestScore);
+		}
+
+		private void visit(TruckRoute route, int i, int bikes) {
+			Station s = this.stations.get(i);
+			route.getStops().add(new TruckRoute.Stop(s, bikes));
+			boolean wasSurplus = this.left[i] < 0;
+			this.left[i] += bikes;
+			if (this.left[i] == 0) {
+				(wasSurplus ? this.surplus : this.deficit).remove(s);
+			}
+		}
+
+		/**
+		 * This method builds the routes of the trucks, which take turns to choose their next stop.
+		 * @param trucks
+		 * @param deadline the value of {@code System.nanoTime()} when the construction has to stop
+		 * @return the routes, without the trucks which have nothing to move
+		 */
+		List<TruckRoute> construct(int trucks, long deadline) {
+			Integer[] seeds = new Integer[this.surplus.size()];
+			int n = 0;
+			for (int i = 0; i < this.left.length; i++) {
+				if (this.left[i] < 0) seeds[n++] = i;
+			}
+			Arrays.sort(seeds, (a, b) -> Integer.compare(this.left[a], this.left[b]));
+			int k = Math.min(trucks, seeds.length);
+			TruckRoute[] routes = new TruckRoute[k];
+			int[] loads = new int[k];
+			boolean[] done = new boolean[k];
+			for (int t = 0; t < k; t++) {
+				routes[t] = new TruckRoute(this.capacity);
+				if (this.left[seeds[t]] < 0) {
+					loads[t] = this.quantity(seeds[t], 0);
+					this.visit(routes[t], seeds[t], loads[t]);
+				} else {
+					done[t] = true;
+				}
+			}
+			boolean active = true;
+			while (active && System.nanoTime() < deadline) {
+				active = false;
+				for (int t = 0; t < k; t++) {
+					if (done[t]) continue;
+					List<TruckRoute.Stop> stops = routes[t].getStops();
+					int i = this.next(stops.get(stops.size() - 1).getStation().getP(), loads[t]);
+					if (i < 0) {
+						done[t] = true;
+						continue;
+					}
+					int bikes = this.quantity(i, loads[t]);
+					loads[t] += bikes;
+					this.visit(routes[t], i, bikes);
+					active = true;
+				}
+			}
+			ArrayList<TruckRoute> res = new ArrayList<TruckRoute>();
+			for (TruckRoute r : routes) {
+				r.unload();
+				if (!r.getStops().isEmpty()) res.add(r);
+			}
+			return res;
+		}
+	}
+
+	/**
+	 * @param stops
+	 * @param capacity
+	 * @return whether the load of the truck stays between 0 and its capacity along the stops
+	 */
+	private static boolean feasible(List<TruckRoute.Stop> stops, int capacity) {
+		int load = 0;
+		for (TruckRoute.Stop stop : stops) {
+			load += stop.getBikes();
+			if (load < 0 || load > capacity) return false;
+		}
+		return true;
+	}
+
+	private static double dist(List<TruckRoute.Stop> stops, int i, int j) {
+		return stops.get(i).getStation().getP().distancePoint(stops.get(j).getStation().getP());
+	}
+
+	/**
+	 * This method shortens a route with 2-opt moves: a part of the route is reversed if the route becomes shorter and the load of the truck stays
+	 * between 0 and its capacity. The moves are tried until none improves the route or the deadline is reached.
+	 * @param route
+	 * @param deadline the value of {@code System.nanoTime()} when the improvement has to stop
+	 */
+	static void improve(TruckRoute route, long deadline) {
+		ArrayList<TruckRoute.Stop> stops = new ArrayList<TruckRoute.Stop>(route.getStops());
+		int m = stops.size();
+		boolean improved = true;
+		while (improved && System.nanoTime() < deadline) {
+			improved = false;
+			for (int i = 0; i < m - 1 && System.nanoTime() < deadline; i++) {
+				for (int j = i + 1; j < m; j++) {
+					double before = (i > 0 ? dist(stops, i-1, i) : 0) + (j < m-1 ? dist(stops, j, j+1) : 0);
+					double after = (i > 0 ? dist(stops, i-1, j) : 0) + (j < m-1 ? dist(stops, i, j+1) : 0);
+					if (after < before - EPSILON) {
+						Collections.reverse(stops.subList(i, j + 1));
+						if (feasible(stops, route.getCapacity())) {
+							improved = true;
+						} else {
+							Collections.reverse(stops.subList(i, j + 1));
+						}
+					}
+				}
+			}
+		}
+		route.setStops(stops);
+	}
+
+}
@@ -0,0 +1,127 @@
+package rebalancing;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import station.Station;
+
+/**
+ * This class represents the route of a truck which moves bikes between stations: a list of stops, where the truck picks up or drops bikes.
+ * The truck starts empty at its first stop and ends empty at its last one.
+ * @author Pietro Dellino
+ * @see RebalancingPlan
+ */
+public class TruckRoute {
+
+	/**
+	 * A stop of a truck at a station.
+	 */
+	public static class Stop {
+		private final Station station;
+		private int bikes;
+
+		/**
+		 * @param station
+		 * @param bikes the number of bikes picked up (if positive) or dropped (if negative) at the station
+		 */
+		Stop(Station station, int bikes) {
+			this.station = station;
+			this.bikes = bikes;
+		}
+
+		public Station getStation() { return station; }
+
+		/**
+		 * @return the number of bikes picked up (if positive) or dropped (if negative) at the station
+		 */
+		public int getBikes() { return bikes; }
+
+		void setBikes(int bikes) { this.bikes = bikes; }
+	}
+
+	private final int capacity;
+	private ArrayList<Stop> stops;
+
+	/**
+	 * @param capacity the number of bikes the truck can carry
+	 */
+	TruckRoute(int capacity) {
+		this.capacity = capacity;
+		this.stops = new ArrayList<Stop>();
+	}
+
+	public int getCapacity() { return capacity; }
+
+	public List<Stop> getStops() { return stops; }
+
+	void setStops(ArrayList<Stop> stops) { this.stops = stops; }
+
+	/**
+	 * @return the number of bikes in the truck after the last stop
+	 */
+	int getLoad() {
+		int load = 0;
+		for (Stop stop : this.stops) {
+			load += stop.bikes;
+		}
+		return load;
+	}
+
+	/**
+	 * @return the length of the route, from the first stop to the last one
+	 */
+	public double getDistance() {
+		return distance(this.stops);
+	}
+
+	static double distance(List<Stop> stops) {
+		double d = 0;
+		for (int i = 1; i < stops.size(); i++) {
+			d += stops.get(i-1).station.getP().distancePoint(stops.get(i).station.getP());
+		}
+		return d;
+	}
+
+	/**
+	 * @return the number of bikes dropped by the truck
+	 */
+	public int getBikesMoved() {
+		int moved = 0;
+		for (Stop stop : this.stops) {
+			if (stop.bikes < 0) moved -= stop.bikes;
+		}
+		return moved;
+	}
+
+	/**
+	 * This method reduces the bikes picked up at the last stops, and removes the stops where nothing is done any more, so that the truck ends empty.
+	 */
+	void unload() {
+		int excess = this.getLoad();
+		for (int i = this.stops.size() - 1; i >= 0 && excess > 0; i--) {
+			Stop stop = this.stops.get(i);
+			if (stop.bikes > 0) {
+				int reduction = Math.min(excess, stop.bikes);
+				stop.bikes -= reduction;
+				excess -= reduction;
+			}
+		}
+		this.stops.removeIf(stop -> stop.bikes == 0);
+	}
+
+	/**
+	 * This method writes the stops of the route, one per line.
+	 * @param out
+	 * @throws IOException
+	 */
+	public void write(Appendable out) throws IOException {
+		out.append(String.format(Locale.ROOT, "stops: %d, bikes moved: %d, distance: %.2f\n", this.stops.size(), this.getBikesMoved(), this.getDistance()));
+		for (Stop stop : this.stops) {
+			out.append(stop.bikes > 0 ? "  pick up " : "  drop ").append(String.valueOf(Math.abs(stop.bikes)))
+				.append(Math.abs(stop.bikes) > 1 ? " bikes" : " bike").append(" at station ").append(String.valueOf(stop.station.getId())).append('\n');
+		}
+	}
+
+}
@@ -0,0 +1,86 @@
+package ride;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * This class represents a {@code Ride} read from a {@code RideArchive}: it only has the ids of the objects of the ride, its times and its price.
+ * @author Pietro Dellino
+ * @see RideArchive
+ */
+public class ArchivedRide {
+
+	private int bikeId;
+	private int userId;
+	private int cardType;
+	private int startMinute;
+	private int endMinute;
+	private int startStationId;
+	private int endStationId;
+	private double price;
+
+	ArchivedRide(int bikeId, int userId, int cardType, int startMinute, int endMinute, int startStationId, int endStationId, double price) {
+		this.bikeId = bikeId;
+		this.userId = userId;
+		this.cardType = cardType;
+		this.startMinute = startMinute;
+		this.endMinute = endMinute;
+		this.startStationId = startStationId;
+		this.endStationId = endStationId;
+		this.price = price;
+	}
+
+	/**
+	 * @param t
+	 * @return the number of minutes between 1970-01-01T00:00 and {@code t}
+	 */
+	static int toMinute(LocalDateTime t) { return (int) Math.floorDiv(t.toEpochSecond(ZoneOffset.UTC), 60); }
+
+	static LocalDateTime fromMinute(int minute) { return LocalDateTime.ofEpochSecond(60L*minute, 0, ZoneOffset.UTC); }
+
+	public int getBikeId() { return bikeId; }
+
+	public int getUserId() { return userId; }
+
+	/**
+	 * @return the type of the card used for the ride, a constant of {@code CardFactory}
+	 */
+	public int getCardType() { return cardType; }
+
+	public LocalDateTime getStartRide() { return fromMinute(startMinute); }
+
+	public LocalDateTime getEndRide() { return fromMinute(endMinute); }
+
+	/**
+	 * @return the start time of the ride, in minutes since 1970
+	 */
+	public int getStartMinute() { return startMinute; }
+
+	/**
+	 * @return the end time of the ride, in minutes since 1970
+	 */
+	public int getEndMinute() { return endMinute; }
+
+	/**
+	 * @return the duration of the ride, in minutes
+	 */
+	public int getRideTime() { return endMinute - startMinute; }
+
+	/**
+	 * @return the id of the station where the ride started, or -1 if it is unknown
+	 */
+	public int getStartStationId() { return startStationId; }
+
+	/**
+	 * @return the id of the station where the ride ended, or -1 if it is unknown
+	 */
+	public int getEndStationId() { return endStationId; }
+
+	public double getPrice() { return price; }
+
+	@Override
+	public String toString() {
+		return "Ride of the bike " + bikeId + " by the user " + userId + " from " + this.getStartRide() + " to " + this.getEndRide();
+	}
+
+}
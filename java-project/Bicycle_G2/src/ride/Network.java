@@ -1,10 +1,22 @@
 package ride;
 
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import bike.BikeRegistry;
+import metrics.NetworkMetrics;
+import ride.path.RoadGraph;
 import sorting.station.SortingStrategy;
+import station.ReservationWheel;
+import station.Slot;
 import station.Station;
+import tools.Point;
 
 
 import card.Card;
@@ -17,45 +29,214 @@ public class Network implements Serializable {
 	private static final long serialVersionUID = -3127825538872149011L;
 	
 	private ArrayList<Station> stations;
+	private StationIndex stationIndex;
+	private HashMap<Integer, Station> stationsById;
+	private HashMap<Integer, Slot> slotsById;
 	private ArrayList<Card> cards;
-	private ArrayList<Ride> rideHistory;
-	private String name;
+	private HashMap<Integer, Card> cardsByUserId;
+	private List<Ride> rideHistory;
+	private transient RideArchive rideArchive;
+	private int recentRides;
+	private transient ArrayDeque<Ride> unarchivedRides;
+	private transient volatile NetworkMetrics metrics;
+	private transient volatile RoadGraph roadGraph;
+	private transient BikeRegistry bikeRegistry;
+	private transient volatile ReservationWheel reservationWheel;
+	private String name;
 	
 	public Network() {
 		this.stations = new ArrayList<Station>();
-		this.rideHistory = new ArrayList<Ride>();
+		this.stationIndex = new StationIndex();
+		this.stationsById = new HashMap<Integer, Station>();
+		this.slotsById = new HashMap<Integer, Slot>();
+		this.rideHistory = Collections.synchronizedList(new ArrayList<Ride>());
 		this.cards = new ArrayList<Card>();
+		this.cardsByUserId = new HashMap<Integer, Card>();
 	}
 	
 	public Network(String name) {
-		this.stations = new ArrayList<Station>();
-		this.rideHistory = new ArrayList<Ride>();
-		this.cards = new ArrayList<Card>();
+		this();
 		this.name = name;
 	}
 	
 	
 	public ArrayList<Station> getStations() { return stations; }
-	public ArrayList<Ride> getRideHistory() { return rideHistory; }
+	public StationIndex getStationIndex() { return stationIndex; }
+	
+	/**
+	 * @return the registry in which the slots of the network find their bikes, which is the shared registry if none was set
+	 */
+	public BikeRegistry getBikeRegistry() { return bikeRegistry == null ? BikeRegistry.getShared() : bikeRegistry; }
+	
+	/**
+	 * This method sets the registry of the bikes of the network. It must be called before the stations are created.
+	 * @param bikeRegistry
+	 */
+	public void setBikeRegistry(BikeRegistry bikeRegistry) { this.bikeRegistry = bikeRegistry; }
+	/**
+	 * The ride history can be used by several threads: it has to be locked to be iterated.
+	 * @return the rides of the network that are ended, or only the last ones if the network has a {@code RideArchive}
+	 */
+	public List<Ride> getRideHistory() { return rideHistory; }
+	
+	public RideArchive getRideArchive() { return rideArchive; }
+	
+	/**
+	 * This method makes the network write the rides that end to an archive, and only keep the last ones in its ride history.
+	 * @param rideArchive the archive, or {@code null} to keep all the rides in the ride history
+	 * @param recentRides the number of rides kept in the ride history
+	 */
+	public void setRideArchive(RideArchive rideArchive, int recentRides) {
+		synchronized (this.rideHistory) {
+			this.rideArchive = rideArchive;
+			this.recentRides = recentRides;
+		}
+	}
+	
+	/**
+	 * @return the number of rides which are ended but could not be written to the {@code RideArchive} yet
+	 */
+	public long getNumberUnarchivedRides() {
+		synchronized (this.rideHistory) {
+			return this.unarchivedRides == null ? 0 : this.unarchivedRides.size();
+		}
+	}
 	public ArrayList<Card> getCards() { return cards; }
+	
+	/**
+	 * @return the graph of the roads of the network, or {@code null} if none was loaded
+	 */
+	public RoadGraph getRoadGraph() { return roadGraph; }
+	
+	/**
+	 * The graph is not saved with the network, since it is usually much bigger than the network and is loaded again from its file.
+	 * @param roadGraph
+	 */
+	public void setRoadGraph(RoadGraph roadGraph) { this.roadGraph = roadGraph; }
+	
+	/**
+	 * The metrics are not saved with the network: they are created again, empty, when they are first asked for.
+	 * @return the metrics of the network
+	 */
+	public NetworkMetrics getMetrics() {
+		NetworkMetrics m = this.metrics;
+		if (m == null) {
+			synchronized (this) {
+				m = this.metrics;
+				if (m == null) {
+					m = new NetworkMetrics(this);
+					this.metrics = m;
+				}
+			}
+		}
+		return m;
+	}
 
+	/**
+	 * The reservations are not saved with the network, so the wheel is created again, empty, when it is first asked for.
+	 * @return the wheel in which the reservations of the stations of the network expire, whose clock is the latest time of an operation of the network
+	 */
+	public ReservationWheel getReservationWheel() {
+		ReservationWheel w = this.reservationWheel;
+		if (w == null) {
+			synchronized (this) {
+				w = this.reservationWheel;
+				if (w == null) {
+					w = new ReservationWheel();
+					this.reservationWheel = w;
+				}
+			}
+		}
+		return w;
+	}
 	
 	public String getName() { return this.name; }
 	
 	public void addStation(Station station) {
 		this.stations.add(station);
+		this.stationIndex.add(station);
+		this.stationsById.put(station.getId(), station);
+		for (Slot slot : station.getParkingSlots()) {
+			this.slotsById.put(slot.getId(), slot);
+		}
 	}
 	
 	public void removeStation(Station station) {
-		this.stations.remove(station);
+		if (this.stations.remove(station)) {
+			this.stationIndex.remove(station);
+			this.stationsById.remove(station.getId());
+			for (Slot slot : station.getParkingSlots()) {
+				this.slotsById.remove(slot.getId());
+			}
+		}
+	}
+	
+	/**
+	 * @param id
+	 * @return the {@code Station} of the network with this id, or {@code null} if there is none
+	 */
+	public Station getStationById(int id) { return this.stationsById.get(id); }
+	
+	/**
+	 * @param id
+	 * @return the {@code Slot} of a station of the network with this id, or {@code null} if there is none
+	 */
+	public Slot getSlotById(int id) { return this.slotsById.get(id); }
+	
+	/**
+	 * @param userId
+	 * @return the last {@code Card} added to the network whose owner has this id, or {@code null} if there is none
+	 */
+	public Card getCardByUserId(int userId) { return this.cardsByUserId.get(userId); }
+	
+	/**
+	 * This method is called by a {@code Station} of the network when a {@code Slot} is added to it.
+	 * @param slot
+	 */
+	public void addSlot(Slot slot) {
+		if (this.stationsById.get(slot.getS().getId()) == slot.getS()) {
+			this.slotsById.put(slot.getId(), slot);
+		}
+	}
+	
+	/**
+	 * This method is called by a {@code Station} of the network when a {@code Slot} is removed from it.
+	 * @param slot
+	 */
+	public void removeSlot(Slot slot) {
+		if (this.slotsById.get(slot.getId()) == slot) {
+			this.slotsById.remove(slot.getId());
+		}
+	}
+	
+	/**
+	 * This method has to be called when a {@code Station} of the network changes its position, so that the {@code StationIndex} stays up to date.
+	 * @param station
+	 * @param oldPosition the position of the station before it moved
+	 */
+	public void moveStation(Station station, Point oldPosition) {
+		if (this.stationIndex.remove(station, oldPosition)) {
+			this.stationIndex.add(station);
+		}
 	}
 	
 	public void addCard(Card card) {
 		this.cards.add(card);
+		this.cardsByUserId.put(card.getUser().getId(), card);
 	}
 	
 	public void removeCard(Card card) {
-		this.cards.remove(card);
+		if (this.cards.remove(card)) {
+			int userId = card.getUser().getId();
+			if (this.cardsByUserId.get(userId) == card) {
+				this.cardsByUserId.remove(userId);
+				for (Card c : this.cards) {
+					if (c.getUser().getId() == userId) {
+						this.cardsByUserId.put(userId, c);
+					}
+				}
+			}
+		}
 	}
 
 	public ArrayList<Station> sortingStations (SortingStrategy s) {
@@ -63,7 +244,37 @@ public class Network implements Serializable {
 		return s.sorting(sortedStations);
 	}
 	
+	/**
+	 * This method adds an ended ride to the ride history. If the network has a {@code RideArchive}, the ride is written to it, and the oldest rides
+	 * are removed from the ride history once it has twice the number of recent rides, so that removing them costs little for each ride.
+	 * <br> The ride is already ended when this method is called, so that a ride which cannot be written does not make the return of the bike fail:
+	 * the error is counted in the metrics of the network, the ride stays in the ride history, and it is written again with the next ride.
+	 * @see NetworkMetrics#ARCHIVE_FAILED
+	 * @param r
+	 */
 	public void archiveRide(Ride r) {
-		this.rideHistory.add(r);
+		this.getMetrics().rideEnded(r);
+		synchronized (this.rideHistory) {
+			this.rideHistory.add(r);
+			if (this.rideArchive != null) {
+				if (this.unarchivedRides == null) {
+					this.unarchivedRides = new ArrayDeque<Ride>();
+				}
+				this.unarchivedRides.add(r);
+				try {
+					while (!this.unarchivedRides.isEmpty()) {
+						this.rideArchive.append(this.unarchivedRides.peekFirst());
+						this.unarchivedRides.pollFirst();
+					}
+				} catch (IOException e) {
+					this.getMetrics().archiveFailed(e);
+					return;
+				}
+				int size = this.rideHistory.size();
+				if (size > 2*this.recentRides) {
+					this.rideHistory.subList(0, size - this.recentRides).clear();
+				}
+			}
+		}
 	}
 }
@@ -4,6 +4,7 @@ import java.time.LocalDateTime;
 import bike.*;
 import card.Card;
 import station.OngoingRideException;
+import station.Station;
 import user.*;
 import tools.Date;
 import tools.NegativeTimeException;
@@ -23,6 +24,9 @@ public class Ride {
 	private LocalDateTime endRide; 
 	private int rideTime;
 	private Network net;
+	private Station startStation;
+	private Station endStation;
+	private double price;
 	
 	
 	public Ride(Network net, Bike bike, User user, Card card, LocalDateTime startRide) {
@@ -42,17 +46,25 @@ public class Ride {
 	public LocalDateTime getEndRide() { return endRide; }
 	public Card getCard() { return card; }
 	
+	public Station getStartStation() { return startStation; }
+	public void setStartStation(Station startStation) { this.startStation = startStation; }
+	
+	public Station getEndStation() { return endStation; }
+	public void setEndStation(Station endStation) { this.endStation = endStation; }
+	
+	public double getPrice() { return price; }
+	public void setPrice(double price) { this.price = price; }
+	
 	/**
-	 * This method sets the ending time of the {@code Ride}, and archive it in the Ride History of the {@code Network}.	 
+	 * This method sets the ending time of the {@code Ride} and computes its duration.
+	 * The {@code User} then computes its price and archives it in the Ride History of the {@code Network}.
 	 * @param endRide
 	 * @throws NullDateException 
 	 * @throws NegativeTimeException 
 	 */
 	public void endRide(LocalDateTime endRide) throws NegativeTimeException, NullDateException {
 		this.endRide = endRide;
-		net.archiveRide(this);
 		this.rideTime = Date.computeTime(this.startRide, this.endRide);
-		
 	}
 	
 	/**
@@ -0,0 +1,218 @@
+package ride;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import card.CardFactory;
+
+/**
+ * This class stores the rides of a {@code Network} outside of the heap, in files mapped in memory.
+ * <br> The rides are written in segments of {@link #SEGMENT_SIZE} rides. A segment is a file with the number of rides it contains,
+ * followed by one column for each attribute: the id of the bike, the id of the user, the type of the card, the start and end times
+ * (in minutes since 1970), the ids of the start and end stations and the price. Each column has a fixed width, so that the i-th ride of a segment
+ * is read at the same index in each column, and a query on one attribute only reads the column of this attribute.
+ * <br> The number of rides of a segment is written after the ride, so that a ride is either completely in the archive or not at all.
+ * @author Pietro Dellino
+ * @see ArchivedRide
+ * @see Network#setRideArchive(RideArchive, int)
+ * @see controller.NetworkManager#openRideArchive(String, File, int)
+ */
+public class RideArchive implements Closeable, Iterable<ArchivedRide> {
+
+	/**
+	 * The number of rides of a segment file.
+	 */
+	public static final int SEGMENT_SIZE = 1 << 16;
+
+	private static final int HEADER = 8;
+	private static final int[] WIDTHS = {4, 4, 1, 4, 4, 4, 4, 8};
+	private static final int BIKE = 0, USER = 1, CARD = 2, START = 3, END = 4, START_STATION = 5, END_STATION = 6, PRICE = 7;
+	private static final int[] OFFSETS = new int[WIDTHS.length];
+	private static final int SEGMENT_BYTES;
+
+	static {
+		int offset = HEADER;
+		for (int i = 0; i < WIDTHS.length; i++) {
+			OFFSETS[i] = offset;
+			offset += WIDTHS[i]*SEGMENT_SIZE;
+		}
+		SEGMENT_BYTES = offset;
+	}
+
+	private File dir;
+	private ArrayList<MappedByteBuffer> segments;
+	private int lastCount;
+
+	/**
+	 * This constructor opens the archive stored in a directory, and creates the directory if it does not exist.
+	 * @param dir
+	 * @throws IOException
+	 */
+	public RideArchive(File dir) throws IOException {
+		this.dir = dir;
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("The directory " + dir.getPath() + " cannot be created");
+		}
+		this.segments = new ArrayList<MappedByteBuffer>();
+		File[] files = dir.listFiles((d, name) -> name.matches("rides-[0-9]{6}\\.seg"));
+		Arrays.sort(files);
+		for (int i = 0; i < files.length; i++) {
+			if (!files[i].getName().equals(segmentName(i))) {
+				throw new IOException("The segment " + segmentName(i) + " of the archive " + dir.getPath() + " is missing");
+			}
+			this.segments.add(this.map(files[i]));
+		}
+		if (this.segments.isEmpty()) {
+			this.addSegment();
+		}
+		this.lastCount = this.count(this.segments.size() - 1);
+	}
+
+	private static String segmentName(int i) { return String.format("rides-%06d.seg", i); }
+
+	private MappedByteBuffer map(File f) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+			return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_BYTES);
+		}
+	}
+
+	private void addSegment() throws IOException {
+		this.segments.add(this.map(new File(this.dir, segmentName(this.segments.size()))));
+		this.lastCount = 0;
+	}
+
+	private int count(int segment) { return this.segments.get(segment).getInt(0); }
+
+	/**
+	 * This method writes an ended ride at the end of the archive.
+	 * @param r
+	 * @throws IOException if a new segment cannot be created
+	 */
+	public synchronized void append(Ride r) throws IOException {
+		if (this.lastCount == SEGMENT_SIZE) {
+			this.addSegment();
+		}
+		MappedByteBuffer seg = this.segments.get(this.segments.size() - 1);
+		int i = this.lastCount;
+		seg.putInt(OFFSETS[BIKE] + 4*i, r.getBike().getId());
+		seg.putInt(OFFSETS[USER] + 4*i, r.getUser().getId());
+		seg.put(OFFSETS[CARD] + i, (byte) CardFactory.getCardType(r.getCard()));
+		seg.putInt(OFFSETS[START] + 4*i, ArchivedRide.toMinute(r.getStartRide()));
+		seg.putInt(OFFSETS[END] + 4*i, ArchivedRide.toMinute(r.getEndRide()));
+		seg.putInt(OFFSETS[START_STATION] + 4*i, r.getStartStation() == null ? -1 : r.getStartStation().getId());
+		seg.putInt(OFFSETS[END_STATION] + 4*i, r.getEndStation() == null ? -1 : r.getEndStation().getId());
+		seg.putDouble(OFFSETS[PRICE] + 8*i, r.getPrice());
+		this.lastCount = i + 1;
+		seg.putInt(0, this.lastCount);
+	}
+
+	/**
+	 * @return the number of rides of the archive
+	 */
+	public synchronized long size() {
+		return (long) (this.segments.size() - 1)*SEGMENT_SIZE + this.lastCount;
+	}
+
+	/**
+	 * @param index
+	 * @return the ride at this index, in the order in which the rides were archived
+	 */
+	public synchronized ArchivedRide get(long index) {
+		if (index < 0 || index >= this.size()) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size());
+		}
+		return read(this.segments.get((int) (index / SEGMENT_SIZE)), (int) (index % SEGMENT_SIZE));
+	}
+
+	private static ArchivedRide read(MappedByteBuffer seg, int i) {
+		return new ArchivedRide(seg.getInt(OFFSETS[BIKE] + 4*i), seg.getInt(OFFSETS[USER] + 4*i), seg.get(OFFSETS[CARD] + i),
+				seg.getInt(OFFSETS[START] + 4*i), seg.getInt(OFFSETS[END] + 4*i), seg.getInt(OFFSETS[START_STATION] + 4*i),
+				seg.getInt(OFFSETS[END_STATION] + 4*i), seg.getDouble(OFFSETS[PRICE] + 8*i));
+	}
+
+	/**
+	 * This method returns an iterator over the rides archived when it is called.
+	 */
+	@Override
+	public Iterator<ArchivedRide> iterator() {
+		return this.query(null, null);
+	}
+
+	/**
+	 * This method returns the rides which started between two times. Only the column of the start times is read for the rides which are not returned.
+	 * @param from the first start time, or {@code null}
+	 * @param to the end of the period (excluded), or {@code null}
+	 * @return an iterator over the rides archived when the method is called
+	 */
+	public Iterator<ArchivedRide> query(LocalDateTime from, LocalDateTime to) {
+		MappedByteBuffer[] segs;
+		long size;
+		synchronized (this) {
+			segs = this.segments.toArray(new MappedByteBuffer[this.segments.size()]);
+			size = this.size();
+		}
+		int fromMinute = from == null ? Integer.MIN_VALUE : ArchivedRide.toMinute(from);
+		int toMinute = to == null ? Integer.MAX_VALUE : ArchivedRide.toMinute(to);
+		return new Iterator<ArchivedRide>() {
+			private long next = this.find(0);
+
+			/**
+			 * @return the index of the first ride from {@code index} which started in the period
+			 */
+			private long find(long index) {
+				while (index < size) {
+					MappedByteBuffer seg = segs[(int) (index / SEGMENT_SIZE)];
+					int i = (int) (index % SEGMENT_SIZE);
+					int end = (int) Math.min(SEGMENT_SIZE, size - index + i);
+					while (i < end) {
+						int start = seg.getInt(OFFSETS[START] + 4*i);
+						if (fromMinute <= start && start < toMinute) {
+							return index;
+						}
+						i++;
+						index++;
+					}
+				}
+				return index;
+			}
+
+			@Override
+			public boolean hasNext() { return this.next < size; }
+
+			@Override
+			public ArchivedRide next() {
+				if (!this.hasNext()) throw new NoSuchElementException();
+				ArchivedRide r = read(segs[(int) (this.next / SEGMENT_SIZE)], (int) (this.next % SEGMENT_SIZE));
+				this.next = this.find(this.next + 1);
+				return r;
+			}
+		};
+	}
+
+	/**
+	 * This method forces the rides written to the disk.
+	 */
+	public synchronized void force() {
+		for (MappedByteBuffer seg : this.segments) {
+			seg.force();
+		}
+	}
+
+	/**
+	 * This method forces the rides written to the disk. The files stay mapped until the archive is garbage collected.
+	 */
+	@Override
+	public void close() {
+		this.force();
+	}
+
+}
@@ -0,0 +1,271 @@
+package ride;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+import station.Station;
+import tools.Point;
+
+/**
+ * This class is a spatial index of the stations of a {@code Network}. The plane is divided in a uniform grid of square cells, and each cell
+ * contains the stations located in it. The size of the cells is recomputed when the number of stations changes a lot, so that each cell
+ * contains a few stations on average.
+ * <br> The index is used by the {@code PathStrategy} implementations to find the closest stations to a point without sorting all the stations of the network.
+ * @author Pietro Dellino
+ * @see Network
+ * @see ride.path.PathStrategy
+ */
+public class StationIndex {
+
+	private HashMap<Long, ArrayList<Station>> cells;
+	private double cellSize;
+	private int size;
+	private int sizeAtBuild;
+	private int minCellX, maxCellX, minCellY, maxCellY;
+
+	public StationIndex() {
+		this.cells = new HashMap<Long, ArrayList<Station>>();
+		this.cellSize = 1.0;
+		this.size = 0;
+		this.sizeAtBuild = 0;
+	}
+
+	public int size() { return this.size; }
+
+	/**
+	 * This method adds a {@code Station} to the index, at its current position.
+	 * @param s
+	 */
+	public void add(Station s) {
+		this.insert(s);
+		this.size++;
+		if (this.size > 2*this.sizeAtBuild + 8) {
+			this.rebuild();
+		}
+	}
+
+	/**
+	 * This method removes a {@code Station} located at the {@code Point} p from the index.
+	 * @param s
+	 * @param p the position of the station when it was added
+	 * @return whether the station was in the index
+	 */
+	public boolean remove(Station s, Point p) {
+		ArrayList<Station> cell = this.cells.get(key(this.cellX(p.getX()), this.cellY(p.getY())));
+		if (cell != null && cell.remove(s)) {
+			if (cell.isEmpty()) {
+				this.cells.remove(key(this.cellX(p.getX()), this.cellY(p.getY())));
+			}
+			this.size--;
+			if (4*this.size < this.sizeAtBuild) {
+				this.rebuild();
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * This method removes a {@code Station} from the index, assuming it did not move since it was added.
+	 * @param s
+	 * @return whether the station was in the index
+	 */
+	public boolean remove(Station s) {
+		return this.remove(s, s.getP());
+	}
+
+	/**
+	 * This method returns the stations of the index in increasing order of distance to the {@code Point} p. The stations are computed lazily,
+	 * so that looking only at the first stations does not cost more than visiting the cells around p. Two stations at the same distance are returned by increasing id.
+	 * @param p
+	 * @return an {@code Iterable} over the stations, the closest first
+	 */
+	public Iterable<Station> nearestFirst(final Point p) {
+		return new Iterable<Station>() {
+			@Override
+			public Iterator<Station> iterator() {
+				return new NearestIterator(p);
+			}
+		};
+	}
+
+	/**
+	 * This method returns the closest {@code Station} to the {@code Point} p which satisfies the predicate.
+	 * @param p
+	 * @param accept
+	 * @return the closest station accepted by the predicate, or {@code null} if there is none
+	 */
+	public Station nearest(Point p, Predicate<Station> accept) {
+		for (Station s : this.nearestFirst(p)) {
+			if (accept.test(s)) { return s; }
+		}
+		return null;
+	}
+
+	/**
+	 * This method returns the stations that are at a distance smaller or equal to {@code radius} from the {@code Point} p, the closest first.
+	 * @param p
+	 * @param radius
+	 * @return an {@code ArrayList} of stations sorted by distance to p
+	 */
+	public ArrayList<Station> withinRadius(Point p, double radius) {
+		ArrayList<Station> res = new ArrayList<Station>();
+		for (Station s : this.nearestFirst(p)) {
+			if (p.distancePoint(s.getP()) > radius) { break; }
+			res.add(s);
+		}
+		return res;
+	}
+
+	private int cellX(double x) { return (int) Math.floor(x/this.cellSize); }
+
+	private int cellY(double y) { return (int) Math.floor(y/this.cellSize); }
+
+	/**
+	 * The hash code of a {@code Long} is the xor of its two halves, so that the cells (cx, cy) with the same {@code cx ^ cy} would collide.
+	 * The key is multiplied by an odd constant, which is a bijection on the {@code long} values, to mix the bits of the two coordinates.
+	 */
+	private static long key(int cx, int cy) {
+		return ((((long) cx) << 32) | (cy & 0xffffffffL))*0x9E3779B97F4A7C15L;
+	}
+
+	private void insert(Station s) {
+		int cx = this.cellX(s.getP().getX());
+		int cy = this.cellY(s.getP().getY());
+		Long k = key(cx, cy);
+		ArrayList<Station> cell = this.cells.get(k);
+		if (cell == null) {
+			cell = new ArrayList<Station>(4);
+			this.cells.put(k, cell);
+		}
+		cell.add(s);
+		if (this.cells.size() == 1 && cell.size() == 1) {
+			this.minCellX = this.maxCellX = cx;
+			this.minCellY = this.maxCellY = cy;
+		} else {
+			this.minCellX = Math.min(this.minCellX, cx);
+			this.maxCellX = Math.max(this.maxCellX, cx);
+			this.minCellY = Math.min(this.minCellY, cy);
+			this.maxCellY = Math.max(this.maxCellY, cy);
+		}
+	}
+
+	/**
+	 * This method recomputes the size of the cells according to the number of stations and the area they cover, and places all the stations again.
+	 */
+	private void rebuild() {
+		ArrayList<Station> all = new ArrayList<Station>(this.size);
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		for (ArrayList<Station> cell : this.cells.values()) {
+			for (Station s : cell) {
+				all.add(s);
+				minX = Math.min(minX, s.getP().getX());
+				maxX = Math.max(maxX, s.getP().getX());
+				minY = Math.min(minY, s.getP().getY());
+				maxY = Math.max(maxY, s.getP().getY());
+			}
+		}
+		double newSize = 1.0;
+		if (all.size() > 1) {
+			double w = maxX - minX, h = maxY - minY;
+			newSize = Math.max(Math.sqrt(w*h/all.size()), Math.max(w, h)/all.size());
+			if (newSize <= 0) { newSize = 1.0; }
+		}
+		this.cellSize = newSize;
+		this.cells = new HashMap<Long, ArrayList<Station>>();
+		for (Station s : all) {
+			this.insert(s);
+		}
+		this.size = all.size();
+		this.sizeAtBuild = all.size();
+	}
+
+	/**
+	 * An iterator visiting the cells ring after ring around a point. A station is returned only when no unvisited cell can contain a closer one.
+	 */
+	private class NearestIterator implements Iterator<Station> {
+
+		private Point p;
+		private int cx, cy;
+		private int ring;
+		private int maxRing;
+		private PriorityQueue<Candidate> queue;
+
+		NearestIterator(Point p) {
+			this.p = p;
+			this.cx = cellX(p.getX());
+			this.cy = cellY(p.getY());
+			this.ring = Math.max(Math.max(minCellX - cx, cx - maxCellX), Math.max(Math.max(minCellY - cy, cy - maxCellY), 0));
+			this.maxRing = cells.isEmpty() ? -1 : Math.max(Math.max(Math.abs(cx - minCellX), Math.abs(maxCellX - cx)), Math.max(Math.abs(cy - minCellY), Math.abs(maxCellY - cy)));
+			this.queue = new PriorityQueue<Candidate>();
+		}
+
+		/**
+		 * Any station in a cell of a ring bigger than {@code ring} is at least at this distance from p.
+		 */
+		private double visitedRadius() {
+			return this.ring > this.maxRing ? Double.POSITIVE_INFINITY : (this.ring - 1)*cellSize;
+		}
+
+		private void visitRing() {
+			int r = this.ring;
+			int xFrom = Math.max(this.cx - r, minCellX), xTo = Math.min(this.cx + r, maxCellX);
+			int yFrom = Math.max(this.cy - r + 1, minCellY), yTo = Math.min(this.cy + r - 1, maxCellY);
+			for (int x = xFrom; x <= xTo; x++) {
+				this.visitCell(x, this.cy - r);
+				if (r > 0) { this.visitCell(x, this.cy + r); }
+			}
+			for (int y = yFrom; y <= yTo; y++) {
+				this.visitCell(this.cx - r, y);
+				this.visitCell(this.cx + r, y);
+			}
+			this.ring++;
+		}
+
+		private void visitCell(int x, int y) {
+			ArrayList<Station> cell = cells.get(key(x, y));
+			if (cell != null) {
+				for (Station s : cell) {
+					this.queue.add(new Candidate(s, this.p.distancePoint(s.getP())));
+				}
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (this.ring <= this.maxRing && (this.queue.isEmpty() || this.queue.peek().distance > this.visitedRadius())) {
+				this.visitRing();
+			}
+			return !this.queue.isEmpty();
+		}
+
+		@Override
+		public Station next() {
+			if (!this.hasNext()) { throw new NoSuchElementException(); }
+			return this.queue.poll().station;
+		}
+	}
+
+	private static class Candidate implements Comparable<Candidate> {
+
+		private Station station;
+		private double distance;
+
+		Candidate(Station station, double distance) {
+			this.station = station;
+			this.distance = distance;
+		}
+
+		@Override
+		public int compareTo(Candidate o) {
+			int res = Double.compare(this.distance, o.distance);
+			return res != 0 ? res : Integer.compare(this.station.getId(), o.station.getId());
+		}
+	}
+
+}
@@ -1,7 +1,7 @@
 package ride.path;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.function.Predicate;
 
 import bike.Bike;
 import ride.Network;
@@ -15,76 +15,56 @@ import tools.Point;
  * @author Pietro Dellino
  */
 public class AvoidPlusStrategy implements PathStrategy {
-	
+
 	private ArrayList<Station> stations;
+	private StationSearch search;
 
 	public AvoidPlusStrategy(Network net) {
 		this.stations = net.getStations();
+		this.search = new StationSearch(net);
+	}
+
+	/**
+	 * This method returns the closest available {@code Station} which is not a {@code PlusStation}. If there is none, the first station of the network
+	 * which is not a {@code PlusStation} is returned, and if all the stations are {@code PlusStation} objects, the closest available station is returned.
+	 * @param p
+	 * @param available
+	 * @param closest the closest available station
+	 * @return a {@code Station}
+	 */
+	private Station closestNotPlus(Point p, Predicate<Station> available, Station closest) {
+		Station station = this.search.getIndex().nearest(p, s -> !(s instanceof PlusStation) && available.test(s));
+		if (station == null) {
+			station = closest;
+			for (Station s : this.stations) {
+				if (!(s instanceof PlusStation)) {
+					station = s;
+					break;
+				}
+			}
+		}
+		return station;
 	}
 
 	@Override
 	public Station[] findPath(Point start, Point end, int bikeType) {
-		ArrayList<Station> stationsBis = (ArrayList<Station>) this.stations.clone();
 		Station[] stations = new Station[2];
-		DistanceStartComparator distanceComp = new DistanceStartComparator(start, bikeType);
-		Collections.sort(stationsBis, distanceComp);
-		stations[0] = stationsBis.get(0);
-		for (Station s : stationsBis) {
-			if (!(s instanceof PlusStation)) {
-				stations[0] = s;
-				break;
-			}
-		}
-		DistanceEndComparator distEndComp = new DistanceEndComparator(end);
-		Collections.sort(stationsBis, distEndComp);
-		stations[1] = stationsBis.get(0);
-		for (Station s : stationsBis) {
-			if (!(s instanceof PlusStation)) {
-				stations[1] = s;
-				break;
-			}
-		}
+		stations[0] = this.closestNotPlus(start, s -> StationComparator.isBikeAvailable(s, bikeType), this.search.closestPickup(start, bikeType));
+		stations[1] = this.findEndStation(start, end, null);
 		return stations;
 	}
 
 	@Override
 	public Station[] findPath(Point start, Point end) {
-		ArrayList<Station> stationsBis = (ArrayList<Station>) this.stations.clone();
-		Station[] stations = new Station[2];
-		DistanceStartComparator distanceComp = new DistanceStartComparator(start);
-		Collections.sort(stationsBis, distanceComp);
-		stations[0] = stationsBis.get(0);
-		for (Station s : stationsBis) {
-			if (!(s instanceof PlusStation)) {
-				stations[0] = s;
-				break;
-			}
-		}
-		DistanceEndComparator distEndComp = new DistanceEndComparator(end);
-		Collections.sort(stationsBis, distEndComp);
-		stations[1] = stationsBis.get(0);
-		for (Station s : stationsBis) {
-			if (!(s instanceof PlusStation)) {
-				stations[1] = s;
-				break;
-			}
-		}
-		return stations;
+		return this.findPath(start, end, 0);
 	}
 
 	@Override
 	public Station findEndStation(Point start, Point end, Bike bike) {
-		ArrayList<Station> stationsBis = (ArrayList<Station>) this.stations.clone();
-		DistanceEndComparator dec = new DistanceEndComparator(end);
-		Collections.sort(stationsBis, dec);
-		Station station = stationsBis.get(0);
-		for (Station s : stationsBis) {
-			if (!(s instanceof PlusStation)) {
-				station = s;
-				break;
-			}
-		}
-		return station;
+		return this.closestNotPlus(end, StationComparator::isSlotAvailable, this.search.closestReturn(end));
 	}
 
+	@Override
+	public boolean returnsClosestStation() { return false; }
+
 }
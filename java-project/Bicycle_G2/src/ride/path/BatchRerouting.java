@@ -0,0 +1,110 @@
+package ride.path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import ride.Network;
+import station.Station;
+import tools.Point;
+
+/**
+ * This class finds new return stations for all the riders going to a station which became full or went offline, at once.
+ * It is only used for the riders whose {@code PathStrategy} returns the closest station with a free slot (see {@link PathStrategy#returnsClosestStation()}):
+ * the other riders keep the choice of their own strategy.
+ * <br> The stations around the unavailable one are visited only once, the closest first, until they have enough free slots for all the riders
+ * (and the stations less than {@value #RADIUS_FACTOR} times further, so that each rider can still get a close station). The riders are then given
+ * the stations by increasing distance to their destinations, each station receiving at most as many riders as it has free slots: the riders
+ * are spread over the stations around instead of all being sent to the same station, which would become full in turn.
+ * The riders who get no station, when there are not enough free slots around, are sent to the closest station with a free slot, like
+ * {@link PathStrategy#findEndStation(Point, Point, bike.Bike)} does.
+ * @author Pietro Dellino
+ * @see station.Station#notifyObservers()
+ */
+public class BatchRerouting {
+
+	public static final double RADIUS_FACTOR = 1.5;
+
+	private StationSearch search;
+
+	public BatchRerouting(Network net) {
+		this.search = new StationSearch(net);
+	}
+
+	/**
+	 * @param s
+	 * @return the number of bikes which can be returned to the station, in the slots which are not reserved
+	 */
+	private static int capacity(Station s) {
+		return StationComparator.isSlotAvailable(s) ? s.getNumberUnreservedSlots() : 0;
+	}
+
+	/**
+	 * This method gives the stations around an unavailable station with enough free slots for a number of riders.
+	 * @param unavailable
+	 * @param riders
+	 * @param capacities the number of free slots of each station returned is added to this list
+	 * @return the stations, the closest to the unavailable one first
+	 */
+	private ArrayList<Station> candidates(Station unavailable, int riders, List<Integer> capacities) {
+		ArrayList<Station> res = new ArrayList<Station>();
+		Point p = unavailable.getP();
+		int total = 0;
+		double maxDist = -1;
+		for (Station s : this.search.getIndex().nearestFirst(p)) {
+			double dist = p.distancePoint(s.getP());
+			if (maxDist >= 0 && dist > maxDist) { break; }
+			int capacity = s == unavailable ? 0 : capacity(s);
+			if (capacity > 0) {
+				res.add(s);
+				capacities.add(capacity);
+				total += capacity;
+				if (maxDist < 0 && total >= riders) { maxDist = RADIUS_FACTOR*dist; }
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * This method finds the new return stations of the riders going to an unavailable station.
+	 * @param unavailable the station which became full or went offline
+	 * @param ends the destinations of the riders
+	 * @return the new return station of each rider, in the order of {@code ends}
+	 */
+	public Station[] reroute(Station unavailable, List<Point> ends) {
+		int n = ends.size();
+		Station[] res = new Station[n];
+		ArrayList<Integer> capacities = new ArrayList<Integer>();
+		ArrayList<Station> candidates = this.candidates(unavailable, n, capacities);
+		int m = candidates.size();
+		int[] left = new int[m];
+		for (int j = 0; j < m; j++) {
+			left[j] = capacities.get(j);
+		}
+		double[] dist = new double[n*m];
+		Integer[] pairs = new Integer[n*m];
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < m; j++) {
+				dist[i*m + j] = ends.get(i).distancePoint(candidates.get(j).getP());
+				pairs[i*m + j] = i*m + j;
+			}
+		}
+		Arrays.sort(pairs, (a, b) -> Double.compare(dist[a], dist[b]));
+		int assigned = 0;
+		for (int k = 0; k < pairs.length && assigned < n; k++) {
+			int i = pairs[k] / m, j = pairs[k] % m;
+			if (res[i] == null && left[j] > 0) {
+				res[i] = candidates.get(j);
+				left[j]--;
+				assigned++;
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			if (res[i] == null) {
+				res[i] = this.search.closestReturn(ends.get(i));
+			}
+		}
+		return res;
+	}
+
+}
@@ -0,0 +1,408 @@
+package ride.path;
+
+import java.util.Arrays;
+
+/**
+ * This class is the index of a {@code RoadGraph}: a contraction hierarchy of its nodes.
+ * <br> The nodes are contracted one by one, the least important first. When a node is contracted, a shortcut is added between two of its neighbours
+ * if the path through the node is the only shortest path between them among the nodes which are not contracted yet, so that the travel times
+ * between the remaining nodes do not change. The importance of a node is twice the number of shortcuts its contraction adds minus the number of arcs
+ * it removes, plus the number of its neighbours already contracted, so that the contractions are spread over the whole graph.
+ * <br> A query is then a bidirectional Dijkstra search which only follows the arcs and shortcuts towards more important nodes: the two searches meet
+ * at the most important node of a shortest path, and only visit a few hundred nodes even on a city-scale graph.
+ * @author Pietro Dellino
+ * @see RoadGraph
+ */
+class ContractionHierarchy {
+
+	/**
+	 * The number of nodes a search for a path avoiding the contracted node visits before a shortcut is added anyway.
+	 */
+	private static final int WITNESS_LIMIT = 100;
+
+	/**
+	 * The number of nodes visited by the same searches when the shortcuts are only counted to compute the priority of a node.
+	 */
+	private static final int ESTIMATE_LIMIT = 50;
+
+	private final int n;
+	private final int[] rank;
+	private final int[] upFirst;
+	private final int[] upHead;
+	private final double[] upTime;
+	private final int[] downFirst;
+	private final int[] downHead;
+	private final double[] downTime;
+	private final int shortcuts;
+	private final ThreadLocal<Query> query;
+
+	/**
+	 * @param n the number of nodes
+	 * @param from the first node of each arc
+	 * @param to the second node of each arc
+	 * @param time the travel time of each arc
+	 */
+	ContractionHierarchy(int n, int[] from, int[] to, double[] time) {
+		this.n = n;
+		Contraction c = new Contraction(n);
+		for (int e = 0; e < from.length; e++) {
+			c.addArc(from[e], to[e], time[e]);
+		}
+		this.shortcuts = c.contractAll();
+		this.rank = c.rank;
+		this.upFirst = new int[n + 1];
+		this.downFirst = new int[n + 1];
+		for (int v = 0; v < n; v++) {
+			for (int i = 0; i < c.outSize[v]; i++) {
+				if (this.rank[c.outHead[v][i]] > this.rank[v]) this.upFirst[v + 1]++;
+			}
+			for (int i = 0; i < c.inSize[v]; i++) {
+				if (this.rank[c.inHead[v][i]] > this.rank[v]) this.downFirst[v + 1]++;
+			}
+		}
+		for (int v = 0; v < n; v++) {
+			this.upFirst[v + 1] += this.upFirst[v];
+			this.downFirst[v + 1] += this.downFirst[v];
+		}
+		this.upHead = new int[this.upFirst[n]];
+		this.upTime = new double[this.upFirst[n]];
+		this.downHead = new int[this.downFirst[n]];
+		this.downTime = new double[this.downFirst[n]];
+		for (int v = 0; v < n; v++) {
+			int up = this.upFirst[v], down = this.downFirst[v];
+			for (int i = 0; i < c.outSize[v]; i++) {
+				if (this.rank[c.outHead[v][i]] > this.rank[v]) {
+					this.upHead[up] = c.outHead[v][i];
+					this.upTime[up++] = c.outTime[v][i];
+				}
+			}
+			for (int i = 0; i < c.inSize[v]; i++) {
+				if (this.rank[c.inHead[v][i]] > this.rank[v]) {
+					this.downHead[down] = c.inHead[v][i];
+					this.downTime[down++] = c.inTime[v][i];
+				}
+			}
+		}
+		this.query = ThreadLocal.withInitial(Query::new);
+	}
+
+	int getShortcuts() { return shortcuts; }
+
+	/**
+	 * @param source
+	 * @param target
+	 * @return the shortest travel time from source to target, or {@code Double.POSITIVE_INFINITY} if there is no path
+	 */
+	double travelTime(int source, int target) {
+		return this.query.get().run(source, target);
+	}
+
+	/**
+	 * This class contains the graph while its nodes are contracted, with the arcs leaving and entering each node in growing arrays.
+	 */
+	private static class Contraction {
+		private final int[][] outHead, inHead;
+		private final double[][] outTime, inTime;
+		private final int[] outSize, inSize;
+		private final int[] deletedNeighbours;
+		private final int[] rank;
+		private final double[] dist;
+		private final int[] reached;
+		private final int[] target;
+		private final Heap heap = new Heap();
+		private int search = 0;
+
+		Contraction(int n) {
+			this.outHead = new int[n][];
+			this.inHead = new int[n][];
+			this.outTime = new double[n][];
+			this.inTime = new double[n][];
+			for (int v = 0; v < n; v++) {
+				this.outHead[v] = new int[4];
+				this.inHead[v] = new int[4];
+				this.outTime[v] = new double[4];
+				this.inTime[v] = new double[4];
+			}
+			this.outSize = new int[n];
+			this.inSize = new int[n];
+			this.deletedNeighbours = new int[n];
+			this.rank = new int[n];
+			this.dist = new double[n];
+			this.reached = new int[n];
+			this.target = new int[n];
+		}
+
+		/**
+		 * This method adds an arc, or shortens the arc between the same nodes if there is one already.
+		 */
+		void addArc(int u, int x, double time) {
+			if (u == x) return;
+			for (int i = 0; i < this.outSize[u]; i++) {
+				if (this.outHead[u][i] == x) {
+					if (time < this.outTime[u][i]) {
+						this.outTime[u][i] = time;
+						for (int j = 0; j < this.inSize[x]; j++) {
+							if (this.inHead[x][j] == u) this.inTime[x][j] = time;
+						}
+					}
+					return;
+				}
+			}
+			if (this.outSize[u] == this.outHead[u].length) {
+				this.outHead[u] = Arrays.copyOf(this.outHead[u], 2*this.outSize[u]);
+				this.outTime[u] = Arrays.copyOf(this.outTime[u], 2*this.outSize[u]);
+			}
+			this.outHead[u][this.outSize[u]] = x;
+			this.outTime[u][this.outSize[u]++] = time;
+			if (this.inSize[x] == this.inHead[x].length) {
+				this.inHead[x] = Arrays.copyOf(this.inHead[x], 2*this.inSize[x]);
+				this.inTime[x] = Arrays.copyOf(this.inTime[x], 2*this.inSize[x]);
+			}
+			this.inHead[x][this.inSize[x]] = u;
+			this.inTime[x][this.inSize[x]++] = time;
+		}
+
+		/**
+		 * This method runs a Dijkstra search from u among the nodes which are not contracted, without going through v.
+		 * The search stops when the neighbours of v are all settled, after {@code maxSettled} nodes, or when the nodes are further than {@code limit}.
+		 */
+		private void witness(int u, int v, double limit, int maxSettled) {
+			this.search++;
+			int targets = 0;
+			for (int j = 0; j < this.outSize[v]; j++) {
+				if (this.outHead[v][j] != u) {
+					this.target[this.outHead[v][j]] = this.search;
+					targets++;
+				}
+			}
+			this.heap.clear();
+			this.dist[u] = 0;
+			this.reached[u] = this.search;
+			this.heap.push(0, u);
+			int settled = 0;
+			while (targets > 0 && !this.heap.isEmpty() && this.heap.topKey() <= limit && settled++ < maxSettled) {
+				double d = this.heap.topKey();
+				int w = this.heap.pop();
+				if (d > this.dist[w]) continue;
+				if (this.target[w] == this.search) {
+					this.target[w] = 0;
+					targets--;
+				}
+				for (int i = 0; i < this.outSize[w]; i++) {
+					int y = this.outHead[w][i];
+					if (y == v) continue;
+					double nd = d + this.outTime[w][i];
+					if (this.reached[y] != this.search || nd < this.dist[y]) {
+						this.reached[y] = this.search;
+						this.dist[y] = nd;
+						this.heap.push(nd, y);
+					}
+				}
+			}
+		}
+
+		/**
+		 * @param v
+		 * @param add whether the shortcuts are added, or only counted
+		 * @return the number of shortcuts the contraction of v needs
+		 */
+		private int shortcuts(int v, boolean add) {
+			double maxOut = 0;
+			for (int j = 0; j < this.outSize[v]; j++) {
+				maxOut = Math.max(maxOut, this.outTime[v][j]);
+			}
+			int count = 0;
+			for (int i = 0; i < this.inSize[v]; i++) {
+				int u = this.inHead[v][i];
+				double in = this.inTime[v][i];
+				this.witness(u, v, in + maxOut, add ? WITNESS_LIMIT : ESTIMATE_LIMIT);
+				for (int j = 0; j < this.outSize[v]; j++) {
+					int x = this.outHead[v][j];
+					if (x == u) continue;
+					double via = in + this.outTime[v][j];
+					if (this.reached[x] != this.search || this.dist[x] > via) {
+						count++;
+						if (add) this.addArc(u, x, via);
+					}
+				}
+			}
+			return count;
+		}
+
+		private double priority(int v) {
+			return 2*(this.shortcuts(v, false) - this.outSize[v] - this.inSize[v]) + this.deletedNeighbours[v];
+		}
+
+		/**
+		 * This method removes the arc towards v from the arcs of a node, so that the arcs of the nodes which are not contracted only lead to nodes
+		 * which are not contracted either. The arcs of v are kept: they lead to more important nodes.
+		 * @return the new number of arcs of the node
+		 */
+		private static int remove(int[] head, double[] time, int size, int v) {
+			for (int i = 0; i < size; i++) {
+				if (head[i] == v) {
+					head[i] = head[size - 1];
+					time[i] = time[size - 1];
+					return size - 1;
+				}
+			}
+			return size;
+		}
+
+		/**
+		 * This method contracts all the nodes. The priorities are updated lazily: a node is contracted if its priority is still the smallest
+		 * once recomputed, otherwise it is put back in the queue.
+		 * @return the number of shortcuts added
+		 */
+		int contractAll() {
+			int n = this.rank.length;
+			Heap queue = new Heap();
+			for (int v = 0; v < n; v++) {
+				queue.push(this.priority(v), v);
+			}
+			int next = 0, added = 0;
+			while (!queue.isEmpty()) {
+				int v = queue.pop();
+				double p = this.priority(v);
+				if (!queue.isEmpty() && p > queue.topKey()) {
+					queue.push(p, v);
+					continue;
+				}
+				added += this.shortcuts(v, true);
+				this.rank[v] = next++;
+				for (int i = 0; i < this.outSize[v]; i++) {
+					int x = this.outHead[v][i];
+					this.inSize[x] = remove(this.inHead[x], this.inTime[x], this.inSize[x], v);
+					this.deletedNeighbours[x]++;
+				}
+				for (int i = 0; i < this.inSize[v]; i++) {
+					int u = this.inHead[v][i];
+					this.outSize[u] = remove(this.outHead[u], this.outTime[u], this.outSize[u], v);
+					this.deletedNeighbours[u]++;
+				}
+			}
+			return added;
+		}
+	}
+
+	/**
+	 * This class contains the arrays of a query, which are reused by the queries of the same thread. The distance of a node is only valid
+	 * if its stamp is the number of the current query, so that the arrays do not have to be cleared between two queries.
+	 */
+	private class Query {
+		private final double[] forward = new double[n];
+		private final double[] backward = new double[n];
+		private final int[] forwardStamp = new int[n];
+		private final int[] backwardStamp = new int[n];
+		private final Heap forwardHeap = new Heap();
+		private final Heap backwardHeap = new Heap();
+		private int number = 0;
+
+		double run(int source, int target) {
+			if (++this.number == Integer.MAX_VALUE) {
+				Arrays.fill(this.forwardStamp, 0);
+				Arrays.fill(this.backwardStamp, 0);
+				this.number = 1;
+			}
+			this.forwardHeap.clear();
+			this.backwardHeap.clear();
+			this.forward[source] = 0;
+			this.forwardStamp[source] = this.number;
+			this.forwardHeap.push(0, source);
+			this.backward[target] = 0;
+			this.backwardStamp[target] = this.number;
+			this.backwardHeap.push(0, target);
+			double best = Double.POSITIVE_INFINITY;
+			while (true) {
+				boolean f = !this.forwardHeap.isEmpty() && this.forwardHeap.topKey() < best;
+				boolean b = !this.backwardHeap.isEmpty() && this.backwardHeap.topKey() < best;
+				if (!f && !b) return best;
+				if (f && (!b || this.forwardHeap.topKey() <= this.backwardHeap.topKey())) {
+					best = this.settle(this.forwardHeap, this.forward, this.forwardStamp, this.backward, this.backwardStamp,
+						upFirst, upHead, upTime, downFirst, downHead, downTime, best);
+				} else {
+					best = this.settle(this.backwardHeap, this.backward, this.backwardStamp, this.forward, this.forwardStamp,
+						downFirst, downHead, downTime, upFirst, upHead, upTime, best);
+				}
+			}
+		}
+
+		/**
+		 * This method settles the next node of one of the searches. The node is not expanded if it can be reached faster from a more important node
+		 * by an arc of the opposite direction, since its distance is not the shortest one then (stall-on-demand).
+		 * @return the shortest travel time found
+		 */
+		private double settle(Heap heap, double[] dist, int[] stamp, double[] otherDist, int[] otherStamp,
+				int[] first, int[] head, double[] time, int[] stallFirst, int[] stallHead, double[] stallTime, double best) {
+			double d = heap.topKey();
+			int v = heap.pop();
+			if (d > dist[v]) return best;
+			if (otherStamp[v] == this.number) {
+				best = Math.min(best, d + otherDist[v]);
+			}
+			for (int e = stallFirst[v]; e < stallFirst[v + 1]; e++) {
+				int w = stallHead[e];
+				if (stamp[w] == this.number && dist[w] + stallTime[e] < d) return best;
+			}
+			for (int e = first[v]; e < first[v + 1]; e++) {
+				int w = head[e];
+				double nd = d + time[e];
+				if (stamp[w] != this.number || nd < dist[w]) {
+					stamp[w] = this.number;
+					dist[w] = nd;
+					heap.push(nd, w);
+				}
+			}
+			return best;
+		}
+	}
+
+	/**
+	 * A binary heap of nodes ordered by an increasing key, where a node can be pushed several times.
+	 */
+	private static class Heap {
+		private double[] keys = new double[64];
+		private int[] nodes = new int[64];
+		private int size = 0;
+
+		boolean isEmpty() { return this.size == 0; }
+
+		void clear() { this.size = 0; }
+
+		double topKey() { return this.keys[0]; }
+
+		void push(double key, int node) {
+			if (this.size == this.keys.length) {
+				this.keys = Arrays.copyOf(this.keys, 2*this.size);
+				this.nodes = Arrays.copyOf(this.nodes, 2*this.size);
+			}
+			int i = this.size++;
+			while (i > 0 && this.keys[(i - 1)/2] > key) {
+				this.keys[i] = this.keys[(i - 1)/2];
+				this.nodes[i] = this.nodes[(i - 1)/2];
+				i = (i - 1)/2;
+			}
+			this.keys[i] = key;
+			this.nodes[i] = node;
+		}
+
+		int pop() {
+			int top = this.nodes[0];
+			double key = this.keys[--this.size];
+			int node = this.nodes[this.size];
+			int i = 0;
+			while (2*i + 1 < this.size) {
+				int c = 2*i + 1;
+				if (c + 1 < this.size && this.keys[c + 1] < this.keys[c]) c++;
+				if (this.keys[c] >= key) break;
+				this.keys[i] = this.keys[c];
+				this.nodes[i] = this.nodes[c];
+				i = c;
+			}
+			this.keys[i] = key;
+			this.nodes[i] = node;
+			return top;
+		}
+	}
+
+}
@@ -15,7 +15,7 @@ public class DistanceEndComparator extends StationComparator {
 	public int compare(Station arg0, Station arg1) {
 		int res = 0;
 		double distanceDiff = this.getDistanceDiff(arg0, arg1);
-		res = StationComparator.availabilityComparator(distanceDiff, !arg0.isStationFull(), !arg1.isStationFull());
+		res = StationComparator.availabilityComparator(distanceDiff, StationComparator.isSlotAvailable(arg0), StationComparator.isSlotAvailable(arg1));
 		return res;
 	}
 
@@ -1,6 +1,5 @@
 package ride.path;
 
-import bike.BikeFactory;
 import station.Station;
 import tools.Point;
 
@@ -25,16 +24,8 @@ public class DistanceStartComparator extends StationComparator {
 	 */
 	@Override
 	public int compare(Station arg0, Station arg1) {
-		int res = 0;
 		double distanceDiff = this.getDistanceDiff(arg0, arg1);
-		if (bikeType == 0) {
-			res = StationComparator.availabilityComparator(distanceDiff, arg0.hasBikeAvailable() != null, arg1.hasBikeAvailable() != null);
-		} else if (bikeType == BikeFactory.ELECTRIC) {
-			res = StationComparator.availabilityComparator(distanceDiff, arg0.hasElectricBikeAvailable() != null, arg1.hasElectricBikeAvailable() != null);
-		} else {
-			res = StationComparator.availabilityComparator(distanceDiff, arg0.hasMechanicBikeAvailable() != null, arg1.hasMechanicBikeAvailable() != null);
-		}
-		return res;
+		return StationComparator.availabilityComparator(distanceDiff, StationComparator.isBikeAvailable(arg0, bikeType), StationComparator.isBikeAvailable(arg1, bikeType));
 	}
 
 }
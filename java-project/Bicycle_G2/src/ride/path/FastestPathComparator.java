@@ -24,23 +24,24 @@ public class FastestPathComparator extends StationComparator {
 		this.returnPoint = returnPoint;
 	}
 	
+	/**
+	 * @param s A {@code Station}
+	 * @return The time needed to walk from the start point to the station and to ride from the station to {@code returnPoint}
+	 */
+	public double getTime(Station s) {
+		double speed = this.bikeType == BikeFactory.ELECTRIC ? ELECTRIC_SPEED : MECHANIC_SPEED;
+		return this.point.distancePoint(s.getP())/WALKING_SPEED + this.returnPoint.distancePoint(s.getP())/speed;
+	}
+	
 	private double getReturnDiff(Station s1, Station s2) {
 		return this.returnPoint.distancePoint(s1.getP()) - this.returnPoint.distancePoint(s2.getP());
 	}
 
 	@Override
 	public int compare(Station arg0, Station arg1) {
-		int res = 0;
 		double speed = this.bikeType == BikeFactory.ELECTRIC ? ELECTRIC_SPEED : MECHANIC_SPEED;
 		double timeDiff = this.getDistanceDiff(arg0, arg1)/WALKING_SPEED + this.getReturnDiff(arg0, arg1)/speed;
-		if (bikeType == 0) {
-			res = StationComparator.availabilityComparator(timeDiff, arg0.hasBikeAvailable() != null, arg1.hasBikeAvailable() != null);
-		} else if (bikeType == BikeFactory.ELECTRIC) {
-			res = StationComparator.availabilityComparator(timeDiff, arg0.hasElectricBikeAvailable() != null, arg1.hasElectricBikeAvailable() != null);
-		} else {
-			res = StationComparator.availabilityComparator(timeDiff, arg0.hasMechanicBikeAvailable() != null, arg1.hasMechanicBikeAvailable() != null);
-		}
-		return res;
+		return StationComparator.availabilityComparator(timeDiff, StationComparator.isBikeAvailable(arg0, bikeType), StationComparator.isBikeAvailable(arg1, bikeType));
 	}
 
 }
@@ -18,17 +18,31 @@ import tools.Point;
 public class FastestPathStrategy implements PathStrategy {
 	
 	private ArrayList<Station> stations;
+	private StationSearch search;
 
 	public FastestPathStrategy(Network net) {
 		this.stations = net.getStations();
+		this.search = new StationSearch(net);
 	}
 
+	/**
+	 * The closest available station to the start point gives an upper bound of the time needed to reach the return station. As the walking speed
+	 * is the lowest speed, only the stations that can be reached by foot within this time have to be compared.
+	 */
 	@Override
 	public Station[] findPath(Point start, Point end, int bikeType) {
-		DistanceEndComparator dec = new DistanceEndComparator(end);
-		Station returnStation = Collections.min(this.stations, dec);
+		Station returnStation = this.search.closestReturn(end);
 		FastestPathComparator fpc = new FastestPathComparator(start, returnStation.getP(), bikeType);
-		Station pickupStation = Collections.min(this.stations, fpc);
+		Station closest = this.search.closestPickup(start, bikeType);
+		Station pickupStation;
+		if (StationComparator.isBikeAvailable(closest, bikeType)) {
+			double maxWalk = fpc.getTime(closest)*FastestPathComparator.WALKING_SPEED;
+			ArrayList<Station> candidates = this.search.getIndex().withinRadius(start, maxWalk);
+			candidates.add(closest);
+			pickupStation = Collections.min(candidates, fpc);
+		} else {
+			pickupStation = Collections.min(this.stations, fpc);
+		}
 		Station[] stations = {pickupStation, returnStation};
 		return stations;
 	}
@@ -46,9 +60,10 @@ public class FastestPathStrategy implements PathStrategy {
 
 	@Override
 	public Station findEndStation(Point start, Point end, Bike bike) {
-		DistanceEndComparator dec = new DistanceEndComparator(end);
-		Station station = Collections.min(this.stations, dec);
-		return station;
+		return this.search.closestReturn(end);
 	}
 
+	@Override
+	public boolean returnsClosestStation() { return true; }
+
 }
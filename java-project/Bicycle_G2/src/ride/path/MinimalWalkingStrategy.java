@@ -1,8 +1,5 @@
 package ride.path;
 
-import java.util.ArrayList;
-import java.util.Collections;
-
 import bike.Bike;
 import ride.Network;
 import station.Station;
@@ -14,38 +11,32 @@ import tools.Point;
  * @see PathStrategy
  */
 public class MinimalWalkingStrategy implements PathStrategy {
-	
-	private ArrayList<Station> stations;
-	
+
+	private StationSearch search;
+
 	public MinimalWalkingStrategy(Network net) {
-		this.stations = net.getStations();
+		this.search = new StationSearch(net);
 	}
 
 	@Override
 	public Station[] findPath(Point start, Point end, int bikeType) {
 		Station[] stations = new Station[2];
-		DistanceStartComparator distanceComp = new DistanceStartComparator(start, bikeType);
-		stations[0] = Collections.min(this.stations, distanceComp);
-		DistanceEndComparator distEndComp = new DistanceEndComparator(end);
-		stations[1] = Collections.min(this.stations, distEndComp);
+		stations[0] = this.search.closestPickup(start, bikeType);
+		stations[1] = this.search.closestReturn(end);
 		return stations;
 	}
 
 	@Override
 	public Station[] findPath(Point start, Point end) {
-		Station[] stations = new Station[2];
-		DistanceStartComparator distanceComp = new DistanceStartComparator(start);
-		stations[0] = Collections.min(this.stations, distanceComp);
-		DistanceEndComparator distEndComp = new DistanceEndComparator(end);
-		stations[1] = Collections.min(this.stations, distEndComp);
-		return stations;
+		return this.findPath(start, end, 0);
 	}
 
 	@Override
 	public Station findEndStation(Point start, Point end, Bike bike) {
-		DistanceEndComparator dec = new DistanceEndComparator(end);
-		Station station = Collections.min(this.stations, dec);
-		return station;
+		return this.search.closestReturn(end);
 	}
 
+	@Override
+	public boolean returnsClosestStation() { return true; }
+
 }
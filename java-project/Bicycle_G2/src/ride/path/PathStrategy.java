@@ -36,6 +36,14 @@ public interface PathStrategy {
 	 * @return The best {@code Station} for the user to drop his bike
 	 */
 	public Station findEndStation(Point start, Point end, Bike bike);
+	
+	/**
+	 * This method tells whether {@link #findEndStation(Point, Point, Bike)} returns the closest station to the destination with a free slot, whatever the bike.
+	 * The users riding to the same station whose strategies do so can be given new return stations together, by a {@code BatchRerouting}.
+	 * @return whether the return station is the closest one with a free slot
+	 * @see BatchRerouting
+	 */
+	public boolean returnsClosestStation();
 
 	
 }
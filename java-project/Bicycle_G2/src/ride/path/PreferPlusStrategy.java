@@ -1,8 +1,5 @@
 package ride.path;
 
-import java.util.ArrayList;
-import java.util.Collections;
-
 import bike.Bike;
 import ride.Network;
 import station.PlusStation;
@@ -15,75 +12,40 @@ import tools.Point;
  * @see PathStrategy
  */
 public class PreferPlusStrategy implements PathStrategy {
-	
-	private ArrayList<Station> stations;
-	
+
+	private StationSearch search;
+
 	public PreferPlusStrategy(Network net) {
-		this.stations = net.getStations();
+		this.search = new StationSearch(net);
 	}
 
-	
+
 	@Override
 	public Station[] findPath(Point start, Point end, int bikeType) {
-		ArrayList<Station> stationsBis = (ArrayList<Station>) this.stations.clone();
 		Station[] stations = new Station[2];
-		DistanceStartComparator distanceComp = new DistanceStartComparator(start, bikeType);
-		stations[0] = Collections.min(this.stations, distanceComp);
-		DistanceEndComparator distEndComp = new DistanceEndComparator(end);
-		Collections.sort(stationsBis, distEndComp);
-		double minDist = end.distancePoint(stationsBis.get(0).getP());
-		stations[1] = stationsBis.get(0);
-		for (Station s : stationsBis) {
-			if (s instanceof PlusStation && s.getP().distancePoint(end) <= 1.10*minDist) {
-				stations[1] = s;
-				break;
-			} else if (s.getP().distancePoint(end) > 1.10*minDist) {
-				break;
-			}
-		}
+		stations[0] = this.search.closestPickup(start, bikeType);
+		stations[1] = this.findEndStation(start, end, null);
 		return stations;
 	}
 
-	
+
 	@Override
 	public Station[] findPath(Point start, Point end) {
-		ArrayList<Station> stationsBis = (ArrayList<Station>) this.stations.clone();
-		Station[] stations = new Station[2];
-		DistanceStartComparator distanceComp = new DistanceStartComparator(start);
-		stations[0] = Collections.min(this.stations, distanceComp);
-		DistanceEndComparator distEndComp = new DistanceEndComparator(end);
-		stations[0] = Collections.min(this.stations, distanceComp);
-		Collections.sort(stationsBis, distEndComp);
-		double minDist = end.distancePoint(stationsBis.get(0).getP());
-		stations[1] = stationsBis.get(0);
-		for (Station s : stationsBis) {
-			if (s instanceof PlusStation && s.getP().distancePoint(end) <= 1.10*minDist) {
-				stations[1] = s;
-				break;
-			} else if (s.getP().distancePoint(end) > 1.10*minDist) {
-				break;
-			}
-		}
-		return stations;
+		return this.findPath(start, end, 0);
 	}
 
-	
+
 	@Override
 	public Station findEndStation(Point start, Point end, Bike bike) {
-		ArrayList<Station> stationsBis = (ArrayList<Station>) this.stations.clone();
-		DistanceEndComparator dec = new DistanceEndComparator(end);
-		Collections.sort(stationsBis, dec);
-		Station station = stationsBis.get(0);
-		double minDist = end.distancePoint(station.getP());
-		for (Station s : stationsBis) {
-			if (s instanceof PlusStation && s.getP().distancePoint(end) <= 1.10*minDist) {
-				station = s;
-				break;
-			} else if (s.getP().distancePoint(end) > 1.10*minDist) {
-				break;
+		for (Station s : this.search.returnCandidates(end, 1.10)) {
+			if (s instanceof PlusStation) {
+				return s;
 			}
 		}
-		return station;
+		return this.search.closestReturn(end);
 	}
 
+	@Override
+	public boolean returnsClosestStation() { return false; }
+
 }
@@ -0,0 +1,255 @@
+package ride.path;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import tools.Point;
+
+/**
+ * This class is a graph of roads and cycle paths, where each edge has its own speed. It is used by {@code RoadGraphStrategy} to compute
+ * the ride times along the roads instead of along the straight line.
+ * <br> The graph is read from a text file with one instruction per line (the empty lines and the lines starting with {@code #} are ignored):
+ * <ul>
+ * <li>{@code node <id> <x> <y>} declares a node at the point (x, y),</li>
+ * <li>{@code edge <id1> <id2> <speed> [length]} declares a road between two declared nodes, which can be used in both directions,</li>
+ * <li>{@code arc <id1> <id2> <speed> [length]} declares a one-way road from id1 to id2.</li>
+ * </ul>
+ * The speeds are the speeds of a mechanic bike, in the units of {@link FastestPathComparator#MECHANIC_SPEED}. The length of a road is the distance
+ * between its nodes by default, and cannot be shorter.
+ * <br> An index is computed when the graph is read, so that a query does not cost a search of the whole graph:
+ * <ul>
+ * <li>the nodes are put in a uniform grid, to find the closest node to a point,</li>
+ * <li>the nodes are ordered in a {@code ContractionHierarchy}, whose queries only visit a few hundred nodes.</li>
+ * </ul>
+ * The travel times are cached, up to {@value #CACHE_SIZE} pairs of nodes, and the queries can be run by several threads at the same time.
+ * @author Pietro Dellino
+ * @see RoadGraphStrategy
+ */
+public class RoadGraph {
+
+	public static final int CACHE_SIZE = 1 << 20;
+
+	private final int n;
+	private final double[] x;
+	private final double[] y;
+	private final int arcs;
+	private final ContractionHierarchy hierarchy;
+	private final double minX, minY, cellSize;
+	private final int gridWidth, gridHeight;
+	private final int[] cellFirst;
+	private final int[] cellNodes;
+	private final ConcurrentHashMap<Long, Double> cache;
+	private final AtomicLong searches;
+
+	/**
+	 * @param x the abscissas of the nodes
+	 * @param y the ordinates of the nodes
+	 * @param from the first node of each arc
+	 * @param to the second node of each arc
+	 * @param length the length of each arc
+	 * @param speed the speed on each arc
+	 */
+	RoadGraph(double[] x, double[] y, int[] from, int[] to, double[] length, double[] speed) {
+		this.n = x.length;
+		this.x = x;
+		this.y = y;
+		this.arcs = from.length;
+		double[] times = new double[this.arcs];
+		for (int e = 0; e < this.arcs; e++) {
+			times[e] = length[e]/speed[e];
+		}
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		for (int v = 0; v < this.n; v++) {
+			minX = Math.min(minX, x[v]);
+			minY = Math.min(minY, y[v]);
+			maxX = Math.max(maxX, x[v]);
+			maxY = Math.max(maxY, y[v]);
+		}
+		double w = maxX - minX, h = maxY - minY;
+		double cellSize = Math.max(Math.sqrt(2*w*h/this.n), Math.max(w, h)/this.n);
+		this.cellSize = cellSize > 0 ? cellSize : 1.0;
+		this.minX = minX;
+		this.minY = minY;
+		this.gridWidth = (int) (w/this.cellSize) + 1;
+		this.gridHeight = (int) (h/this.cellSize) + 1;
+		this.cellFirst = new int[this.gridWidth*this.gridHeight + 1];
+		this.cellNodes = new int[this.n];
+		int[] cells = new int[this.n];
+		for (int v = 0; v < this.n; v++) {
+			cells[v] = this.cellX(x[v]) + this.gridWidth*this.cellY(y[v]);
+			this.cellFirst[cells[v] + 1]++;
+		}
+		for (int c = 0; c < this.gridWidth*this.gridHeight; c++) {
+			this.cellFirst[c + 1] += this.cellFirst[c];
+		}
+		int[] filled = Arrays.copyOf(this.cellFirst, this.cellFirst.length - 1);
+		for (int v = 0; v < this.n; v++) {
+			this.cellNodes[filled[cells[v]]++] = v;
+		}
+		this.cache = new ConcurrentHashMap<Long, Double>();
+		this.searches = new AtomicLong();
+		this.hierarchy = new ContractionHierarchy(this.n, from, to, times);
+	}
+
+	/**
+	 * @param reader
+	 * @return the graph, with its index
+	 * @throws IOException if the graph cannot be read, or if an instruction is not valid
+	 */
+	public static RoadGraph read(BufferedReader reader) throws IOException {
+		HashMap<Integer, Integer> ids = new HashMap<Integer, Integer>();
+		double[] x = new double[16], y = new double[16];
+		int[] from = new int[16], to = new int[16];
+		double[] length = new double[16], speed = new double[16];
+		int nodes = 0, arcs = 0, lineNumber = 0;
+		String line;
+		while ((line = reader.readLine()) != null) {
+			lineNumber++;
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#")) continue;
+			String[] t = line.split("\\s+");
+			try {
+				if (t[0].equalsIgnoreCase("node") && t.length == 4) {
+					if (ids.putIfAbsent(Integer.parseInt(t[1]), nodes) != null) {
+						throw new IOException("Line " + lineNumber + ": the node " + t[1] + " is already declared");
+					}
+					if (nodes == x.length) {
+						x = Arrays.copyOf(x, 2*nodes);
+						y = Arrays.copyOf(y, 2*nodes);
+					}
+					x[nodes] = Double.parseDouble(t[2]);
+					y[nodes] = Double.parseDouble(t[3]);
+					nodes++;
+				} else if ((t[0].equalsIgnoreCase("edge") || t[0].equalsIgnoreCase("arc")) && (t.length == 4 || t.length == 5)) {
+					Integer a = ids.get(Integer.parseInt(t[1])), b = ids.get(Integer.parseInt(t[2]));
+					if (a == null || b == null) {
+						throw new IOException("Line " + lineNumber + ": the node " + (a == null ? t[1] : t[2]) + " is not declared");
+					}
+					double s = Double.parseDouble(t[3]);
+					double d = Math.hypot(x[a] - x[b], y[a] - y[b]);
+					double l = t.length == 5 ? Double.parseDouble(t[4]) : d;
+					if (!(s > 0) || Double.isInfinite(s)) {
+						throw new IOException("Line " + lineNumber + ": the speed has to be positive");
+					}
+					if (l < d*(1 - 1e-9)) {
+						throw new IOException("Line " + lineNumber + ": the road is shorter than the distance between its nodes");
+					}
+					int k = t[0].equalsIgnoreCase("edge") ? 2 : 1;
+					if (arcs + k > from.length) {
+						from = Arrays.copyOf(from, 2*from.length);
+						to = Arrays.copyOf(to, 2*to.length);
+						length = Arrays.copyOf(length, 2*length.length);
+						speed = Arrays.copyOf(speed, 2*speed.length);
+					}
+					for (int i = 0; i < k; i++) {
+						from[arcs] = i == 0 ? a : b;
+						to[arcs] = i == 0 ? b : a;
+						length[arcs] = Math.max(l, d);
+						speed[arcs] = s;
+						arcs++;
+					}
+				} else {
+					throw new IOException("Line " + lineNumber + ": invalid instruction \"" + line + "\"");
+				}
+			} catch (NumberFormatException e) {
+				throw new IOException("Line " + lineNumber + ": invalid number in \"" + line + "\"", e);
+			}
+		}
+		if (nodes == 0) {
+			throw new IOException("The graph has no node");
+		}
+		return new RoadGraph(Arrays.copyOf(x, nodes), Arrays.copyOf(y, nodes), Arrays.copyOf(from, arcs), Arrays.copyOf(to, arcs),
+			Arrays.copyOf(length, arcs), Arrays.copyOf(speed, arcs));
+	}
+
+	/**
+	 * @param fileName
+	 * @return the graph read from the file, with its index
+	 * @throws IOException if the file cannot be read, or if an instruction is not valid
+	 * @see #read(BufferedReader)
+	 */
+	public static RoadGraph load(String fileName) throws IOException {
+		try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
+			return read(reader);
+		}
+	}
+
+	public int getNumberNodes() { return n; }
+
+	public int getNumberArcs() { return arcs; }
+
+	/**
+	 * @return the number of shortcuts added by the contraction hierarchy of the graph
+	 */
+	public int getNumberShortcuts() { return hierarchy.getShortcuts(); }
+
+	public Point getPosition(int node) { return new Point(this.x[node], this.y[node]); }
+
+	/**
+	 * @return the number of searches run, that is the number of queries which were not answered by the cache
+	 */
+	public long getSearches() { return searches.get(); }
+
+	private int cellX(double x) { return (int) ((x - this.minX)/this.cellSize); }
+
+	private int cellY(double y) { return (int) ((y - this.minY)/this.cellSize); }
+
+	/**
+	 * This method visits the cells of the grid by rings of increasing size around the cell of p, and stops when the next ring cannot contain a closer node.
+	 * @param p
+	 * @return the closest node to p
+	 */
+	public int nearestNode(Point p) {
+		int cx = (int) Math.floor((p.getX() - this.minX)/this.cellSize);
+		int cy = (int) Math.floor((p.getY() - this.minY)/this.cellSize);
+		int dx = Math.max(0, Math.max(-cx, cx - this.gridWidth + 1)), dy = Math.max(0, Math.max(-cy, cy - this.gridHeight + 1));
+		int last = Math.max(Math.max(Math.abs(cx), Math.abs(cx - this.gridWidth + 1)), Math.max(Math.abs(cy), Math.abs(cy - this.gridHeight + 1)));
+		int best = -1;
+		double bestDist = Double.POSITIVE_INFINITY;
+		for (int r = Math.max(dx, dy); r <= last; r++) {
+			for (int gy = Math.max(0, cy - r); gy <= Math.min(this.gridHeight - 1, cy + r); gy++) {
+				boolean border = gy == cy - r || gy == cy + r;
+				for (int gx = border ? Math.max(0, cx - r) : cx - r; gx <= Math.min(this.gridWidth - 1, cx + r); gx += border ? 1 : 2*r) {
+					if (gx < 0) continue;
+					int c = gx + this.gridWidth*gy;
+					for (int i = this.cellFirst[c]; i < this.cellFirst[c + 1]; i++) {
+						int v = this.cellNodes[i];
+						double d = Math.hypot(this.x[v] - p.getX(), this.y[v] - p.getY());
+						if (d < bestDist || (d == bestDist && v < best)) {
+							best = v;
+							bestDist = d;
+						}
+					}
+				}
+			}
+			if (bestDist <= r*this.cellSize) break;
+		}
+		return best;
+	}
+
+	/**
+	 * This method returns the shortest travel time between two nodes with a mechanic bike, from the cache or with a query of the contraction hierarchy.
+	 * @param from
+	 * @param to
+	 * @return the travel time, or {@code Double.POSITIVE_INFINITY} if there is no road from one node to the other
+	 */
+	public double travelTime(int from, int to) {
+		if (from == to) return 0;
+		Long key = ((long) from << 32) | (to & 0xffffffffL);
+		Double t = this.cache.get(key);
+		if (t != null) return t;
+		double res = this.hierarchy.travelTime(from, to);
+		this.searches.incrementAndGet();
+		if (this.cache.size() >= CACHE_SIZE) {
+			this.cache.clear();
+		}
+		this.cache.put(key, res);
+		return res;
+	}
+
+}
@@ -0,0 +1,111 @@
+package ride.path;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import bike.Bike;
+import bike.BikeFactory;
+import ride.Network;
+import station.Station;
+import tools.Point;
+
+/**
+ * This {@code PathStrategy} minimizes the ride time like {@code FastestPathStrategy}, but the bikes ride along the roads of a {@code RoadGraph}
+ * instead of along the straight line. The users still walk along the straight line.
+ * <br> A point is linked to the graph by its closest node, which is reached along the straight line at the speed of the bike.
+ * An electric bike is {@code ELECTRIC_SPEED/MECHANIC_SPEED} times faster than a mechanic bike on every road.
+ * If the graph does not link two points, the bike rides along the straight line between them.
+ * @author Pietro Dellino
+ * @see PathStrategy
+ * @see RoadGraph
+ * @see FastestPathStrategy
+ */
+public class RoadGraphStrategy implements PathStrategy {
+
+	private ArrayList<Station> stations;
+	private StationSearch search;
+	private RoadGraph graph;
+
+	public RoadGraphStrategy(Network net, RoadGraph graph) {
+		this.stations = net.getStations();
+		this.search = new StationSearch(net);
+		this.graph = graph;
+	}
+
+	public RoadGraph getGraph() { return graph; }
+
+	/**
+	 * @param a
+	 * @param b
+	 * @param bikeType
+	 * @return the time needed to ride from a to b with a bike of type {@code bikeType}
+	 */
+	public double getRideTime(Point a, Point b, int bikeType) {
+		double speed = bikeType == BikeFactory.ELECTRIC ? FastestPathComparator.ELECTRIC_SPEED : FastestPathComparator.MECHANIC_SPEED;
+		int na = this.graph.nearestNode(a), nb = this.graph.nearestNode(b);
+		double t = this.graph.travelTime(na, nb);
+		if (t == Double.POSITIVE_INFINITY) {
+			return a.distancePoint(b)/speed;
+		}
+		double access = a.distancePoint(this.graph.getPosition(na)) + b.distancePoint(this.graph.getPosition(nb));
+		return access/speed + t*FastestPathComparator.MECHANIC_SPEED/speed;
+	}
+
+	/**
+	 * @param start
+	 * @param end
+	 * @param path the pickup and return stations
+	 * @param bikeType
+	 * @return the time needed to walk from start to the pickup station, ride to the return station and walk to end
+	 */
+	private double getTime(Point start, Point end, Station[] path, int bikeType) {
+		Point pickup = path[0].getP(), drop = path[1].getP();
+		return (start.distancePoint(pickup) + end.distancePoint(drop))/FastestPathComparator.WALKING_SPEED + this.getRideTime(pickup, drop, bikeType);
+	}
+
+	/**
+	 * The return station is the closest available station to the destination. The closest available station to the start point gives an upper bound
+	 * of the time needed to reach the return station, so only the stations that can be reached by foot within this time are compared, the closest first,
+	 * until the walk alone takes longer than the best time found.
+	 */
+	@Override
+	public Station[] findPath(Point start, Point end, int bikeType) {
+		Station returnStation = this.search.closestReturn(end);
+		Station closest = this.search.closestPickup(start, bikeType);
+		Station pickupStation;
+		if (StationComparator.isBikeAvailable(closest, bikeType)) {
+			pickupStation = closest;
+			double best = start.distancePoint(closest.getP())/FastestPathComparator.WALKING_SPEED + this.getRideTime(closest.getP(), returnStation.getP(), bikeType);
+			for (Station s : this.search.getIndex().withinRadius(start, best*FastestPathComparator.WALKING_SPEED)) {
+				double walk = start.distancePoint(s.getP())/FastestPathComparator.WALKING_SPEED;
+				if (walk >= best) break;
+				if (s == closest || !StationComparator.isBikeAvailable(s, bikeType)) continue;
+				double time = walk + this.getRideTime(s.getP(), returnStation.getP(), bikeType);
+				if (time < best) {
+					pickupStation = s;
+					best = time;
+				}
+			}
+		} else {
+			pickupStation = Collections.min(this.stations, new FastestPathComparator(start, returnStation.getP(), bikeType));
+		}
+		Station[] stations = {pickupStation, returnStation};
+		return stations;
+	}
+
+	@Override
+	public Station[] findPath(Point start, Point end) {
+		Station[] stElec = this.findPath(start, end, BikeFactory.ELECTRIC);
+		Station[] stMech = this.findPath(start, end, BikeFactory.MECHANIC);
+		return this.getTime(start, end, stElec, BikeFactory.ELECTRIC) <= this.getTime(start, end, stMech, BikeFactory.MECHANIC) ? stElec : stMech;
+	}
+
+	@Override
+	public Station findEndStation(Point start, Point end, Bike bike) {
+		return this.search.closestReturn(end);
+	}
+
+	@Override
+	public boolean returnsClosestStation() { return true; }
+
+}
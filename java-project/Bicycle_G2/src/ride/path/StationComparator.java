@@ -47,6 +47,31 @@ public abstract class StationComparator implements Comparator<Station> {
 		return this.point.distancePoint(s1.getP()) - this.point.distancePoint(s2.getP());
 	}
 	
+	/**
+	 * This method tells whether a {@code Station} can be used to start a ride with the given type of bike.
+	 * @param s The {@code Station}
+	 * @param bikeType {@code BikeFactory.ELECTRIC}, {@code BikeFactory.MECHANIC}, or any other value if the type of bike does not matter
+	 * @return whether a bike of the type is available in the station
+	 */
+	public static boolean isBikeAvailable(Station s, int bikeType) {
+		if (bikeType == BikeFactory.ELECTRIC) {
+			return s.hasElectricBikeAvailable() != null;
+		} else if (bikeType == BikeFactory.MECHANIC) {
+			return s.hasMechanicBikeAvailable() != null;
+		} else {
+			return s.hasBikeAvailable() != null;
+		}
+	}
+	
+	/**
+	 * This method tells whether a {@code Station} can be used to end a ride. The slots reserved by other users are not available.
+	 * @param s The {@code Station}
+	 * @return whether the station has a free slot which is not reserved
+	 */
+	public static boolean isSlotAvailable(Station s) {
+		return s.hasUnreservedSlot();
+	}
+	
 	public static int availabilityComparator(double distanceDiff, boolean available1, boolean available2) {
 		int res = 0;
 		if (distanceDiff < 0) {
@@ -0,0 +1,92 @@
+package ride.path;
+
+import java.util.ArrayList;
+
+import ride.Network;
+import ride.StationIndex;
+import station.Station;
+import tools.Point;
+
+/**
+ * This class contains the queries on the {@code StationIndex} of a {@code Network} that are shared by the {@code PathStrategy} implementations.
+ * The stations returned are the same as the minimum of the stations according to {@code DistanceStartComparator} and {@code DistanceEndComparator},
+ * but only the stations close to the point are visited.
+ * @author Pietro Dellino
+ * @see StationIndex
+ * @see PathStrategy
+ */
+class StationSearch {
+
+	private ArrayList<Station> stations;
+	private StationIndex index;
+
+	StationSearch(Network net) {
+		this.stations = net.getStations();
+		this.index = net.getStationIndex();
+	}
+
+	StationIndex getIndex() { return this.index; }
+
+	/**
+	 * If no station of the network is available, the first station of the network is returned, like {@code Collections.min} does with the comparators.
+	 * @param p
+	 * @param bikeType
+	 * @return The closest {@code Station} to p with a bike of type {@code bikeType} available
+	 * @see DistanceStartComparator
+	 */
+	Station closestPickup(Point p, int bikeType) {
+		Station s = this.index.nearest(p, st -> StationComparator.isBikeAvailable(st, bikeType));
+		return s != null ? s : this.stations.get(0);
+	}
+
+	/**
+	 * If no station of the network is available, the first station of the network is returned, like {@code Collections.min} does with the comparators.
+	 * @param p
+	 * @return The closest {@code Station} to p with a free slot
+	 * @see DistanceEndComparator
+	 */
+	Station closestReturn(Point p) {
+		Station s = this.index.nearest(p, StationComparator::isSlotAvailable);
+		return s != null ? s : this.stations.get(0);
+	}
+
+	/**
+	 * @param p
+	 * @param bikeType
+	 * @param factor
+	 * @return The stations with a bike of type {@code bikeType} available which are less than {@code factor} times further from p than the closest one, the closest first. The list is empty if no station is available.
+	 */
+	ArrayList<Station> pickupCandidates(Point p, int bikeType, double factor) {
+		ArrayList<Station> res = new ArrayList<Station>();
+		double maxDist = -1;
+		for (Station s : this.index.nearestFirst(p)) {
+			double dist = p.distancePoint(s.getP());
+			if (maxDist >= 0 && dist > maxDist) { break; }
+			if (StationComparator.isBikeAvailable(s, bikeType)) {
+				if (maxDist < 0) { maxDist = factor*dist; }
+				res.add(s);
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * @param p
+	 * @param factor
+	 * @return The stations with a free slot which are less than {@code factor} times further from p than the closest one, the closest first. The list is empty if no station is available.
+	 */
+	ArrayList<Station> returnCandidates(Point p, double factor) {
+		ArrayList<Station> res = new ArrayList<Station>();
+		double maxDist = -1;
+		for (Station s : this.index.nearestFirst(p)) {
+			double dist = p.distancePoint(s.getP());
+			if (maxDist >= 0 && dist > maxDist) { break; }
+			if (StationComparator.isSlotAvailable(s)) {
+				if (maxDist < 0) { maxDist = factor*dist; }
+				res.add(s);
+			}
+		}
+		return res;
+	}
+
+}
@@ -0,0 +1,72 @@
+package ride.path;
+
+import bike.Bike;
+import metrics.Histogram;
+import ride.Network;
+import station.Station;
+import tools.Point;
+
+/**
+ * This class is a {@code PathStrategy} which records the latencies of another {@code PathStrategy} in the metrics of a network,
+ * in histograms named after the type of the strategy.
+ * @author Pietro Dellino
+ * @see metrics.NetworkMetrics#pathLatency(String, String)
+ */
+public class TimedPathStrategy implements PathStrategy {
+
+	private PathStrategy ps;
+	private Histogram findPath;
+	private Histogram findEndStation;
+
+	private TimedPathStrategy(PathStrategy ps, Network net) {
+		this.ps = ps;
+		String name = ps.getClass().getSimpleName();
+		this.findPath = net.getMetrics().pathLatency(name, "findPath");
+		this.findEndStation = net.getMetrics().pathLatency(name, "findEndStation");
+	}
+
+	/**
+	 * @param ps
+	 * @param net the network whose metrics record the latencies
+	 * @return a {@code PathStrategy} which records the latencies of ps, or ps if it already records them
+	 */
+	public static PathStrategy of(PathStrategy ps, Network net) {
+		if (ps instanceof TimedPathStrategy) {
+			return ps;
+		}
+		return new TimedPathStrategy(ps, net);
+	}
+
+	/**
+	 * @return the strategy whose latencies are recorded
+	 */
+	public PathStrategy getStrategy() { return ps; }
+
+	@Override
+	public Station[] findPath(Point start, Point end, int bikeType) {
+		long t = System.nanoTime();
+		Station[] stations = this.ps.findPath(start, end, bikeType);
+		this.findPath.record(System.nanoTime() - t);
+		return stations;
+	}
+
+	@Override
+	public Station[] findPath(Point start, Point end) {
+		long t = System.nanoTime();
+		Station[] stations = this.ps.findPath(start, end);
+		this.findPath.record(System.nanoTime() - t);
+		return stations;
+	}
+
+	@Override
+	public Station findEndStation(Point start, Point end, Bike bike) {
+		long t = System.nanoTime();
+		Station s = this.ps.findEndStation(start, end, bike);
+		this.findEndStation.record(System.nanoTime() - t);
+		return s;
+	}
+
+	@Override
+	public boolean returnsClosestStation() { return this.ps.returnsClosestStation(); }
+
+}
@@ -1,12 +1,9 @@
 package ride.path;
 
 import java.util.ArrayList;
-import java.util.Collections;
 
 import bike.Bike;
 import bike.BikeFactory;
-import bike.ElectricBike;
-import bike.MechanicBike;
 import ride.Network;
 import station.Slot;
 import station.Station;
@@ -21,10 +18,10 @@ import tools.Point;
  */
 public class UniformityStrategy implements PathStrategy {
 	
-	private ArrayList<Station> stations;
+	private StationSearch search;
 	
 	public UniformityStrategy(Network net) {
-		this.stations = net.getStations();
+		this.search = new StationSearch(net);
 	}
 	
 	/**
@@ -35,17 +32,12 @@ public class UniformityStrategy implements PathStrategy {
 	 * @see BikeFactory
 	 */
 	private static int availableBikes(Station s, int bikeType) {
-		int n = 0;
 		if (bikeType == BikeFactory.MECHANIC) {
-			for (Slot slot : s.getParkingSlots()) {
-				if (slot.isOnline() && (slot.getBike() instanceof MechanicBike)) { n++; }
-			}
+			return s.getNumberMechanicBikes();
 		} else if (bikeType == BikeFactory.ELECTRIC) {
-			for (Slot slot : s.getParkingSlots()) {
-				if (slot.isOnline() && (slot.getBike() instanceof ElectricBike)) { n++; }
-			}
+			return s.getNumberElectricBikes();
 		}
-		return n;
+		return 0;
 	}
 	
 	/**
@@ -54,104 +46,71 @@ public class UniformityStrategy implements PathStrategy {
 	 * @return The number of available bikes.
 	 */
 	private static int availableBikes(Station s) {
-		int n = 0;
-		for (Slot slot : s.getParkingSlots()) {
-			if (slot.isOnline() && slot.getisOccupied()) { n++; }
-		}
-		return n;
+		return s.getNumberBikes();
 	}
 
 	/**
-	 * This method calculates the number of available slots of a station. A slot is available if it is online and has no bike.
+	 * This method calculates the number of available slots of a station. A slot is available if it is online, has no bike and is not reserved.
 	 * @param s
 	 * @return The number of available slots.
 	 * @see Slot#getisOccupied()
 	 */
 	private static int availableSlots(Station s) {
-		int n = 0;
-		for (Slot slot : s.getParkingSlots()) {
-			if (!slot.getisOccupied()) {
-				n++;
-			}
-		}
-		return n;
+		return s.getNumberUnreservedSlots();
 	}
 	
 	
+	/**
+	 * @param candidates the available stations close to the start point, the closest first
+	 * @param bikeType
+	 * @return the candidate with the most available bikes, the closest one if several stations have the same number of bikes
+	 */
+	private static Station mostBikes(ArrayList<Station> candidates, int bikeType) {
+		Station station = candidates.get(0);
+		int bikes = bikeType == 0 ? availableBikes(station) : availableBikes(station, bikeType);
+		for (Station s : candidates) {
+			int n = bikeType == 0 ? availableBikes(s) : availableBikes(s, bikeType);
+			if (n > bikes) {
+				station = s;
+				bikes = n;
+			}
+		}
+		return station;
+	}
+
 	@Override
 	public Station[] findPath(Point start, Point end, int bikeType) {
-		ArrayList<Station> stationsBis = (ArrayList<Station>) this.stations.clone();
 		Station[] stations = new Station[2];
-		DistanceStartComparator distanceComp = new DistanceStartComparator(start, bikeType);
-		Collections.sort(stationsBis, distanceComp);
-		stations[0] = stationsBis.get(0);
-		double startDist = start.distancePoint(stationsBis.get(0).getP());
-		for (Station s : stationsBis) {
-			if (availableBikes(s, bikeType) > availableBikes(stations[0], bikeType) && s.getP().distancePoint(start) <= 1.05*startDist) {
-				stations[0] = s;
-			} else if (s.getP().distancePoint(start) > 1.05*startDist) {
-				break;
-			}
-		}
-		DistanceEndComparator distEndComp = new DistanceEndComparator(end);
-		Collections.sort(stationsBis, distEndComp);
-		double endDist = end.distancePoint(stationsBis.get(0).getP());
-		stations[1] = stationsBis.get(0);
-		for (Station s : stationsBis) {
-			if (availableSlots(s) > availableSlots(stations[1]) && s.getP().distancePoint(end) <= 1.05*endDist) {
-				stations[1] = s;
-			} else if (s.getP().distancePoint(end) > 1.05*endDist) {
-				break;
-			}
-		}
+		ArrayList<Station> candidates = this.search.pickupCandidates(start, bikeType, 1.05);
+		stations[0] = candidates.isEmpty() ? this.search.closestPickup(start, bikeType) : mostBikes(candidates, bikeType);
+		stations[1] = this.findEndStation(start, end, null);
 		return stations;
 	}
 
-	
 	@Override
 	public Station[] findPath(Point start, Point end) {
-		ArrayList<Station> stationsBis = (ArrayList<Station>) this.stations.clone();
-		Station[] stations = new Station[2];
-		DistanceStartComparator distanceComp = new DistanceStartComparator(start);
-		Collections.sort(stationsBis, distanceComp);
-		stations[0] = stationsBis.get(0);
-		double startDist = start.distancePoint(stationsBis.get(0).getP());
-		for (Station s : stationsBis) {
-			if (availableBikes(s) > availableBikes(stations[0]) && s.getP().distancePoint(start) <= 1.05*startDist) {
-				stations[0] = s;
-			} else if (s.getP().distancePoint(start) > 1.05*startDist) {
-				break;
-			}
-		}
-		DistanceEndComparator distEndComp = new DistanceEndComparator(end);
-		Collections.sort(stationsBis, distEndComp);
-		double endDist = end.distancePoint(stationsBis.get(0).getP());
-		stations[1] = stationsBis.get(0);
-		for (Station s : stationsBis) {
-			if (availableSlots(s) > availableSlots(stations[1]) && s.getP().distancePoint(end) <= 1.05*endDist) {
-				stations[1] = s;
-			} else if (s.getP().distancePoint(end) > 1.05*endDist) {
-				break;
-			}
-		}
-		return stations;
+		return this.findPath(start, end, 0);
 	}
 
 	@Override
 	public Station findEndStation(Point start, Point end, Bike bike) {
-		ArrayList<Station> stationsBis = (ArrayList<Station>) this.stations.clone();
-		DistanceEndComparator distEndComp = new DistanceEndComparator(end);
-		Collections.sort(stationsBis, distEndComp);
-		double endDist = end.distancePoint(stationsBis.get(0).getP());
-		Station station = stationsBis.get(0);
-		for (Station s : stationsBis) {
-			if (availableSlots(s) > availableSlots(station) && s.getP().distancePoint(end) <= 1.05*endDist) {
+		ArrayList<Station> candidates = this.search.returnCandidates(end, 1.05);
+		if (candidates.isEmpty()) {
+			return this.search.closestReturn(end);
+		}
+		Station station = candidates.get(0);
+		int slots = availableSlots(station);
+		for (Station s : candidates) {
+			int n = availableSlots(s);
+			if (n > slots) {
 				station = s;
-			} else if (s.getP().distancePoint(end) > 1.05*endDist) {
-				break;
+				slots = n;
 			}
 		}
 		return station;
 	}
 
+	@Override
+	public boolean returnsClosestStation() { return false; }
+
 }
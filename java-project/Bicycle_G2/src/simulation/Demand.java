@@ -0,0 +1,42 @@
+package simulation;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import tools.Point;
+
+/**
+ * This interface describes where and when the users of a {@code Simulation} want to go.
+ * <br> The users arrive according to a Poisson process whose rate depends on the time, and each user goes from an origin to a destination.
+ * @author Pietro Dellino
+ * @see Simulation
+ * @see UniformDemand
+ * @see HotspotDemand
+ */
+public interface Demand {
+
+	/**
+	 * @param t
+	 * @return The number of users arriving per hour at time t
+	 */
+	public double getRate(LocalDateTime t);
+
+	/**
+	 * @return An upper bound of {@link #getRate(LocalDateTime)}, used to draw the arrivals
+	 */
+	public double getMaxRate();
+
+	/**
+	 * @param rand
+	 * @return The {@code Point} where a new user starts
+	 */
+	public Point origin(Random rand);
+
+	/**
+	 * @param origin The {@code Point} where the user starts
+	 * @param rand
+	 * @return The {@code Point} where the user wants to go
+	 */
+	public Point destination(Point origin, Random rand);
+
+}
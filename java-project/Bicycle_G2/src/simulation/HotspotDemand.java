@@ -0,0 +1,48 @@
+package simulation;
+
+import java.util.Random;
+
+import tools.Point;
+
+/**
+ * In this {@code Demand}, a part of the users go to hotspots (for example business districts or stations): their destination is drawn around one of the hotspots,
+ * with a normal distribution of standard deviation {@code radius}. The other users behave as in {@code UniformDemand}.
+ * <br> Since more users arrive at the hotspots than leave them, the stations around the hotspots get full and the other ones get empty.
+ * @author Pietro Dellino
+ * @see Demand
+ */
+public class HotspotDemand extends UniformDemand {
+
+	private Point[] hotspots;
+	private double radius;
+	private double share;
+
+	/**
+	 * @param side The side of the square area
+	 * @param hourlyRates The number of users arriving per hour, for each hour of the day (24 values)
+	 * @param hotspots The hotspots, which are all as attractive
+	 * @param radius The standard deviation of the distance between a destination and its hotspot
+	 * @param share The probability that a user goes to a hotspot
+	 */
+	public HotspotDemand(double side, double[] hourlyRates, Point[] hotspots, double radius, double share) {
+		super(side, hourlyRates);
+		if (hotspots.length == 0) {
+			throw new IllegalArgumentException("At least one hotspot is needed");
+		}
+		this.hotspots = hotspots.clone();
+		this.radius = radius;
+		this.share = share;
+	}
+
+	private double clamp(double x) { return Math.min(this.side, Math.max(0, x)); }
+
+	@Override
+	public Point destination(Point origin, Random rand) {
+		if (rand.nextDouble() >= this.share) {
+			return super.destination(origin, rand);
+		}
+		Point h = this.hotspots[rand.nextInt(this.hotspots.length)];
+		return new Point(this.clamp(h.getX() + rand.nextGaussian()*this.radius), this.clamp(h.getY() + rand.nextGaussian()*this.radius));
+	}
+
+}
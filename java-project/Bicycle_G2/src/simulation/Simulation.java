@@ -0,0 +1,344 @@
+package simulation;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import bike.Bike;
+import bike.BikeFactory;
+import bike.ElectricBike;
+import card.Card;
+import card.CardFactory;
+import controller.NetworkManager;
+import ride.Network;
+import ride.path.FastestPathComparator;
+import ride.path.PathStrategy;
+import ride.path.TimedPathStrategy;
+import station.NoBikeAvailableException;
+import station.NoElectricBikeAvailableException;
+import station.NoMechanicBikeAvailableException;
+import station.NoSlotAvailableException;
+import station.Station;
+import station.StationOfflineException;
+import tools.Point;
+
+/**
+ * This class is a discrete-event simulation of the users of a {@code Network}. The users arrive according to a {@code Demand}, choose their stations
+ * with a {@code PathStrategy}, walk to the pickup station, rent a bike, ride to the return station and return the bike, through the methods of the {@code NetworkManager}.
+ * The walking and riding times are computed with the speeds of {@code FastestPathComparator}.
+ * <br> The events are stored in a priority queue ordered by time, and the simulated clock jumps from one event to the next one, so that the simulation does not wait.
+ * <br> If there is no bike at the pickup station, the user looks for another path from the station, at most {@link #MAX_ATTEMPTS} times, and then gives up.
+ * If there is no free slot at the return station, the user rides to the station given by {@code PathStrategy.findEndStation}, or waits {@link #RETRY_SECONDS} seconds
+ * if it is the same station.
+ * <br> The users of the network are created when they are needed, and reused once their ride is over.
+ * @author Pietro Dellino
+ * @see Demand
+ * @see PathStrategy
+ */
+public class Simulation {
+
+	/**
+	 * The number of pickup stations a user tries before giving up.
+	 */
+	public static final int MAX_ATTEMPTS = 3;
+
+	/**
+	 * The time a user waits at a full station before trying again, in seconds.
+	 */
+	public static final long RETRY_SECONDS = 300;
+
+	/**
+	 * The value of {@code bikeType} for users who take any type of bike.
+	 */
+	public static final int ANY_BIKE = 0;
+
+	private static final int ARRIVAL = 0, PICKUP = 1, RETURN = 2;
+
+	/**
+	 * A user of the simulation, from the arrival to the return of the bike.
+	 */
+	private static final class Trip {
+		private Point destination;
+		private Station pickup;
+		private Station ret;
+		private int attempts;
+		private int userId = -1;
+		private Bike bike;
+		private long rentTime;
+	}
+
+	private static final class Event implements Comparable<Event> {
+		private final long time;
+		private final long seq;
+		private final int type;
+		private final Trip trip;
+
+		private Event(long time, long seq, int type, Trip trip) {
+			this.time = time;
+			this.seq = seq;
+			this.type = type;
+			this.trip = trip;
+		}
+
+		@Override
+		public int compareTo(Event o) {
+			if (this.time != o.time) return this.time < o.time ? -1 : 1;
+			return Long.compare(this.seq, o.seq);
+		}
+	}
+
+	private NetworkManager nm;
+	private Network net;
+	private PathStrategy ps;
+	private Demand demand;
+	private Random rand;
+	private int cardType = CardFactory.VLIBRE;
+	private int bikeType = ANY_BIKE;
+
+	private LocalDateTime start;
+	private long clock;
+	private long seq;
+	private PriorityQueue<Event> events;
+	private ArrayDeque<Integer> idleUsers;
+	private int nUsers;
+
+	private long arrivals;
+	private long rides;
+	private long abandoned;
+	private long failedPickups;
+	private long reroutes;
+	private long processed;
+	private double rideHours;
+
+	/**
+	 * @param nm The {@code NetworkManager} of the network
+	 * @param net The simulated {@code Network}
+	 * @param ps The {@code PathStrategy} used by all the users
+	 * @param demand The arrivals of the users
+	 * @param start The time at which the simulation starts
+	 * @param seed The seed of the random numbers, so that a simulation can be run again
+	 */
+	public Simulation(NetworkManager nm, Network net, PathStrategy ps, Demand demand, LocalDateTime start, long seed) {
+		this.nm = nm;
+		this.net = net;
+		this.ps = TimedPathStrategy.of(ps, net);
+		this.demand = demand;
+		this.rand = new Random(seed);
+		this.start = start;
+		this.events = new PriorityQueue<Event>();
+		this.idleUsers = new ArrayDeque<Integer>();
+		this.scheduleArrival();
+	}
+
+	public int getCardType() { return cardType; }
+
+	/**
+	 * @param cardType The type of card of the users created by the simulation, a constant of {@code CardFactory}
+	 */
+	public void setCardType(int cardType) { this.cardType = cardType; }
+
+	public int getBikeType() { return bikeType; }
+
+	/**
+	 * @param bikeType The type of bike the users want, a constant of {@code BikeFactory}, or {@link #ANY_BIKE}
+	 */
+	public void setBikeType(int bikeType) { this.bikeType = bikeType; }
+
+	/**
+	 * @return The current time of the simulation
+	 */
+	public LocalDateTime getTime() { return this.start.plusSeconds(this.clock); }
+
+	public long getArrivals() { return arrivals; }
+
+	/**
+	 * @return The number of rides that are over
+	 */
+	public long getRides() { return rides; }
+
+	/**
+	 * @return The number of users who gave up because they did not find a bike
+	 */
+	public long getAbandoned() { return abandoned; }
+
+	/**
+	 * @return The number of times a user arrived at a station without the bike he wanted
+	 */
+	public long getFailedPickups() { return failedPickups; }
+
+	/**
+	 * @return The number of times a user arrived at a station without a free slot
+	 */
+	public long getReroutes() { return reroutes; }
+
+	/**
+	 * @return The number of users who arrived and whose ride is not over
+	 */
+	public long getInProgress() { return this.arrivals - this.rides - this.abandoned; }
+
+	/**
+	 * @return The number of events processed
+	 */
+	public long getProcessed() { return processed; }
+
+	/**
+	 * @return The total time of the rides that are over, in hours
+	 */
+	public double getRideHours() { return rideHours; }
+
+	/**
+	 * @return The number of users created in the network by the simulation
+	 */
+	public int getUsers() { return nUsers; }
+
+	private void schedule(long time, int type, Trip trip) {
+		this.events.add(new Event(time, this.seq++, type, trip));
+	}
+
+	private static long toSeconds(double hours) { return (long) Math.ceil(3600*hours); }
+
+	/**
+	 * This method draws the time of the next arrival by thinning: candidates are drawn with the maximal rate, and kept with probability {@code rate/maxRate}.
+	 */
+	private void scheduleArrival() {
+		double maxRate = this.demand.getMaxRate();
+		if (maxRate <= 0) return;
+		long t = this.clock;
+		do {
+			t += toSeconds(-Math.log(1 - this.rand.nextDouble())/maxRate);
+		} while (this.rand.nextDouble()*maxRate >= this.demand.getRate(this.start.plusSeconds(t)));
+		this.schedule(t, ARRIVAL, null);
+	}
+
+	/**
+	 * This method processes the events until {@code end}. The events after {@code end} stay in the queue, so that the simulation can be continued.
+	 * @param end
+	 */
+	public void runUntil(LocalDateTime end) {
+		long endSeconds = Duration.between(this.start, end).getSeconds();
+		while (!this.events.isEmpty() && this.events.peek().time < endSeconds) {
+			Event e = this.events.poll();
+			this.clock = e.time;
+			this.processed++;
+			switch (e.type) {
+			case ARRIVAL:
+				this.arrive();
+				break;
+			case PICKUP:
+				this.pickUp(e.trip);
+				break;
+			case RETURN:
+				this.drop(e.trip);
+				break;
+			}
+		}
+		this.clock = Math.max(this.clock, endSeconds);
+	}
+
+	private Station[] findPath(Point from, Point to) {
+		return this.bikeType == ANY_BIKE ? this.ps.findPath(from, to) : this.ps.findPath(from, to, this.bikeType);
+	}
+
+	private void walk(Trip trip, Point from) {
+		double hours = from.distancePoint(trip.pickup.getP())/FastestPathComparator.WALKING_SPEED;
+		this.schedule(this.clock + toSeconds(hours), PICKUP, trip);
+	}
+
+	private void ride(Trip trip, Station from) {
+		double speed = trip.bike instanceof ElectricBike ? FastestPathComparator.ELECTRIC_SPEED : FastestPathComparator.MECHANIC_SPEED;
+		this.schedule(this.clock + toSeconds(from.getP().distancePoint(trip.ret.getP())/speed), RETURN, trip);
+	}
+
+	private void arrive() {
+		this.arrivals++;
+		Trip trip = new Trip();
+		Point origin = this.demand.origin(this.rand);
+		trip.destination = this.demand.destination(origin, this.rand);
+		Station[] path = this.findPath(origin, trip.destination);
+		trip.pickup = path[0];
+		trip.ret = path[1];
+		this.walk(trip, origin);
+		this.scheduleArrival();
+	}
+
+	private int takeUser() {
+		Integer id = this.idleUsers.poll();
+		if (id != null) return id;
+		try {
+			this.nm.addUser("Simulated user " + this.nUsers, this.cardType, this.net.getName());
+		} catch (Exception e) {
+			throw new IllegalStateException("The user cannot be added to the network " + this.net.getName(), e);
+		}
+		this.nUsers++;
+		ArrayList<Card> cards = this.net.getCards();
+		return cards.get(cards.size() - 1).getUser().getId();
+	}
+
+	private void pickUp(Trip trip) {
+		LocalDateTime t = this.getTime();
+		trip.userId = this.takeUser();
+		try {
+			if (this.bikeType == ANY_BIKE) {
+				this.nm.rentBike(trip.userId, trip.pickup.getId(), t, this.net);
+			} else {
+				this.nm.rentBike(trip.userId, trip.pickup.getId(), this.bikeType, t, this.net);
+			}
+		} catch (NoBikeAvailableException | NoElectricBikeAvailableException | NoMechanicBikeAvailableException | StationOfflineException e) {
+			this.idleUsers.push(trip.userId);
+			this.failedPickups++;
+			trip.attempts++;
+			Station previous = trip.pickup;
+			if (trip.attempts < MAX_ATTEMPTS) {
+				Station[] path = this.findPath(previous.getP(), trip.destination);
+				if (path[0] != previous) {
+					trip.pickup = path[0];
+					trip.ret = path[1];
+					this.walk(trip, previous.getP());
+					return;
+				}
+			}
+			this.abandoned++;
+			return;
+		} catch (Exception e) {
+			throw new IllegalStateException("The simulated user " + trip.userId + " cannot rent a bike at " + t, e);
+		}
+		trip.bike = this.net.getCardByUserId(trip.userId).getUser().getOngoingRide().getBike();
+		if (trip.bike instanceof ElectricBike ? this.bikeType == BikeFactory.MECHANIC : this.bikeType == BikeFactory.ELECTRIC) {
+			throw new IllegalStateException("The simulated user " + trip.userId + " rented the wrong type of bike");
+		}
+		trip.rentTime = this.clock;
+		this.ride(trip, trip.pickup);
+	}
+
+	private void drop(Trip trip) {
+		LocalDateTime t = this.getTime();
+		try {
+			this.nm.returnBike(trip.userId, trip.ret.getId(), t, this.net);
+		} catch (NoSlotAvailableException | StationOfflineException e) {
+			this.reroutes++;
+			Station previous = trip.ret;
+			trip.ret = this.ps.findEndStation(previous.getP(), trip.destination, trip.bike);
+			if (trip.ret == previous) {
+				this.schedule(this.clock + RETRY_SECONDS, RETURN, trip);
+			} else {
+				this.ride(trip, previous);
+			}
+			return;
+		} catch (Exception e) {
+			throw new IllegalStateException("The simulated user " + trip.userId + " cannot return the bike at " + t, e);
+		}
+		this.rides++;
+		this.rideHours += (this.clock - trip.rentTime)/3600.0;
+		this.idleUsers.push(trip.userId);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Simulation at %s: %d arrivals, %d rides, %d in progress, %d abandoned, %d failed pickups, %d reroutes, %d events",
+				this.getTime(), this.arrivals, this.rides, this.getInProgress(), this.abandoned, this.failedPickups, this.reroutes, this.processed);
+	}
+
+}
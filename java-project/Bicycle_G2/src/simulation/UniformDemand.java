@@ -0,0 +1,66 @@
+package simulation;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+
+import tools.Point;
+
+/**
+ * In this {@code Demand}, the origins and the destinations are uniformly distributed in the square area of side {@code side}, like the stations
+ * of a network created with {@code NetworkManager.setupNetwork}. The rate of arrivals is given for each hour of the day.
+ * @author Pietro Dellino
+ * @see Demand
+ */
+public class UniformDemand implements Demand {
+
+	protected double side;
+	private double[] hourlyRates;
+	private double maxRate;
+
+	/**
+	 * @param side The side of the square area
+	 * @param hourlyRates The number of users arriving per hour, for each hour of the day (24 values)
+	 */
+	public UniformDemand(double side, double[] hourlyRates) {
+		if (hourlyRates.length != 24) {
+			throw new IllegalArgumentException("A rate is needed for each hour of the day");
+		}
+		this.side = side;
+		this.hourlyRates = Arrays.copyOf(hourlyRates, 24);
+		for (double r : hourlyRates) {
+			this.maxRate = Math.max(this.maxRate, r);
+		}
+	}
+
+	/**
+	 * @param side The side of the square area
+	 * @param rate The number of users arriving per hour, at any time of the day
+	 */
+	public UniformDemand(double side, double rate) {
+		this(side, constantRates(rate));
+	}
+
+	private static double[] constantRates(double rate) {
+		double[] rates = new double[24];
+		Arrays.fill(rates, rate);
+		return rates;
+	}
+
+	@Override
+	public double getRate(LocalDateTime t) { return this.hourlyRates[t.getHour()]; }
+
+	@Override
+	public double getMaxRate() { return this.maxRate; }
+
+	@Override
+	public Point origin(Random rand) {
+		return new Point(rand.nextDouble()*this.side, rand.nextDouble()*this.side);
+	}
+
+	@Override
+	public Point destination(Point origin, Random rand) {
+		return new Point(rand.nextDouble()*this.side, rand.nextDouble()*this.side);
+	}
+
+}
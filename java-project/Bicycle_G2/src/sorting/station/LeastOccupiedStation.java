@@ -2,14 +2,19 @@ package sorting.station;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import station.NoSlotStateAtDateException;
 import station.Station;
+import tools.NegativeTimeException;
+import tools.NullDateException;
 
 /**
- * This strategy sorts an {@code ArrayList} of {@code Station} w.r.t. the rate of occupation during a given period of time by using the {@code NumberOpComparator}. 
+ * This strategy sorts an {@code ArrayList} of {@code Station} w.r.t. the rate of occupation during a given period of time. 
+ * The rate of each station is computed once (or read in the {@code OccupationRateCache}) before the sorting, which compares the rates only.
  * @author Chlo
  * @see SortingStrategy
  * @see OccRateComparator
+ * @see OccupationRateCache
  */
 public class LeastOccupiedStation implements SortingStrategy {
 	
@@ -21,9 +26,28 @@ public class LeastOccupiedStation implements SortingStrategy {
 		this.endDate = endTime;
 	}
 	
+	/**
+	 * The stations whose rate of occupation cannot be computed on the period are placed at the end of the list, in their initial order.
+	 */
 	@Override
 	public ArrayList<Station> sorting(ArrayList<Station> s) {
-		Collections.sort(s,new OccRateComparator(startDate, endDate));
+		OccupationRateCache cache = OccupationRateCache.getInstance();
+		int n = s.size();
+		double[] rates = new double[n];
+		Integer[] order = new Integer[n];
+		Station[] stations = s.toArray(new Station[n]);
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+			try {
+				rates[i] = cache.getRate(stations[i], startDate, endDate);
+			} catch (NoSlotStateAtDateException | NegativeTimeException | NullDateException e) {
+				rates[i] = Double.NaN;
+			}
+		}
+		Arrays.sort(order, (i, j) -> Double.compare(rates[i], rates[j]));
+		for (int i = 0; i < n; i++) {
+			s.set(i, stations[order[i]]);
+		}
 		return s;
 	}
 	
@@ -9,6 +9,7 @@ import tools.NullDateException;
 
 /**
  * This class implements a {@code Comparator<Station>}. It compares the {@code Station} w.r.t the rate occupation during a given period of time.
+ * The rates are read in the {@code OccupationRateCache}, so that they are not computed again at each comparison.
  * @author Chlo
  * @see SortingStrategy
  * @see LeastOccupiedStation
@@ -32,8 +33,9 @@ public class OccRateComparator implements Comparator<Station> {
 			LocalDateTime startDate = this.startTime;
 			LocalDateTime endDate = this.endTime;			
 			try {
-				double s1occup = s1.getRateOccupation(startDate, endDate);
-				double s2occup = s2.getRateOccupation(startDate, endDate);
+				OccupationRateCache cache = OccupationRateCache.getInstance();
+				double s1occup = cache.getRate(s1, startDate, endDate);
+				double s2occup = cache.getRate(s2, startDate, endDate);
 				if (s1occup - s2occup > 0) {
 					return 1;
 				} else if (s1occup-s2occup < 0) {
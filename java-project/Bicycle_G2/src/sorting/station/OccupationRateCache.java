@@ -0,0 +1,102 @@
+package sorting.station;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.WeakHashMap;
+
+import station.NoSlotStateAtDateException;
+import station.Station;
+import tools.NegativeTimeException;
+import tools.NullDateException;
+
+/**
+ * This class stores the rates of occupation of the stations that were already computed, for each period of time.
+ * A rate is computed again only if the slots of the station changed since it was stored.
+ * <br> It is a singleton, so that the rates computed by a sorting are reused by the next ones.
+ * @author Pietro Dellino
+ * @see Station#getRateOccupation(LocalDateTime, LocalDateTime)
+ * @see Station#getSlotsVersion()
+ */
+public class OccupationRateCache {
+
+	private static OccupationRateCache instance = null;
+
+	private WeakHashMap<Station, HashMap<Period, Double>> rates;
+	private WeakHashMap<Station, Integer> versions;
+
+	private OccupationRateCache() {
+		this.rates = new WeakHashMap<Station, HashMap<Period, Double>>();
+		this.versions = new WeakHashMap<Station, Integer>();
+	}
+
+	public static synchronized OccupationRateCache getInstance() {
+		if (instance == null) {
+			instance = new OccupationRateCache();
+		}
+		return instance;
+	}
+
+	/**
+	 * This method returns the rate of occupation of the station between startTime and endTime. It is computed only if it is not stored
+	 * or if the slots of the station changed since it was stored.
+	 * @param s
+	 * @param startTime
+	 * @param endTime
+	 * @return the rate of occupation of s between startTime and endTime
+	 * @throws NoSlotStateAtDateException
+	 * @throws NegativeTimeException
+	 * @throws NullDateException
+	 */
+	public synchronized double getRate(Station s, LocalDateTime startTime, LocalDateTime endTime) throws NoSlotStateAtDateException, NegativeTimeException, NullDateException {
+		Integer version = this.versions.get(s);
+		HashMap<Period, Double> stationRates = this.rates.get(s);
+		if (stationRates == null || version == null || version != s.getSlotsVersion()) {
+			stationRates = new HashMap<Period, Double>();
+			this.rates.put(s, stationRates);
+			this.versions.put(s, s.getSlotsVersion());
+		}
+		Period period = new Period(startTime, endTime);
+		Double rate = stationRates.get(period);
+		if (rate == null) {
+			rate = s.getRateOccupation(startTime, endTime);
+			stationRates.put(period, rate);
+		}
+		return rate;
+	}
+
+	/**
+	 * This method removes all the stored rates.
+	 */
+	public synchronized void clear() {
+		this.rates.clear();
+		this.versions.clear();
+	}
+
+	/**
+	 * The period of time of a rate of occupation, used as a key.
+	 */
+	private static class Period {
+
+		private LocalDateTime startTime;
+		private LocalDateTime endTime;
+
+		Period(LocalDateTime startTime, LocalDateTime endTime) {
+			this.startTime = startTime;
+			this.endTime = endTime;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Period)) return false;
+			Period other = (Period) obj;
+			return this.startTime.equals(other.startTime) && this.endTime.equals(other.endTime);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31*this.startTime.hashCode() + this.endTime.hashCode();
+		}
+
+	}
+
+}
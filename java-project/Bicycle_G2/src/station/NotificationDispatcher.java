@@ -0,0 +1,186 @@
+package station;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class notifies the observers of the stations in its own threads, so that the observers never run while a station, a slot or a user is locked,
+ * and a slow observer (a user whose arrival station is recalculated) does not stop the rentals and returns.
+ * <br> The stations are shared between {@value #DEFAULT_WORKERS} worker threads according to their id, each of them with a bounded queue of
+ * {@value #DEFAULT_CAPACITY} stations, so that the notifications of a station are always sent in the order in which they were asked.
+ * A station is in a queue at most once: the notifications asked while the station is waiting in the queue are merged with the one already waiting
+ * (the observers look at the current state of the station, so that one notification is enough). When a queue is full, the thread which asks a
+ * notification waits until there is room in the queue: the stations must not be locked at this moment.
+ * <br> The observers run with the {@code Context} of the thread which asked the notification (see {@link #setContext(Context)}), so that, for example,
+ * the text they display is written with the output of the instruction which changed the station.
+ * @author Pietro Dellino
+ * @see Station#notifyObservers()
+ */
+public class NotificationDispatcher {
+
+	public static final int DEFAULT_WORKERS = 4;
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	private static NotificationDispatcher instance = null;
+
+	/**
+	 * This interface gives the observers the context of the thread which asks a notification, although they run in a thread of the dispatcher.
+	 */
+	public interface Context {
+		/**
+		 * This method is called in the thread which asks a notification.
+		 * @param send the notification of the observers
+		 * @return the notification, which runs with the context of the current thread in any thread
+		 */
+		Runnable bind(Runnable send);
+	}
+
+	private final List<BlockingQueue<Runnable>> queues;
+	private final Thread[] workers;
+	private final LongAdder dispatched;
+	private final LongAdder coalesced;
+	private final LongAdder failed;
+	private final AtomicLong pending;
+	private volatile Context context;
+
+	/**
+	 * @param workers the number of threads which notify the observers
+	 * @param capacity the number of stations which can wait in the queue of each thread
+	 */
+	public NotificationDispatcher(int workers, int capacity) {
+		this.queues = new ArrayList<BlockingQueue<Runnable>>(workers);
+		this.workers = new Thread[workers];
+		this.dispatched = new LongAdder();
+		this.coalesced = new LongAdder();
+		this.failed = new LongAdder();
+		this.pending = new AtomicLong();
+		for (int i = 0; i < workers; i++) {
+			BlockingQueue<Runnable> queue = new ArrayBlockingQueue<Runnable>(capacity);
+			this.queues.add(queue);
+			this.workers[i] = new Thread(() -> this.work(queue), "station-notifications-" + i);
+			this.workers[i].setDaemon(true);
+			this.workers[i].start();
+		}
+	}
+
+	/**
+	 * This method returns the unique instance of the class (singleton pattern), which notifies the observers of all the stations.
+	 */
+	public static synchronized NotificationDispatcher getInstance() {
+		if (instance == null) {
+			instance = new NotificationDispatcher(DEFAULT_WORKERS, DEFAULT_CAPACITY);
+		}
+		return instance;
+	}
+
+	/**
+	 * This method sets the context given to the observers. It replaces the previous one.
+	 * @param context the context, or {@code null} to run the observers without the context of the thread which asked the notification
+	 */
+	public void setContext(Context context) { this.context = context; }
+
+	/**
+	 * This method asks the observers of a station to be notified, unless a notification of the station is already waiting.
+	 * It waits if the queue of the station is full, except in the threads of the dispatcher, which notify the observers themselves.
+	 * @param s
+	 */
+	public void submit(Station s) {
+		if (!s.markNotificationPending()) {
+			this.coalesced.increment();
+			return;
+		}
+		this.pending.incrementAndGet();
+		Context context = this.context;
+		Runnable send = context == null ? s::updateObservers : context.bind(s::updateObservers);
+		BlockingQueue<Runnable> queue = this.queues.get(Math.floorMod(s.getId(), this.queues.size()));
+		if (queue.offer(send)) {
+			return;
+		}
+		if (this.isWorker(Thread.currentThread())) {
+			this.dispatch(send);
+			return;
+		}
+		try {
+			queue.put(send);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			this.dispatch(send);
+		}
+	}
+
+	private boolean isWorker(Thread t) {
+		for (Thread w : this.workers) {
+			if (w == t) return true;
+		}
+		return false;
+	}
+
+	private void work(BlockingQueue<Runnable> queue) {
+		while (true) {
+			try {
+				this.dispatch(queue.take());
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+
+	private void dispatch(Runnable send) {
+		try {
+			send.run();
+			this.dispatched.increment();
+		} catch (RuntimeException e) {
+			this.failed.increment();
+			e.printStackTrace();
+		} finally {
+			synchronized (this.pending) {
+				if (this.pending.decrementAndGet() == 0) {
+					this.pending.notifyAll();
+				}
+			}
+		}
+	}
+
+	/**
+	 * This method waits until all the notifications asked have been sent.
+	 * @param timeoutMillis the longest time to wait, in milliseconds
+	 * @return whether all the notifications have been sent
+	 * @throws InterruptedException
+	 */
+	public boolean awaitIdle(long timeoutMillis) throws InterruptedException {
+		long end = System.currentTimeMillis() + timeoutMillis;
+		synchronized (this.pending) {
+			while (this.pending.get() != 0) {
+				long left = end - System.currentTimeMillis();
+				if (left <= 0) return false;
+				this.pending.wait(left);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the number of notifications sent
+	 */
+	public long getDispatched() { return this.dispatched.sum(); }
+
+	/**
+	 * @return the number of notifications merged with a notification which was already waiting
+	 */
+	public long getCoalesced() { return this.coalesced.sum(); }
+
+	/**
+	 * @return the number of notifications which stopped because an observer threw an exception
+	 */
+	public long getFailed() { return this.failed.sum(); }
+
+	/**
+	 * @return the number of notifications waiting or being sent
+	 */
+	public long getPending() { return this.pending.get(); }
+
+}
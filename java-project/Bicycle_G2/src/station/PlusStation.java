@@ -19,8 +19,13 @@ public class PlusStation extends Station {
 		super (p, net);
 	}
 	
+	public PlusStation (Point p, Network net, int id) {
+		super (p, net, id);
+	}
+	
 	/**
 	 * If a {@code User} drops a {@code Bike} in a {@code PlusStation}, he gains 5 Time Credits on his subscription Card (if he has one).
+	 * The credits are added after the bike is dropped, without the lock of the user, because the observers of the station may be notified by {@code super.dropBike}.
 	 * @return 
 	 * @throws NullDateException 
 	 * @throws StationOfflineException 
@@ -29,7 +34,7 @@ public class PlusStation extends Station {
 	 * @throws OngoingRideException 
 	 */
 	@Override
-	public synchronized double dropBike(Card card, LocalDateTime dropTime) throws NegativeTimeException, NullDateException, NoSlotAvailableException, NoOngoingRideException, StationOfflineException, OngoingRideException {
+	public double dropBike(Card card, LocalDateTime dropTime) throws NegativeTimeException, NullDateException, NoSlotAvailableException, NoOngoingRideException, StationOfflineException, OngoingRideException {
 		double price = super.dropBike(card, dropTime);
 		card.addCredit(5);
 		return price;
@@ -0,0 +1,85 @@
+package station;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import user.User;
+
+/**
+ * This class represents a free slot of a {@code Station} kept for a {@code User} who follows an {@code Itinerary} ending at the station.
+ * A reservation is active until it is consumed (the user drops a bike at the station), cancelled (the user changes or stops the itinerary)
+ * or it expires: the {@code ReservationWheel} of the network ends it when an operation of any of its stations happens after its deadline, if it is still active.
+ * <br> The deadline is a time of the network, like the times of the rentals and returns. The reservations are not written in the journal,
+ * like the itineraries they come from: a network rebuilt from its journal has no reservation, and its returns are replayed without them.
+ * @author Pietro Dellino
+ * @see Station#reserve(User, long)
+ * @see ReservationWheel
+ */
+public class Reservation {
+
+	public static final int ACTIVE = 0;
+	public static final int CONSUMED = 1;
+	public static final int CANCELLED = 2;
+	public static final int EXPIRED = 3;
+	public static final long DEFAULT_MINUTES = 30;
+
+	private final Station station;
+	private final User user;
+	private final long minutes;
+	private volatile LocalDateTime deadline;
+	private final AtomicInteger state;
+
+	/**
+	 * @param station
+	 * @param user
+	 * @param start the time when the reservation is made, or {@code null} if it is not known yet (see {@link #start(LocalDateTime)})
+	 * @param minutes the duration of the reservation
+	 */
+	Reservation(Station station, User user, LocalDateTime start, long minutes) {
+		this.station = station;
+		this.user = user;
+		this.minutes = minutes;
+		this.deadline = start == null ? null : start.plusMinutes(minutes);
+		this.state = new AtomicInteger(ACTIVE);
+	}
+
+	/**
+	 * This method sets the deadline of a reservation which was made before the network knew the time.
+	 * @param start the time of the first operation of the network after the reservation
+	 */
+	void start(LocalDateTime start) {
+		if (this.deadline == null) {
+			this.deadline = start.plusMinutes(this.minutes);
+		}
+	}
+
+	/**
+	 * This method ends the reservation, if it is still active.
+	 * @param newState {@code CONSUMED}, {@code CANCELLED} or {@code EXPIRED}
+	 * @return whether the reservation was active
+	 */
+	boolean end(int newState) {
+		return this.state.compareAndSet(ACTIVE, newState);
+	}
+
+	/**
+	 * This method cancels the reservation and gives its slot back to the station, if the reservation is still active.
+	 */
+	public void cancel() {
+		this.station.release(this, CANCELLED);
+	}
+
+	public Station getStation() { return station; }
+
+	public User getUser() { return user; }
+
+	/**
+	 * @return the time when the reservation expires, or {@code null} if no station of the network has been used since it was made
+	 */
+	public LocalDateTime getDeadline() { return deadline; }
+
+	public int getState() { return state.get(); }
+
+	public boolean isActive() { return state.get() == ACTIVE; }
+
+}
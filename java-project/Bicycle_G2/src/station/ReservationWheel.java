@@ -0,0 +1,126 @@
+package station;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class makes the reservations of the stations of a {@code Network} expire, with a hashed timer wheel: the time of the network is cut in ticks of one minute,
+ * and a reservation is put in the bucket of the minute of its deadline, modulo {@value #WHEEL_SIZE}. There is no thread: the wheel is advanced
+ * to the time of each operation of any station of the network (see {@link #advance(LocalDateTime)}), and visits the buckets of the minutes which are over,
+ * so that scheduling a reservation is an insertion in a concurrent queue, and a tick only visits the reservations of its bucket.
+ * Since the wheel is shared by the stations, a reservation at a station where nothing happens still expires with the operations of the other stations.
+ * <br> The time of the operations is the one given to the rentals and returns, not the time of the computer. The latest time seen by the wheel
+ * is the clock of the network: an operation with an earlier time does not move it back.
+ * The reservations which are consumed or cancelled before their deadline stay in their bucket until the wheel visits it, and are then removed.
+ * @author Pietro Dellino
+ * @see Reservation
+ */
+public class ReservationWheel {
+
+	public static final int WHEEL_SIZE = 64;
+
+	private final List<ConcurrentLinkedQueue<Reservation>> buckets;
+	private final ConcurrentLinkedQueue<Reservation> unscheduled;
+	private final LongAdder expired;
+	private volatile LocalDateTime now;
+	private volatile long tick;
+
+	/**
+	 * A wheel is created by each {@code Network}, and by each {@code Station} which has no network.
+	 * @see ride.Network#getReservationWheel()
+	 */
+	public ReservationWheel() {
+		this.buckets = new ArrayList<ConcurrentLinkedQueue<Reservation>>(WHEEL_SIZE);
+		for (int i = 0; i < WHEEL_SIZE; i++) {
+			this.buckets.add(new ConcurrentLinkedQueue<Reservation>());
+		}
+		this.unscheduled = new ConcurrentLinkedQueue<Reservation>();
+		this.expired = new LongAdder();
+		this.now = null;
+		this.tick = Long.MIN_VALUE;
+	}
+
+	private static long minute(LocalDateTime t) {
+		return Math.floorDiv(t.toEpochSecond(ZoneOffset.UTC), 60);
+	}
+
+	/**
+	 * This method adds a reservation to the wheel, so that it expires at its deadline if it is still active.
+	 * A reservation made before the network knows the time has no deadline yet: its duration starts at the next operation of the network.
+	 * @param r
+	 */
+	void schedule(Reservation r) {
+		LocalDateTime deadline = r.getDeadline();
+		if (deadline == null) {
+			this.unscheduled.add(r);
+		} else {
+			long t = Math.max(minute(deadline), this.tick + 1);
+			this.buckets.get((int) Math.floorMod(t, WHEEL_SIZE)).add(r);
+		}
+	}
+
+	/**
+	 * This method moves the clock of the network to the time of an operation, and ends the reservations whose deadline is reached.
+	 * The lock of the wheel is only taken when a new minute starts, and it never takes another lock.
+	 * @param time
+	 */
+	void advance(LocalDateTime time) {
+		long target = minute(time);
+		if (target <= this.tick) return;
+		synchronized (this) {
+			if (target <= this.tick) return;
+			this.now = time;
+			if (this.tick != Long.MIN_VALUE) {
+				long first = Math.max(this.tick + 1, target - WHEEL_SIZE + 1);
+				for (long t = first; t <= target; t++) {
+					this.expire(this.buckets.get((int) Math.floorMod(t, WHEEL_SIZE)), time);
+				}
+			}
+			this.tick = target;
+		}
+		Reservation r;
+		while ((r = this.unscheduled.poll()) != null) {
+			if (r.isActive()) {
+				r.start(time);
+				this.schedule(r);
+			}
+		}
+	}
+
+	/**
+	 * This method ends the reservations of a bucket whose deadline is reached, and removes the ones which are not active any more.
+	 * The other reservations of the bucket expire after one or more turns of the wheel.
+	 * @param bucket
+	 * @param time
+	 */
+	private void expire(ConcurrentLinkedQueue<Reservation> bucket, LocalDateTime time) {
+		Iterator<Reservation> it = bucket.iterator();
+		while (it.hasNext()) {
+			Reservation r = it.next();
+			if (!r.isActive()) {
+				it.remove();
+			} else if (!r.getDeadline().isAfter(time)) {
+				it.remove();
+				if (r.getStation().release(r, Reservation.EXPIRED)) {
+					this.expired.increment();
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the latest time of an operation of the network, or {@code null} if no station has been used yet
+	 */
+	public LocalDateTime getNow() { return this.now; }
+
+	/**
+	 * @return the number of reservations which expired
+	 */
+	public long getExpired() { return this.expired.sum(); }
+
+}
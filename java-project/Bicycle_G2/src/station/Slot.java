@@ -1,9 +1,9 @@
 package station;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 
 import bike.Bike;
+import bike.BikeRegistry;
 import tools.Date;
 import tools.NegativeTimeException;
 import tools.NullDateException;
@@ -11,6 +11,8 @@ import tools.NullDateException;
 
 /**
  * A class representing parking slots. When a {@code Slot} is created, it has a unique ID, is online and has no {@code Bike}.
+ * <br> The state of a slot changes while holding the lock of the slot only, so that several slots of the same {@code Station} can change at the same time.
+ * The observers of the station are notified after the lock of the slot is released.
  * @author Chlo
  * @see SlotState
  * @see Station
@@ -19,22 +21,24 @@ public class Slot {
 	
 	private Station s;
 	private int id;
-	private boolean isOnline;
-	private Bike bike;
-	private ArrayList<SlotState> slotHistory;
+	private int rank;
+	private volatile boolean isOnline;
+	private volatile Bike bike;
+	private SlotHistory slotHistory;
 	
 	
 	public Slot(Station s) {
 		this.s = s;
-		id = SlotIdGenerator.getInstance().getSlotID(s);
+		rank = s.nextSlotRank();
+		id = SlotIdGenerator.getInstance().getSlotID(s, rank);
 		bike = null;
 		isOnline = true;
-		slotHistory = new ArrayList<SlotState>();
+		slotHistory = new SlotHistory(s.getNet() == null ? BikeRegistry.getShared() : s.getNet().getBikeRegistry());
 	}
 
 
 	/**
-	 * This method allows to find the {@code SlotState} of a {@code Slot} at a certain time t, using its index in the SlotHistory list.
+	 * This method allows to find the {@code SlotState} of a {@code Slot} at a certain time t, using its index in the SlotHistory list. The index is found with a binary search on the starting times of the {@code SlotState} objects.
 	 * <br> If t is during a {@code SlotState}, this {@code SlotState} will be returned.
 	 * <br> If t is at a changing time of {@code SlotState}, then the {@code SlotState} that starts at t will be returned.
 	 * <br> If t is before the first {@code SlotState}, it means the {@code Slot} was not created at that time, it will throw an exception.
@@ -44,30 +48,23 @@ public class Slot {
 	 * @throws NoSlotStateAtDateException
 	 */
 	public int indexSlotState (LocalDateTime t) throws NoSlotStateAtDateException{
-		int i;
-		int size = this.slotHistory.size();
-		if (size == 1 || size == 0) return 0;
-		for (i=0; i <= size-2; i ++) {
-			if (slotHistory.get(i).getStartTime().isBefore(t) && slotHistory.get(i).getEndTime().isAfter(t)){
-				return i;
-			}
-			if (t.equals(slotHistory.get(i).getStartTime())) {
-				return i;
-			}
-		}
-		if (t.equals(slotHistory.get(size-1).getStartTime())) {
-			return i;
-		}
-		SlotState a = slotHistory.get(size-1);
-		if (t.isAfter(a.getStartTime())){
-			return size - 1;
-		} else {
-			throw new NoSlotStateAtDateException(t);	
-		}
+		return this.slotHistory.indexAt(t);
+	}
+	
+	/**
+	 * This method returns the {@code SlotState} of the {@code Slot} at time t.
+	 * @param t
+	 * @return the {@code SlotState} at time t, or {@code null} if the {@code Slot} has no history
+	 * @throws NoSlotStateAtDateException if t is before the first {@code SlotState}
+	 * @see #indexSlotState(LocalDateTime)
+	 */
+	public SlotState getSlotState (LocalDateTime t) throws NoSlotStateAtDateException {
+		return this.slotHistory.stateAt(t);
 	}
 	
 	/**
 	 * This method calculates the occupation time of a {@code Slot} between startTime and endTime by using its {@code SlotState} history.
+	 * The {@code SlotState} objects at startTime and endTime are found with a binary search, and the occupation time of the ended states between them is stored in the history.
 	 * @param startTime
 	 * @param endTime
 	 * @return the time the {@code Slot} was occupied during startTime and endTime
@@ -80,21 +77,16 @@ public class Slot {
 		int totalOccupationTime = 0;
 		int iStart;
 		int iEnd;
+		int iLast = this.slotHistory.size() - 1;
 		iEnd = indexSlotState (endTime);
 		try {
 			iStart = indexSlotState (startTime);
 		} catch (NoSlotStateAtDateException e) {
 			iStart = 0;
 		}
-		for (int i = iStart; i <= iEnd; i++) {
-			SlotState state = slotHistory.get(i);
-			if (state.getisOccupied() == true) {
-				if (state.getEndTime() == null) { 
-					totalOccupationTime += Date.computeTime (state.getStartTime(), endTime);	
-				}
-				else {totalOccupationTime += Date.computeTime (state.getStartTime(), state.getEndTime());
-				}
-			}			
+		totalOccupationTime += slotHistory.occupationTime(iStart, Math.min(iEnd, iLast - 1));
+		if (iEnd == iLast && slotHistory.isOccupied(iLast) == true) {
+			totalOccupationTime += Date.computeTime (slotHistory.get(iLast).getStartTime(), endTime);
 		}
 		return totalOccupationTime;
 	}
@@ -122,23 +114,55 @@ public class Slot {
 	 * @throws NegativeTimeException
 	 */
 	public void setOnline(boolean isOnline, LocalDateTime changeTime) throws NegativeTimeException {
-		boolean wasSlotOnline = this.isOnline();
-		if (isOnline != this.isOnline) {
-			this.isOnline = isOnline;
-			if (slotHistory.size()!= 0) {
-				SlotState lastState = slotHistory.get(slotHistory.size()-1);
-				lastState.setEndTime (changeTime);}
-			SlotState newState = new SlotState (changeTime, isOnline, this.getBike());
-			slotHistory.add(newState);
-			if (wasSlotOnline == true && this.s.isStationFull() == true){
-				this.s.setChanged(true);
-				this.s.notifyObservers();
+		boolean stationFull = false;
+		synchronized (this) {
+			boolean wasSlotOnline = this.isOnline();
+			if (isOnline != this.isOnline) {
+				this.addState(changeTime, isOnline, this.bike);
+				this.s.slotStateRemoved(this);
+				this.isOnline = isOnline;
+				this.s.slotStateAdded(this);
+				stationFull = wasSlotOnline == true && this.s.isStationFull() == true;
 			}
 		}
+		if (stationFull) {
+			this.s.setChanged(true);
+			this.s.notifyObservers();
+		}
+	}
+	
+	/**
+	 * This method adds the new state of the {@code Slot} to its history, and to the occupation timeline of its {@code Station}.
+	 * It is called before the attributes of the slot change, so that nothing changes if changeTime is before the current state.
+	 * @param changeTime
+	 * @param isOnline
+	 * @param bike
+	 * @throws NegativeTimeException
+	 */
+	private void addState(LocalDateTime changeTime, boolean isOnline, Bike bike) throws NegativeTimeException {
+		boolean wasOccupied = slotHistory.size() != 0 && slotHistory.isOccupied(slotHistory.size()-1);
+		slotHistory.addState(changeTime, isOnline, bike);
+		this.s.getOccupation().addState(changeTime, wasOccupied, !isOnline || bike != null);
 	}
 	
 	public Bike getBike() { return bike; }
 	
+	/**
+	 * This method adds a state to the history of the {@code Slot} and gives this state to the slot, without notifying the observers of the {@code Station}.
+	 * It is used to rebuild a slot from a snapshot, where a state of the history can change both the bike and isOnline.
+	 * @param changeTime
+	 * @param isOnline
+	 * @param bike
+	 * @throws NegativeTimeException
+	 */
+	public synchronized void restoreState(LocalDateTime changeTime, boolean isOnline, Bike bike) throws NegativeTimeException {
+		this.addState(changeTime, isOnline, bike);
+		this.s.slotStateRemoved(this);
+		this.isOnline = isOnline;
+		this.bike = bike;
+		this.s.slotStateAdded(this);
+	}
+	
 	/**
 	 * This method sets the {@code Bike} of the {@code Slot}. When the {@code Bike} changes, a new {@code SlotState} has to be created.
 	 * @param bike
@@ -146,27 +170,70 @@ public class Slot {
 	 * @throws NegativeTimeException
 	 */
 	public void setBike(Bike bike, LocalDateTime changeTime) throws NegativeTimeException {
+		boolean stationFull;
+		synchronized (this) {
+			stationFull = this.changeBike(bike, changeTime);
+		}
+		if (stationFull) {
+			this.s.setChanged(true);
+			this.s.notifyObservers();
+		}
+	}
+	
+	/**
+	 * This method sets the {@code Bike} of the {@code Slot} only if the slot is online and its current bike is {@code expected}.
+	 * It is used by the {@code Station} to claim a slot: if another thread changed the slot first, the station tries another one.
+	 * The observers of the station are not notified, since the station is used while the user is locked: the station notifies them once the lock is released.
+	 * <br> The slot is checked before it is locked, so that a thread which lost the slot moves on to the next one without waiting for the thread which claimed it.
+	 * @param expected the bike the slot should have ({@code null} for a free slot)
+	 * @param bike the new bike of the slot
+	 * @param changeTime
+	 * @return whether the bike of the slot was changed
+	 * @throws NegativeTimeException
+	 */
+	public boolean compareAndSetBike(Bike expected, Bike bike, LocalDateTime changeTime) throws NegativeTimeException {
+		if (!this.isOnline || this.bike != expected) {
+			return false;
+		}
+		synchronized (this) {
+			if (!this.isOnline || this.bike != expected) {
+				return false;
+			}
+			this.changeBike(bike, changeTime);
+			return true;
+		}
+	}
+	
+	/**
+	 * This method changes the {@code Bike} of the {@code Slot}. The lock of the slot has to be held.
+	 * @param bike
+	 * @param changeTime
+	 * @return whether the {@code Station} became full, so that its observers have to be notified
+	 * @throws NegativeTimeException
+	 */
+	private boolean changeBike(Bike bike, LocalDateTime changeTime) throws NegativeTimeException {
 		boolean wasStationFull = this.s.isStationFull();
 		if (bike != this.bike) {
+			this.addState(changeTime, this.isOnline, bike);
+			this.s.slotStateRemoved(this);
 			this.bike = bike;
-			if (slotHistory.size()!= 0) {
-				SlotState lastState = slotHistory.get(slotHistory.size()-1);
-				lastState.setEndTime(changeTime);}
-			SlotState newState = new SlotState (changeTime, this.isOnline(), bike);
-			slotHistory.add(newState);
-			if (wasStationFull == false && this.s.isStationFull() == true){
-				this.s.setChanged(true);
-				this.s.notifyObservers();
-			}
+			this.s.slotStateAdded(this);
+			return wasStationFull == false && this.s.isStationFull() == true;
 		}
+		return false;
 	}
 	
 
-	public ArrayList<SlotState> getSlotHistory() { return slotHistory; }
+	public SlotHistory getSlotHistory() { return slotHistory; }
 
 	public Station getS() { return s; }
 
 	public int getId() { return id; }
+	
+	/**
+	 * @return the number of slots added to the {@code Station} before this one
+	 */
+	int getRank() { return rank; }
 	
 	
 	/**
@@ -0,0 +1,180 @@
+package station;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.Arrays;
+
+import bike.Bike;
+import bike.BikeRegistry;
+import tools.NegativeTimeException;
+
+/**
+ * This class contains the states of a {@code Slot}, ordered by starting time. Each state ends when the next one starts,
+ * so that the state at a given time can be found with a binary search.
+ * <br> The states are not stored as {@code SlotState} objects, but in arrays of primitives: the starting time in minutes since 1970,
+ * the id of the {@code Bike} (-1 if there is none) and a bit for isOnline, that is 8 bytes and a bit for each state.
+ * The {@code SlotState} objects returned by {@link #get(int)} are created when they are asked for, and changing them does not change the history.
+ * Their bikes are found in the {@code BikeRegistry} of the history, in which the bikes are registered when they are added to the history.
+ * <br> The history also stores the cumulative occupation time of the ended states, so that the occupation time between two states is a subtraction.
+ * <br> The list cannot be modified from outside: the states are added with {@code addState}, by one thread at a time since the {@code Slot} holds its lock.
+ * The history is read without lock: the size is volatile and is written after the new state, and the readers read it before the arrays.
+ * Since the arrays are only replaced by longer copies, the states before the size read are then complete in any array read after it.
+ * @author Pietro Dellino
+ * @see Slot
+ * @see SlotState
+ */
+public class SlotHistory extends AbstractList<SlotState> {
+
+	private volatile int size;
+	private int[] startMinutes;
+	private int[] bikeIds;
+	private long[] online;
+	private final BikeRegistry bikes;
+
+	/**
+	 * {@code occupiedBefore[i]} is the time (in minutes) the {@code Slot} was occupied during the states 0 to i-1.
+	 */
+	private int[] occupiedBefore;
+
+	public SlotHistory() {
+		this(BikeRegistry.getShared());
+	}
+	
+	/**
+	 * @param bikes the registry in which the bikes of the states are found from their ids
+	 */
+	public SlotHistory(BikeRegistry bikes) {
+		this.bikes = bikes;
+		this.startMinutes = new int[4];
+		this.bikeIds = new int[4];
+		this.online = new long[1];
+		this.occupiedBefore = new int[5];
+	}
+
+	private static LocalDateTime fromMinutes(int minutes) {
+		return LocalDateTime.ofEpochSecond(60L*minutes, 0, ZoneOffset.UTC);
+	}
+
+	/**
+	 * This method creates a view of a state of the history.
+	 */
+	@Override
+	public SlotState get(int index) {
+		int size = this.size;
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		int[] startMinutes = this.startMinutes;
+		int bikeId = this.bikeIds[index];
+		LocalDateTime end = index + 1 < size ? fromMinutes(startMinutes[index+1]) : null;
+		Bike bike = bikeId < 0 ? null : this.bikes.getBike(bikeId);
+		return SlotState.view(fromMinutes(startMinutes[index]), end, this.isOnline(index), bike);
+	}
+
+	@Override
+	public int size() { return this.size; }
+
+	/**
+	 * @param index
+	 * @return the starting time of the state, in minutes since 1970
+	 */
+	public int getStartMinutes(int index) { return this.startMinutes[index]; }
+
+	private boolean isOnline(int index) { return (this.online[index >>> 6] & (1L << index)) != 0; }
+
+	/**
+	 * @param index
+	 * @return whether the {@code Slot} was occupied during the state, that is offline or with a {@code Bike}
+	 */
+	boolean isOccupied(int index) { return !this.isOnline(index) || this.bikeIds[index] >= 0; }
+
+	/**
+	 * This method ends the current state and adds a new one starting at {@code changeTime}.
+	 * @param changeTime
+	 * @param isOnline
+	 * @param bike
+	 * @throws NegativeTimeException if {@code changeTime} is before the beginning of the current state
+	 */
+	void addState(LocalDateTime changeTime, boolean isOnline, Bike bike) throws NegativeTimeException {
+		int minutes = (int) StationOccupation.toMinutes(changeTime);
+		int size = this.size;
+		if (size != 0) {
+			int last = this.startMinutes[size-1];
+			if (minutes < last) {
+				throw new NegativeTimeException(fromMinutes(last), changeTime);
+			}
+			int time = this.isOccupied(size-1) ? minutes - last : 0;
+			this.occupiedBefore[size] = this.occupiedBefore[size-1] + time;
+		}
+		if (size == this.startMinutes.length) {
+			int capacity = 2*size;
+			this.startMinutes = Arrays.copyOf(this.startMinutes, capacity);
+			this.bikeIds = Arrays.copyOf(this.bikeIds, capacity);
+			this.occupiedBefore = Arrays.copyOf(this.occupiedBefore, capacity + 1);
+			this.online = Arrays.copyOf(this.online, (capacity + 63) >>> 6);
+		}
+		if (bike != null) {
+			this.bikes.register(bike);
+		}
+		this.startMinutes[size] = minutes;
+		this.bikeIds[size] = bike == null ? -1 : bike.getId();
+		if (isOnline) {
+			this.online[size >>> 6] |= 1L << size;
+		}
+		this.size = size + 1;
+		this.modCount++;
+	}
+
+	/**
+	 * This method finds the index of the state at time t with a binary search on the starting times.
+	 * <br> If t is a changing time of state, the index of the first state starting at t is returned.
+	 * <br> If the history contains at most one state, 0 is returned.
+	 * @param t
+	 * @return index of the state of time t
+	 * @throws NoSlotStateAtDateException if t is before the first state
+	 */
+	public int indexAt(LocalDateTime t) throws NoSlotStateAtDateException {
+		int size = this.size;
+		if (size <= 1) return 0;
+		long minutes = StationOccupation.toMinutes(t);
+		int low = 0, high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (this.startMinutes[mid] < minutes) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		if (low < size && this.startMinutes[low] == minutes) {
+			return low;
+		}
+		if (low == 0) {
+			throw new NoSlotStateAtDateException(t);
+		}
+		return low - 1;
+	}
+
+	/**
+	 * @param from
+	 * @param to
+	 * @return the time the {@code Slot} was occupied during the ended states {@code from} to {@code to} (included)
+	 */
+	public int occupationTime(int from, int to) {
+		if (to < from) return 0;
+		return this.occupiedBefore[to+1] - this.occupiedBefore[from];
+	}
+
+	/**
+	 * @param t
+	 * @return the state at time t, or {@code null} if the history is empty
+	 * @throws NoSlotStateAtDateException if t is before the first state
+	 * @see #indexAt(LocalDateTime)
+	 */
+	public SlotState stateAt(LocalDateTime t) throws NoSlotStateAtDateException {
+		if (this.size == 0) return null;
+		return this.get(this.indexAt(t));
+	}
+
+}
@@ -29,9 +29,8 @@ public class SlotIdGenerator implements Serializable {
 	 * @param s
 	 * @return
 	 */
-	public synchronized int getSlotID(Station s) {
-		int numSlots = s.getParkingSlots().size();
-		return 1000*s.getId() + numSlots ;
+	public synchronized int getSlotID(Station s, int rank) {
+		return 1000*s.getId() + rank ;
 	}
 	/**
 	 * This methods ensures that even when an {@code SlotIDGenerator} is serialized, the unique instance is always returned.
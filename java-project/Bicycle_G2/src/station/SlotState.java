@@ -36,6 +36,19 @@ public class SlotState {
 		this.bike = bike;
 	}
 	
+	/**
+	 * This method creates a {@code SlotState} from the times of a {@code SlotHistory}, which are already checked.
+	 * @param startTime
+	 * @param endTime
+	 * @param isOnline
+	 * @param bike
+	 * @return a {@code SlotState}
+	 */
+	static SlotState view(LocalDateTime startTime, LocalDateTime endTime, boolean isOnline, Bike bike) {
+		SlotState state = new SlotState(startTime, isOnline, bike);
+		state.endTime = endTime;
+		return state;
+	}
 	
 	public LocalDateTime getStartTime() { return startTime; }
 
@@ -12,6 +12,10 @@ public class StandardStation extends Station  {
 	public StandardStation (Point p, Network net) {
 		super (p, net);
 	}
+	
+	public StandardStation (Point p, Network net, int id) {
+		super (p, net, id);
+	}
 
 	/**
 	 * Redefinition of the equals() method
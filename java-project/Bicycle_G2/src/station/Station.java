@@ -2,6 +2,13 @@ package station;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import tools.*;
 import user.Observable;
@@ -9,10 +16,31 @@ import user.Observer;
 import user.User;
 import bike.*;
 import card.Card;
+import metrics.StationLatencies;
+import metrics.StationOperation;
+import ride.Itinerary;
 import ride.Network;
+import ride.Ride;
+import ride.path.BatchRerouting;
 
 /**
  * An abstract class to represent the stations. Each {@code Station} has a unique {@code id} (regardless of its type). A {@code Station} is part of a {@code Network}, has a position, a number of {@code Slot} objects. A {@code Station} is online when created. 
+ * <br> The stations can be used by several threads at the same time. The locks are always taken in this order, so that no deadlock can happen:
+ * <ol>
+ * <li>the {@code User} who rents or returns a bike, so that the same user cannot rent or return at two stations at the same time,</li>
+ * <li>the {@code Station}, which is only locked to add or remove slots and to go online or offline,</li>
+ * <li>a {@code Slot}, which is locked while its state changes,</li>
+ * <li>the occupation timeline of the station, the {@code Card}, the {@code UserStat} and the ride history of the {@code Network}, which never take another lock.</li>
+ * </ol>
+ * Renting and returning a bike do not lock the station: a slot is claimed with {@link Slot#compareAndSetBike(Bike, Bike, LocalDateTime)},
+ * and the next slot is tried if another thread changed it first. The sets of available slots are concurrent sets, so they can be read while other slots change.
+ * The observers are stored in a copy-on-write list, so that they can be registered and removed without taking the lock of the station.
+ * They are notified by the {@code NotificationDispatcher}, in its own threads, once no lock is held.
+ * <br> A free slot can be reserved by a user whose itinerary ends at the station (see {@link #reserve(User, long)}): the reserved slots are not available
+ * to the other users, so that a user who has no reservation can drop a bike only if the station has more free slots than reservations.
+ * A reservation and a return without reservation both claim a free slot with a compare-and-set on the number of claimed slots, which never exceeds the number of free slots,
+ * and the claim of a return is given back once its bike is parked or could not be parked.
+ * The reservations expire in the {@code ReservationWheel} of the network, which follows the times of the rentals and returns of all its stations.
  * @author Chlo
  * @see StandardStation
  * @see PlusStation
@@ -21,23 +49,72 @@ public abstract class Station implements Observable {
 	
 	private int id;
 	private Point p;
-	private boolean isOnline;
+	private volatile boolean isOnline;
 	private ArrayList<Slot> parkingSlots;
 	private Network net;
 	
-	private int totalRents;
-	private int totalReturns;
-	private int totalOperations;
+	/**
+	 * The slots of the station sorted by their rank (the order in which they were added), according to their state.
+	 * These sets are updated by the {@code Slot} objects each time their state changes, so that the availability of the station is known without looking at all its slots.
+	 * The size of a concurrent set is computed by walking through it, so that the number of slots of each set is kept in a counter, updated with the set.
+	 */
+	private int nextSlotRank;
+	private ConcurrentSkipListSet<Slot> freeSlots;
+	private ConcurrentSkipListSet<Slot> bikeSlots;
+	private ConcurrentSkipListSet<Slot> electricBikeSlots;
+	private ConcurrentSkipListSet<Slot> mechanicBikeSlots;
+	private AtomicInteger numberFreeSlots;
+	private AtomicInteger numberBikes;
+	private AtomicInteger numberElectricBikes;
+	private AtomicInteger numberMechanicBikes;
+	private StationOccupation occupation;
+	private AtomicInteger slotsVersion;
+	
+	private AtomicInteger totalRents;
+	private AtomicInteger totalReturns;
+	private StationLatencies latencies;
+	private ConcurrentHashMap<Integer, Reservation> reservations;
+	private AtomicInteger claimedSlots;
+	private ReservationWheel reservationWheel;
 
-	private ArrayList<Observer> observers = new ArrayList<Observer>();
+	private List<Observer> observers = new CopyOnWriteArrayList<Observer>();
 	private boolean changed; 
+	private AtomicBoolean notificationPending;
 
 	public Station(Point p, Network net) {
+		this(p, net, StationIdGenerator.getInstance().getNextStationID());
+	}
+	
+	/**
+	 * This constructor creates a station with a given id, to create again a station when a journal or a snapshot is read.
+	 * @param p
+	 * @param net
+	 * @param id
+	 */
+	public Station(Point p, Network net, int id) {
 		this.p = p;
-		id = StationIdGenerator.getInstance().getNextStationID();
+		this.id = StationIdGenerator.getInstance().restoreId(id);
 		this.parkingSlots = new ArrayList<Slot>();
+		Comparator<Slot> byRank = (s1, s2) -> Integer.compare(s1.getRank(), s2.getRank());
+		this.freeSlots = new ConcurrentSkipListSet<Slot>(byRank);
+		this.bikeSlots = new ConcurrentSkipListSet<Slot>(byRank);
+		this.electricBikeSlots = new ConcurrentSkipListSet<Slot>(byRank);
+		this.mechanicBikeSlots = new ConcurrentSkipListSet<Slot>(byRank);
+		this.numberFreeSlots = new AtomicInteger();
+		this.numberBikes = new AtomicInteger();
+		this.numberElectricBikes = new AtomicInteger();
+		this.numberMechanicBikes = new AtomicInteger();
+		this.occupation = new StationOccupation();
+		this.slotsVersion = new AtomicInteger();
+		this.totalRents = new AtomicInteger();
+		this.totalReturns = new AtomicInteger();
+		this.latencies = StationLatencies.forStation();
+		this.reservations = new ConcurrentHashMap<Integer, Reservation>();
+		this.claimedSlots = new AtomicInteger();
+		this.reservationWheel = net == null ? new ReservationWheel() : net.getReservationWheel();
 		this.isOnline = true;
 		this.changed = false;
+		this.notificationPending = new AtomicBoolean();
 		this.net = net;
 		
 		
@@ -45,6 +122,10 @@ public abstract class Station implements Observable {
 
 	/**
 	 * This method calculates the rate of occupation of an entire {@code Station} during a time period.
+	 * The occupation time of the {@code Station} is read on the occupation timeline of the station, which gathers the {@code SlotState} changes of all the slots.
+	 * <br> Only the occupied minutes between startTime and endTime are counted, also for the states which started before startTime or end after endTime,
+	 * and the occupation time is divided by the number of slots the station has now, including the slots which did not exist yet at startTime.
+	 * A slot which was removed from the station does not count any more, neither in the occupation time nor in the number of slots.
 	 * @param startTime
 	 * @param endTime
 	 * @return Rate of occupation during startTime and endTime
@@ -54,23 +135,13 @@ public abstract class Station implements Observable {
 	 */
 	public double getRateOccupation(LocalDateTime startTime, LocalDateTime endTime) throws NoSlotStateAtDateException, NegativeTimeException, NullDateException{
 		double occupationRate = -1;
-		ArrayList<Slot> existingSlots = new ArrayList<Slot>();
-		for (Slot slot : parkingSlots) {
-			if (slot.computeOccupationTime(startTime, endTime) != -1) {
-				existingSlots.add(slot);
-			}
-		}
-		if (existingSlots.size() == 0) {
+		if (parkingSlots.size() == 0 || !occupation.existsAt(endTime)) {
 			throw new NoSlotStateAtDateException(endTime);
 		}
 		try {
-			int totalOccupationTime = 0;
 			int delta = Date.computeTime (startTime, endTime);
-			int N = existingSlots.size();
-			for (Slot slot : existingSlots) {
-				int time = slot.computeOccupationTime(startTime, endTime);
-				totalOccupationTime =(int) + time;
-			}
+			int N = parkingSlots.size();
+			int totalOccupationTime = (int) occupation.occupationTime(startTime, endTime);
 			occupationRate = (double) (totalOccupationTime / (delta * N));
 		} catch (NegativeTimeException e) {
 			System.out.println("Error : Could not calculate rate Occupation");
@@ -84,12 +155,7 @@ public abstract class Station implements Observable {
 	 */
 	public boolean isStationFull() {
 		if (this.isOnline==false) {return true;}
-		for (Slot s : parkingSlots) {
-			if (!s.getisOccupied()) {
-				return false;
-			}
-		}
-		return true;
+		return this.numberFreeSlots.get() == 0;
 	}
 	
 	/**
@@ -98,10 +164,7 @@ public abstract class Station implements Observable {
 	 */
 	public Slot availableSlot() {
 		if (this.isOnline) {
-			for (Slot s : parkingSlots) {
-				if (s.getisOccupied() == false) {
-					return s; }
-			}
+			return first(this.freeSlots);
 		}
 		return null;
 	}
@@ -112,11 +175,7 @@ public abstract class Station implements Observable {
 	 */
 	public Slot hasBikeAvailable() {
 		if (this.isOnline) {
-			for (Slot s : parkingSlots) {
-				if (s.isOnline() == true && s.getBike() != null) {
-					return s;
-				}
-			}
+			return first(this.bikeSlots);
 		}
 		return null;
 	}
@@ -127,11 +186,7 @@ public abstract class Station implements Observable {
 	 */
 	public Slot hasElectricBikeAvailable() {
 		if (this.isOnline) {
-			for (Slot s : parkingSlots) {
-				if (s.isOnline() && s.getBike() instanceof ElectricBike) {
-					return s;
-				}
-			}
+			return first(this.electricBikeSlots);
 		}
 		return null;
 	}
@@ -142,14 +197,224 @@ public abstract class Station implements Observable {
 	 */
 	public Slot hasMechanicBikeAvailable() {
 		if (this.isOnline) {
-			for (Slot s : parkingSlots) {
-				if (s.isOnline() && s.getBike() instanceof MechanicBike) {
-					return s;
-				}
+			return first(this.mechanicBikeSlots);
+		}
+		return null;
+	}
+	
+	/**
+	 * @return the number of {@code Slot} objects that are online and without a {@code Bike}
+	 */
+	public int getNumberFreeSlots() { return this.numberFreeSlots.get(); }
+	
+	/**
+	 * @return the number of free slots which are reserved
+	 */
+	public int getNumberReservedSlots() { return this.reservations.size(); }
+	
+	/**
+	 * @return the number of free slots which are not reserved, nor claimed by a return in progress
+	 */
+	public int getNumberUnreservedSlots() { return Math.max(0, this.numberFreeSlots.get() - this.claimedSlots.get()); }
+	
+	/**
+	 * @return whether the station is online and has a free slot which is not reserved
+	 */
+	public boolean hasUnreservedSlot() { return this.isOnline && this.getNumberUnreservedSlots() > 0; }
+	
+	/**
+	 * This method claims a free slot which is not reserved, with a compare-and-set, so that two users cannot claim the last one.
+	 * @return whether the station is online and a slot was claimed
+	 */
+	private boolean claimUnreservedSlot() {
+		int claimed;
+		do {
+			claimed = this.claimedSlots.get();
+			if (!this.isOnline || claimed >= this.numberFreeSlots.get()) {
+				return false;
+			}
+		} while (!this.claimedSlots.compareAndSet(claimed, claimed + 1));
+		return true;
+	}
+	
+	/**
+	 * This method keeps a free slot of the station for a {@code User} during a given time. The reservation is scheduled in the {@code ReservationWheel} of the network,
+	 * which ends it if it has not been used when an operation of the network happens after its deadline. A previous reservation of the user at this station is cancelled.
+	 * <br> The reservation starts at the latest of the time of the last operation of the network and of the start of the ongoing ride of the user.
+	 * If neither is known, it starts at the next operation of the network.
+	 * @param user
+	 * @param minutes the duration of the reservation, in minutes
+	 * @return the reservation, or {@code null} if the station is offline or all its free slots are reserved
+	 */
+	public Reservation reserve(User user, long minutes) {
+		Reservation old = this.reservations.get(user.getId());
+		if (old != null) {
+			this.release(old, Reservation.CANCELLED);
+		}
+		if (!this.claimUnreservedSlot()) {
+			return null;
+		}
+		LocalDateTime start = this.reservationWheel.getNow();
+		Ride ride = user.getOngoingRide();
+		if (ride != null && (start == null || ride.getStartRide().isAfter(start))) {
+			start = ride.getStartRide();
+		}
+		Reservation r = new Reservation(this, user, start, minutes);
+		this.reservations.put(user.getId(), r);
+		this.reservationWheel.schedule(r);
+		return r;
+	}
+	
+	/**
+	 * This method keeps a free slot of the station for a {@code User} during {@link Reservation#DEFAULT_MINUTES} minutes.
+	 * @param user
+	 * @return the reservation, or {@code null} if the station is offline or all its free slots are reserved
+	 */
+	public Reservation reserve(User user) { return this.reserve(user, Reservation.DEFAULT_MINUTES); }
+	
+	/**
+	 * This method ends a reservation of the station, if it is still active, and gives its slot back to the other users.
+	 * @param r
+	 * @param state the new state of the reservation
+	 * @return whether the reservation was active
+	 */
+	boolean release(Reservation r, int state) {
+		if (!r.end(state)) {
+			return false;
+		}
+		this.reservations.remove(r.getUser().getId(), r);
+		this.claimedSlots.decrementAndGet();
+		return true;
+	}
+	
+	/**
+	 * @param user
+	 * @return the active reservation of the user at this station, or {@code null} if there is none
+	 */
+	public Reservation getReservation(User user) { return this.reservations.get(user.getId()); }
+	
+	/**
+	 * This method moves the clock of the network to the time of an operation, so that the reservations of all its stations whose deadline is reached expire.
+	 * It is called by the rentals and returns of the station.
+	 * @param time
+	 */
+	public void expireReservations(LocalDateTime time) {
+		if (time != null) {
+			this.reservationWheel.advance(time);
+		}
+	}
+	
+	/**
+	 * @return the wheel in which the reservations of the station expire, which is the one of its network if it has one
+	 */
+	public ReservationWheel getReservationWheel() { return reservationWheel; }
+	
+	/**
+	 * @return the number of {@code Slot} objects that are online and with a {@code Bike}
+	 */
+	public int getNumberBikes() { return this.numberBikes.get(); }
+	
+	/**
+	 * @return the number of {@code Slot} objects that are online and with an {@code ElectricBike}
+	 */
+	public int getNumberElectricBikes() { return this.numberElectricBikes.get(); }
+	
+	/**
+	 * @return the number of {@code Slot} objects that are online and with a {@code MechanicBike}
+	 */
+	public int getNumberMechanicBikes() { return this.numberMechanicBikes.get(); }
+	
+	/**
+	 * @param slots
+	 * @return the first {@code Slot} of the set, or {@code null} if it is empty
+	 */
+	private static Slot first(ConcurrentSkipListSet<Slot> slots) {
+		for (Slot s : slots) {
+			return s;
+		}
+		return null;
+	}
+	
+	/**
+	 * This method takes a bike of the given type from the first {@code Slot} of the set that can be claimed.
+	 * If another thread changes a slot before it is claimed, the next slot of the set is tried.
+	 * @param slots the slots where the bike is looked for
+	 * @param bikeType the class of the bike
+	 * @param pickUpTime
+	 * @return the bike taken, or {@code null} if there is none
+	 * @throws NegativeTimeException
+	 */
+	private Bike takeBike(ConcurrentSkipListSet<Slot> slots, Class<? extends Bike> bikeType, LocalDateTime pickUpTime) throws NegativeTimeException {
+		for (Slot s : slots) {
+			Bike b = s.getBike();
+			if (bikeType.isInstance(b) && s.compareAndSetBike(b, null, pickUpTime)) {
+				return b;
 			}
 		}
 		return null;
 	}
+	
+	/**
+	 * This method parks a bike on the first free {@code Slot} that can be claimed.
+	 * @param bike
+	 * @param dropTime
+	 * @return whether a free slot was found
+	 * @throws NegativeTimeException
+	 */
+	private boolean parkBike(Bike bike, LocalDateTime dropTime) throws NegativeTimeException {
+		for (Slot s : this.freeSlots) {
+			if (s.compareAndSetBike(null, bike, dropTime)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	int nextSlotRank() { return this.nextSlotRank++; }
+	
+	/**
+	 * This method is called by a {@code Slot} of the station before its state changes, to remove it from the sets of slots of the station.
+	 * @param slot
+	 */
+	void slotStateRemoved(Slot slot) {
+		remove(this.freeSlots, this.numberFreeSlots, slot);
+		remove(this.bikeSlots, this.numberBikes, slot);
+		remove(this.electricBikeSlots, this.numberElectricBikes, slot);
+		remove(this.mechanicBikeSlots, this.numberMechanicBikes, slot);
+	}
+	
+	private static void remove(ConcurrentSkipListSet<Slot> slots, AtomicInteger number, Slot slot) {
+		if (slots.remove(slot)) {
+			number.decrementAndGet();
+		}
+	}
+	
+	private static void add(ConcurrentSkipListSet<Slot> slots, AtomicInteger number, Slot slot) {
+		if (slots.add(slot)) {
+			number.incrementAndGet();
+		}
+	}
+	
+	/**
+	 * This method is called by a {@code Slot} of the station after its state changed, to add it to the sets of slots corresponding to its new state.
+	 * @param slot
+	 */
+	void slotStateAdded(Slot slot) {
+		this.slotsVersion.incrementAndGet();
+		if (slot.isOnline()) {
+			Bike b = slot.getBike();
+			if (b == null) {
+				add(this.freeSlots, this.numberFreeSlots, slot);
+			} else {
+				add(this.bikeSlots, this.numberBikes, slot);
+				if (b instanceof ElectricBike) {
+					add(this.electricBikeSlots, this.numberElectricBikes, slot);
+				} else if (b instanceof MechanicBike) {
+					add(this.mechanicBikeSlots, this.numberMechanicBikes, slot);
+				}
+			}
+		}
+	}
 
 	/**
 	 * 
@@ -173,22 +438,29 @@ public abstract class Station implements Observable {
 	 * @throws NoBikeAvailableException 
 	 * @throws StationOfflineException 
 	 */
-	public synchronized void pickUpBike(Card card, LocalDateTime pickUpTime) throws NegativeTimeException, OngoingRideException, NoBikeAvailableException, StationOfflineException {
-		if (this.isOnline) {
-			User user = identifyUser (card);
-			if (user.getOngoingRide() == null) {
-				Slot s = hasBikeAvailable();
-				if (s != null) {
-					Bike b = s.getBike();
-					user.startOngoingRide(this.net, b, pickUpTime, card);
-					s.setBike(null, pickUpTime);
-					this.setTotalRents(getTotalRents()+1);
-					user.setPosition(p); 
-				} else { throw new NoBikeAvailableException() ;
-				}
-			} else {throw new OngoingRideException();	
+	public void pickUpBike(Card card, LocalDateTime pickUpTime) throws NegativeTimeException, OngoingRideException, NoBikeAvailableException, StationOfflineException {
+		long start = System.nanoTime();
+		try {
+			this.expireReservations(pickUpTime);
+			synchronized (card.getUser()) {
+				if (this.isOnline) {
+					User user = identifyUser (card);
+					if (user.getOngoingRide() == null) {
+						Bike b = this.takeBike(this.bikeSlots, Bike.class, pickUpTime);
+						if (b != null) {
+							user.startOngoingRide(this.net, b, pickUpTime, card);
+							user.getOngoingRide().setStartStation(this);
+							this.totalRents.incrementAndGet();
+							user.setPosition(p); 
+						} else { throw new NoBikeAvailableException() ;
+						}
+					} else {throw new OngoingRideException();	
+					}
+				} else  {throw new StationOfflineException(this);}
 			}
-		} else  {throw new StationOfflineException(this);}
+		} finally {
+			this.recordLatency(StationOperation.PICK_UP_BIKE, start);
+		}
 	}
 	
 	/**
@@ -200,23 +472,30 @@ public abstract class Station implements Observable {
 	 * @throws OngoingRideException 
 	 * @throws StationOfflineException 
 	 */
-	public synchronized void pickUpElectricBike(Card card, LocalDateTime pickUpTime) throws NegativeTimeException, NoElectricBikeAvailableException, OngoingRideException, StationOfflineException {
-		if (this.isOnline) {
-			User user = identifyUser (card);
-			if (user.getOngoingRide() == null) {
-				Slot s = hasElectricBikeAvailable();
-				if (s != null) {
-					Bike b = s.getBike();
-					user.startOngoingRide(this.net, b, pickUpTime, card);
-					s.setBike(null, pickUpTime);
-					this.setTotalRents(getTotalRents()+1);
-					user.setPosition(p);
-				}else {throw new NoElectricBikeAvailableException() ;
-				}
-			} else {throw new OngoingRideException();	
+	public void pickUpElectricBike(Card card, LocalDateTime pickUpTime) throws NegativeTimeException, NoElectricBikeAvailableException, OngoingRideException, StationOfflineException {
+		long start = System.nanoTime();
+		try {
+			this.expireReservations(pickUpTime);
+			synchronized (card.getUser()) {
+				if (this.isOnline) {
+					User user = identifyUser (card);
+					if (user.getOngoingRide() == null) {
+						Bike b = this.takeBike(this.electricBikeSlots, ElectricBike.class, pickUpTime);
+						if (b != null) {
+							user.startOngoingRide(this.net, b, pickUpTime, card);
+							user.getOngoingRide().setStartStation(this);
+							this.totalRents.incrementAndGet();
+							user.setPosition(p);
+						}else {throw new NoElectricBikeAvailableException() ;
+						}
+					} else {throw new OngoingRideException();	
+					}
+				} else  {throw new StationOfflineException(this);
+				} 
 			}
-		} else  {throw new StationOfflineException(this);
-		} 
+		} finally {
+			this.recordLatency(StationOperation.PICK_UP_ELECTRIC_BIKE, start);
+		}
 	}
 	
 	/**
@@ -228,28 +507,37 @@ public abstract class Station implements Observable {
 	 * @throws OngoingRideException 
 	 * @throws StationOfflineException 
 	 */
-	public synchronized void pickUpMechanicBike(Card card, LocalDateTime pickUpTime) throws NegativeTimeException, NoMechanicBikeAvailableException, OngoingRideException, StationOfflineException {
-		if (this.isOnline) {
-			User user = identifyUser (card);
-			if (user.getOngoingRide() == null) {
-				Slot s = hasMechanicBikeAvailable();
-				if (s != null) {
-					Bike b = s.getBike();
-					user.startOngoingRide(this.net, b, pickUpTime, card);
-					s.setBike(null, pickUpTime);
-					this.setTotalRents(getTotalRents()+1);
-					user.setPosition(p);
-				}else {throw new NoMechanicBikeAvailableException() ;
+	public void pickUpMechanicBike(Card card, LocalDateTime pickUpTime) throws NegativeTimeException, NoMechanicBikeAvailableException, OngoingRideException, StationOfflineException {
+		long start = System.nanoTime();
+		try {
+			this.expireReservations(pickUpTime);
+			synchronized (card.getUser()) {
+				if (this.isOnline) {
+					User user = identifyUser (card);
+					if (user.getOngoingRide() == null) {
+						Bike b = this.takeBike(this.mechanicBikeSlots, MechanicBike.class, pickUpTime);
+						if (b != null) {
+							user.startOngoingRide(this.net, b, pickUpTime, card);
+							user.getOngoingRide().setStartStation(this);
+							this.totalRents.incrementAndGet();
+							user.setPosition(p);
+						}else {throw new NoMechanicBikeAvailableException() ;
+						}
+					} else {throw new OngoingRideException();	
+					}
+				} else  {throw new StationOfflineException(this);
 				}
-			} else {throw new OngoingRideException();	
 			}
-		} else  {throw new StationOfflineException(this);
+		} finally {
+			this.recordLatency(StationOperation.PICK_UP_MECHANIC_BIKE, start);
 		}
 	}
 	
 	/**
 	 * This method allows to drop a {@code Bike} if the {@code Station} is online, if the {@code User} of the {@code Card} has an ongoing {@code Ride} and if there is an available {@code Slot}.
-	 * If the {@code Station} becomes full, the changed attributes become true so that the observers are notified.
+	 * If the {@code User} has a reservation at the station, it is consumed; otherwise a slot which is not reserved is claimed before the bike is parked,
+	 * and the claim is given back once the bike is parked or could not be parked.
+	 * If the {@code Station} becomes full, the changed attributes become true so that the observers are notified, after the lock of the user is released.
 	 * @param card
 	 * @param dropTime
 	 * @throws NegativeTimeException
@@ -260,29 +548,53 @@ public abstract class Station implements Observable {
 	 * @return price of the {@code Ride}
 	 * @throws OngoingRideException 
 	 */
-	public synchronized double dropBike (Card card, LocalDateTime dropTime) throws NegativeTimeException, NullDateException, NoSlotAvailableException, NoOngoingRideException, StationOfflineException, OngoingRideException {
-		if (this.isOnline) {	
-			User user = identifyUser(card);
-			if (user.getOngoingRide() != null) {
-				if (this.isStationFull() == false) {
-					Slot s = availableSlot();
-					s.setBike(user.getOngoingRide().getBike(), dropTime);
-					this.setTotalReturns(getTotalReturns()+1);
-					double price = user.endOngoingRide(dropTime);
-					user.setPosition(p);
-					if (this.isStationFull() == true) {
-							this.changed = true;
-							this.notifyObservers();
+	public double dropBike (Card card, LocalDateTime dropTime) throws NegativeTimeException, NullDateException, NoSlotAvailableException, NoOngoingRideException, StationOfflineException, OngoingRideException {
+		long start = System.nanoTime();
+		try {
+			double price;
+			this.expireReservations(dropTime);
+			synchronized (card.getUser()) {
+				if (this.isOnline) {	
+					User user = identifyUser(card);
+					if (user.getOngoingRide() != null) {
+						Reservation reservation = this.reservations.get(user.getId());
+						boolean claimed = reservation == null;
+						if (claimed && !this.claimUnreservedSlot()) {
+							throw new NoSlotAvailableException();
+						}
+						boolean parked;
+						try {
+							parked = this.parkBike(user.getOngoingRide().getBike(), dropTime);
+						} finally {
+							if (claimed) {
+								this.claimedSlots.decrementAndGet();
+							}
+						}
+						if (parked) {
+							if (reservation != null) {
+								this.release(reservation, Reservation.CONSUMED);
+							}
+							this.totalReturns.incrementAndGet();
+							user.getOngoingRide().setEndStation(this);
+							price = user.endOngoingRide(dropTime);
+							user.setPosition(p);
+						} else {
+							throw new NoSlotAvailableException();
+						}
+					} else {
+						throw new NoOngoingRideException();	
 					}
-					return price;
-				} else {
-					throw new NoSlotAvailableException();
+				}else  {
+					throw new StationOfflineException(this);
 				}
-			} else {
-				throw new NoOngoingRideException();	
 			}
-		}else  {
-			throw new StationOfflineException(this);
+			if (this.isStationFull() == true) {
+				this.setChanged(true);
+				this.notifyObservers();
+			}
+			return price;
+		} finally {
+			this.recordLatency(StationOperation.DROP_BIKE, start);
 		}
 	}
 	
@@ -296,92 +608,217 @@ public abstract class Station implements Observable {
 		observers.remove(observer);}
 
 
+	/**
+	 * This method asks the {@code NotificationDispatcher} to notify the observers if the station has changed. The observers are notified later,
+	 * in a thread of the dispatcher, so that this method must be called without holding the lock of the station, of a slot or of a user:
+	 * it waits if the queue of the dispatcher is full.
+	 */
 	@Override 
 	public void notifyObservers () {
-		if (this.changed) {
-			ArrayList<User> UserToRemoveFromObserversNoItinerary = new ArrayList<User>();
-			ArrayList<User> UserToRemoveFromObserversItinerary = new ArrayList<User>();
-			for (Observer ob : observers) {
-				int i = ob.update();
-				if (i == 0) {
-					UserToRemoveFromObserversNoItinerary.add((User) ob);
-				}
-				if (i == 1) {
-					UserToRemoveFromObserversItinerary.add((User) ob);
+		synchronized (this) {
+			if (!this.changed) return;
+			this.changed = false;
+		}
+		NotificationDispatcher.getInstance().submit(this);
+	}
+	
+	/**
+	 * This method is called by the {@code NotificationDispatcher} when the station is put in its queue.
+	 * @return false if a notification of the station is already waiting in the queue
+	 */
+	boolean markNotificationPending() {
+		return this.notificationPending.compareAndSet(false, true);
+	}
+	
+	/**
+	 * This method notifies the observers of the station, in a thread of the {@code NotificationDispatcher}, without lock.
+	 * The users who do not recalculate their itinerary lose it. The users who recalculate it are given new return stations all at once,
+	 * and the users whose itinerary goes to another station stop observing this one.
+	 */
+	void updateObservers() {
+		this.notificationPending.set(false);
+		ArrayList<User> UserToRemoveFromObserversNoItinerary = new ArrayList<User>();
+		ArrayList<User> UserToRemoveFromObserversItinerary = new ArrayList<User>();
+		for (Observer ob : observers) {
+			int i = ob.update();
+			if (i == 0) {
+				UserToRemoveFromObserversNoItinerary.add((User) ob);
+			}
+			if (i == 1) {
+				UserToRemoveFromObserversItinerary.add((User) ob);
+			}
+		}
+		for (User user : UserToRemoveFromObserversNoItinerary) {
+			user.setItinerary(null);
+		}
+		this.reroute(UserToRemoveFromObserversItinerary);
+		for (User user : UserToRemoveFromObserversItinerary) {
+			Itinerary itinerary = user.getItinerary();
+			if (itinerary == null || itinerary.getEndStation() != this) {
+				this.getObservers().remove(user);
+			}
+		}	
+	}
+	
+	/**
+	 * This method gives new return stations to the users riding to this station who want to recalculate their itinerary.
+	 * The users whose {@code PathStrategy} returns the closest station with a free slot are rerouted together by a {@code BatchRerouting},
+	 * which spreads them over the stations around according to their free slots. The other users get the station chosen by their own strategy,
+	 * so that, for instance, a user who avoids the plus stations is not sent to one.
+	 * The new stations are given with the lock of each user, and not to the users whose ride or itinerary has changed in the meantime.
+	 * @param users
+	 */
+	private void reroute(List<User> users) {
+		ArrayList<User> riders = new ArrayList<User>();
+		ArrayList<Itinerary> itineraries = new ArrayList<Itinerary>();
+		ArrayList<Bike> bikes = new ArrayList<Bike>();
+		ArrayList<Integer> batched = new ArrayList<Integer>();
+		ArrayList<Point> ends = new ArrayList<Point>();
+		for (User user : users) {
+			Itinerary itinerary = user.getItinerary();
+			Ride ride = user.getOngoingRide();
+			if (itinerary != null && ride != null) {
+				if (this.net != null && itinerary.getPs().returnsClosestStation()) {
+					batched.add(riders.size());
+					ends.add(itinerary.getEnd());
 				}
+				riders.add(user);
+				itineraries.add(itinerary);
+				bikes.add(ride.getBike());
 			}
-			for (User user : UserToRemoveFromObserversNoItinerary) {
-				user.setItinerary(null);
+		}
+		if (riders.isEmpty()) return;
+		Station[] stations = new Station[riders.size()];
+		if (!batched.isEmpty()) {
+			Station[] rerouted = new BatchRerouting(this.net).reroute(this, ends);
+			for (int k = 0; k < rerouted.length; k++) {
+				stations[batched.get(k)] = rerouted[k];
+			}
+		}
+		for (int i = 0; i < stations.length; i++) {
+			if (stations[i] == null) {
+				Itinerary itinerary = itineraries.get(i);
+				stations[i] = itinerary.getPs().findEndStation(itinerary.getStartStation().getP(), itinerary.getEnd(), bikes.get(i));
 			}
-			for (User user : UserToRemoveFromObserversItinerary) {
-				if (user.getItinerary().getEndStation() != this) {
-					this.getObservers().remove(user);
+		}
+		for (int i = 0; i < stations.length; i++) {
+			User user = riders.get(i);
+			synchronized (user) {
+				if (user.getItinerary() != itineraries.get(i) || user.getOngoingRide() == null) continue;
+				itineraries.get(i).setEndStation(stations[i]);
+				user.updateReservation();
+				if (stations[i] != this) {
+					stations[i].registerObserver(user);
 				}
-			}	
-		} this.changed = false;
-		
+			}
+		}
+	}
+	
+	public Network getNet() { return net; }
+	
+	/**
+	 * @return the latencies of the rentals and returns of the station
+	 */
+	public StationLatencies getLatencies() { return latencies; }
+	
+	/**
+	 * This method records the latency of an operation of the station, for the station and for its network.
+	 * @param op
+	 * @param start the value of {@code System.nanoTime()} when the operation started
+	 */
+	private void recordLatency(StationOperation op, long start) {
+		long nanos = System.nanoTime() - start;
+		this.latencies.record(op, nanos);
+		if (this.net != null) {
+			this.net.getMetrics().getLatencies().record(op, nanos);
+		}
 	}
 	
 	public Point getP() { return p; }
 
-	public void setP(Point p) { this.p = p; }
+	/**
+	 * This method changes the position of the {@code Station}, and updates the spatial index of its {@code Network}.
+	 * @param p
+	 */
+	public void setP(Point p) {
+		Point oldP = this.p;
+		this.p = p;
+		if (this.net != null) {
+			this.net.moveStation(this, oldP);
+		}
+	}
 
 	public boolean isOnline() { return isOnline; }
 
 	/**
-	 * This method sets the boolean isOnline. If a Station goes offline, all its Observers are notified.
+	 * This method sets the boolean isOnline. If a Station goes offline, all its Observers are notified, after the lock of the station is released.
 	 * @param isOnline
 	 */
 	public void setOnline(boolean isOnline) { 
-		boolean wasOnline = this.isOnline;
-		this.isOnline = isOnline; 
-		if (wasOnline == true && isOnline == false) {
+		synchronized (this) {
+			boolean wasOnline = this.isOnline;
+			this.isOnline = isOnline; 
+			if (wasOnline == false || isOnline == true) return;
 			this.changed = true;
-			this.notifyObservers();
 		}
+		this.notifyObservers();
 	}
 
 	public ArrayList<Slot> getParkingSlots() { return parkingSlots; }
 
-	public void addSlot() {
-		this.parkingSlots.add(new Slot(this)); }
+	public synchronized void addSlot() {
+		Slot slot = new Slot(this);
+		this.parkingSlots.add(slot);
+		this.slotStateAdded(slot);
+		if (this.net != null) {
+			this.net.addSlot(slot);
+		}
+	}
 	
-	public void addSlot(int n) {
+	public synchronized void addSlot(int n) {
 		for (int i = 0; i<n; i++) {
-			this.parkingSlots.add(new Slot(this)); }
+			this.addSlot(); }
 	}
 	
-	public void removeSlot (Slot slot) {
-		for (Slot s : parkingSlots) {
-			if (s.equals(slot)) {
-				parkingSlots.remove(s);
+	public synchronized void removeSlot (Slot slot) {
+		synchronized (slot) {
+			if (parkingSlots.remove(slot)) {
+				this.slotStateRemoved(slot);
+				this.slotsVersion.incrementAndGet();
+				if (this.net != null) {
+					this.net.removeSlot(slot);
+				}
+				this.occupation.removeHistory(slot.getSlotHistory());
 			}
 		}
 	}
+	
+	StationOccupation getOccupation() { return this.occupation; }
+	
+	/**
+	 * This number changes each time a {@code Slot} of the station is added, removed or changes state.
+	 * It is used to know if a value computed from the slots of the station is still valid.
+	 * @return the version of the slots of the station
+	 */
+	public int getSlotsVersion() { return this.slotsVersion.get(); }
 
-	public int getTotalRents() { return totalRents; }
+	public int getTotalRents() { return totalRents.get(); }
 
-	public void setTotalRents(int totalRents) {
-		this.totalRents = totalRents;
-		this.totalOperations = this.totalRents + this.totalReturns;
-	}
+	public void setTotalRents(int totalRents) { this.totalRents.set(totalRents); }
 
-	public int getTotalReturns() { return totalReturns; }
+	public int getTotalReturns() { return totalReturns.get(); }
 
-	public void setTotalReturns(int totalReturns) {
-		this.totalReturns = totalReturns;
-		this.totalOperations = this.totalRents + this.totalReturns;
-	}
+	public void setTotalReturns(int totalReturns) { this.totalReturns.set(totalReturns); }
 	
-	public int getTotalOperations() { return totalOperations; }
+	public int getTotalOperations() { return this.getTotalRents() + this.getTotalReturns(); }
 	
 	public int getId() { return id; }
 	
-	public boolean isChanged() { return changed; }
+	public synchronized boolean isChanged() { return changed; }
 
-	public void setChanged(boolean changed) { this.changed = changed; }
+	public synchronized void setChanged(boolean changed) { this.changed = changed; }
 
-	public ArrayList<Observer> getObservers() {	return observers; }
+	public List<Observer> getObservers() {	return observers; }
 
 	/**
 	 * Redefinition of the equals() method
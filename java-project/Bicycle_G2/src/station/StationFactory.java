@@ -15,7 +15,7 @@ public class StationFactory  {
 	public StationFactory(Network net) { this.net = net; }
 	
 	/**
-	 * When creating a new {@code Station}, the method checks if there is no other stations at the same position.
+	 * When creating a new {@code Station}, the method checks if there is no other stations at the same position, by looking for the closest station in the {@code StationIndex} of the network.
 	 * @param stationType
 	 * @param p
 	 * @return the Station created
@@ -23,17 +23,31 @@ public class StationFactory  {
 	 * @throws StationSamePositionException
 	 */
 	public Station createStation (String stationType, Point p ) throws TypeStationException, StationSamePositionException {
-		for (Station s : this.net.getStations()) {
-			if (s.getP().equals(p) ) { 
-				throw new StationSamePositionException(p); }
+		return this.createStation(stationType, p, -1);
+	}
+	
+	/**
+	 * This method creates again a station which had the given id, when a journal or a snapshot is read.
+	 * @param stationType
+	 * @param p
+	 * @param id the id of the station, or -1 to give it a new id
+	 * @return the Station created
+	 * @throws TypeStationException
+	 * @throws StationSamePositionException
+	 * @see #createStation(String, Point)
+	 */
+	public Station createStation (String stationType, Point p, int id) throws TypeStationException, StationSamePositionException {
+		Station closest = this.net.getStationIndex().nearest(p, s -> true);
+		if (closest != null && closest.getP().equals(p)) {
+			throw new StationSamePositionException(p);
 		}
 		
 		if (stationType.equalsIgnoreCase("Standard")) {
-			Station s1 = new StandardStation(p, net);
+			Station s1 = id < 0 ? new StandardStation(p, net) : new StandardStation(p, net, id);
 			this.net.addStation(s1);
 			return s1;
 		} else if (stationType.equalsIgnoreCase("Plus")) {
-			Station s2 = new PlusStation(p, net);
+			Station s2 = id < 0 ? new PlusStation(p, net) : new PlusStation(p, net, id);
 			this.net.addStation(s2);	
 			return s2;
 		} else {
@@ -30,7 +30,19 @@ public class StationIdGenerator implements Serializable {
 		return instance;
 	}
 		
-	public synchronized int getNextStationID() { return num ++; }
+	public synchronized int getNextStationID() {
+		return num++;
+	}
+	
+	/**
+	 * Used by {@link Station#Station(tools.Point, ride.Network, int)}.
+	 * @param id the id of a station created again
+	 * @return id
+	 */
+	synchronized int restoreId(int id) {
+		if (id >= this.num) this.num = id + 1;
+		return id;
+	}
 
 	/**
 	 * This methods ensures that even when an {@code StationIDGenerator} is serialized, the unique instance is always returned.
@@ -0,0 +1,210 @@
+package station;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * This class gathers the changes of occupation of all the {@code Slot} objects of a {@code Station} on a single timeline. Each event is the time
+ * at which the number of occupied slots of the station changes, and the cumulative number of occupied slot-minutes is stored at each event, so that
+ * the occupation time of the station during a period is found with two binary searches.
+ * <br> The events are usually added in chronological order. When it is not the case, the timeline is sorted again the next time it is used.
+ * <br> The slots of a station can change at the same time, so that the events are added without lock: each thread appends its events to one of
+ * {@value #STRIPES} concurrent queues, chosen from its id. The queues are merged into the timeline by the methods which read it, which are synchronized.
+ * @author Pietro Dellino
+ * @see Station#getRateOccupation(LocalDateTime, LocalDateTime)
+ */
+class StationOccupation {
+
+	static final int STRIPES = 8;
+
+	/**
+	 * The events which are not merged into the timeline yet. Each event is stored in a single {@code long}: its time in minutes, shifted by one bit,
+	 * and the last bit set if the number of occupied slots increases.
+	 */
+	private final ConcurrentLinkedQueue<Long>[] pending;
+	private final LongAccumulator firstTime;
+
+	private long[] times;
+	private int[] deltas;
+	private int size;
+	private boolean sorted;
+
+	/**
+	 * {@code counts[i]} is the number of occupied slots after the i-th event, and {@code cumulative[i]} the number of occupied slot-minutes before the i-th event.
+	 * They are computed when the timeline is used.
+	 */
+	private int[] counts;
+	private long[] cumulative;
+	private int computed;
+
+	@SuppressWarnings("unchecked")
+	StationOccupation() {
+		this.pending = (ConcurrentLinkedQueue<Long>[]) new ConcurrentLinkedQueue<?>[STRIPES];
+		for (int i = 0; i < STRIPES; i++) {
+			this.pending[i] = new ConcurrentLinkedQueue<Long>();
+		}
+		this.firstTime = new LongAccumulator(Math::min, Long.MAX_VALUE);
+		this.clear();
+	}
+
+	/**
+	 * This method removes all the events of the timeline.
+	 */
+	synchronized void clear() {
+		this.times = new long[16];
+		this.deltas = new int[16];
+		this.counts = new int[16];
+		this.cumulative = new long[16];
+		this.size = 0;
+		this.computed = 0;
+		this.sorted = true;
+		this.firstTime.reset();
+		for (ConcurrentLinkedQueue<Long> queue : this.pending) {
+			queue.clear();
+		}
+	}
+
+	static long toMinutes(LocalDateTime t) {
+		return Math.floorDiv(t.toEpochSecond(ZoneOffset.UTC), 60);
+	}
+
+	/**
+	 * This method is called each time a {@code Slot} of the station gets a new {@code SlotState}.
+	 * @param t the starting time of the new state
+	 * @param wasOccupied whether the previous state was occupied ({@code false} if there was no previous state)
+	 * @param isOccupied whether the new state is occupied
+	 */
+	void addState(LocalDateTime t, boolean wasOccupied, boolean isOccupied) {
+		this.addState(toMinutes(t), wasOccupied, isOccupied);
+	}
+
+	/**
+	 * @param minutes the starting time of the new state, in minutes since 1970
+	 * @param wasOccupied
+	 * @param isOccupied
+	 * @see #addState(LocalDateTime, boolean, boolean)
+	 */
+	void addState(long minutes, boolean wasOccupied, boolean isOccupied) {
+		this.firstTime.accumulate(minutes);
+		if (isOccupied == wasOccupied) return;
+		int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+		this.pending[stripe].add((minutes << 1) | (isOccupied ? 1 : 0));
+	}
+
+	/**
+	 * This method moves the pending events to the timeline. The lock of the timeline has to be held.
+	 */
+	private void merge() {
+		for (ConcurrentLinkedQueue<Long> queue : this.pending) {
+			Long event;
+			while ((event = queue.poll()) != null) {
+				this.append(event >> 1, (event & 1) == 1 ? 1 : -1);
+			}
+		}
+	}
+
+	private void append(long minutes, int delta) {
+		if (this.size == this.times.length) {
+			int capacity = 2*this.size;
+			this.times = Arrays.copyOf(this.times, capacity);
+			this.deltas = Arrays.copyOf(this.deltas, capacity);
+			this.counts = Arrays.copyOf(this.counts, capacity);
+			this.cumulative = Arrays.copyOf(this.cumulative, capacity);
+		}
+		if (this.size > 0 && minutes < this.times[this.size-1]) {
+			this.sorted = false;
+			this.computed = 0;
+		}
+		this.times[this.size] = minutes;
+		this.deltas[this.size] = delta;
+		this.size++;
+	}
+
+	/**
+	 * This method removes the changes of occupation of a {@code Slot} from the timeline, when the slot is removed from the station.
+	 * The timeline is not rebuilt: the opposite of each change of the slot is added as a new event, so that the changes of the slot cancel out.
+	 * The starting time of the timeline is not changed.
+	 * @param history the history of the slot removed
+	 */
+	void removeHistory(SlotHistory history) {
+		boolean wasOccupied = false;
+		for (int i = 0; i < history.size(); i++) {
+			boolean isOccupied = history.isOccupied(i);
+			this.addState(history.getStartMinutes(i), isOccupied, wasOccupied);
+			wasOccupied = isOccupied;
+		}
+	}
+
+	/**
+	 * @param t
+	 * @return whether a {@code SlotState} of the station started at or before t
+	 */
+	boolean existsAt(LocalDateTime t) {
+		return this.firstTime.get() <= toMinutes(t);
+	}
+
+	private void update() {
+		this.merge();
+		if (!this.sorted) {
+			Integer[] order = new Integer[this.size];
+			for (int i = 0; i < this.size; i++) {
+				order[i] = i;
+			}
+			final long[] t = this.times;
+			Arrays.sort(order, (a, b) -> Long.compare(t[a], t[b]));
+			long[] newTimes = new long[this.times.length];
+			int[] newDeltas = new int[this.deltas.length];
+			for (int i = 0; i < this.size; i++) {
+				newTimes[i] = this.times[order[i]];
+				newDeltas[i] = this.deltas[order[i]];
+			}
+			this.times = newTimes;
+			this.deltas = newDeltas;
+			this.sorted = true;
+			this.computed = 0;
+		}
+		for (int i = this.computed; i < this.size; i++) {
+			if (i == 0) {
+				this.counts[0] = this.deltas[0];
+				this.cumulative[0] = 0;
+			} else {
+				this.counts[i] = this.counts[i-1] + this.deltas[i];
+				this.cumulative[i] = this.cumulative[i-1] + this.counts[i-1]*(this.times[i] - this.times[i-1]);
+			}
+		}
+		this.computed = this.size;
+	}
+
+	/**
+	 * @param minutes
+	 * @return the number of occupied slot-minutes before the time {@code minutes}
+	 */
+	private long occupiedBefore(long minutes) {
+		int low = 0, high = this.size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (this.times[mid] <= minutes) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		int i = low - 1;
+		if (i < 0) return 0;
+		return this.cumulative[i] + this.counts[i]*(minutes - this.times[i]);
+	}
+
+	/**
+	 * @param startTime
+	 * @param endTime
+	 * @return the number of occupied slot-minutes of the station between startTime and endTime
+	 */
+	synchronized long occupationTime(LocalDateTime startTime, LocalDateTime endTime) {
+		this.update();
+		return this.occupiedBefore(toMinutes(endTime)) - this.occupiedBefore(toMinutes(startTime));
+	}
+
+}
@@ -26,5 +26,51 @@ class BikeTest {
 			() -> assertTrue(electricBike instanceof ElectricBike)
 		);
 	}
+	
+	@Test
+	void testRegistry() {
+		BikeRegistry registry = new BikeRegistry();
+		Bike bike = new MechanicBike();
+		Bike other = new ElectricBike();
+		Bike far = new MechanicBike(bike.getId() + 1000);
+		registry.register(bike);
+		registry.register(other);
+		registry.register(far);
+		registry.register(new MechanicBike(bike.getId()));
+		assertAll(
+			() -> assertSame(bike, registry.getBike(bike.getId()), "The first bike registered with an id is kept"),
+			() -> assertSame(other, registry.getBike(other.getId())),
+			() -> assertSame(far, registry.getBike(far.getId())),
+			() -> assertNull(registry.getBike(-1)),
+			() -> assertNull(BikeRegistry.getShared().getBike(far.getId()), "The other registries do not change")
+		);
+		registry.clear();
+		Bike next = new MechanicBike();
+		registry.register(next);
+		assertAll(
+			() -> assertNull(registry.getBike(bike.getId()), "The bikes are forgotten"),
+			() -> assertTrue(next.getId() > far.getId(), "The ids are not given again"),
+			() -> assertSame(next, registry.getBike(next.getId()))
+		);
+	}
+	
+	/**
+	 * A bike created again with its id does not change the id of the bikes created after it, except to keep them unique.
+	 */
+	@Test
+	void testRestoredId() {
+		Bike bike = new MechanicBike();
+		Bike restored = BikeFactory.createBike(BikeFactory.ELECTRIC, bike.getId() + 10);
+		Bike next = new MechanicBike();
+		Bike old = new MechanicBike(bike.getId());
+		Bike after = new ElectricBike();
+		assertAll(
+			() -> assertEquals(bike.getId() + 10, restored.getId()),
+			() -> assertTrue(restored instanceof ElectricBike),
+			() -> assertEquals(bike.getId() + 11, next.getId()),
+			() -> assertEquals(bike.getId(), old.getId()),
+			() -> assertEquals(next.getId() + 1, after.getId(), "Giving an old id again does not change the next ids")
+		);
+	}
 
 }
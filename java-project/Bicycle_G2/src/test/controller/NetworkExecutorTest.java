@@ -0,0 +1,105 @@
+package test.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.Test;
+
+import card.CardFactory;
+import controller.NetworkExecutor;
+import controller.NetworkManager;
+import ride.Itinerary;
+import ride.Network;
+import ride.path.MinimalWalkingStrategy;
+import station.NoBikeAvailableException;
+import station.Station;
+import tools.Point;
+
+class NetworkExecutorTest {
+
+	private static final int N_USERS = 20;
+	private static final int N_RIDES = 50;
+
+	private static int countBikes(Network net) {
+		int n = 0;
+		for (Station s : net.getStations()) {
+			n += s.getNumberBikes();
+		}
+		return n;
+	}
+
+	@Test
+	void testParallelNetworks() throws Exception {
+		NetworkManager nm = new NetworkManager();
+		Network[] nets = new Network[4];
+		int[] bikes = new int[nets.length];
+		for (int i = 0; i < nets.length; i++) {
+			nets[i] = nm.setupNetwork("parallel" + i, 2, N_USERS, 1, 0);
+			for (int u = 0; u < N_USERS; u++) {
+				nm.addUser("user" + u, CardFactory.VMAX, nets[i].getName());
+				nm.addMechanicBike(nets[i], nets[i].getStations().get(0), NetworkManager.ADDING_DATE);
+			}
+			bikes[i] = countBikes(nets[i]);
+		}
+		ArrayList<CompletableFuture<?>> futures = new ArrayList<CompletableFuture<?>>();
+		ArrayList<CompletableFuture<String>> threads = new ArrayList<CompletableFuture<String>>();
+		try (NetworkExecutor ex = new NetworkExecutor(nm)) {
+			LocalDateTime t = LocalDateTime.of(2019, 1, 2, 0, 0);
+			for (int k = 0; k < N_RIDES; k++) {
+				for (Network net : nets) {
+					Station s = net.getStations().get(0);
+					Station s2 = net.getStations().get(1);
+					for (int u = 0; u < N_USERS; u++) {
+						int userId = net.getCards().get(u).getUser().getId();
+						LocalDateTime start = t.plusHours(k);
+						futures.add(ex.rentBike(userId, s.getId(), start, net));
+						futures.add(ex.returnBike(userId, s2.getId(), start.plusMinutes(30), net));
+					}
+					threads.add(ex.submit(net, () -> net.getName() + "@" + Thread.currentThread().getName()));
+				}
+				for (Network net : nets) {
+					Station s = net.getStations().get(1);
+					Station s2 = net.getStations().get(0);
+					for (int u = 0; u < N_USERS; u++) {
+						int userId = net.getCards().get(u).getUser().getId();
+						LocalDateTime start = t.plusHours(k).plusMinutes(40);
+						futures.add(ex.rentBike(userId, s.getId(), start, net));
+						futures.add(ex.returnBike(userId, s2.getId(), start.plusMinutes(10), net));
+					}
+				}
+			}
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+		}
+		for (CompletableFuture<String> f : threads) {
+			String[] names = f.get().split("@");
+			assertEquals("network-" + names[0], names[1], "Each network has its own thread");
+		}
+		for (int i = 0; i < nets.length; i++) {
+			assertEquals(N_USERS, bikes[i]);
+			assertEquals(N_USERS, nets[i].getStations().get(0).getNumberBikes());
+			assertEquals(2*N_RIDES*N_USERS, nets[i].getRideHistory().size());
+		}
+	}
+
+	@Test
+	void testExceptions() throws Exception {
+		NetworkManager nm = new NetworkManager();
+		Network net = nm.setupNetwork("empty", 2, 5, 1, 0);
+		nm.addUser("Pietro", CardFactory.VLIBRE, "empty");
+		int userId = net.getCards().get(0).getUser().getId();
+		Station s = net.getStations().get(0);
+		try (NetworkExecutor ex = new NetworkExecutor(nm)) {
+			ExecutionException e = assertThrows(ExecutionException.class, () -> ex.rentBike(userId, s.getId(), LocalDateTime.of(2019, 1, 2, 0, 0), net).get());
+			assertTrue(e.getCause() instanceof NoBikeAvailableException);
+			Itinerary it = ex.calculateItinerary(userId, new Point(0, 0), new Point(1, 1), new MinimalWalkingStrategy(net), net).get();
+			assertNotNull(it.getStartStation());
+			ex.setItinerary(userId, it, net).get();
+			assertSame(it, nm.findUserById(userId, net).getItinerary());
+		}
+	}
+
+}
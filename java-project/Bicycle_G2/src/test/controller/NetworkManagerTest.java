@@ -12,10 +12,14 @@ import card.VlibreCard;
 import card.VmaxCard;
 import controller.ExistingNameException;
 import controller.InexistingNetworkNameException;
+import controller.InexistingSlotIdException;
 import controller.InexistingStationIdException;
+import controller.InexistingUserIdException;
 import controller.NetworkManager;
 import ride.Network;
+import station.Slot;
 import station.Station;
+import user.User;
 import tools.Point;
 
 class NetworkManagerTest {
@@ -207,4 +211,28 @@ class NetworkManagerTest {
 			() -> assertThrows(InexistingNetworkNameException.class, () -> { nm.findNetworkByName("Velib3"); })
 		);
 	}
+	
+	@Test
+	void testFindSlotAndCard() throws ExistingNameException {
+		NetworkManager nm = new NetworkManager();
+		Network net = nm.setupNetwork("Vlib");
+		Station s = net.getStations().get(3);
+		s.addSlot();
+		Slot slot = s.getParkingSlots().get(s.getParkingSlots().size()-1);
+		User u = new User("Pietro");
+		Card c = new CardFactory(net).createCard(CardFactory.VMAX, u);
+		assertAll(
+			() -> assertSame(slot, nm.findSlotById(slot.getId(), net), "The slots added after the creation of the station are found"),
+			() -> assertSame(c, nm.findCardByUserId(u.getId(), net)),
+			() -> assertSame(u, nm.findUserById(u.getId(), net)),
+			() -> {
+				s.removeSlot(slot);
+				assertThrows(InexistingSlotIdException.class, () -> { nm.findSlotById(slot.getId(), net); });
+			},
+			() -> {
+				net.removeCard(c);
+				assertThrows(InexistingUserIdException.class, () -> { nm.findCardByUserId(u.getId(), net); });
+			}
+		);
+	}
 }
@@ -0,0 +1,154 @@
+package test.controller.journal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import bike.BikeFactory;
+import card.Card;
+import card.CardFactory;
+import controller.NetworkManager;
+import controller.journal.Journal;
+import controller.journal.JournalReader;
+import controller.journal.JournalRecord;
+import ride.Network;
+import station.Station;
+
+class JournalTest {
+
+	private static File tempFile() throws IOException {
+		File f = File.createTempFile("journal", ".jnl");
+		f.delete();
+		f.deleteOnExit();
+		return f;
+	}
+
+	@Test
+	void testReplay() throws Exception {
+		File f = tempFile();
+		NetworkManager nm = new NetworkManager();
+		nm.openJournal(f);
+		Network net = nm.setupNetwork("Journal", 5, 4, 3, 10);
+		nm.addPlusStation(net, 2, 10, 10);
+		nm.addUser("Alice", CardFactory.VMAX, "Journal");
+		nm.addUser("Bob", CardFactory.VLIBRE, "Journal");
+		ArrayList<Station> stations = net.getStations();
+		Station start = null;
+		for (Station s : stations) {
+			if (s.getNumberBikes() > 0) start = s;
+		}
+		Station plus = stations.get(stations.size() - 1);
+		int aliceId = net.getCards().get(0).getUser().getId();
+		int bobId = net.getCards().get(1).getUser().getId();
+		LocalDateTime t = LocalDateTime.of(2019, 1, 2, 10, 0);
+		nm.rentBike(aliceId, start.getId(), t, net);
+		nm.returnBike(aliceId, plus.getId(), t.plusMinutes(70), net);
+		nm.setStationOffline("Journal", stations.get(0).getId());
+		nm.addSlot(net, plus.getId(), 3);
+		nm.addElectricBike(net, plus, t.plusMinutes(80));
+		nm.rentBike(bobId, plus.getId(), BikeFactory.ELECTRIC, t.plusMinutes(90), net);
+		nm.getJournal().close();
+
+		NetworkManager copy = new NetworkManager();
+		copy.openJournal(f);
+		copy.getJournal().close();
+		Network net2 = copy.findNetworkByName("Journal");
+		ArrayList<Station> stations2 = net2.getStations();
+		Card alice2 = net2.getCards().get(0);
+		Card bob2 = net2.getCards().get(1);
+		assertAll(
+			() -> assertEquals(stations.size(), stations2.size()),
+			() -> {
+				for (int i = 0; i < stations.size(); i++) {
+					Station s = stations.get(i), s2 = stations2.get(i);
+					assertAll("Station number " + i,
+						() -> assertEquals(s.getP(), s2.getP()),
+						() -> assertEquals(s.getClass(), s2.getClass()),
+						() -> assertEquals(s.isOnline(), s2.isOnline()),
+						() -> assertEquals(s.getParkingSlots().size(), s2.getParkingSlots().size()),
+						() -> assertEquals(s.getNumberElectricBikes(), s2.getNumberElectricBikes()),
+						() -> assertEquals(s.getNumberMechanicBikes(), s2.getNumberMechanicBikes())
+					);
+				}
+			},
+			() -> assertEquals("Alice", alice2.getUser().getUserName()),
+			() -> assertEquals(net.getCards().get(0).getTimeCredit(), alice2.getTimeCredit()),
+			() -> assertEquals(net.getRideHistory().size(), net2.getRideHistory().size()),
+			() -> assertNotNull(bob2.getUser().getOngoingRide()),
+			() -> assertEquals(net.getCards().get(0).getUser().getUserStat().getTotalAmount(), alice2.getUser().getUserStat().getTotalAmount())
+		);
+	}
+
+	@Test
+	void testReplayAfterReplay() throws Exception {
+		File f = tempFile();
+		NetworkManager first = new NetworkManager();
+		first.openJournal(f);
+		Network net = first.setupNetwork("Sessions", 0, 0, 1, 0);
+		first.addStandardStation(net, 2, 1, 1);
+		first.addUser("Dave", CardFactory.VLIBRE, "Sessions");
+		first.getJournal().close();
+
+		NetworkManager second = new NetworkManager();
+		second.openJournal(f);
+		Network net2 = second.findNetworkByName("Sessions");
+		Station s2 = net2.getStations().get(0);
+		int userId = net2.getCards().get(0).getUser().getId();
+		second.addMechanicBike(net2, s2, LocalDateTime.of(2019, 1, 2, 9, 0));
+		second.rentBike(userId, s2.getId(), LocalDateTime.of(2019, 1, 2, 10, 0), net2);
+		second.getJournal().close();
+
+		NetworkManager third = new NetworkManager();
+		third.openJournal(f);
+		third.getJournal().close();
+		Network net3 = third.findNetworkByName("Sessions");
+		assertAll(
+			() -> assertEquals(s2.getId(), net3.getStations().get(0).getId()),
+			() -> assertEquals(0, net3.getStations().get(0).getNumberBikes()),
+			() -> assertNotNull(third.findUserById(userId, net3).getOngoingRide())
+		);
+	}
+
+	@Test
+	void testTornBatch() throws Exception {
+		File f = tempFile();
+		Journal journal = new Journal(f, 0, 0);
+		journal.append(JournalRecord.network("First"));
+		journal.commit();
+		journal.append(JournalRecord.network("Second"));
+		journal.close();
+		long length = f.length();
+		try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+			raf.setLength(length - 2);
+		}
+		long valid;
+		try (JournalReader reader = new JournalReader(f)) {
+			ArrayList<JournalRecord> batch = reader.nextBatch();
+			assertAll(
+				() -> assertEquals(1, batch.size()),
+				() -> assertEquals("First", batch.get(0).getName()),
+				() -> assertNull(reader.nextBatch())
+			);
+			valid = reader.getValidLength();
+		}
+		NetworkManager nm = new NetworkManager();
+		nm.openJournal(f);
+		nm.addUser("Carol", CardFactory.VLIBRE, "First");
+		nm.getJournal().close();
+		NetworkManager copy = new NetworkManager();
+		copy.openJournal(f);
+		copy.getJournal().close();
+		assertAll(
+			() -> assertTrue(valid < length),
+			() -> assertEquals(1, copy.getNetworks().size()),
+			() -> assertEquals(1, copy.findNetworkByName("First").getCards().size())
+		);
+	}
+
+}
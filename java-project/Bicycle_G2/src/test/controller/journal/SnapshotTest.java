@@ -0,0 +1,193 @@
+package test.controller.journal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import bike.Bike;
+import bike.BikeFactory;
+import card.Card;
+import card.CardFactory;
+import controller.NetworkManager;
+import controller.journal.Snapshotter;
+import ride.Network;
+import station.NoSlotStateAtDateException;
+import station.Slot;
+import station.SlotHistory;
+import station.Station;
+
+class SnapshotTest {
+
+	/**
+	 * @return the occupation rate of the station on the first two days, or -1 if it has no slot state
+	 */
+	private static double rateOccupation(Station s) throws Exception {
+		try {
+			return s.getRateOccupation(NetworkManager.CREATION_DATE, LocalDateTime.of(2019, 1, 3, 0, 0));
+		} catch (NoSlotStateAtDateException e) {
+			return -1;
+		}
+	}
+
+	private static void assertSameNetwork(Network net, Network net2) {
+		ArrayList<Station> stations = net.getStations();
+		ArrayList<Station> stations2 = net2.getStations();
+		assertEquals(stations.size(), stations2.size(), "Number of stations");
+		for (int i = 0; i < stations.size(); i++) {
+			Station s = stations.get(i), s2 = stations2.get(i);
+			assertAll("Station " + s.getId(),
+				() -> assertEquals(s.getId(), s2.getId()),
+				() -> assertEquals(s.getClass(), s2.getClass()),
+				() -> assertEquals(s.isOnline(), s2.isOnline()),
+				() -> assertEquals(s.getTotalRents(), s2.getTotalRents()),
+				() -> assertEquals(s.getTotalReturns(), s2.getTotalReturns()),
+				() -> assertEquals(s.getNumberElectricBikes(), s2.getNumberElectricBikes()),
+				() -> assertEquals(s.getNumberMechanicBikes(), s2.getNumberMechanicBikes()),
+				() -> assertEquals(rateOccupation(s), rateOccupation(s2), 1e-9)
+			);
+			for (int j = 0; j < s.getParkingSlots().size(); j++) {
+				Slot sl = s.getParkingSlots().get(j), sl2 = s2.getParkingSlots().get(j);
+				assertAll("Slot " + sl.getId(),
+					() -> assertEquals(sl.getId(), sl2.getId()),
+					() -> assertEquals(sl.isOnline(), sl2.isOnline()),
+					() -> assertEquals(sl.getSlotHistory().size(), sl2.getSlotHistory().size()),
+					() -> assertEquals(sl.getBike() == null ? -1 : sl.getBike().getId(), sl2.getBike() == null ? -1 : sl2.getBike().getId())
+				);
+			}
+		}
+		assertEquals(net.getCards().size(), net2.getCards().size(), "Number of cards");
+		for (int i = 0; i < net.getCards().size(); i++) {
+			Card c = net.getCards().get(i), c2 = net2.getCards().get(i);
+			assertAll("Card " + c.getId(),
+				() -> assertEquals(c.getId(), c2.getId()),
+				() -> assertEquals(c.getClass(), c2.getClass()),
+				() -> assertEquals(c.getTimeCredit(), c2.getTimeCredit()),
+				() -> assertEquals(c.getUser().getId(), c2.getUser().getId()),
+				() -> assertEquals(c.getUser().getUserStat().getNumberRides(), c2.getUser().getUserStat().getNumberRides()),
+				() -> assertEquals(c.getUser().getUserStat().getTotalAmount(), c2.getUser().getUserStat().getTotalAmount(), 1e-9),
+				() -> assertEquals(c.getUser().getOngoingRide() == null, c2.getUser().getOngoingRide() == null)
+			);
+		}
+		assertEquals(net.getRideHistory().size(), net2.getRideHistory().size(), "Number of rides");
+	}
+
+	@Test
+	void testSnapshotAndRestore() throws Exception {
+		File dir = Files.createTempDirectory("snapshot").toFile();
+		dir.deleteOnExit();
+		File f = new File(dir, "network.jnl");
+		NetworkManager nm = new NetworkManager();
+		nm.openJournal(f);
+		Network net = nm.setupNetwork("Snapshot", 6, 5, 3, 15);
+		nm.addPlusStation(net, 4, 10, 10);
+		nm.addUser("Alice", CardFactory.VMAX, "Snapshot");
+		nm.addUser("Bob", CardFactory.CREDIT, "Snapshot");
+		ArrayList<Station> stations = net.getStations();
+		Station plus = stations.get(stations.size() - 1);
+		Station start = stations.get(0);
+		for (Station s : stations) {
+			if (s.getNumberBikes() > 1) start = s;
+		}
+		int aliceId = net.getCards().get(0).getUser().getId();
+		int bobId = net.getCards().get(1).getUser().getId();
+		LocalDateTime t = LocalDateTime.of(2019, 1, 2, 10, 0);
+		nm.rentBike(aliceId, start.getId(), t, net);
+		nm.returnBike(aliceId, plus.getId(), t.plusMinutes(75), net);
+		nm.rentBike(bobId, start.getId(), t.plusMinutes(80), net);
+		nm.setSlotOffline("Snapshot", plus.getParkingSlots().get(3).getId(), t.plusMinutes(85));
+
+		Snapshotter snapshotter = new Snapshotter(nm);
+		File snapshot = snapshotter.snapshot().get();
+		long journalLength = f.length();
+
+		nm.returnBike(bobId, plus.getId(), t.plusMinutes(120), net);
+		nm.addMechanicBike(net, start, t.plusMinutes(130));
+		nm.rentBike(aliceId, start.getId(), BikeFactory.MECHANIC, t.plusMinutes(140), net);
+		snapshotter.close();
+		nm.getJournal().close();
+
+		NetworkManager copy = new NetworkManager();
+		copy.openJournal(f);
+		copy.getJournal().close();
+		Network net2 = copy.findNetworkByName("Snapshot");
+		assertAll(
+			() -> assertTrue(snapshot.exists()),
+			() -> assertEquals(0, dir.listFiles((d, name) -> name.matches("network\\.jnl\\.[0-9]+")).length, "Journals included in the snapshot"),
+			() -> assertTrue(journalLength < 100, "Journal after the snapshot"),
+			() -> assertEquals(1, copy.getNetworks().size()),
+			() -> assertSameNetwork(net, net2)
+		);
+		for (File a : dir.listFiles()) {
+			a.delete();
+		}
+	}
+
+	@Test
+	void testSnapshotTwice() throws Exception {
+		File dir = Files.createTempDirectory("snapshot").toFile();
+		dir.deleteOnExit();
+		File f = new File(dir, "network.jnl");
+		NetworkManager nm = new NetworkManager();
+		nm.openJournal(f);
+		Network net = nm.setupNetwork("Twice", 3, 4, 2, 6);
+		nm.addUser("Carol", CardFactory.VLIBRE, "Twice");
+		Snapshotter snapshotter = new Snapshotter(nm);
+		snapshotter.snapshot().get();
+		nm.addStandardStation(net, 2, 5, 5);
+		snapshotter.snapshot().get();
+		snapshotter.close();
+		nm.getJournal().close();
+
+		NetworkManager copy = new NetworkManager();
+		copy.openJournal(f);
+		copy.getJournal().close();
+		assertSameNetwork(net, copy.findNetworkByName("Twice"));
+		for (File a : dir.listFiles()) {
+			a.delete();
+		}
+	}
+
+	/**
+	 * A snapshot of a journal which contains a reset does not forget the bikes of the networks in use.
+	 */
+	@Test
+	void testSnapshotAfterReset() throws Exception {
+		File dir = Files.createTempDirectory("snapshot").toFile();
+		dir.deleteOnExit();
+		File f = new File(dir, "network.jnl");
+		NetworkManager nm = new NetworkManager();
+		nm.openJournal(f);
+		nm.setupNetwork("Before", 2, 3, 1, 4);
+		nm.resetNetworks();
+		Network net = nm.setupNetwork("After", 3, 4, 2, 6);
+		ArrayList<Slot> slots = new ArrayList<Slot>();
+		ArrayList<Bike> bikes = new ArrayList<Bike>();
+		for (Station s : net.getStations()) {
+			for (Slot sl : s.getParkingSlots()) {
+				if (sl.getBike() != null) {
+					slots.add(sl);
+					bikes.add(sl.getBike());
+				}
+			}
+		}
+		Snapshotter snapshotter = new Snapshotter(nm);
+		snapshotter.snapshot().get();
+		snapshotter.close();
+		nm.getJournal().close();
+
+		assertFalse(bikes.isEmpty());
+		for (int i = 0; i < slots.size(); i++) {
+			SlotHistory history = slots.get(i).getSlotHistory();
+			assertSame(bikes.get(i), history.get(history.size() - 1).getBike());
+		}
+		for (File a : dir.listFiles()) {
+			a.delete();
+		}
+	}
+
+}
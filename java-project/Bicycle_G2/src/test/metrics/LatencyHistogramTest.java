@@ -0,0 +1,133 @@
+package test.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import card.CardFactory;
+import controller.NetworkManager;
+import metrics.LatencyHistogram;
+import metrics.LatencyIntervals;
+import metrics.StationLatencies;
+import metrics.StationOperation;
+import ride.Network;
+import station.NoBikeAvailableException;
+import station.Station;
+
+class LatencyHistogramTest {
+
+	@Test
+	void testPercentiles() {
+		Random rand = new Random(3);
+		LatencyHistogram h = new LatencyHistogram();
+		long[] values = new long[100000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = (long) Math.exp(4 + 12 * rand.nextDouble());
+			h.record(values[i]);
+		}
+		Arrays.sort(values);
+		assertEquals(values.length, h.getCount());
+		assertEquals(values[values.length - 1], h.getMax());
+		for (double q : new double[] {0.5, 0.9, 0.99, 0.999}) {
+			long exact = values[(int) Math.ceil(q * values.length) - 1];
+			long p = h.getPercentile(q);
+			assertTrue(p >= exact && p <= exact * (1 + 1.0 / LatencyHistogram.SUB_BUCKETS), "p" + q + ": " + p + " for " + exact);
+		}
+		h.record(Long.MAX_VALUE);
+		assertEquals(Long.MAX_VALUE, h.getPercentile(1));
+	}
+
+	/**
+	 * The histograms of a station have fewer buckets: their percentiles are less precise, and they can be added to a histogram of a network.
+	 */
+	@Test
+	void testStationPrecision() {
+		Random rand = new Random(4);
+		LatencyHistogram h = new LatencyHistogram(LatencyHistogram.STATION_SUB_BITS, LatencyHistogram.STATION_MAX_EXPONENT);
+		long[] values = new long[100000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = (long) Math.exp(4 + 12 * rand.nextDouble());
+			h.record(values[i]);
+		}
+		Arrays.sort(values);
+		assertEquals(LatencyHistogram.STATION_SUB_BUCKETS, h.getSubBuckets());
+		for (double q : new double[] {0.5, 0.9, 0.99, 0.999}) {
+			long exact = values[(int) Math.ceil(q * values.length) - 1];
+			long p = h.getPercentile(q);
+			assertTrue(p >= exact && p <= exact * (1 + 1.0 / LatencyHistogram.STATION_SUB_BUCKETS), "p" + q + ": " + p + " for " + exact);
+		}
+		LatencyHistogram network = new LatencyHistogram();
+		network.add(h);
+		assertEquals(values.length, network.getCount());
+		assertEquals(values[values.length - 1], network.getMax());
+		long p50 = network.getPercentile(0.5);
+		assertTrue(p50 <= h.getPercentile(0.5) && p50 >= values[values.length / 2 - 1] * (1 - 1.0 / LatencyHistogram.STATION_SUB_BUCKETS), "p50: " + p50);
+		assertEquals(LatencyHistogram.STATION_SUB_BUCKETS, StationLatencies.forStation().snapshot()[0].getSubBuckets());
+	}
+
+	@Test
+	void testIntervals() throws Exception {
+		StationLatencies latencies = new StationLatencies();
+		latencies.record(StationOperation.DROP_BIKE, 1000);
+		LatencyIntervals intervals = new LatencyIntervals(latencies);
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 10000; i++) {
+					latencies.record(StationOperation.PICK_UP_BIKE, 50 + i % 100);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+		LatencyHistogram[] interval = intervals.next();
+		assertEquals(40000, interval[StationOperation.PICK_UP_BIKE.ordinal()].getCount());
+		assertEquals(0, interval[StationOperation.DROP_BIKE.ordinal()].getCount(), "The latencies before the interval are not in it");
+		assertEquals(1, latencies.get(StationOperation.DROP_BIKE).getCount());
+		assertNull(latencies.get(StationOperation.PICK_UP_ELECTRIC_BIKE));
+		assertEquals(0, intervals.next()[StationOperation.PICK_UP_BIKE.ordinal()].getCount());
+	}
+
+	@Test
+	void testStationLatencies() throws Exception {
+		NetworkManager nm = new NetworkManager();
+		Network net = nm.setupNetwork("timed", 2, 2, 1, 0);
+		nm.addUser("Pietro", CardFactory.VMAX, "timed");
+		int userId = net.getCards().get(0).getUser().getId();
+		Station s0 = net.getStations().get(0);
+		Station s1 = net.getStations().get(1);
+		nm.addMechanicBike(net, s0, NetworkManager.ADDING_DATE);
+		LocalDateTime t = LocalDateTime.of(2019, 1, 2, 10, 0);
+		assertThrows(NoBikeAvailableException.class, () -> nm.rentBike(userId, s1.getId(), t, net));
+		nm.rentBike(userId, s0.getId(), t, net);
+		nm.returnBike(userId, s1.getId(), t.plusMinutes(10), net);
+		assertAll(
+			() -> assertEquals(1, s0.getLatencies().get(StationOperation.PICK_UP_BIKE).getCount()),
+			() -> assertEquals(1, s1.getLatencies().get(StationOperation.PICK_UP_BIKE).getCount(), "The failed rentals are timed"),
+			() -> assertEquals(1, s1.getLatencies().get(StationOperation.DROP_BIKE).getCount()),
+			() -> assertEquals(2, net.getMetrics().getLatencies().get(StationOperation.PICK_UP_BIKE).getCount())
+		);
+		StringBuilder sb = new StringBuilder();
+		net.getMetrics().writeLatencies(sb);
+		assertTrue(sb.toString().startsWith("Latencies of the stations of network timed:\npickUpBike count=2 p50="), sb.toString());
+
+		File log = File.createTempFile("latency", ".log");
+		log.deleteOnExit();
+		net.getMetrics().startLatencyLog(log.getPath(), 1);
+		Thread.sleep(1500);
+		net.getMetrics().stopLatencyLog();
+		List<String> lines = Files.readAllLines(log.toPath());
+		assertTrue(lines.size() >= 5, "An interval has been written");
+		assertTrue(lines.get(1).startsWith("pickUpBike count=0"), lines.get(1));
+	}
+
+}
@@ -0,0 +1,86 @@
+package test.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import card.CardFactory;
+import controller.NetworkManager;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import metrics.NetworkMetrics;
+import ride.Network;
+import ride.path.MinimalWalkingStrategy;
+import ride.path.TimedPathStrategy;
+import station.NoBikeAvailableException;
+import station.NoOngoingRideException;
+import station.Station;
+import tools.Point;
+
+class NetworkMetricsTest {
+
+	@Test
+	void testHistogram() {
+		Histogram h = new Histogram("ms");
+		for (int i = 1; i <= 100; i++) {
+			h.record(i);
+		}
+		h.record(-5);
+		assertAll(
+			() -> assertEquals(101, h.getCount()),
+			() -> assertEquals(5050, h.getSum()),
+			() -> assertEquals(100, h.getMax()),
+			() -> assertEquals(63, h.getPercentile(0.5), "The median 50 is in the bucket [32, 63]"),
+			() -> assertEquals(100, h.getPercentile(0.99), "A percentile is never above the maximum"),
+			() -> assertEquals(0, h.getPercentile(0))
+		);
+		h.reset();
+		assertEquals(0, h.getCount());
+	}
+
+	@Test
+	void testRegistry() throws Exception {
+		MetricsRegistry reg = new MetricsRegistry();
+		reg.counter("b.counter").add(3);
+		assertSame(reg.counter("b.counter"), reg.counter("b.counter"));
+		reg.histogram("c.histogram", "ns").record(4);
+		reg.gauge("a.gauge", () -> 7);
+		StringBuilder sb = new StringBuilder();
+		reg.write(sb);
+		assertEquals("gauge a.gauge 7\n"
+				+ "counter b.counter 3\n"
+				+ "histogram c.histogram count=1 mean=4.0 p50<=4 p90<=4 p99<=4 max=4 ns\n", sb.toString());
+	}
+
+	@Test
+	void testNetworkMetrics() throws Exception {
+		NetworkManager nm = new NetworkManager();
+		Network net = nm.setupNetwork("measured", 3, 2, 1, 0);
+		nm.addUser("Pietro", CardFactory.VLIBRE, "measured");
+		int userId = net.getCards().get(0).getUser().getId();
+		Station s0 = net.getStations().get(0);
+		Station s1 = net.getStations().get(1);
+		nm.addMechanicBike(net, s0, NetworkManager.ADDING_DATE);
+		LocalDateTime t = LocalDateTime.of(2019, 1, 2, 10, 0);
+		assertThrows(NoBikeAvailableException.class, () -> nm.rentBike(userId, s1.getId(), t, net));
+		assertThrows(NoOngoingRideException.class, () -> nm.returnBike(userId, s1.getId(), t, net));
+		nm.rentBike(userId, s0.getId(), t, net);
+		nm.returnBike(userId, s1.getId(), t.plusMinutes(25), net);
+		TimedPathStrategy.of(new MinimalWalkingStrategy(net), net).findPath(new Point(0, 0), new Point(1, 1));
+
+		MetricsRegistry reg = net.getMetrics().getRegistry();
+		assertAll(
+			() -> assertEquals(2, reg.histogram(NetworkMetrics.RENT_LATENCY, "ns").getCount()),
+			() -> assertEquals(2, reg.histogram(NetworkMetrics.RETURN_LATENCY, "ns").getCount()),
+			() -> assertEquals(1, reg.counter(NetworkMetrics.RENT_FAILED + ".NoBikeAvailableException").get()),
+			() -> assertEquals(1, reg.counter(NetworkMetrics.RETURN_FAILED + ".NoOngoingRideException").get()),
+			() -> assertEquals(25, reg.histogram(NetworkMetrics.RIDE_DURATION, "min").getMax()),
+			() -> assertEquals(1, reg.histogram("path.MinimalWalkingStrategy.findPath", "ns").getCount()),
+			() -> assertEquals(2, reg.getGauge(NetworkMetrics.EMPTY_STATIONS)),
+			() -> assertEquals(0, reg.getGauge(NetworkMetrics.FULL_STATIONS))
+		);
+	}
+
+}
@@ -0,0 +1,106 @@
+package test.rebalancing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import bike.Bike;
+import bike.MechanicBike;
+import card.Card;
+import card.CardFactory;
+import rebalancing.DemandForecast;
+import rebalancing.DemandForecaster;
+import rebalancing.RebalancingPlan;
+import rebalancing.RebalancingPlanner;
+import rebalancing.TruckRoute;
+import ride.Network;
+import station.Slot;
+import station.Station;
+import station.StationFactory;
+import tools.Point;
+import user.User;
+
+class RebalancingPlannerTest {
+
+	private Network net;
+	private Station a;
+	private Station b;
+	private LocalDateTime day0 = LocalDateTime.of(2019, 6, 1, 6, 0);
+	private LocalDateTime start = day0.plusDays(5).withHour(7);
+
+	/**
+	 * Every morning of 5 days, two users rent a bike at station a at 8:00 and return it to station b at 8:30, then the bikes are moved back to a at noon.
+	 * At the start of the plan, a has 1 bike and b has 3 bikes, with 4 slots each: a would run empty and b would be full at 8:00.
+	 */
+	@BeforeEach
+	void setUp() throws Exception {
+		net = new Network("rebalance");
+		StationFactory sf = new StationFactory(net);
+		CardFactory cf = new CardFactory(net);
+		a = sf.createStation("Standard", new Point(0, 0));
+		b = sf.createStation("Standard", new Point(0, 5));
+		sf.createStation("Standard", new Point(10, 0)).addSlot(4);
+		a.addSlot(4);
+		b.addSlot(4);
+		Card c1 = cf.createCard(CardFactory.VLIBRE, new User("u1"));
+		Card c2 = cf.createCard(CardFactory.VLIBRE, new User("u2"));
+		a.availableSlot().setBike(new MechanicBike(), day0);
+		a.availableSlot().setBike(new MechanicBike(), day0);
+		for (int d = 0; d < 5; d++) {
+			LocalDateTime t = day0.plusDays(d).withHour(8);
+			a.pickUpBike(c1, t);
+			a.pickUpBike(c2, t);
+			b.dropBike(c1, t.plusMinutes(30));
+			b.dropBike(c2, t.plusMinutes(30));
+			for (Slot slot : b.getParkingSlots()) {
+				Bike bike = slot.getBike();
+				if (bike != null) {
+					slot.setBike(null, t.plusHours(4));
+					a.availableSlot().setBike(bike, t.plusHours(4));
+				}
+			}
+		}
+		a.hasBikeAvailable().setBike(null, start.minusHours(1));
+		for (int i = 0; i < 3; i++) {
+			b.availableSlot().setBike(new MechanicBike(), start.minusHours(1));
+		}
+	}
+
+	@Test
+	void testForecast() {
+		DemandForecast forecast = new DemandForecaster(net).forecast(start);
+		int ia = forecast.indexOf(a), ib = forecast.indexOf(b);
+		assertAll(
+			() -> assertEquals(-2, forecast.getFlow(ia, 8), 1e-9),
+			() -> assertEquals(2, forecast.getFlow(ib, 8), 1e-9),
+			() -> assertEquals(0, forecast.getFlow(ia, 9), 1e-9),
+			() -> assertEquals(-2, forecast.getNetFlow(a, 3), 1e-9),
+			() -> assertEquals(0, forecast.getNetFlow(a, 1), 1e-9, "The rentals are at 8:00")
+		);
+	}
+
+	@Test
+	void testPlan() throws Exception {
+		RebalancingPlan plan = new RebalancingPlanner(net).plan(start, 3, 2, 10, 200);
+		List<TruckRoute> routes = plan.getRoutes();
+		assertAll(
+			() -> assertEquals(1, plan.getEmptyStations()),
+			() -> assertEquals(1, plan.getFullStations()),
+			() -> assertEquals(1, routes.size(), "The second truck has nothing to move"),
+			() -> assertEquals(2, routes.get(0).getStops().size()),
+			() -> assertEquals(b, routes.get(0).getStops().get(0).getStation()),
+			() -> assertEquals(1, routes.get(0).getStops().get(0).getBikes()),
+			() -> assertEquals(a, routes.get(0).getStops().get(1).getStation()),
+			() -> assertEquals(-1, routes.get(0).getStops().get(1).getBikes()),
+			() -> assertEquals(5, plan.getDistance(), 1e-9)
+		);
+		StringBuilder sb = new StringBuilder();
+		plan.write(sb);
+		assertTrue(sb.toString().contains("Truck 1: stops: 2, bikes moved: 1, distance: 5.00\n  pick up 1 bike at station " + b.getId()), sb.toString());
+	}
+
+}
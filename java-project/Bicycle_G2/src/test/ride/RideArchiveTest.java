@@ -0,0 +1,172 @@
+package test.ride;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+
+import org.junit.jupiter.api.Test;
+
+import card.CardFactory;
+import controller.NetworkManager;
+import metrics.NetworkMetrics;
+import ride.ArchivedRide;
+import ride.Network;
+import ride.Ride;
+import ride.RideArchive;
+import station.Station;
+
+class RideArchiveTest {
+
+	@Test
+	void testArchiveRides() throws Exception {
+		File dir = Files.createTempDirectory("rides").toFile();
+		NetworkManager nm = new NetworkManager();
+		Network net = nm.setupNetwork("Archive", 0, 0, 1, 0);
+		nm.addStandardStation(net, 5, 0, 0);
+		nm.addPlusStation(net, 5, 1, 1);
+		nm.addUser("Alice", CardFactory.VMAX, "Archive");
+		Station s1 = net.getStations().get(0);
+		Station s2 = net.getStations().get(1);
+		int userId = net.getCards().get(0).getUser().getId();
+		nm.addMechanicBike(net, s1, NetworkManager.ADDING_DATE);
+		RideArchive archive = new RideArchive(dir);
+		net.setRideArchive(archive, 2);
+		LocalDateTime t = LocalDateTime.of(2019, 1, 2, 8, 0);
+		for (int i = 0; i < 10; i++) {
+			Station from = i % 2 == 0 ? s1 : s2;
+			Station to = i % 2 == 0 ? s2 : s1;
+			nm.rentBike(userId, from.getId(), t.plusHours(2*i), net);
+			nm.returnBike(userId, to.getId(), t.plusHours(2*i).plusMinutes(90), net);
+		}
+		ArchivedRide first = archive.get(0);
+		Iterator<ArchivedRide> afternoon = archive.query(LocalDateTime.of(2019, 1, 2, 16, 0), LocalDateTime.of(2019, 1, 2, 20, 0));
+		assertAll(
+			() -> assertEquals(10, archive.size()),
+			() -> assertTrue(net.getRideHistory().size() <= 4, "Rides kept on the heap"),
+			() -> assertEquals(t.plusHours(18), net.getRideHistory().get(net.getRideHistory().size() - 1).getStartRide()),
+			() -> assertEquals(userId, first.getUserId()),
+			() -> assertEquals(CardFactory.VMAX, first.getCardType()),
+			() -> assertEquals(t, first.getStartRide()),
+			() -> assertEquals(90, first.getRideTime()),
+			() -> assertEquals(s1.getId(), first.getStartStationId()),
+			() -> assertEquals(s2.getId(), first.getEndStationId()),
+			() -> assertEquals(0.0, first.getPrice()),
+			() -> assertEquals(t.plusHours(8), afternoon.next().getStartRide()),
+			() -> assertEquals(t.plusHours(10), afternoon.next().getStartRide()),
+			() -> assertFalse(afternoon.hasNext())
+		);
+		archive.close();
+		RideArchive reopened = new RideArchive(dir);
+		int n = 0;
+		for (ArchivedRide r : reopened) {
+			assertEquals(t.plusHours(2*n), r.getStartRide());
+			n++;
+		}
+		assertEquals(10, n);
+		for (File f : dir.listFiles()) {
+			f.delete();
+		}
+		dir.delete();
+	}
+
+	/**
+	 * The archive opened before the networks are rebuilt from a journal is attached to them without writing the replayed rides again.
+	 */
+	@Test
+	void testArchiveAfterRestore() throws Exception {
+		File dir = Files.createTempDirectory("rides").toFile();
+		File archiveDir = new File(dir, "rides");
+		File journal = new File(dir, "network.jnl");
+		NetworkManager nm = new NetworkManager();
+		nm.openJournal(journal);
+		nm.openRideArchive("Restored", archiveDir, 1);
+		Network net = nm.setupNetwork("Restored", 0, 0, 1, 0);
+		nm.addStandardStation(net, 5, 0, 0);
+		nm.addUser("Carol", CardFactory.VLIBRE, "Restored");
+		Station s1 = net.getStations().get(0);
+		int userId = net.getCards().get(0).getUser().getId();
+		nm.addMechanicBike(net, s1, NetworkManager.ADDING_DATE);
+		LocalDateTime t = LocalDateTime.of(2019, 1, 2, 8, 0);
+		for (int i = 0; i < 3; i++) {
+			nm.rentBike(userId, s1.getId(), t.plusHours(i), net);
+			nm.returnBike(userId, s1.getId(), t.plusHours(i).plusMinutes(30), net);
+		}
+		nm.getJournal().close();
+		assertEquals(3, net.getRideArchive().size());
+
+		NetworkManager restored = new NetworkManager();
+		RideArchive archive = restored.openRideArchive("Restored", archiveDir, 1);
+		restored.openJournal(journal);
+		Network net2 = restored.findNetworkByName("Restored");
+		restored.rentBike(userId, s1.getId(), t.plusHours(3), net2);
+		restored.returnBike(userId, s1.getId(), t.plusHours(4), net2);
+		restored.getJournal().close();
+		assertAll(
+			() -> assertSame(archive, net2.getRideArchive()),
+			() -> assertEquals(4, archive.size(), "The replayed rides are not archived again"),
+			() -> assertEquals(t.plusHours(3), archive.get(3).getStartRide())
+		);
+		archive.close();
+		net.getRideArchive().close();
+		for (File f : archiveDir.listFiles()) {
+			f.delete();
+		}
+		for (File f : dir.listFiles()) {
+			f.delete();
+		}
+		dir.delete();
+	}
+
+	/**
+	 * The archive cannot be written during the first ride: the bike is returned anyway, and the ride is archived with the next one.
+	 */
+	@Test
+	void testArchiveFailure() throws Exception {
+		File dir = Files.createTempDirectory("rides").toFile();
+		NetworkManager nm = new NetworkManager();
+		Network net = nm.setupNetwork("ArchiveFailure", 0, 0, 1, 0);
+		nm.addStandardStation(net, 5, 0, 0);
+		nm.addUser("Bob", CardFactory.VMAX, "ArchiveFailure");
+		Station s1 = net.getStations().get(0);
+		int userId = net.getCards().get(0).getUser().getId();
+		nm.addMechanicBike(net, s1, NetworkManager.ADDING_DATE);
+		boolean[] failing = {true};
+		RideArchive archive = new RideArchive(dir) {
+			@Override
+			public synchronized void append(Ride r) throws IOException {
+				if (failing[0]) throw new IOException("disk full");
+				super.append(r);
+			}
+		};
+		net.setRideArchive(archive, 2);
+		LocalDateTime t = LocalDateTime.of(2019, 1, 2, 8, 0);
+		nm.rentBike(userId, s1.getId(), t, net);
+		nm.returnBike(userId, s1.getId(), t.plusMinutes(30), net);
+		assertAll(
+			() -> assertNull(net.getCards().get(0).getUser().getOngoingRide(), "The ride is ended"),
+			() -> assertEquals(1, s1.getNumberBikes()),
+			() -> assertEquals(0, archive.size()),
+			() -> assertEquals(1, net.getMetrics().getRegistry().counter(NetworkMetrics.ARCHIVE_FAILED + ".IOException").get()),
+			() -> assertEquals(1, net.getMetrics().getRegistry().getGauge(NetworkMetrics.ARCHIVE_PENDING))
+		);
+		failing[0] = false;
+		nm.rentBike(userId, s1.getId(), t.plusHours(1), net);
+		nm.returnBike(userId, s1.getId(), t.plusHours(2), net);
+		assertAll(
+			() -> assertEquals(0, net.getMetrics().getRegistry().getGauge(NetworkMetrics.ARCHIVE_PENDING)),
+			() -> assertEquals(2, archive.size()),
+			() -> assertEquals(t, archive.get(0).getStartRide()),
+			() -> assertEquals(t.plusHours(1), archive.get(1).getStartRide())
+		);
+		archive.close();
+		for (File f : dir.listFiles()) {
+			f.delete();
+		}
+		dir.delete();
+	}
+
+}
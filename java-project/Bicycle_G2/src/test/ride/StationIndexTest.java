@@ -0,0 +1,65 @@
+package test.ride;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import controller.ExistingNameException;
+import controller.NetworkManager;
+import ride.Network;
+import ride.path.DistanceBasicComparator;
+import station.Station;
+import tools.Point;
+
+class StationIndexTest {
+
+	@Test
+	void testNearestFirst() throws ExistingNameException {
+		Network net = new NetworkManager().setupNetwork("index", 500, 2, 10, 0);
+		Point p = new Point(3.7, 8.2);
+		ArrayList<Station> sorted = new ArrayList<Station>(net.getStations());
+		Collections.sort(sorted, new DistanceBasicComparator(p));
+		ArrayList<Station> res = new ArrayList<Station>();
+		for (Station s : net.getStationIndex().nearestFirst(p)) {
+			res.add(s);
+		}
+		assertEquals(sorted, res, "The stations are returned the closest first");
+	}
+
+	@Test
+	void testPointOutsideOfTheNetwork() throws ExistingNameException {
+		Network net = new NetworkManager().setupNetwork("index", 100, 2, 4, 0);
+		Point p = new Point(-50, 120);
+		Station closest = Collections.min(net.getStations(), new DistanceBasicComparator(p));
+		assertEquals(closest, net.getStationIndex().nearest(p, s -> true));
+	}
+
+	@Test
+	void testWithinRadius() throws ExistingNameException {
+		Network net = new NetworkManager().setupNetwork("index", 300, 2, 6, 0);
+		Point p = new Point(2, 2);
+		int n = 0;
+		for (Station s : net.getStations()) {
+			if (p.distancePoint(s.getP()) <= 1.5) { n++; }
+		}
+		assertEquals(n, net.getStationIndex().withinRadius(p, 1.5).size());
+	}
+
+	@Test
+	void testRemoveAndMoveStation() throws ExistingNameException {
+		Network net = new NetworkManager().setupNetwork("index", 50, 2, 4, 0);
+		Station s = net.getStations().get(10);
+		net.removeStation(s);
+		assertAll(
+			() -> assertEquals(49, net.getStationIndex().size()),
+			() -> assertNotEquals(s, net.getStationIndex().nearest(s.getP(), st -> true))
+		);
+		Station s2 = net.getStations().get(20);
+		s2.setP(new Point(100, 100));
+		assertEquals(s2, net.getStationIndex().nearest(new Point(99, 99), st -> true), "The index follows the stations that move");
+	}
+
+}
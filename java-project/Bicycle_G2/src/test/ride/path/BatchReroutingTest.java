@@ -0,0 +1,126 @@
+package test.ride.path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import bike.MechanicBike;
+import card.Card;
+import card.CardFactory;
+import ride.Itinerary;
+import ride.Network;
+import ride.path.AvoidPlusStrategy;
+import ride.path.BatchRerouting;
+import ride.path.MinimalWalkingStrategy;
+import ride.path.PathStrategy;
+import station.NotificationDispatcher;
+import station.Station;
+import station.StationFactory;
+import tools.Point;
+import user.User;
+
+class BatchReroutingTest {
+
+	static LocalDateTime changeTime = LocalDateTime.of(2019, 1, 1, 0, 0);
+	Network net;
+	Station full;
+
+	/**
+	 * The full station is at (0, 0), and the stations 1, 2, 3 at a distance 10, 20, 30 have 1, 2 and 3 free slots.
+	 */
+	@BeforeEach
+	void setUp() throws Exception {
+		net = new Network();
+		StationFactory sf = new StationFactory(net);
+		full = sf.createStation("Standard", new Point(0, 0));
+		full.addSlot();
+		full.availableSlot().setBike(new MechanicBike(), changeTime);
+		for (int i = 1; i <= 3; i++) {
+			sf.createStation("Standard", new Point(10*i, 0)).addSlot(i);
+		}
+		sf.createStation("Standard", new Point(-200, 0)).addSlot(10);
+	}
+
+	@Test
+	void testSpreadByCapacity() {
+		List<Point> ends = new ArrayList<Point>();
+		for (int i = 0; i < 5; i++) {
+			ends.add(new Point(0, i));
+		}
+		Station[] stations = new BatchRerouting(net).reroute(full, ends);
+		HashMap<Station, Integer> counts = new HashMap<Station, Integer>();
+		for (Station s : stations) {
+			counts.merge(s, 1, Integer::sum);
+		}
+		assertAll(
+			() -> assertNull(counts.get(full)),
+			() -> assertEquals(1, counts.get(net.getStations().get(1)).intValue()),
+			() -> assertEquals(2, counts.get(net.getStations().get(2)).intValue()),
+			() -> assertEquals(2, counts.get(net.getStations().get(3)).intValue()),
+			() -> assertEquals(net.getStations().get(1), stations[0], "The closest rider gets the closest station")
+		);
+	}
+
+	@Test
+	void testNotEnoughSlots() {
+		List<Point> ends = new ArrayList<Point>();
+		for (int i = 0; i < 20; i++) {
+			ends.add(new Point(25, i));
+		}
+		Station[] stations = new BatchRerouting(net).reroute(full, ends);
+		int far = 0;
+		for (Station s : stations) {
+			assertNotEquals(full, s);
+			if (s == net.getStations().get(4)) far++;
+		}
+		assertEquals(10, far, "The riders who do not fit in the close stations are sent to the far one, until it is full");
+	}
+
+	/**
+	 * Only the riders whose strategy returns the closest station are rerouted together: a rider who avoids the plus stations keeps avoiding them.
+	 */
+	@Test
+	void testStrategyOfTheRiders() throws Exception {
+		Network net = new Network();
+		StationFactory sf = new StationFactory(net);
+		Station end = sf.createStation("Standard", new Point(0, 0));
+		end.addSlot(2);
+		Station plus = sf.createStation("Plus", new Point(10, 0));
+		plus.addSlot(2);
+		Station standard = sf.createStation("Standard", new Point(30, 0));
+		standard.addSlot(2);
+		Station start = sf.createStation("Standard", new Point(100, 100));
+		start.addSlot(2);
+		start.availableSlot().setBike(new MechanicBike(), changeTime);
+		start.availableSlot().setBike(new MechanicBike(), changeTime);
+		CardFactory cf = new CardFactory(net);
+		User avoiding = new User("avoiding"), closest = new User("closest");
+		PathStrategy[] strategies = {new AvoidPlusStrategy(net), new MinimalWalkingStrategy(net)};
+		User[] users = {avoiding, closest};
+		Card[] cards = new Card[users.length];
+		for (int i = 0; i < users.length; i++) {
+			cards[i] = cf.createCard(CardFactory.VMAX, users[i]);
+			users[i].setAutoReroute(true);
+			Itinerary itinerary = users[i].calculateItinerary(new Point(100, 101), new Point(0, 1), strategies[i]);
+			assertEquals(end, itinerary.getEndStation());
+			users[i].setItinerary(itinerary);
+		}
+		for (Card card : cards) {
+			start.pickUpBike(card, changeTime.plusMinutes(1));
+		}
+		end.getParkingSlots().get(0).setBike(new MechanicBike(), changeTime.plusMinutes(2));
+		end.getParkingSlots().get(1).setBike(new MechanicBike(), changeTime.plusMinutes(2));
+		assertTrue(NotificationDispatcher.getInstance().awaitIdle(5000));
+		assertAll(
+			() -> assertEquals(standard, avoiding.getItinerary().getEndStation()),
+			() -> assertEquals(plus, closest.getItinerary().getEndStation())
+		);
+	}
+
+}
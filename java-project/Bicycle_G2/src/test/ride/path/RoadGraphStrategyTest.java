@@ -0,0 +1,89 @@
+package test.ride.path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import bike.BikeFactory;
+import bike.ElectricBike;
+import bike.MechanicBike;
+import ride.Network;
+import ride.path.FastestPathComparator;
+import ride.path.FastestPathStrategy;
+import ride.path.RoadGraph;
+import ride.path.RoadGraphStrategy;
+import station.Station;
+import station.StationFactory;
+import tools.Point;
+
+class RoadGraphStrategyTest {
+
+	static LocalDateTime changeTime = LocalDateTime.of(2019, 1, 1, 0, 0);
+	Network net;
+	RoadGraphStrategy rgs;
+	Station near;
+	Station far;
+	Station end;
+	Point start = new Point(0, 0);
+	Point destination = new Point(10, 0);
+
+	/**
+	 * The station near is the closest to the start point, but its road to the destination is very slow.
+	 * The station far is a bit further, on a fast road to the destination.
+	 */
+	@BeforeEach
+	void setUp() throws Exception {
+		net = new Network();
+		StationFactory sf = new StationFactory(net);
+		near = sf.createStation("Standard", new Point(0.5, 0));
+		far = sf.createStation("Standard", new Point(0, 1));
+		end = sf.createStation("Standard", destination);
+		near.addSlot();
+		far.addSlot();
+		end.addSlot();
+		near.availableSlot().setBike(new MechanicBike(), changeTime);
+		far.availableSlot().setBike(new MechanicBike(), changeTime);
+		RoadGraph graph = RoadGraph.read(new BufferedReader(new StringReader(
+			"node 1 0.5 0\nnode 2 0 1\nnode 3 10 0\nedge 1 3 1\nedge 2 3 30\nedge 1 2 1\n")));
+		rgs = new RoadGraphStrategy(net, graph);
+	}
+
+	@Test
+	void testRideTime() {
+		assertAll(
+			() -> assertEquals(Math.hypot(10, 1)/30, rgs.getRideTime(far.getP(), end.getP(), BikeFactory.MECHANIC), 1e-9),
+			() -> assertEquals(Math.hypot(10, 1)/30*FastestPathComparator.MECHANIC_SPEED/FastestPathComparator.ELECTRIC_SPEED,
+				rgs.getRideTime(far.getP(), end.getP(), BikeFactory.ELECTRIC), 1e-9),
+			() -> assertEquals(0.5/FastestPathComparator.MECHANIC_SPEED + Math.hypot(10, 1)/30, rgs.getRideTime(new Point(0, 0.5), end.getP(), BikeFactory.MECHANIC), 1e-9,
+				"The point is linked to its closest node along the straight line")
+		);
+	}
+
+	@Test
+	void testFindPath() throws Exception {
+		Station[] expected = {far, end};
+		Station[] straight = {near, end};
+		assertAll(
+			() -> assertArrayEquals(straight, new FastestPathStrategy(net).findPath(start, destination, BikeFactory.MECHANIC), "The straight line is shorter from the near station"),
+			() -> assertArrayEquals(expected, rgs.findPath(start, destination, BikeFactory.MECHANIC), "The road is faster from the far station"),
+			() -> assertArrayEquals(expected, rgs.findPath(start, destination))
+		);
+		far.getParkingSlots().get(0).setBike(null, changeTime.plusMinutes(1));
+		Station[] fallback = {near, end};
+		assertArrayEquals(fallback, rgs.findPath(start, destination, BikeFactory.MECHANIC), "The far station has no bike");
+		far.availableSlot().setBike(new ElectricBike(), changeTime.plusMinutes(2));
+		Station[] electric = {far, end};
+		assertArrayEquals(electric, rgs.findPath(start, destination), "The electric bike is at the far station");
+	}
+
+	@Test
+	void testFindEndStation() {
+		assertEquals(end, rgs.findEndStation(start, new Point(9, 1), null));
+	}
+
+}
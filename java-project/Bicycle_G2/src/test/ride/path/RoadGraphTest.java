@@ -0,0 +1,112 @@
+package test.ride.path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import ride.path.RoadGraph;
+import tools.Point;
+
+class RoadGraphTest {
+
+	static RoadGraph read(String s) throws IOException {
+		return RoadGraph.read(new BufferedReader(new StringReader(s)));
+	}
+
+	/**
+	 * The direct road from 1 to 3 is slow, the detour by 2 is fast, and the road from 3 to 4 is one-way.
+	 */
+	@Test
+	void testTravelTime() throws Exception {
+		RoadGraph g = read("# test graph\n"
+			+ "node 1 0 0\nnode 2 5 5\nnode 3 10 0\nnode 4 20 0\n\n"
+			+ "edge 1 3 1\nedge 1 2 10 10\nedge 2 3 10 10\narc 3 4 5\n");
+		int n1 = g.nearestNode(new Point(0, 0)), n3 = g.nearestNode(new Point(10, 0)), n4 = g.nearestNode(new Point(20, 0));
+		assertAll(
+			() -> assertEquals(4, g.getNumberNodes()),
+			() -> assertEquals(7, g.getNumberArcs()),
+			() -> assertEquals(2, g.travelTime(n1, n3), 1e-9, "The detour is faster"),
+			() -> assertEquals(4, g.travelTime(n1, n4), 1e-9),
+			() -> assertEquals(Double.POSITIVE_INFINITY, g.travelTime(n4, n1), "The road from 3 to 4 is one-way"),
+			() -> assertEquals(0, g.travelTime(n4, n4))
+		);
+	}
+
+	@Test
+	void testCache() throws Exception {
+		RoadGraph g = read("node 1 0 0\nnode 2 1 0\nnode 3 2 0\nedge 1 2 1\nedge 2 3 1\n");
+		g.travelTime(0, 2);
+		g.travelTime(0, 2);
+		g.travelTime(2, 0);
+		assertEquals(2, g.getSearches(), "The second query is answered by the cache");
+	}
+
+	@Test
+	void testNearestNode() throws Exception {
+		RoadGraph g = read("node 7 0 0\nnode 8 10 0\nnode 9 10 10\n");
+		assertAll(
+			() -> assertEquals(10, g.getPosition(g.nearestNode(new Point(9, 8))).getX()),
+			() -> assertEquals(10, g.getPosition(g.nearestNode(new Point(9, 8))).getY()),
+			() -> assertEquals(0, g.getPosition(g.nearestNode(new Point(-50, -3))).getX(), "The point is outside of the grid"),
+			() -> assertEquals(10, g.getPosition(g.nearestNode(new Point(100, 1))).getX())
+		);
+	}
+
+	@Test
+	void testInvalidGraph() {
+		assertAll(
+			() -> assertThrows(IOException.class, () -> read("node 1 0 0\nedge 1 2 10\n"), "The node 2 is not declared"),
+			() -> assertThrows(IOException.class, () -> read("node 1 0 0\nnode 2 3 4\nedge 1 2 10 4\n"), "The road is shorter than the straight line"),
+			() -> assertThrows(IOException.class, () -> read("node 1 0 0\nnode 2 3 4\nedge 1 2 0\n"), "The speed is not positive"),
+			() -> assertThrows(IOException.class, () -> read("node 1 0 0\nnode 1 3 4\n"), "The node 1 is declared twice"),
+			() -> assertThrows(IOException.class, () -> read("node 1 a 0\n")),
+			() -> assertThrows(IOException.class, () -> read("# no node\n"))
+		);
+	}
+
+	/**
+	 * The contraction hierarchy gives the same travel times as the Floyd-Warshall algorithm on a random grid of one-way roads.
+	 */
+	@Test
+	void testShortestPaths() throws Exception {
+		Random r = new Random(25);
+		int side = 8, n = side*side;
+		double[][] dist = new double[n][n];
+		StringBuilder sb = new StringBuilder();
+		for (int v = 0; v < n; v++) {
+			sb.append("node ").append(v).append(' ').append(v % side).append(' ').append(v / side).append('\n');
+			for (int w = 0; w < n; w++) {
+				dist[v][w] = v == w ? 0 : Double.POSITIVE_INFINITY;
+			}
+		}
+		for (int v = 0; v < n; v++) {
+			int[] neighbours = {v % side < side - 1 ? v + 1 : -1, v / side < side - 1 ? v + side : -1, v % side > 0 ? v - 1 : -1, v / side > 0 ? v - side : -1};
+			for (int w : neighbours) {
+				if (w >= 0 && r.nextDouble() < 0.8) {
+					int speed = 1 + r.nextInt(20);
+					sb.append("arc ").append(v).append(' ').append(w).append(' ').append(speed).append('\n');
+					dist[v][w] = 1.0/speed;
+				}
+			}
+		}
+		for (int k = 0; k < n; k++) {
+			for (int i = 0; i < n; i++) {
+				for (int j = 0; j < n; j++) {
+					dist[i][j] = Math.min(dist[i][j], dist[i][k] + dist[k][j]);
+				}
+			}
+		}
+		RoadGraph g = read(sb.toString());
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				assertEquals(dist[i][j], g.travelTime(i, j), 1e-9, i + " -> " + j);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,75 @@
+package test.simulation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import bike.BikeFactory;
+import controller.NetworkManager;
+import ride.Network;
+import ride.Ride;
+import ride.path.FastestPathStrategy;
+import ride.path.MinimalWalkingStrategy;
+import simulation.HotspotDemand;
+import simulation.Simulation;
+import simulation.UniformDemand;
+import station.Station;
+import tools.Point;
+
+class SimulationTest {
+
+	private static final LocalDateTime START = LocalDateTime.of(2019, 1, 2, 0, 0);
+
+	private static int bikesInStations(Network net) {
+		int n = 0;
+		for (Station s : net.getStations()) {
+			n += s.getNumberBikes();
+		}
+		return n;
+	}
+
+	@Test
+	void testRun() throws Exception {
+		NetworkManager nm = new NetworkManager();
+		Network net = nm.setupNetwork("Simulation", 25, 10, 5, 150);
+		int bikes = bikesInStations(net);
+		Simulation sim = new Simulation(nm, net, new FastestPathStrategy(net), new UniformDemand(5, 60), START, 1);
+		sim.runUntil(START.plusHours(6));
+		sim.runUntil(START.plusHours(12));
+		assertAll(
+			() -> assertEquals(START.plusHours(12), sim.getTime()),
+			() -> assertTrue(sim.getArrivals() > 500, "About 720 arrivals"),
+			() -> assertTrue(sim.getRides() > 0),
+			() -> assertEquals(sim.getArrivals(), sim.getRides() + sim.getAbandoned() + sim.getInProgress()),
+			() -> assertEquals(sim.getRides(), net.getRideHistory().size()),
+			() -> assertTrue(sim.getUsers() < sim.getArrivals(), "The users are reused"),
+			() -> assertEquals(bikes, bikesInStations(net) + net.getCards().stream().filter(c -> c.getUser().getOngoingRide() != null).count())
+		);
+		for (Ride r : net.getRideHistory()) {
+			assertFalse(r.getEndRide().isBefore(r.getStartRide()));
+		}
+	}
+
+	@Test
+	void testHotspot() throws Exception {
+		NetworkManager nm = new NetworkManager();
+		Network net = nm.setupNetwork("Hotspot", 16, 5, 4, 40);
+		double[] rates = new double[24];
+		rates[8] = 200;
+		Point[] hotspots = {new Point(0, 0)};
+		Simulation sim = new Simulation(nm, net, new MinimalWalkingStrategy(net), new HotspotDemand(4, rates, hotspots, 0.5, 1), START, 2);
+		sim.setBikeType(BikeFactory.MECHANIC);
+		sim.runUntil(START.plusHours(8));
+		assertEquals(0, sim.getArrivals(), "No arrival before 8:00");
+		sim.runUntil(START.plusDays(1));
+		assertAll(
+			() -> assertTrue(sim.getArrivals() > 100),
+			() -> assertTrue(sim.getReroutes() > 0, "The stations around the hotspot get full"),
+			() -> assertTrue(sim.getAbandoned() > 0, "The other stations get empty"),
+			() -> assertTrue(net.getRideHistory().stream().allMatch(r -> r.getBike().getClass().getSimpleName().equals("MechanicBike")))
+		);
+	}
+
+}
@@ -0,0 +1,66 @@
+package test.sorting.station;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import bike.MechanicBike;
+import ride.Network;
+import sorting.station.LeastOccupiedStation;
+import sorting.station.OccupationRateCache;
+import station.Slot;
+import station.Station;
+import station.StationFactory;
+import tools.Point;
+
+class LeastOccupiedStationTest {
+
+	private LocalDateTime t0 = LocalDateTime.of(2019, 1, 1, 10, 0);
+	private LocalDateTime t1 = LocalDateTime.of(2019, 1, 1, 11, 0);
+	private LocalDateTime t2 = LocalDateTime.of(2019, 1, 1, 12, 0);
+	private Station full;
+	private Station empty;
+	private Station noState;
+	private Slot fullSlot;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		StationFactory sf = new StationFactory(new Network());
+		full = sf.createStation("Standard", new Point(0, 0));
+		empty = sf.createStation("Standard", new Point(1, 0));
+		noState = sf.createStation("Standard", new Point(2, 0));
+		full.addSlot();
+		empty.addSlot();
+		fullSlot = full.getParkingSlots().get(0);
+		fullSlot.setBike(new MechanicBike(), t0);
+		empty.getParkingSlots().get(0).setOnline(false, t0);
+		empty.getParkingSlots().get(0).setOnline(true, t0);
+	}
+
+	@Test
+	void testSorting() {
+		ArrayList<Station> stations = new ArrayList<Station>();
+		stations.add(noState);
+		stations.add(full);
+		stations.add(empty);
+		new LeastOccupiedStation(t0, t2).sorting(stations);
+		assertAll(
+			() -> assertEquals(empty, stations.get(0)),
+			() -> assertEquals(full, stations.get(1)),
+			() -> assertEquals(noState, stations.get(2), "The stations without rate are at the end")
+		);
+	}
+
+	@Test
+	void testCacheInvalidation() throws Exception {
+		OccupationRateCache cache = OccupationRateCache.getInstance();
+		assertEquals(1, cache.getRate(full, t0, t2));
+		fullSlot.setBike(null, t1);
+		assertEquals(0, cache.getRate(full, t0, t2), "The rate is computed again when a slot changes");
+	}
+
+}
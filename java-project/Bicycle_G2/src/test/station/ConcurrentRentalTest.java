@@ -0,0 +1,193 @@
+package test.station;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import bike.MechanicBike;
+import card.Card;
+import card.CardFactory;
+import controller.NetworkManager;
+import ride.Network;
+import station.Slot;
+import station.SlotHistory;
+import station.SlotState;
+import station.Station;
+import user.User;
+
+class ConcurrentRentalTest {
+
+	private static int countBikes(Network net) {
+		int n = 0;
+		for (Station s : net.getStations()) {
+			n += s.getNumberBikes();
+		}
+		return n;
+	}
+
+	@Test
+	void testSameUserAtTwoStations() throws Exception {
+		Network net = new NetworkManager().setupNetwork("concurrent1", 2, 5, 1, 0);
+		for (Station s : net.getStations()) {
+			s.availableSlot().setBike(new MechanicBike(), NetworkManager.ADDING_DATE);
+		}
+		Card card = new CardFactory(net).createCard(CardFactory.VMAX, new User("Pietro"));
+		AtomicInteger rents = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ArrayList<Thread> threads = new ArrayList<Thread>();
+		for (Station s : net.getStations()) {
+			Thread t = new Thread(() -> {
+				try {
+					start.await();
+					s.pickUpBike(card, LocalDateTime.of(2019, 1, 2, 10, 0));
+					rents.incrementAndGet();
+				} catch (Exception e) {}
+			});
+			threads.add(t);
+			t.start();
+		}
+		start.countDown();
+		for (Thread t : threads) { t.join(); }
+		assertAll(
+			() -> assertEquals(1, rents.get(), "A user can rent only one bike"),
+			() -> assertEquals(1, countBikes(net))
+		);
+	}
+
+	/**
+	 * The users of each thread rent and return bikes at the same station, at the same time.
+	 * The throughput of these operations, compared to the one with the lock of the station, is measured by {@code benchmark.HubContentionBenchmark}.
+	 */
+	private static void runHub(Station hub, Card[] cards, int nOperations, LocalDateTime time) throws InterruptedException {
+		AtomicInteger errors = new AtomicInteger();
+		ArrayList<Thread> threads = new ArrayList<Thread>();
+		for (Card card : cards) {
+			Thread t = new Thread(() -> {
+				for (int k = 0; k < nOperations; k++) {
+					try {
+						hub.pickUpBike(card, time);
+						hub.dropBike(card, time);
+					} catch (Exception e) {
+						errors.incrementAndGet();
+					}
+				}
+			});
+			threads.add(t);
+			t.start();
+		}
+		for (Thread t : threads) { t.join(); }
+		assertEquals(0, errors.get(), "There are enough bikes and slots for every user");
+	}
+
+	@Test
+	void testHubContention() throws Exception {
+		Network net = new NetworkManager().setupNetwork("concurrent3", 1, 60, 1, 0);
+		Station hub = net.getStations().get(0);
+		for (int i = 0; i < 30; i++) {
+			hub.availableSlot().setBike(new MechanicBike(), NetworkManager.ADDING_DATE);
+		}
+		CardFactory cf = new CardFactory(net);
+		Card[] cards = new Card[8];
+		for (int i = 0; i < cards.length; i++) {
+			cards[i] = cf.createCard(CardFactory.VMAX, new User("user" + i));
+		}
+		runHub(hub, cards, 2000, LocalDateTime.of(2019, 1, 2, 0, 0));
+		runHub(hub, cards, 2000, LocalDateTime.of(2019, 1, 2, 12, 0));
+		assertAll(
+			() -> assertEquals(30, hub.getNumberBikes()),
+			() -> assertEquals(30, hub.getNumberFreeSlots()),
+			() -> assertEquals(30, hub.getNumberMechanicBikes()),
+			() -> assertEquals(2*(2000 + 2000)*cards.length, hub.getTotalOperations())
+		);
+	}
+
+	/**
+	 * The histories of the slots are read without lock while the users rent and return bikes, and while the histories grow.
+	 */
+	@Test
+	void testReadHistories() throws Exception {
+		Network net = new NetworkManager().setupNetwork("concurrent4", 1, 20, 1, 0);
+		Station hub = net.getStations().get(0);
+		for (int i = 0; i < 10; i++) {
+			hub.availableSlot().setBike(new MechanicBike(), NetworkManager.ADDING_DATE);
+		}
+		CardFactory cf = new CardFactory(net);
+		Card[] cards = new Card[4];
+		for (int i = 0; i < cards.length; i++) {
+			cards[i] = cf.createCard(CardFactory.VMAX, new User("user" + i));
+		}
+		AtomicInteger errors = new AtomicInteger();
+		AtomicBoolean running = new AtomicBoolean(true);
+		Thread reader = new Thread(() -> {
+			while (running.get()) {
+				for (Slot sl : hub.getParkingSlots()) {
+					SlotHistory history = sl.getSlotHistory();
+					int n = history.size();
+					try {
+						for (int i = 0; i < n; i++) {
+							SlotState state = history.get(i);
+							if (state.getStartTime() == null || (i + 1 < n && state.getEndTime() == null)) {
+								errors.incrementAndGet();
+							}
+						}
+					} catch (RuntimeException e) {
+						errors.incrementAndGet();
+					}
+				}
+			}
+		});
+		reader.start();
+		runHub(hub, cards, 1000, LocalDateTime.of(2019, 1, 2, 0, 0));
+		running.set(false);
+		reader.join();
+		assertEquals(0, errors.get(), "The states read are complete");
+	}
+
+	@Test
+	void testManyUsers() throws Exception {
+		Network net = new NetworkManager().setupNetwork("concurrent2", 20, 10, 4, 100);
+		CardFactory cf = new CardFactory(net);
+		int nThreads = 8;
+		int nBikes = countBikes(net);
+		LocalDateTime time = LocalDateTime.of(2019, 1, 2, 0, 0);
+		AtomicInteger returns = new AtomicInteger();
+		ArrayList<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < nThreads; i++) {
+			Card card = cf.createCard(CardFactory.VLIBRE, new User("user" + i));
+			Random rand = new Random(i);
+			Thread t = new Thread(() -> {
+				for (int k = 0; k < 200; k++) {
+					Station s = net.getStations().get(rand.nextInt(net.getStations().size()));
+					try {
+						if (card.getUser().getOngoingRide() == null) {
+							s.pickUpBike(card, time);
+						} else {
+							s.dropBike(card, time);
+							returns.incrementAndGet();
+						}
+					} catch (Exception e) {}
+				}
+			});
+			threads.add(t);
+			t.start();
+		}
+		for (Thread t : threads) { t.join(); }
+		int ongoing = 0;
+		for (Card c : net.getCards()) {
+			if (c.getUser().getOngoingRide() != null) { ongoing++; }
+		}
+		int ongoingRides = ongoing;
+		assertAll(
+			() -> assertEquals(nBikes, countBikes(net) + ongoingRides, "No bike is lost or duplicated"),
+			() -> assertEquals(returns.get(), net.getRideHistory().size())
+		);
+	}
+
+}
@@ -0,0 +1,110 @@
+package test.station;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import bike.MechanicBike;
+import ride.Network;
+import station.*;
+import tools.Point;
+import user.Observer;
+
+class NotificationDispatcherTest {
+
+	private Network net;
+	private StationFactory sf;
+
+	/**
+	 * An observer which waits until it is released, like a user whose arrival station takes long to recalculate.
+	 */
+	private static class SlowObserver implements Observer {
+		private final Station s;
+		private final CountDownLatch release = new CountDownLatch(1);
+		private final CountDownLatch called = new CountDownLatch(1);
+		private final AtomicInteger updates = new AtomicInteger();
+		private final AtomicBoolean locked = new AtomicBoolean();
+
+		SlowObserver(Station s) { this.s = s; }
+
+		@Override
+		public int update() {
+			this.updates.incrementAndGet();
+			if (Thread.holdsLock(this.s)) this.locked.set(true);
+			this.called.countDown();
+			try {
+				this.release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return 2;
+		}
+	}
+
+	@BeforeEach
+	void setUp() {
+		net = new Network();
+		sf = new StationFactory(net);
+	}
+
+	@Test
+	void testCoalescedOutsideLock() throws Exception {
+		Station s = sf.createStation("Standard", new Point(1, 1));
+		s.addSlot(1);
+		Slot slot = s.getParkingSlots().get(0);
+		SlowObserver ob = new SlowObserver(s);
+		s.registerObserver(ob);
+		NotificationDispatcher d = NotificationDispatcher.getInstance();
+		long coalesced = d.getCoalesced();
+		LocalDateTime t = LocalDateTime.of(2019, 4, 1, 10, 0);
+
+		slot.setBike(new MechanicBike(), t);
+		assertTrue(ob.called.await(5, TimeUnit.SECONDS), "The station is full");
+		for (int i = 1; i <= 3; i++) {
+			slot.setBike(null, t.plusMinutes(2 * i - 1));
+			slot.setBike(new MechanicBike(), t.plusMinutes(2 * i));
+		}
+		s.setOnline(false);
+		assertTrue(s.isStationFull(), "The station is used while its observer waits");
+		assertEquals(3, d.getCoalesced() - coalesced, "The notifications are merged while the station waits in the queue");
+		ob.release.countDown();
+		assertTrue(d.awaitIdle(5000));
+		assertAll(
+			() -> assertEquals(2, ob.updates.get()),
+			() -> assertFalse(ob.locked.get(), "The station is not locked while the observers are notified")
+		);
+	}
+
+	@Test
+	void testBackPressure() throws Exception {
+		NotificationDispatcher d = new NotificationDispatcher(1, 1);
+		Station[] stations = new Station[3];
+		SlowObserver ob = null;
+		for (int i = 0; i < stations.length; i++) {
+			stations[i] = sf.createStation("Standard", new Point(i, 2));
+		}
+		ob = new SlowObserver(stations[0]);
+		stations[0].registerObserver(ob);
+		d.submit(stations[0]);
+		assertTrue(ob.called.await(5, TimeUnit.SECONDS));
+		d.submit(stations[1]);
+		Thread blocked = new Thread(() -> d.submit(stations[2]));
+		blocked.start();
+		blocked.join(200);
+		assertTrue(blocked.isAlive(), "The queue is full, so the notification waits");
+		assertEquals(3, d.getPending());
+		ob.release.countDown();
+		blocked.join(5000);
+		assertFalse(blocked.isAlive());
+		assertTrue(d.awaitIdle(5000));
+		assertEquals(3, d.getDispatched());
+	}
+
+}
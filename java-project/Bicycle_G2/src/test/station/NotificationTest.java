@@ -25,6 +25,13 @@ public class NotificationTest {
 	private User u1;
 	private User u2;
 	
+	/**
+	 * The observers are notified in the threads of the {@code NotificationDispatcher}.
+	 */
+	private static void awaitNotifications() throws InterruptedException {
+		assertTrue(NotificationDispatcher.getInstance().awaitIdle(5000));
+	}
+	
 	@Test
 	void setUp() throws TypeStationException, StationSamePositionException {
 		net = new Network();
@@ -120,6 +127,7 @@ public class NotificationTest {
 							() -> assertNull(u1.getOngoingRide()),
 							() -> {
 								s1.setOnline(false);
+								awaitNotifications();
 								System.out.println("case 1 : No automatic possibility to recalculate itinerary");
 							},
 							() -> assertNull(u1.getItinerary()),
@@ -136,6 +144,7 @@ public class NotificationTest {
 							() -> {
 								slot15.setBike(b6, t5);
 								slot12.setOnline(false, t6);
+								awaitNotifications();
 								System.out.println("case 2 : No automatic possibility to recalculate itinerary");	
 							},
 							() -> assertTrue(s1.isStationFull()),
@@ -171,6 +180,7 @@ public class NotificationTest {
 								System.out.println("---------------");
 								System.out.println("case 1 : CONSOLE answer 'yes' to the question");
 								s3.setOnline(false);
+								awaitNotifications();
 								},
 							() -> assertNotNull(u1.getItinerary()),
 							() -> assertNotEquals(s3, u1.getItinerary().getEndStation()),
@@ -204,6 +214,7 @@ public class NotificationTest {
 								System.out.println("-------------");
 								System.out.println("case 2 : CONSOLE do not answer 'yes' to the question");
 								s3.setOnline(false);
+								awaitNotifications();
 								},
 							() -> assertNull(u1.getItinerary()),
 							() -> assertEquals(0, s3.getObservers().size())
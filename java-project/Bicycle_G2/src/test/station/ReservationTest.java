@@ -0,0 +1,188 @@
+package test.station;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import bike.MechanicBike;
+import card.Card;
+import card.CardFactory;
+import ride.Itinerary;
+import ride.Network;
+import ride.path.FastestPathStrategy;
+import station.*;
+import tools.Point;
+import user.User;
+
+class ReservationTest {
+
+	private Network net;
+	private Station s1;
+	private Station s2;
+	private CardFactory cf;
+	private LocalDateTime t = LocalDateTime.of(2019, 5, 2, 9, 0);
+
+	/**
+	 * The station s1 has 2 free slots, the station s2 has a bike and 2 free slots.
+	 */
+	@BeforeEach
+	void setUp() throws Exception {
+		net = new Network();
+		StationFactory sf = new StationFactory(net);
+		cf = new CardFactory(net);
+		s1 = sf.createStation("Standard", new Point(0, 0));
+		s2 = sf.createStation("Standard", new Point(0, 10));
+		s1.addSlot(2);
+		s2.addSlot(3);
+		s2.availableSlot().setBike(new MechanicBike(), t);
+	}
+
+	@Test
+	void testReservedSlotsUnavailable() {
+		User u1 = new User("u1"), u2 = new User("u2"), u3 = new User("u3");
+		Reservation r1 = s1.reserve(u1);
+		assertAll(
+			() -> assertNotNull(r1),
+			() -> assertNotNull(s1.reserve(u2)),
+			() -> assertNull(s1.reserve(u3), "All the free slots are reserved"),
+			() -> assertEquals(2, s1.getNumberReservedSlots()),
+			() -> assertFalse(s1.hasUnreservedSlot()),
+			() -> assertEquals(s2, new FastestPathStrategy(net).findEndStation(new Point(0, 1), new Point(0, 0), null), "The reserved station is not chosen"),
+			() -> {
+				r1.cancel();
+				assertEquals(Reservation.CANCELLED, r1.getState());
+				assertTrue(s1.hasUnreservedSlot());
+			}
+		);
+	}
+
+	@Test
+	void testDropBikeConsumesReservation() throws Exception {
+		User u1 = new User("u1"), u2 = new User("u2");
+		Card c1 = cf.createCard(CardFactory.VMAX, u1);
+		Card c2 = cf.createCard(CardFactory.VMAX, u2);
+		s2.availableSlot().setBike(new MechanicBike(), t);
+		Itinerary i = u1.calculateItinerary(new Point(0, 10), new Point(0, 0), new FastestPathStrategy(net));
+		u1.setItinerary(i);
+		Reservation r = u1.getReservation();
+		assertEquals(s1, r.getStation(), "Setting an itinerary reserves a slot of its end station");
+		s1.getParkingSlots().get(0).setOnline(false, t);
+		s2.pickUpBike(c1, t.plusMinutes(1));
+		s2.pickUpBike(c2, t.plusMinutes(1));
+		assertThrows(NoSlotAvailableException.class, () -> s1.dropBike(c2, t.plusMinutes(5)), "The last free slot is reserved");
+		s1.dropBike(c1, t.plusMinutes(5));
+		assertAll(
+			() -> assertEquals(Reservation.CONSUMED, r.getState()),
+			() -> assertEquals(0, s1.getNumberReservedSlots()),
+			() -> assertTrue(s1.isStationFull())
+		);
+	}
+
+	/**
+	 * The reservations expire with the times of the operations of the network, not with the time of the computer.
+	 */
+	@Test
+	void testExpiry() throws Exception {
+		User u1 = new User("u1"), u2 = new User("u2");
+		Card c2 = cf.createCard(CardFactory.VMAX, u2);
+		Reservation r = s1.reserve(u1, 30);
+		assertNull(r.getDeadline(), "The station has not been used yet");
+		s1.expireReservations(t);
+		assertEquals(t.plusMinutes(30), r.getDeadline());
+		s2.pickUpBike(c2, t.plusMinutes(10));
+		Reservation r2 = s1.reserve(u2, 30);
+		assertEquals(t.plusMinutes(40), r2.getDeadline(), "The reservation starts with the ride of the user");
+		s1.expireReservations(t.plusMinutes(29));
+		assertTrue(r.isActive());
+		s1.dropBike(c2, t.plusMinutes(35));
+		assertAll(
+			() -> assertEquals(Reservation.EXPIRED, r.getState()),
+			() -> assertEquals(Reservation.CONSUMED, r2.getState()),
+			() -> assertEquals(0, s1.getNumberReservedSlots()),
+			() -> assertNull(s1.getReservation(u1)),
+			() -> assertEquals(1, s1.getReservationWheel().getExpired()),
+			() -> assertEquals(1, s1.getNumberUnreservedSlots())
+		);
+		s1.expireReservations(t);
+		assertEquals(t.plusMinutes(35), s1.getReservationWheel().getNow(), "The clock of the network does not go back");
+	}
+	
+	/**
+	 * A reservation at a station where nothing happens expires with the operations of the other stations of the network.
+	 */
+	@Test
+	void testExpiryAtQuietStation() throws Exception {
+		User u1 = new User("u1"), u2 = new User("u2");
+		Card c2 = cf.createCard(CardFactory.VMAX, u2);
+		Reservation r = s1.reserve(u1, 30);
+		s2.pickUpBike(c2, t);
+		assertEquals(t.plusMinutes(30), r.getDeadline(), "The clock is the one of the network");
+		assertEquals(1, s1.getNumberUnreservedSlots());
+		s2.dropBike(c2, t.plusMinutes(40));
+		assertAll(
+			() -> assertEquals(Reservation.EXPIRED, r.getState()),
+			() -> assertEquals(2, s1.getNumberUnreservedSlots()),
+			() -> assertSame(net.getReservationWheel(), s1.getReservationWheel()),
+			() -> assertEquals(t.plusMinutes(40), s1.getReservationWheel().getNow())
+		);
+	}
+	
+	/**
+	 * Many users return their bike at the same time to a station with a reserved slot: the free slots which are not reserved are claimed only once,
+	 * and the reserved slot stays free.
+	 */
+	@Test
+	void testConcurrentDrops() throws Exception {
+		int n = 16;
+		Station hub = new StationFactory(net).createStation("Standard", new Point(20, 20));
+		hub.addSlot(n);
+		Station home = new StationFactory(net).createStation("Standard", new Point(40, 40));
+		home.addSlot(n);
+		Card[] cards = new Card[n];
+		for (int i = 0; i < n; i++) {
+			cards[i] = cf.createCard(CardFactory.VMAX, new User("rider" + i));
+			home.availableSlot().setBike(new MechanicBike(), t);
+		}
+		for (Card c : cards) {
+			home.pickUpBike(c, t.plusMinutes(1));
+		}
+		for (int i = 0; i < n/2 + 1; i++) {
+			hub.getParkingSlots().get(i).setOnline(false, t.plusMinutes(2));
+		}
+		assertNotNull(hub.reserve(new User("late")));
+		int free = hub.getNumberFreeSlots();
+		CountDownLatch go = new CountDownLatch(1);
+		AtomicInteger dropped = new AtomicInteger();
+		Thread[] threads = new Thread[n];
+		for (int i = 0; i < n; i++) {
+			Card c = cards[i];
+			threads[i] = new Thread(() -> {
+				try {
+					go.await();
+					hub.dropBike(c, t.plusMinutes(5));
+					dropped.incrementAndGet();
+				} catch (NoSlotAvailableException e) {
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			});
+			threads[i].start();
+		}
+		go.countDown();
+		for (Thread th : threads) {
+			th.join();
+		}
+		assertAll(
+			() -> assertEquals(free - 1, dropped.get()),
+			() -> assertEquals(1, hub.getNumberFreeSlots(), "The reserved slot is free"),
+			() -> assertEquals(1, hub.getNumberReservedSlots()),
+			() -> assertEquals(0, hub.getNumberUnreservedSlots())
+		);
+	}
+
+}
@@ -13,6 +13,7 @@ import bike.MechanicBike;
 import card.*;
 import ride.Network;
 import station.*;
+import tools.NegativeTimeException;
 import tools.Point;
 import user.User;
 
@@ -278,7 +279,50 @@ public class StationTest {
 		);
 	
 	}
+	
+	@Test
+	void testAvailabilityCounters() throws TypeStationException, StationSamePositionException, NegativeTimeException {
+		Station s1 = sf.createStation("Standard", new Point(5, 5));
+		s1.addSlot(4);
+		LocalDateTime t1 = LocalDateTime.of(2019,03,26,14,56);
+		LocalDateTime t2 = LocalDateTime.of(2019,03,26,15,30);
+		Slot slot1 = s1.getParkingSlots().get(0);
+		Slot slot2 = s1.getParkingSlots().get(1);
+		Slot slot3 = s1.getParkingSlots().get(2);
+		Slot slot4 = s1.getParkingSlots().get(3);
+		slot2.setBike(new ElectricBike(), t1);
+		slot3.setBike(new MechanicBike(), t1);
+		slot4.setBike(new MechanicBike(), t1);
+		slot1.setOnline(false, t1);
+		assertAll("Counters after adding bikes",
+				() -> assertEquals(0, s1.getNumberFreeSlots()),
+				() -> assertEquals(3, s1.getNumberBikes()),
+				() -> assertEquals(1, s1.getNumberElectricBikes()),
+				() -> assertEquals(2, s1.getNumberMechanicBikes()),
+				() -> assertTrue(s1.isStationFull()),
+				() -> assertEquals(slot2, s1.hasBikeAvailable()),
+				() -> assertEquals(slot3, s1.hasMechanicBikeAvailable())
+		);
+		slot3.setOnline(false, t2);
+		slot2.setBike(null, t2);
+		slot1.setOnline(true, t2);
+		assertAll("Counters after removing bikes",
+				() -> assertEquals(2, s1.getNumberFreeSlots()),
+				() -> assertEquals(1, s1.getNumberBikes()),
+				() -> assertEquals(0, s1.getNumberElectricBikes()),
+				() -> assertEquals(1, s1.getNumberMechanicBikes()),
+				() -> assertEquals(slot1, s1.availableSlot()),
+				() -> assertEquals(slot4, s1.hasMechanicBikeAvailable()),
+				() -> assertNull(s1.hasElectricBikeAvailable())
+		);
+		s1.removeSlot(slot1);
+		s1.setOnline(false);
+		assertAll("Counters after removing a slot",
+				() -> assertEquals(1, s1.getNumberFreeSlots()),
+				() -> assertEquals(slot2, s1.getParkingSlots().get(0)),
+				() -> assertTrue(s1.isStationFull()),
+				() -> assertNull(s1.availableSlot())
+		);
+	}
 
 }
-
-
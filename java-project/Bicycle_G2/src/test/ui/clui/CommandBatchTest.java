@@ -0,0 +1,181 @@
+package test.ui.clui;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import card.CardFactory;
+import controller.InexistingNetworkNameException;
+import controller.NetworkExecutor;
+import controller.NetworkManager;
+import ride.Network;
+import ride.path.MinimalWalkingStrategy;
+import station.Station;
+import ui.clui.BatchCommand;
+import ui.clui.Command;
+import ui.clui.CommandBatch;
+import ui.clui.CommandLineController;
+import ui.clui.CommandLineReader;
+import user.User;
+
+class CommandBatchTest {
+
+	@Test
+	void testParse() {
+		BatchCommand rent = BatchCommand.parse("rentBike <0> <10> <2019-01-02 10:00> <myVelib>", 1);
+		BatchCommand setup = BatchCommand.parse("setup <myVelib> <4> <5> <2> <0>", 2);
+		BatchCommand wrongArgs = BatchCommand.parse("returnBike <0> <10> <myVelib>", 3);
+		BatchCommand wrongCommand = BatchCommand.parse("rentbike <0> <10> <2019-01-02 10:00> <myVelib>", 4);
+		BatchCommand wrongInt = BatchCommand.parse("returnBike <0> <ten> <2019-01-02 10:00> <myVelib>", 5);
+		BatchCommand wrongTime = BatchCommand.parse("returnBike <0> <10> <2019-01-32 10:00> <myVelib>", 6);
+		BatchCommand wrongBike = BatchCommand.parse("rentBike <0> <10> <tandem> <2019-01-02 10:00> <myVelib>", 7);
+		assertAll(
+			() -> assertEquals(Command.RENT_BIKE, rent.getCommand()),
+			() -> assertEquals("myVelib", rent.getNetwork()),
+			() -> assertNull(rent.getError()),
+			() -> assertEquals(Command.SETUP, setup.getCommand()),
+			() -> assertNull(setup.getNetwork(), "A setup is not run on the thread of a network"),
+			() -> assertEquals("Error: could not parse arguments", wrongArgs.getError().getMessage()),
+			() -> assertEquals(4, wrongCommand.getLine()),
+			() -> assertEquals("The command \"rentbike\" is not valid.", wrongCommand.getError().getMessage()),
+			() -> assertEquals("Error: could not parse arguments", wrongInt.getError().getMessage(), "The types of the arguments are checked when the file is read"),
+			() -> assertNotNull(wrongTime.getError()),
+			() -> assertNotNull(wrongBike.getError()),
+			() -> assertNull(wrongBike.getCommand())
+		);
+	}
+
+	@Test
+	void testRun() throws Exception {
+		CommandLineController clc = new CommandLineController();
+		NetworkManager nm = clc.getNetworkManager();
+		String[] names = {"batchA", "batchB"};
+		StringBuilder file = new StringBuilder();
+		ArrayList<String> expected = new ArrayList<String>();
+		for (String name : names) {
+			Network net = nm.setupNetwork(name, 2, 5, 1, 0);
+			nm.addUser("Pietro", CardFactory.VMAX, name);
+			nm.addMechanicBike(net, net.getStations().get(0), NetworkManager.ADDING_DATE);
+		}
+		for (int k = 0; k < 10; k++) {
+			for (String name : names) {
+				Network net = nm.findNetworkByName(name);
+				int userId = net.getCards().get(0).getUser().getId();
+				Station from = net.getStations().get(k % 2);
+				Station to = net.getStations().get(1 - k % 2);
+				String rent = "rentBike <" + userId + "> <" + from.getId() + "> <2019-01-02 1" + k + ":00> <" + name + ">";
+				file.append(rent).append('\n');
+				expected.add("Bike successfully rented at station" + from.getId() + " by user" + userId + ".");
+				file.append(rent).append('\n');
+				expected.add("The user has a ongoing ride.");
+				file.append("returnBike <" + userId + "> <" + to.getId() + "> <2019-01-02 1" + k + ":30> <" + name + ">").append('\n');
+				expected.add(String.format("Bike successfully returned at station" + to.getId() + " by user" + userId + ". The price of the ride is %.2f euros.", 0.0));
+			}
+			if (k == 4) {
+				file.append("returnBike <0> <" + names[0] + ">\n");
+				expected.add("Error: could not parse arguments");
+				file.append("addUser <Chloe> <vlibre> <" + names[1] + ">\n");
+				expected.add("User added successfully.");
+			}
+		}
+		CommandBatch batch = CommandBatch.read(new BufferedReader(new StringReader(file.toString())), new CommandLineReader());
+		assertEquals(1, batch.getErrors());
+		PrintStream out = System.out;
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		int failed;
+		try (NetworkExecutor ex = new NetworkExecutor(nm)) {
+			System.setOut(new PrintStream(bytes, true));
+			failed = batch.run(clc, ex);
+		} finally {
+			System.setOut(out);
+		}
+		assertEquals(21, failed);
+		assertEquals(expected, Arrays.asList(bytes.toString().split("\\R")));
+		for (String name : names) {
+			assertEquals(10, nm.findNetworkByName(name).getRideHistory().size());
+		}
+		assertEquals(2, nm.findNetworkByName(names[1]).getCards().size());
+	}
+
+
+	/**
+	 * The display of a network is written on the console by the thread of the network, between the outputs of the instructions before and after it.
+	 */
+	@Test
+	void testStreamed() throws Exception {
+		CommandLineController clc = new CommandLineController();
+		NetworkManager nm = clc.getNetworkManager();
+		nm.setupNetwork("batchS", 200, 5, 10, 0);
+		String file = "addUser <Chloe> <vlibre> <batchS>\ndisplay <batchS>\nstationOffline <batchS> <-1>\ndisplay <unknown>\n";
+		CommandBatch batch = CommandBatch.read(new BufferedReader(new StringReader(file)), new CommandLineReader());
+		PrintStream out = System.out;
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		int failed;
+		try (NetworkExecutor ex = new NetworkExecutor(nm)) {
+			System.setOut(new PrintStream(bytes, true));
+			failed = batch.run(clc, ex);
+		} finally {
+			System.setOut(out);
+		}
+		String[] lines = bytes.toString().split("\\R");
+		assertAll(
+			() -> assertEquals(2, failed),
+			() -> assertEquals("User added successfully.", lines[0]),
+			() -> assertEquals("Network: batchS", lines[1]),
+			() -> assertTrue(lines.length > 200*7, "The whole network is displayed"),
+			() -> assertTrue(bytes.toString().contains("List of users:")),
+			() -> assertEquals(new InexistingNetworkNameException("unknown").getMessage(), lines[lines.length - 1])
+		);
+	}
+
+	/**
+	 * The notification sent when the arrival station of a user goes offline is written with the output of the instruction, before the next one,
+	 * although a slow observer makes it be sent once the whole group has run.
+	 */
+	@Test
+	void testNotifications() throws Exception {
+		CommandLineController clc = new CommandLineController();
+		NetworkManager nm = clc.getNetworkManager();
+		Network net = nm.setupNetwork("batchN", 2, 5, 10, 0);
+		nm.addUser("Pietro", CardFactory.VMAX, "batchN");
+		User user = net.getCards().get(0).getUser();
+		Station start = net.getStations().get(0);
+		Station end = net.getStations().get(1);
+		user.setItinerary(user.calculateItinerary(start.getP(), end.getP(), new MinimalWalkingStrategy(net)));
+		assertEquals(end, user.getItinerary().getEndStation());
+		end.removeObserver(user);
+		end.registerObserver(() -> {
+			try {
+				Thread.sleep(200);
+			} catch (InterruptedException e) {}
+			return 2;
+		});
+		end.registerObserver(user);
+		String file = "addUser <Chloe> <vlibre> <batchN>\nstationOffline <batchN> <" + end.getId() + ">\naddUser <Marc> <vlibre> <batchN>\n";
+		CommandBatch batch = CommandBatch.read(new BufferedReader(new StringReader(file)), new CommandLineReader());
+		PrintStream out = System.out;
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (NetworkExecutor ex = new NetworkExecutor(nm)) {
+			System.setOut(new PrintStream(bytes, true));
+			assertEquals(0, batch.run(clc, ex));
+		} finally {
+			System.setOut(out);
+		}
+		String[] lines = bytes.toString().split("\\R");
+		assertAll(
+			() -> assertEquals(4, lines.length),
+			() -> assertEquals("User added successfully.", lines[0]),
+			() -> assertTrue(Arrays.asList(lines[1], lines[2]).contains("Station" + end.getId() + " is now offline.")),
+			() -> assertTrue(Arrays.asList(lines[1], lines[2]).contains("Notification : The destination Station does not have any more available slots or is offline.")),
+			() -> assertEquals("User added successfully.", lines[3])
+		);
+	}
+
+}
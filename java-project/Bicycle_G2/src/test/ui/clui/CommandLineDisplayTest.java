@@ -2,6 +2,8 @@ package test.ui.clui;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
 import java.time.LocalDateTime;
 
 import org.junit.jupiter.api.BeforeAll;
@@ -10,7 +12,9 @@ import org.junit.jupiter.api.Test;
 import bike.ElectricBike;
 import bike.MechanicBike;
 import card.Card;
+import card.CardFactory;
 import card.VmaxCard;
+import controller.NetworkManager;
 import ride.Network;
 import station.StandardStation;
 import station.Station;
@@ -82,4 +86,42 @@ class CommandLineDisplayTest {
 		assertEquals(expected, disp);
 	}
 
+	@Test
+	void testWriteNetwork() throws Exception {
+		NetworkManager nm = new NetworkManager();
+		Network network = nm.setupNetwork("displayed", 30, 4, 2, 60);
+		nm.addUser("Pietro", CardFactory.VMAX, "displayed");
+		StringBuilder expected = new StringBuilder("Network: displayed\nList of stations:\n");
+		for (Station s : network.getStations()) {
+			expected.append(cld.display(s));
+		}
+		expected.append("List of cards:\n").append(cld.display(network.getCards().get(0)));
+		expected.append("List of users:\n").append(cld.display(network.getCards().get(0).getUser()));
+		StringBuilder sb = new StringBuilder();
+		cld.write(network, sb);
+		assertEquals(expected.toString(), sb.toString());
+
+		PrintStream out = System.out;
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try {
+			System.setOut(new PrintStream(bytes, true));
+			cld.display(network);
+		} finally {
+			System.setOut(out);
+		}
+		assertEquals(expected + System.lineSeparator(), bytes.toString(), "The network is displayed by chunks");
+
+		StringBuilder page = new StringBuilder();
+		int accepted = cld.writeStations(network.getStations(), s -> s.getNumberBikes() > 0, 2, 3, page);
+		StringBuilder expectedPage = new StringBuilder();
+		int n = 0;
+		for (Station s : network.getStations()) {
+			if (s.getNumberBikes() == 0) continue;
+			if (n >= 2 && n < 5) expectedPage.append(cld.display(s));
+			n++;
+		}
+		assertEquals(n, accepted);
+		assertEquals(expectedPage.toString(), page.toString());
+	}
+
 }
@@ -0,0 +1,133 @@
+package test.ui.clui;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.CharBuffer;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+import org.junit.jupiter.api.Test;
+
+import bike.BikeFactory;
+import card.CardFactory;
+import controller.NetworkManager;
+import ui.clui.Command;
+import ui.clui.CommandLineController;
+import ui.clui.CommandLineReader;
+import ui.clui.InstructionParser;
+import ui.clui.InvalidArgumentsException;
+import ui.clui.InvalidCommandException;
+import ui.clui.ParsedInstruction;
+
+class InstructionParserTest {
+
+	@Test
+	void testKeywords() throws Exception {
+		InstructionParser p = new InstructionParser();
+		for (Command c : Command.values()) {
+			p.parse(c.getKeyword() + " <a>");
+			assertEquals(c, p.getCommand());
+		}
+		assertThrows(InvalidCommandException.class, () -> p.parse("rentbike <0> <10> <2019-01-02 10:00> <myVelib>"));
+		assertThrows(InvalidCommandException.class, () -> p.parse("display2 <myVelib>"));
+		assertThrows(InvalidCommandException.class, () -> p.parse(""));
+	}
+
+	@Test
+	void testArguments() throws Exception {
+		InstructionParser p = new InstructionParser();
+		CommandLineReader clr = new CommandLineReader();
+		String[] instructions = {
+			"setup <myVelib> <10> <10> <4> <75>",
+			"rentBike <3> <5> <electric> <2019-01-02 10:00> <myVelib>",
+			"addStation <my Velib>  <plus><5> <1.5> <-2>",
+			"display <>",
+			"returnBike <0> <10> <myVelib>"
+		};
+		for (String s : instructions) {
+			p.parse(s);
+			assertArrayEquals(clr.parseArgs(s), p.getArgs(), s);
+		}
+		p.parse(CharBuffer.wrap("rentBike <3> <5> <Mechanic> <2019-01-02 10:07> <myVelib>"));
+		assertAll(
+			() -> assertEquals(5, p.getArgCount()),
+			() -> assertEquals(3, p.getInt(0)),
+			() -> assertEquals(BikeFactory.MECHANIC, p.getBikeType(2)),
+			() -> assertEquals(LocalDateTime.of(2019, 1, 2, 10, 7), p.getTime(3)),
+			() -> assertEquals("myVelib", p.getString(4)),
+			() -> assertSame(p.getString(4), p.getString(4))
+		);
+		p.parse("returnBike <0> <10> <myVelib>");
+		assertThrows(InvalidArgumentsException.class, () -> p.checkLength());
+		assertThrows(InvalidArgumentsException.class, () -> p.parse("display myVelib"));
+		assertThrows(InvalidArgumentsException.class, () -> p.parse("display <1> <2> <3> <4> <5> <6> <7> <8> <9>"));
+	}
+
+	@Test
+	void testConversions() throws Exception {
+		InstructionParser p = new InstructionParser();
+		String[] ints = {"0", "-17", "123456789", "2147483647", "-2147483648", "+5"};
+		String[] doubles = {"0", "-0", "1.5", "0.1", "3.14159265358979", "-2.", "123456789012345678", "1e3", "0.30000000000000004"};
+		for (String s : ints) {
+			p.parse("display <" + s + ">");
+			assertEquals(Integer.parseInt(s), p.getInt(0), s);
+		}
+		for (String s : doubles) {
+			p.parse("display <" + s + ">");
+			assertEquals(Double.doubleToLongBits(Double.parseDouble(s)), Double.doubleToLongBits(p.getDouble(0)), s);
+		}
+		p.parse("addUser <Pietro> <VMAX> <myVelib>");
+		assertEquals(CardFactory.VMAX, p.getCardType(1));
+		assertThrows(InvalidArgumentsException.class, () -> p.getBikeType(1));
+		p.parse("slotOnline <myVelib> <1a> <2019-02-31 10:00> <2019-13-01 10:00> <2019-1-01 10:00>");
+		assertAll(
+			() -> assertThrows(NumberFormatException.class, () -> p.getInt(1)),
+			() -> assertEquals(LocalDateTime.of(2019, 2, 28, 10, 0), p.getTime(2), "The day is resolved like tools.Date does"),
+			() -> assertThrows(DateTimeParseException.class, () -> p.getTime(3)),
+			() -> assertThrows(DateTimeParseException.class, () -> p.getTime(4))
+		);
+	}
+
+	@Test
+	void testConvert() throws Exception {
+		InstructionParser p = new InstructionParser();
+		p.parse("rentBike <3> <5> <Electric> <2019-01-02 10:07> <myVelib>");
+		ParsedInstruction rent = p.convert();
+		p.parse("addUser <Pietro> <credit> <other>");
+		assertAll(
+			() -> assertEquals(Command.RENT_BIKE, rent.getCommand()),
+			() -> assertEquals(5, rent.getArgCount()),
+			() -> assertEquals(5, rent.getInt(1)),
+			() -> assertEquals(BikeFactory.ELECTRIC, rent.getBikeType(2)),
+			() -> assertEquals(LocalDateTime.of(2019, 1, 2, 10, 7), rent.getTime(3)),
+			() -> assertEquals("myVelib", rent.getString(4), "The arguments do not change when the parser reads another instruction"),
+			() -> assertEquals(CardFactory.CREDIT, p.convert().getCardType(1))
+		);
+		p.parse("addStation <myVelib> <plus> <5> <1.5> <x>");
+		assertThrows(InvalidArgumentsException.class, () -> p.convert());
+		p.parse("addBike <myVelib> <tandem> <2019-01-02 10:07>");
+		assertThrows(InvalidArgumentsException.class, () -> p.convert());
+	}
+
+	/**
+	 * The instructions typed on the console are run from the parser, and an argument which cannot be converted stops the instruction before it is run.
+	 */
+	@Test
+	void testInterprete() throws Exception {
+		CommandLineController clc = new CommandLineController();
+		NetworkManager nm = clc.getNetworkManager();
+		CommandLineReader clr = new CommandLineReader();
+		clr.interpreteCommand("setup <parsed> <2> <3> <1.5> <0>", clc);
+		assertEquals(2, nm.findNetworkByName("parsed").getStations().size());
+		assertAll(
+			() -> assertThrows(InvalidArgumentsException.class, () -> clr.interpreteCommand("addStation <parsed> <plus> <5> <1.5> <x>", clc)),
+			() -> assertThrows(InvalidArgumentsException.class, () -> clr.interpreteCommand("slotOffline <parsed> <1> <2019-01-32 10:00>", clc)),
+			() -> assertThrows(InvalidArgumentsException.class, () -> clr.interpreteCommand("addStation <parsed> <plus> <5>", clc)),
+			() -> assertThrows(InvalidArgumentsException.class, () -> clr.interpreteCommand("addUser <Pietro> <gold> <parsed>", clc)),
+			() -> assertEquals(2, nm.findNetworkByName("parsed").getStations().size())
+		);
+		clr.interpreteCommand("addStation <parsed> <plus> <5> <1.5> <2.5>", clc);
+		assertEquals(3, nm.findNetworkByName("parsed").getStations().size());
+	}
+
+}
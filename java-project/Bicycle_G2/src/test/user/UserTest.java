@@ -71,6 +71,18 @@ public class UserTest {
 		);
 	}
 	
+	/**
+	 * The notification of a user does not wait for an answer on the console: it depends on his preference.
+	 */
+	@Test
+	void testUpdate () throws OngoingRideException {
+		assertEquals(0, u1.update(), "No ongoing ride");
+		u1.startOngoingRide(net, b1, t1, c1);
+		assertEquals(1, u1.update());
+		u1.setAutoReroute(false);
+		assertEquals(0, u1.update());
+	}
+	
 	@Test
 	void testCannotStartSecondOngoingRide () throws OngoingRideException {
 		u1.startOngoingRide(net, b1, t1, c1);
@@ -0,0 +1,26 @@
+package ui.clui;
+
+/**
+ * This {@code enum} contains the types to which an {@code InstructionParser} converts the arguments of an instruction before the method of the {@code CommandLineController} is called.
+ * @author Pietro Dellino
+ * @see InstructionParser#argumentTypes(Command, int)
+ */
+public enum ArgumentType {
+	
+	STRING,
+	INT,
+	DOUBLE,
+	/**
+	 * A time with the format "yyyy-MM-dd HH:mm".
+	 */
+	TIME,
+	/**
+	 * The type of a bike, "electric" or "mechanic", converted to a constant of {@code BikeFactory}.
+	 */
+	BIKE_TYPE,
+	/**
+	 * The type of a card, "vlibre", "vmax" or "credit", converted to a constant of {@code CardFactory}.
+	 */
+	CARD_TYPE;
+
+}
@@ -0,0 +1,164 @@
+package ui.clui;
+
+import controller.ExistingNameException;
+import controller.InexistingNetworkNameException;
+import controller.InexistingSlotIdException;
+import controller.InexistingStationIdException;
+import controller.InexistingUserIdException;
+import station.NoBikeAvailableException;
+import station.NoOngoingRideException;
+import station.NoSlotAvailableException;
+import station.OngoingRideException;
+import station.StationOfflineException;
+import station.StationSamePositionException;
+import station.TypeStationException;
+import tools.NegativeTimeException;
+import tools.NullDateException;
+
+/**
+ * This class is an instruction of a file run by a {@code CommandBatch}. The instruction is parsed, and its arguments are checked and converted to their types,
+ * when the file is read. The error is kept if the instruction is not valid, so that it is displayed when the instruction would have been run.
+ * <br> An instruction can run on the thread of its network if it only changes this network. The instructions which give ids to new objects
+ * (the ids are shared by all the networks), create networks or read the keyboard are run one after the other, on the thread of the batch.
+ * <br> The converted arguments are kept, so that the instruction is run from them, by any thread, without being parsed again.
+ * @author Pietro Dellino
+ * @see CommandBatch
+ */
+public class BatchCommand {
+
+	private static final ThreadLocal<InstructionParser> PARSER = ThreadLocal.withInitial(InstructionParser::new);
+
+	private int line;
+	private String instruction;
+	private ParsedInstruction parsed;
+	private String network;
+	private Exception error;
+
+	private BatchCommand(int line, String instruction, ParsedInstruction parsed, String network, Exception error) {
+		this.line = line;
+		this.instruction = instruction;
+		this.parsed = parsed;
+		this.network = network;
+		this.error = error;
+	}
+
+	/**
+	 * This method parses an instruction. If it is not valid, the {@code BatchCommand} returned contains the error.
+	 * @param instruction
+	 * @param line the number of the line of the instruction in its file
+	 * @return a {@code BatchCommand}
+	 */
+	public static BatchCommand parse(String instruction, int line) {
+		InstructionParser p = PARSER.get();
+		try {
+			p.parse(instruction);
+			ParsedInstruction parsed = p.convert();
+			return new BatchCommand(line, instruction, parsed, network(parsed), null);
+		} catch (InvalidCommandException | InvalidArgumentsException e) {
+			return new BatchCommand(line, instruction, null, null, e);
+		}
+	}
+
+	/**
+	 * @param p a valid instruction
+	 * @return the name of the only network changed by the instruction, or {@code null} if the instruction has to run on the thread of the batch
+	 */
+	private static String network(ParsedInstruction p) {
+		switch (p.getCommand()) {
+		case STATION_ONLINE:
+		case STATION_OFFLINE:
+		case SLOT_ONLINE:
+		case SLOT_OFFLINE:
+		case ADD_SLOT:
+		case DISPLAY_USER:
+		case DISPLAY_STATION:
+		case DISPLAY:
+		case SORT_STATION:
+		case DISPLAY_ITINERARY:
+		case METRICS:
+		case LATENCY:
+		case LATENCY_LOG:
+		case LOAD_ROAD_GRAPH:
+		case ARCHIVE_RIDES:
+		case REBALANCE:
+			return p.getString(0);
+		case RETURN_BIKE:
+		case RENT_BIKE:
+			return p.getString(p.getArgCount() - 1);
+		default:
+			return null;
+		}
+	}
+
+	public int getLine() { return line; }
+
+	/**
+	 * @return the command, or {@code null} if the instruction is not valid
+	 */
+	public Command getCommand() { return parsed == null ? null : parsed.getCommand(); }
+
+	public String getInstruction() { return instruction; }
+
+	/**
+	 * @return the error of the instruction, or {@code null} if it is valid
+	 */
+	public Exception getError() { return error; }
+
+	/**
+	 * @return the name of the only network changed by the instruction, or {@code null} if the instruction has to run on the thread of the batch
+	 */
+	public String getNetwork() { return network; }
+
+	/**
+	 * @return whether the instruction prints on the console or reads the keyboard without the {@code CommandLineDisplay}, so that its output cannot be captured
+	 */
+	public boolean isInteractive() {
+		Command command = this.getCommand();
+		return command == Command.RUNTEST || command == Command.CALCULATE_ITINERARY;
+	}
+
+	/**
+	 * @return whether the instruction streams a text whose size depends on the size of the network (a network, a list of stations, metrics or a plan),
+	 * so that its output is written on the console as it is produced instead of being captured
+	 */
+	public boolean isStreamed() {
+		Command command = this.getCommand();
+		return command == Command.DISPLAY || command == Command.SORT_STATION || command == Command.METRICS || command == Command.LATENCY
+				|| command == Command.REBALANCE;
+	}
+
+	/**
+	 * This method runs the instruction, and displays the error if it fails, like {@code CommandLineController.runtest} does.
+	 * @param clr
+	 * @param clc
+	 * @param cld
+	 * @return whether the instruction succeeded
+	 */
+	public boolean run(CommandLineReader clr, CommandLineController clc, CommandLineDisplay cld) {
+		if (this.error != null) {
+			cld.display(this.error.getMessage());
+			return false;
+		}
+		try {
+			clr.interpreteCommand(this.parsed, clc);
+			return true;
+		} catch (ExistingNameException | InvalidArgumentsException
+				| InexistingNetworkNameException | InexistingStationIdException | InexistingSlotIdException
+				| NegativeTimeException | TypeStationException | StationSamePositionException
+				| InexistingUserIdException | NullDateException | NoSlotAvailableException
+				| NoOngoingRideException | StationOfflineException | OngoingRideException
+				| NoBikeAvailableException e) {
+			cld.display(e.getMessage());
+		} catch (Exception e) {
+			cld.display("An unknown error has occured.");
+			e.printStackTrace();
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return this.line + ": " + (this.parsed == null ? this.error.getMessage() : this.instruction);
+	}
+
+}
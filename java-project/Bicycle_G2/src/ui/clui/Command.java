@@ -22,8 +22,14 @@ public enum Command {
 	DISPLAY_STATION("displayStation", "displayStation <networkName> <stationID>"),
 	DISPLAY("display", "display <networkName>"),
 	SORT_STATION("sortStation", "sortStation <networkName> <sortingStrategy> <startTime> <endTime> (the sorting strategy can be \"more-used\" or \"least-occupied\")"),
-	CALCULATE_ITINERARY("calculateItinerary", "calculateItinerary <networkName> <userID> <startX> <startY> <destinationX> <destinationY> <pathStrategy>"),
-	DISPLAY_ITINERARY("displayItinerary", "displayItinerary <userID> <networkName>");
+	CALCULATE_ITINERARY("calculateItinerary", "calculateItinerary <networkName> <userID> <startX> <startY> <destinationX> <destinationY> <pathStrategy> (the path strategy can be \"minimal-walking\", \"fastest-path\", \"prefer-plus\", \"avoid-plus\", \"uniformity\" or \"road-graph\" once a road graph is loaded)"),
+	DISPLAY_ITINERARY("displayItinerary", "displayItinerary <userID> <networkName>"),
+	METRICS("metrics", "metrics <networkName>"),
+	LATENCY("latency", "latency <networkName> or latency <networkName> <stationID>"),
+	LATENCY_LOG("latencyLog", "latencyLog <networkName> <fileName> <periodSeconds> (a period of 0 stops the log)"),
+	LOAD_ROAD_GRAPH("loadRoadGraph", "loadRoadGraph <networkName> <fileName> (loads the graph of the roads used by the \"road-graph\" path strategy)"),
+	ARCHIVE_RIDES("archiveRides", "archiveRides <networkName> <directory> <recentRides> (writes the rides that end to files, and only keeps the last ones in memory)"),
+	REBALANCE("rebalance", "rebalance <networkName> <time> <hours> <trucks> <truckCapacity> (plans the routes of trucks moving bikes to the stations expected to run out of them)");
 	
 	
 	private String keyword;
@@ -36,5 +42,50 @@ public enum Command {
 	
 	public String getKeyword() { return this.keyword; }
 	public String getFormat() { return this.commandFormat; }
-
+	
+	/**
+	 * @param n
+	 * @return whether the method of {@code CommandLineController} for this command accepts n arguments
+	 */
+	public boolean isValidLength(int n) {
+		switch (this) {
+		case SETUP:
+			return n == 1 || n == 5;
+		case RUNTEST:
+		case DISPLAY:
+		case METRICS:
+			return n == 1;
+		case STATION_ONLINE:
+		case STATION_OFFLINE:
+		case DISPLAY_USER:
+		case DISPLAY_STATION:
+		case DISPLAY_ITINERARY:
+		case LOAD_ROAD_GRAPH:
+			return n == 2;
+		case LATENCY:
+			return n == 1 || n == 2;
+		case SLOT_ONLINE:
+		case SLOT_OFFLINE:
+		case ADD_SLOT:
+		case ADD_USER:
+		case LATENCY_LOG:
+		case ARCHIVE_RIDES:
+			return n == 3;
+		case ADD_BIKE:
+			return n == 3 || n == 4;
+		case RETURN_BIKE:
+		case SORT_STATION:
+			return n == 4;
+		case RENT_BIKE:
+			return n == 4 || n == 5;
+		case ADD_STATION:
+		case REBALANCE:
+			return n == 5;
+		case CALCULATE_ITINERARY:
+			return n == 7;
+		default:
+			return false;
+		}
+	}
+	
 }
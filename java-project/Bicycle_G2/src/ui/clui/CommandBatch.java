@@ -0,0 +1,198 @@
+package ui.clui;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import controller.InexistingNetworkNameException;
+import controller.NetworkExecutor;
+import ride.Network;
+import station.NotificationDispatcher;
+
+/**
+ * This class runs the instructions of a file, such as a test scenario or a setup file. The whole file is parsed and checked before the first instruction is run.
+ * <br> The instructions are run by groups of consecutive instructions which each change only one network (see {@link BatchCommand#getNetwork()}):
+ * the instructions of a group are split by network, and the instructions of each network are run in order on the thread of the network,
+ * given by a {@code NetworkExecutor}, so that the networks are changed in parallel. The other instructions are run alone, on the thread of the batch.
+ * <br> The output of each instruction is captured, and the outputs of a group are written in the order of the file, all at once.
+ * The instructions which stream a large text (see {@link BatchCommand#isStreamed()}) are not captured: they are run alone, on the thread of their network,
+ * and their text is written on the console as it is produced, so that it is never kept in memory.
+ * <br> The notifications asked by an instruction are displayed in its output, although they are sent in the threads of the {@code NotificationDispatcher}:
+ * the batch waits for them after each group and after each instruction run alone, before it writes the outputs.
+ * The output is therefore the same as if the instructions were run one after the other.
+ * @author Pietro Dellino
+ * @see BatchCommand
+ * @see CommandLineController#runtest(String)
+ */
+public class CommandBatch {
+
+	/**
+	 * The maximal number of instructions of a group, which bounds the size of the outputs kept in memory, since each captured output is a few lines.
+	 */
+	public static final int GROUP_SIZE = 1 << 14;
+
+	/**
+	 * The longest time to wait for the notifications of a group, in milliseconds.
+	 */
+	public static final long NOTIFICATION_TIMEOUT = 10000;
+
+	private ArrayList<BatchCommand> commands;
+	private CommandLineReader clr;
+	private CommandLineDisplay cld;
+	private int errors;
+
+	private CommandBatch(ArrayList<BatchCommand> commands, CommandLineReader clr) {
+		this.commands = commands;
+		this.clr = clr;
+		this.cld = new CommandLineDisplay();
+		for (BatchCommand c : commands) {
+			if (c.getError() != null) this.errors++;
+		}
+	}
+
+	/**
+	 * This method parses all the instructions of a file.
+	 * @param reader
+	 * @param clr
+	 * @return a {@code CommandBatch}
+	 * @throws IOException
+	 */
+	public static CommandBatch read(BufferedReader reader, CommandLineReader clr) throws IOException {
+		ArrayList<BatchCommand> commands = new ArrayList<BatchCommand>();
+		String line = reader.readLine();
+		while (line != null) {
+			commands.add(BatchCommand.parse(line, commands.size() + 1));
+			line = reader.readLine();
+		}
+		return new CommandBatch(commands, clr);
+	}
+
+	public List<BatchCommand> getCommands() { return commands; }
+
+	/**
+	 * @return the number of instructions which are not valid
+	 */
+	public int getErrors() { return errors; }
+
+	/**
+	 * This method runs the instructions with their output captured.
+	 * @return the number of instructions which failed
+	 */
+	private int runCaptured(List<BatchCommand> list, CommandLineController clc, StringBuilder[] outputs, int[] indices, int offset) {
+		int failed = 0;
+		for (int k = 0; k < list.size(); k++) {
+			CommandLineDisplay.startCapture();
+			try {
+				if (!list.get(k).run(this.clr, clc, this.cld)) failed++;
+			} finally {
+				outputs[indices[k] - offset] = CommandLineDisplay.stopCapture();
+			}
+		}
+		return failed;
+	}
+
+	/**
+	 * This method runs an instruction without capturing its output, on the thread of its network, and waits for it.
+	 * @return whether the instruction succeeded
+	 */
+	private boolean runStreamed(BatchCommand command, CommandLineController clc, NetworkExecutor ex) {
+		Network net = null;
+		try {
+			net = ex.getNetworkManager().findNetworkByName(command.getNetwork());
+		} catch (InexistingNetworkNameException e) {}
+		if (net == null) {
+			return command.run(this.clr, clc, this.cld);
+		}
+		return ex.submit(net, () -> command.run(this.clr, clc, this.cld)).join();
+	}
+
+	/**
+	 * This method waits until the notifications asked by the instructions which were run have been displayed.
+	 */
+	static void awaitNotifications() {
+		try {
+			NotificationDispatcher.getInstance().awaitIdle(NOTIFICATION_TIMEOUT);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * This method runs all the instructions, and writes their output on {@code System.out}.
+	 * @param clc the {@code CommandLineController} of the networks
+	 * @param ex a {@code NetworkExecutor} of the {@code NetworkManager} of {@code clc}
+	 * @return the number of instructions which failed
+	 */
+	public int run(CommandLineController clc, NetworkExecutor ex) {
+		PrintStream out = System.out;
+		int failed = 0;
+		int n = this.commands.size();
+		int i = 0;
+		while (i < n) {
+			BatchCommand first = this.commands.get(i);
+			if (first.isInteractive()) {
+				out.flush();
+				if (!first.run(this.clr, clc, this.cld)) failed++;
+				awaitNotifications();
+				i++;
+				continue;
+			}
+			if (first.isStreamed()) {
+				out.flush();
+				if (!this.runStreamed(first, clc, ex)) failed++;
+				awaitNotifications();
+				i++;
+				continue;
+			}
+			int j = i + 1;
+			if (first.getNetwork() != null) {
+				while (j < n && j - i < GROUP_SIZE && this.commands.get(j).getNetwork() != null && !this.commands.get(j).isStreamed()) j++;
+			}
+			LinkedHashMap<String, ArrayList<Integer>> byNetwork = new LinkedHashMap<String, ArrayList<Integer>>();
+			for (int k = i; k < j; k++) {
+				String name = this.commands.get(k).getNetwork();
+				byNetwork.computeIfAbsent(name == null ? "" : name, key -> new ArrayList<Integer>()).add(k);
+			}
+			StringBuilder[] outputs = new StringBuilder[j - i];
+			ArrayList<CompletableFuture<Integer>> results = new ArrayList<CompletableFuture<Integer>>();
+			for (String name : byNetwork.keySet()) {
+				ArrayList<Integer> list = byNetwork.get(name);
+				int[] indices = new int[list.size()];
+				ArrayList<BatchCommand> group = new ArrayList<BatchCommand>();
+				for (int k = 0; k < indices.length; k++) {
+					indices[k] = list.get(k);
+					group.add(this.commands.get(indices[k]));
+				}
+				Network net = null;
+				try {
+					net = name.isEmpty() ? null : ex.getNetworkManager().findNetworkByName(name);
+				} catch (InexistingNetworkNameException e) {}
+				int offset = i;
+				if (net == null) {
+					results.add(CompletableFuture.completedFuture(this.runCaptured(group, clc, outputs, indices, offset)));
+				} else {
+					results.add(ex.submit(net, () -> this.runCaptured(group, clc, outputs, indices, offset)));
+				}
+			}
+			for (CompletableFuture<Integer> r : results) {
+				failed += r.join();
+			}
+			awaitNotifications();
+			StringBuilder sb = new StringBuilder();
+			for (StringBuilder s : outputs) {
+				synchronized (s) {
+					sb.append(s);
+				}
+			}
+			out.print(sb);
+			i = j;
+		}
+		out.flush();
+		return failed;
+	}
+
+}
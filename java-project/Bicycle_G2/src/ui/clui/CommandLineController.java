@@ -1,7 +1,10 @@
 package ui.clui;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.PrintStream;
@@ -15,8 +18,13 @@ import ride.Network;
 import ride.path.AvoidPlusStrategy;
 import ride.path.FastestPathStrategy;
 import ride.path.MinimalWalkingStrategy;
+import ride.path.PathStrategy;
 import ride.path.PreferPlusStrategy;
+import ride.path.RoadGraph;
+import ride.path.RoadGraphStrategy;
+import ride.path.TimedPathStrategy;
 import ride.path.UniformityStrategy;
+import rebalancing.RebalancingPlanner;
 import sorting.station.LeastOccupiedStation;
 import sorting.station.MoreUsedStation;
 import station.NoBikeAvailableException;
@@ -30,14 +38,13 @@ import station.Station;
 import station.StationOfflineException;
 import station.StationSamePositionException;
 import station.TypeStationException;
-import tools.Date;
 import tools.NegativeTimeException;
 import tools.NullDateException;
 import tools.Point;
 import user.User;
 
 /**
- * This class contains all the methods that can be used in the command line. Every methods take {@code String[]} arguments in order to be compatible with {@link CommandLineReader#parseArgs(String)}.
+ * This class contains all the methods that can be used in the command line. Their arguments have the types to which {@code InstructionParser} converts the arguments of the instructions.
  * @author Pietro Dellino
  *
  */
@@ -53,161 +60,107 @@ public class CommandLineController {
 		this.nm = new NetworkManager();
 	}
 	
+	public NetworkManager getNetworkManager() { return this.nm; }
+	
 	/**
 	 * This method applies command line instructions of the form: <br>
 	 * {@code setup <networkName>} <br>
 	 * or <br>
 	 * {@code setup <networkName> <nStations> <nSlots> <side> <nBikes>}
-	 * @param args an array of {@code String}
 	 * @throws ExistingNameException
-	 * @throws InvalidArgumentsException
 	 */
-	public void setup(String[] args) throws ExistingNameException, InvalidArgumentsException {
-		if (args.length == 1) {
-			nm.setupNetwork(args[0]);
-		} else if (args.length == 5) {
-			String name = args[0];
-			int nStat = Integer.parseInt(args[1]);
-			int nSlot = Integer.parseInt(args[2]);
-			double side = Double.parseDouble(args[3]);
-			int nBikes = Integer.parseInt(args[4]);
-			nm.setupNetwork(name, nStat, nSlot, side, nBikes);
-		} else {
-			throw new InvalidArgumentsException();
-		}
-		cld.display("Network \"" + args[0] + "\" setup successfully.");
+	public void setup(String name) throws ExistingNameException {
+		nm.setupNetwork(name);
+		cld.display("Network \"" + name + "\" setup successfully.");
+	}
+	
+	/**
+	 * @see #setup(String)
+	 */
+	public void setup(String name, int nStat, int nSlot, double side, int nBikes) throws ExistingNameException {
+		nm.setupNetwork(name, nStat, nSlot, side, nBikes);
+		cld.display("Network \"" + name + "\" setup successfully.");
 	}
 	
 	/**
 	 * This method applies command line instructions of the form: <br>
 	 * {@code stationOnline <networkName> <stationID>}
-	 * @param args an array of {@code String}
 	 * @throws InexistingNetworkNameException
 	 * @throws InexistingStationIdException
-	 * @throws InvalidArgumentsException
 	 */
-	public void stationOnline(String[] args) throws InexistingNetworkNameException, InexistingStationIdException, InvalidArgumentsException {
-		if (args.length == 2) {
-			String netName = args[0];
-			int stationId = Integer.parseInt(args[1]);
-			nm.setStationOnline(netName, stationId);
-			cld.display("Station" + stationId + " is now online.");
-		} else {
-			throw new InvalidArgumentsException();
-		}
+	public void stationOnline(String netName, int stationId) throws InexistingNetworkNameException, InexistingStationIdException {
+		nm.setStationOnline(netName, stationId);
+		cld.display("Station" + stationId + " is now online.");
 	}
 	
 	/**
 	 * This method applies command line instructions of the form: <br>
 	 * {@code stationOffline <networkName> <stationID>}
-	 * @param args an array of {@code String}
 	 * @throws InexistingNetworkNameException
 	 * @throws InexistingStationIdException
-	 * @throws InvalidArgumentsException
 	 */
-	public void stationOffline(String[] args) throws InexistingNetworkNameException, InexistingStationIdException, InvalidArgumentsException {
-		if (args.length == 2) {
-			String netName = args[0];
-			int stationId = Integer.parseInt(args[1]);
-			nm.setStationOffline(netName, stationId);
-			cld.display("Station" + stationId + " is now offline.");
-		} else {
-			throw new InvalidArgumentsException();
-		}
+	public void stationOffline(String netName, int stationId) throws InexistingNetworkNameException, InexistingStationIdException {
+		nm.setStationOffline(netName, stationId);
+		cld.display("Station" + stationId + " is now offline.");
 	}
 	
 	/**
 	 * This method applies command line instructions of the form: <br>
 	 * {@code slotOnline <networkName> <slotID> <time>} <br>
 	 * The {@code time} has to be on the following format: {@code YYYY-MM-dd HH:mm}
-	 * @param args an array of {@code String}
 	 * @throws InexistingNetworkNameException
 	 * @throws InexistingSlotIdException
 	 * @throws NegativeTimeException
-	 * @throws InvalidArgumentsException
 	 */
-	public void slotOnline(String[] args) throws InexistingNetworkNameException, InexistingSlotIdException, NegativeTimeException, InvalidArgumentsException {
-		if (args.length == 3) {
-			String netName = args[0];
-			int slotId = Integer.parseInt(args[1]);
-			LocalDateTime time = Date.dateInput(args[2]);
-			nm.setSlotOnline(netName, slotId, time);
-			cld.display("Slot" + slotId + " is now online.");
-		} else {
-			throw new InvalidArgumentsException();
-		}
+	public void slotOnline(String netName, int slotId, LocalDateTime time) throws InexistingNetworkNameException, InexistingSlotIdException, NegativeTimeException {
+		nm.setSlotOnline(netName, slotId, time);
+		cld.display("Slot" + slotId + " is now online.");
 	}
 	
 	/**
 	 * This method applies command line instructions of the form: <br>
 	 * {@code slotOffline <networkName> <slotID> <time>} <br>
 	 * The {@code time} has to be on the following format: {@code YYYY-MM-dd HH:mm}
-	 * @param args an array of {@code String}
 	 * @throws InexistingNetworkNameException
 	 * @throws InexistingSlotIdException
 	 * @throws NegativeTimeException
-	 * @throws InvalidArgumentsException
 	 */
-	public void slotOffline(String[] args) throws InexistingNetworkNameException, InexistingSlotIdException, NegativeTimeException, InvalidArgumentsException {
-		if (args.length == 3) {
-			String netName = args[0];
-			int slotId = Integer.parseInt(args[1]);
-			LocalDateTime time = Date.dateInput(args[2]);
-			nm.setSlotOffline(netName, slotId, time);
-			cld.display("Slot" + slotId + " is now offline.");
-		} else {
-			throw new InvalidArgumentsException();
-		}
+	public void slotOffline(String netName, int slotId, LocalDateTime time) throws InexistingNetworkNameException, InexistingSlotIdException, NegativeTimeException {
+		nm.setSlotOffline(netName, slotId, time);
+		cld.display("Slot" + slotId + " is now offline.");
 	}
 	
 	/**
 	 * This method applies command line instructions of the form: <br>
 	 * {@code addStation <networkName> <type> <numSlots> <positionX> <positionY>} <br>
 	 * The type has to be {@code stardard} or {@code plus}. The case is ignored.
-	 * @param args an array of {@code String}
 	 * @throws InexistingNetworkNameException 
 	 * @throws StationSamePositionException 
 	 * @throws TypeStationException 
 	 * @throws InvalidArgumentsException 
 	 */
-	public void addStation(String[] args) throws InexistingNetworkNameException, TypeStationException, StationSamePositionException, InvalidArgumentsException {
-		if (args.length == 5) {
-			String name = args[0];
-			Network net = nm.findNetworkByName(name);
-			int nSlots = Integer.parseInt(args[2]);
-			double x = Double.parseDouble(args[3]);
-			double y = Double.parseDouble(args[4]);
-			if (args[1].equalsIgnoreCase("plus")) {
-				nm.addPlusStation(net, nSlots, x, y);
-			} else if (args[1].equalsIgnoreCase("standard")) {
-				nm.addStandardStation(net, nSlots, x, y);
-			} else {
-				throw new InvalidArgumentsException();
-			}
-			cld.display("Station added successfully to network \"" + name + "\".");
+	public void addStation(String name, String type, int nSlots, double x, double y) throws InexistingNetworkNameException, TypeStationException, StationSamePositionException, InvalidArgumentsException {
+		Network net = nm.findNetworkByName(name);
+		if (type.equalsIgnoreCase("plus")) {
+			nm.addPlusStation(net, nSlots, x, y);
+		} else if (type.equalsIgnoreCase("standard")) {
+			nm.addStandardStation(net, nSlots, x, y);
 		} else {
 			throw new InvalidArgumentsException();
 		}
+		cld.display("Station added successfully to network \"" + name + "\".");
 	}
 	
 	/**
 	 * This method applies command line instructions of the form: <br>
 	 * {@code addSlot <networkName> <stationID> <numSlots>}
-	 * @param args an array of {@code String}
 	 * @throws InexistingNetworkNameException 
 	 * @throws InexistingStationIdException 
-	 * @throws InvalidArgumentsException 
 	 */
-	public void addSlot(String[] args) throws InexistingNetworkNameException, InexistingStationIdException, InvalidArgumentsException {
-		if (args.length == 3) {
-			Network net = nm.findNetworkByName(args[0]);
-			int stationID = Integer.parseInt(args[1]);
-			int numSlots = Integer.parseInt(args[2]);
-			nm.addSlot(net, stationID, numSlots);
-			cld.display("Slot added successfully to station" + stationID + ".");
-		} else {
-			throw new InvalidArgumentsException();
-		}
+	public void addSlot(String netName, int stationID, int numSlots) throws InexistingNetworkNameException, InexistingStationIdException {
+		Network net = nm.findNetworkByName(netName);
+		nm.addSlot(net, stationID, numSlots);
+		cld.display("Slot added successfully to station" + stationID + ".");
 	}
 	
 	/**
@@ -217,39 +170,36 @@ public class CommandLineController {
 	 * {@code addBike <networkName> <stationID> <type> <time>}
 	 * The {@code time} has to be on the following format: {@code YYYY-MM-dd HH:mm}
 	 * The type has to be {@code electric} or {@code mechanic}. The case is ignored.
-	 * @param args an array of {@code String}
+	 * @param netName
+	 * @param bikeType a constant of {@code BikeFactory}
+	 * @param time
 	 * @throws InexistingNetworkNameException 
 	 * @throws NegativeTimeException 
-	 * @throws InvalidArgumentsException 
-	 * @throws InexistingStationIdException 
-	 * @throws NoSlotAvailableException 
 	 */
-	public void addBike(String[] args) throws InexistingNetworkNameException, NegativeTimeException, InvalidArgumentsException, InexistingStationIdException, NoSlotAvailableException {
-		if (args.length == 3) {
-			Network net = nm.findNetworkByName(args[0]);
-			LocalDateTime time = Date.dateInput(args[2]);
-			if (args[1].equalsIgnoreCase("electric")) {
-				nm.addElectricBike(net, time);
-			} else if (args[1].equalsIgnoreCase("mechanic")) {
-				nm.addMechanicBike(net, time);
-			} else {
-				throw new InvalidArgumentsException();
-			}
-			cld.display("Bike added successfully.");
-		} else if (args.length == 4) {
-			Network net = nm.findNetworkByName(args[0]);
-			LocalDateTime time = Date.dateInput(args[3]);
-			int id = Integer.parseInt(args[1]);
-			Station s = nm.findStationByID(id, net);
-			if (args[2].equalsIgnoreCase("electric")) {
-				nm.addElectricBike(net, s, time);
-			} else if (args[2].equalsIgnoreCase("mechanic")) {
-				nm.addMechanicBike(net, s, time);
-			} else {
-				throw new InvalidArgumentsException();
-			}
+	public void addBike(String netName, int bikeType, LocalDateTime time) throws InexistingNetworkNameException, NegativeTimeException {
+		Network net = nm.findNetworkByName(netName);
+		if (bikeType == BikeFactory.ELECTRIC) {
+			nm.addElectricBike(net, time);
 		} else {
-			throw new InvalidArgumentsException();
+			nm.addMechanicBike(net, time);
+		}
+		cld.display("Bike added successfully.");
+	}
+	
+	/**
+	 * @param netName
+	 * @param stationId
+	 * @param bikeType a constant of {@code BikeFactory}
+	 * @param time
+	 * @see #addBike(String, int, LocalDateTime)
+	 */
+	public void addBike(String netName, int stationId, int bikeType, LocalDateTime time) throws InexistingNetworkNameException, InexistingStationIdException, NoSlotAvailableException {
+		Network net = nm.findNetworkByName(netName);
+		Station s = nm.findStationByID(stationId, net);
+		if (bikeType == BikeFactory.ELECTRIC) {
+			nm.addElectricBike(net, s, time);
+		} else {
+			nm.addMechanicBike(net, s, time);
 		}
 	}
 	
@@ -257,54 +207,34 @@ public class CommandLineController {
 	 * This method applies command line instructions of the form: <br>
 	 * {@code addUser <username> <cardType> <networkName>} <br>
 	 * The type has to be {@code vlibre}, {@code vmax} or {@code credit}. The case is ignored.
-	 * @param args an array of {@code String}
+	 * @param userName
+	 * @param cardType a constant of {@code CardFactory}
+	 * @param netName
 	 * @throws InexistingNetworkNameException 
-	 * @throws InvalidArgumentsException 
 	 */
-	public void addUser(String[] args) throws InexistingNetworkNameException, InvalidArgumentsException {
-		if (args.length == 3) {
-			if (args[1].equalsIgnoreCase("vlibre")) {
-				nm.addUser(args[0], CardFactory.VLIBRE, args[2]);
-			} else if (args[1].equalsIgnoreCase("vmax")) {
-				nm.addUser(args[0], CardFactory.VMAX, args[2]);
-			} else if (args[1].equalsIgnoreCase("credit")) {
-				nm.addUser(args[0], CardFactory.CREDIT, args[2]);
-			} else {
-				throw new InvalidArgumentsException();
-			}
-			cld.display("User added successfully.");
-		} else {
-			throw new InvalidArgumentsException();
-		}
+	public void addUser(String userName, int cardType, String netName) throws InexistingNetworkNameException {
+		nm.addUser(userName, cardType, netName);
+		cld.display("User added successfully.");
 	}
 	
 	/**
 	 * This method applies command line instructions of the form: <br>
 	 * {@code returnBike <userID> <stationID> <time> <networkName>} <br>
 	 * The {@code time} has to be on the following format: {@code YYYY-MM-dd HH:mm}
-	 * @param args an array of {@code String}
 	 * @throws InexistingNetworkNameException 
 	 * @throws NullDateException 
 	 * @throws NegativeTimeException 
 	 * @throws InexistingStationIdException 
 	 * @throws InexistingUserIdException 
-	 * @throws InvalidArgumentsException 
 	 * @throws StationOfflineException 
 	 * @throws NoOngoingRideException 
 	 * @throws NoSlotAvailableException 
 	 * @throws OngoingRideException 
 	 */
-	public void returnBike(String[] args) throws InexistingNetworkNameException, InexistingUserIdException, InexistingStationIdException, NegativeTimeException, NullDateException, InvalidArgumentsException, NoSlotAvailableException, NoOngoingRideException, StationOfflineException, OngoingRideException {
-		if (args.length == 4) {
-			int userID = Integer.parseInt(args[0]);
-			int stationID = Integer.parseInt(args[1]);
-			LocalDateTime time = Date.dateInput(args[2]);
-			Network net = nm.findNetworkByName(args[3]);
-			double price = nm.returnBike(userID, stationID, time, net);
-			cld.display(String.format("Bike successfully returned at station" + stationID + " by user" + userID + ". The price of the ride is %.2f euros.", price));
-		} else {
-			throw new InvalidArgumentsException();
-		}
+	public void returnBike(int userID, int stationID, LocalDateTime time, String netName) throws InexistingNetworkNameException, InexistingUserIdException, InexistingStationIdException, NegativeTimeException, NullDateException, NoSlotAvailableException, NoOngoingRideException, StationOfflineException, OngoingRideException {
+		Network net = nm.findNetworkByName(netName);
+		double price = nm.returnBike(userID, stationID, time, net);
+		cld.display(String.format("Bike successfully returned at station" + stationID + " by user" + userID + ". The price of the ride is %.2f euros.", price));
 	}
 	
 	/**
@@ -312,98 +242,66 @@ public class CommandLineController {
 	 * {@code rentBike <userID> <stationID> <bikeType> <time> <networkName>} <br>
 	 * The {@code time} has to be on the following format: {@code YYYY-MM-dd HH:mm}
 	 * The type has to be {@code electric} or {@code mechanic}. The case is ignored. The type is optional, if it is not written, any bike will be rented.
-	 * @param args an array of {@code String}
 	 * @throws InexistingNetworkNameException 
 	 * @throws NegativeTimeException 
 	 * @throws InexistingStationIdException 
 	 * @throws InexistingUserIdException 
-	 * @throws InvalidArgumentsException 
 	 * @throws StationOfflineException 
 	 * @throws NoBikeAvailableException 
 	 * @throws OngoingRideException 
-	 * @throws NoMechanicBikeAvailableException 
-	 * @throws NoElectricBikeAvailableException 
-	 */
-	public void rentBike(String[] args) throws InexistingNetworkNameException, InexistingUserIdException, InexistingStationIdException, NegativeTimeException, InvalidArgumentsException, OngoingRideException, NoBikeAvailableException, StationOfflineException, NoElectricBikeAvailableException, NoMechanicBikeAvailableException {
-		if (args.length == 4) {
-			int userID = Integer.parseInt(args[0]);
-			int stationID = Integer.parseInt(args[1]);
-			LocalDateTime time = Date.dateInput(args[2]);
-			Network net = nm.findNetworkByName(args[3]);
-			nm.rentBike(userID, stationID, time, net);
-			cld.display("Bike successfully rented at station" + stationID + " by user" + userID + ".");
-		} else if (args.length == 5) {
-			int userID = Integer.parseInt(args[0]);
-			int stationID = Integer.parseInt(args[1]);
-			int bikeType;
-			if (args[2].equalsIgnoreCase("mechanic")) {
-				bikeType = BikeFactory.MECHANIC;
-			} else if (args[2].equalsIgnoreCase("electric")) {
-				bikeType = BikeFactory.ELECTRIC;
-			} else {
-				throw new InvalidArgumentsException();
-			}
-			LocalDateTime time = Date.dateInput(args[3]);
-			Network net = nm.findNetworkByName(args[4]);
-			nm.rentBike(userID, stationID, bikeType, time, net);
-			cld.display("Bike successfully rented at station" + stationID + " by user" + userID + ".");
-		} else {
-			throw new InvalidArgumentsException();
-		}
+	 */
+	public void rentBike(int userID, int stationID, LocalDateTime time, String netName) throws InexistingNetworkNameException, InexistingUserIdException, InexistingStationIdException, NegativeTimeException, OngoingRideException, NoBikeAvailableException, StationOfflineException {
+		Network net = nm.findNetworkByName(netName);
+		nm.rentBike(userID, stationID, time, net);
+		cld.display("Bike successfully rented at station" + stationID + " by user" + userID + ".");
+	}
+	
+	/**
+	 * @param userID
+	 * @param stationID
+	 * @param bikeType a constant of {@code BikeFactory}
+	 * @param time
+	 * @param netName
+	 * @see #rentBike(int, int, LocalDateTime, String)
+	 */
+	public void rentBike(int userID, int stationID, int bikeType, LocalDateTime time, String netName) throws InexistingNetworkNameException, InexistingUserIdException, InexistingStationIdException, NegativeTimeException, OngoingRideException, StationOfflineException, NoElectricBikeAvailableException, NoMechanicBikeAvailableException {
+		Network net = nm.findNetworkByName(netName);
+		nm.rentBike(userID, stationID, bikeType, time, net);
+		cld.display("Bike successfully rented at station" + stationID + " by user" + userID + ".");
 	}
 	
 	/**
 	 * This method applies command line instructions of the form: <br>
 	 * {@code displayStation <networkName> <stationID>}
-	 * @param args an array of {@code String}
 	 * @throws InexistingNetworkNameException
 	 * @throws InexistingStationIdException
-	 * @throws InvalidArgumentsException
 	 */
-	public void displayStation(String[] args) throws InexistingNetworkNameException, InexistingStationIdException, InvalidArgumentsException {
-		if (args.length == 2) {
-			Network net = nm.findNetworkByName(args[0]);
-			int id = Integer.parseInt(args[1]);
-			Station s = nm.findStationByID(id, net);
-			cld.display(s);
-		} else {
-			throw new InvalidArgumentsException();
-		}
+	public void displayStation(String netName, int id) throws InexistingNetworkNameException, InexistingStationIdException {
+		Network net = nm.findNetworkByName(netName);
+		Station s = nm.findStationByID(id, net);
+		cld.display(s);
 	}
 	
 	/**
 	 * This method applies command line instructions of the form: <br>
 	 * {@code displayUser <networkName> <userID>}
-	 * @param args an array of {@code String}
 	 * @throws InexistingNetworkNameException
 	 * @throws InexistingUserIdException
-	 * @throws InvalidArgumentsException
 	 */
-	public void displayUser(String[] args) throws InexistingNetworkNameException, InexistingUserIdException, InvalidArgumentsException {
-		if (args.length == 2) {
-			Network net = nm.findNetworkByName(args[0]);
-			int id = Integer.parseInt(args[1]);
-			User u = nm.findUserById(id, net);
-			cld.display(u);
-		} else {
-			throw new InvalidArgumentsException();
-		}
+	public void displayUser(String netName, int id) throws InexistingNetworkNameException, InexistingUserIdException {
+		Network net = nm.findNetworkByName(netName);
+		User u = nm.findUserById(id, net);
+		cld.display(u);
 	}
 	
 	/**
 	 * This method applies command line instructions of the form: <br>
 	 * {@code display <networkName>}
-	 * @param args an array of {@code String}
 	 * @throws InexistingNetworkNameException
-	 * @throws InvalidArgumentsException
 	 */
-	public void display(String[] args) throws InexistingNetworkNameException, InvalidArgumentsException {
-		if (args.length == 1) {
-			Network net = nm.findNetworkByName(args[0]);
-			cld.display(net);
-		} else {
-			throw new InvalidArgumentsException();
-		}
+	public void display(String netName) throws InexistingNetworkNameException {
+		Network net = nm.findNetworkByName(netName);
+		cld.display(net);
 	}
 	
 	/**
@@ -411,26 +309,18 @@ public class CommandLineController {
 	 * {@code sortStation <networkName> <sortingStrategy> <startTime> <endTime>} <br>
 	 * {@code startTime} and {@code endTime} have to be on the following format: {@code YYYY-MM-dd HH:mm}
 	 * The sorting strategy can be {@code more-used} or {@code least-occupied}.
-	 * @param args an array of {@code String}
 	 * @throws InexistingNetworkNameException
 	 * @throws InvalidArgumentsException
 	 * @throws NullDateException 
 	 * @throws NegativeTimeException 
 	 * @throws NoSlotStateAtDateException 
 	 */
-	public void sortStation(String[] args) throws InexistingNetworkNameException, InvalidArgumentsException, NoSlotStateAtDateException, NegativeTimeException, NullDateException {
-		if (args.length == 4) {
-			Network net = nm.findNetworkByName(args[0]);
-			LocalDateTime startTime = Date.dateInput(args[2]);
-			LocalDateTime endTime = Date.dateInput(args[3]);
-			if (args[1].equalsIgnoreCase("least-occupied")) {
-				cld.displaySortedStations(net, new LeastOccupiedStation(startTime, endTime), startTime, endTime);
-			} else if (args[1].equalsIgnoreCase("more-used")) {
-				cld.displaySortedStations(net, new MoreUsedStation(), startTime, endTime);
-			} else {
-				throw new InvalidArgumentsException();
-			}
-
+	public void sortStation(String netName, String strategy, LocalDateTime startTime, LocalDateTime endTime) throws InexistingNetworkNameException, InvalidArgumentsException, NoSlotStateAtDateException, NegativeTimeException, NullDateException {
+		Network net = nm.findNetworkByName(netName);
+		if (strategy.equalsIgnoreCase("least-occupied")) {
+			cld.displaySortedStations(net, new LeastOccupiedStation(startTime, endTime), startTime, endTime);
+		} else if (strategy.equalsIgnoreCase("more-used")) {
+			cld.displaySortedStations(net, new MoreUsedStation(), startTime, endTime);
 		} else {
 			throw new InvalidArgumentsException();
 		}
@@ -444,31 +334,27 @@ public class CommandLineController {
 	 * @throws InvalidArgumentsException
 	 * @throws InexistingNetworkNameException 
 	 */
-	public void calculateItinerary(String[] args) throws InexistingUserIdException, InvalidArgumentsException, InexistingNetworkNameException {
-		if (args.length == 7) {
-			Network net = nm.findNetworkByName(args[0]);
-			int id = Integer.parseInt(args[1]);
-			double startX = Double.parseDouble(args[2]);
-			double startY = Double.parseDouble(args[3]);
-			double destX = Double.parseDouble(args[4]);
-			double destY = Double.parseDouble(args[5]);
-			Point start = new Point(startX, startY);
-			Point destination = new Point(destX, destY);
+	public void calculateItinerary(String netName, int id, Point start, Point destination, String strategy) throws InexistingUserIdException, InvalidArgumentsException, InexistingNetworkNameException {
+		{
+			Network net = nm.findNetworkByName(netName);
 			User u = nm.findUserById(id, net);
-			Itinerary it;
-			if (args[6].equalsIgnoreCase("minimal-walking")) {
-				it = u.calculateItinerary(start, destination, new MinimalWalkingStrategy(net));
-			} else if (args[6].equalsIgnoreCase("fastest-path")) {
-				it = u.calculateItinerary(start, destination, new FastestPathStrategy(net));
-			} else if (args[6].equalsIgnoreCase("prefer-plus")) {
-				it = u.calculateItinerary(start, destination, new PreferPlusStrategy(net));
-			} else if (args[6].equalsIgnoreCase("avoid-plus")) {
-				it = u.calculateItinerary(start, destination, new AvoidPlusStrategy(net));
-			} else if (args[6].equalsIgnoreCase("uniformity")) {
-				it = u.calculateItinerary(start, destination, new UniformityStrategy(net));
+			PathStrategy ps;
+			if (strategy.equalsIgnoreCase("minimal-walking")) {
+				ps = new MinimalWalkingStrategy(net);
+			} else if (strategy.equalsIgnoreCase("fastest-path")) {
+				ps = new FastestPathStrategy(net);
+			} else if (strategy.equalsIgnoreCase("prefer-plus")) {
+				ps = new PreferPlusStrategy(net);
+			} else if (strategy.equalsIgnoreCase("avoid-plus")) {
+				ps = new AvoidPlusStrategy(net);
+			} else if (strategy.equalsIgnoreCase("uniformity")) {
+				ps = new UniformityStrategy(net);
+			} else if (strategy.equalsIgnoreCase("road-graph") && net.getRoadGraph() != null) {
+				ps = new RoadGraphStrategy(net, net.getRoadGraph());
 			} else {
 				throw new InvalidArgumentsException();
 			}
+			Itinerary it = u.calculateItinerary(start, destination, TimedPathStrategy.of(ps, net));
 			cld.display("Pickup station:");
 			cld.display(it.getStartStation());
 			cld.display("Return station:");
@@ -477,8 +363,6 @@ public class CommandLineController {
 			if (s.trim().equalsIgnoreCase("y")) {
 				u.setItinerary(it);
 			}
-		} else {
-			throw new InvalidArgumentsException();
 		}
 	}
 	
@@ -487,17 +371,135 @@ public class CommandLineController {
 	 * {@code displayItinerary <networkName> <userID>} <br>
 	 * @throws InexistingNetworkNameException 
 	 * @throws InexistingUserIdException 
+	 */
+	public void displayItinerary(String netName, int userId) throws InexistingNetworkNameException, InexistingUserIdException {
+		Network net = nm.findNetworkByName(netName);
+		User u = nm.findUserById(userId, net);
+		cld.display(u.getItinerary());
+	}
+	
+	/**
+	 * This method applies command line instructions of the form: <br>
+	 * {@code metrics <networkName>} <br>
+	 * @throws InexistingNetworkNameException 
+	 * @see metrics.NetworkMetrics
+	 */
+	public void metrics(String netName) throws InexistingNetworkNameException {
+		Network net = nm.findNetworkByName(netName);
+		cld.display(net.getMetrics());
+	}
+	
+	/**
+	 * This method applies command line instructions of the form: <br>
+	 * {@code latency <networkName>} or {@code latency <networkName> <stationID>} <br>
+	 * @throws InexistingNetworkNameException 
+	 * @see metrics.StationLatencies
+	 */
+	public void latency(String netName) throws InexistingNetworkNameException {
+		Network net = nm.findNetworkByName(netName);
+		cld.displayLatencies(net.getMetrics());
+	}
+	
+	/**
+	 * @see #latency(String)
+	 */
+	public void latency(String netName, int stationId) throws InexistingNetworkNameException, InexistingStationIdException {
+		Network net = nm.findNetworkByName(netName);
+		Station s = nm.findStationByID(stationId, net);
+		cld.displayLatencies(s);
+	}
+	
+	/**
+	 * This method applies command line instructions of the form: <br>
+	 * {@code latencyLog <networkName> <fileName> <periodSeconds>} <br>
+	 * @param netName
+	 * @param fileName
+	 * @param periodSeconds the period of the log, or 0 to stop the log
+	 * @throws InexistingNetworkNameException 
 	 * @throws InvalidArgumentsException 
+	 * @see metrics.NetworkMetrics#startLatencyLog(String, long)
 	 */
-	public void displayItinerary(String[] args) throws InexistingNetworkNameException, InexistingUserIdException, InvalidArgumentsException {
-		if (args.length == 2) {
-			Network net = nm.findNetworkByName(args[0]);
-			int userId = Integer.parseInt(args[1]);
-			User u = nm.findUserById(userId, net);
-			cld.display(u.getItinerary());
+	public void latencyLog(String netName, String fileName, int periodSeconds) throws InexistingNetworkNameException, InvalidArgumentsException {
+		Network net = nm.findNetworkByName(netName);
+		if (periodSeconds < 0) {
+			throw new InvalidArgumentsException();
+		} else if (periodSeconds == 0) {
+			net.getMetrics().stopLatencyLog();
+			cld.display("Latency log of network \"" + netName + "\" stopped.");
 		} else {
+			net.getMetrics().startLatencyLog(fileName, periodSeconds);
+			cld.display("The latencies of network \"" + netName + "\" are written to " + fileName + " every " + periodSeconds + " seconds.");
+		}
+	}
+	
+	/**
+	 * This method applies command line instructions of the form: <br>
+	 * {@code loadRoadGraph <networkName> <fileName>} <br>
+	 * The graph and its index are built before they replace the previous graph of the network, so that the itineraries can be calculated meanwhile.
+	 * @param netName
+	 * @param fileName
+	 * @throws InexistingNetworkNameException 
+	 * @see RoadGraph
+	 */
+	public void loadRoadGraph(String netName, String fileName) throws InexistingNetworkNameException {
+		Network net = nm.findNetworkByName(netName);
+		try {
+			long t = System.nanoTime();
+			RoadGraph graph = RoadGraph.load(fileName);
+			net.setRoadGraph(graph);
+			cld.display(String.format("Road graph of network \"%s\" loaded in %d ms: %d nodes, %d arcs, %d shortcuts.", netName,
+				(System.nanoTime() - t)/1000000, graph.getNumberNodes(), graph.getNumberArcs(), graph.getNumberShortcuts()));
+		} catch (FileNotFoundException e) {
+			cld.display("Road graph file not found");
+		} catch (IOException e) {
+			cld.display("Error: the road graph could not be loaded. " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * This method applies command line instructions of the form: <br>
+	 * {@code archiveRides <networkName> <directory> <recentRides>} <br>
+	 * The rides already ended stay in the ride history, and the next ones are written to the archive. The number of rides which could not be written
+	 * is shown by the {@code metrics} command.
+	 * @param netName
+	 * @param dirName
+	 * @param recentRides the number of rides kept in memory
+	 * @throws InexistingNetworkNameException
+	 * @throws InvalidArgumentsException if the number of rides is negative
+	 * @see NetworkManager#openRideArchive(String, File, int)
+	 */
+	public void archiveRides(String netName, String dirName, int recentRides) throws InexistingNetworkNameException, InvalidArgumentsException {
+		nm.findNetworkByName(netName);
+		if (recentRides < 0) {
+			throw new InvalidArgumentsException();
+		}
+		try {
+			nm.openRideArchive(netName, new File(dirName), recentRides);
+			cld.display("The rides of network \"" + netName + "\" are archived in " + dirName + ".");
+		} catch (IOException e) {
+			cld.display("Error: the ride archive could not be opened. " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * This method applies command line instructions of the form: <br>
+	 * {@code rebalance <networkName> <time> <hours> <trucks> <truckCapacity>} <br>
+	 * The routes are planned within {@link RebalancingPlanner#DEFAULT_TIME_BUDGET} milliseconds.
+	 * @param netName
+	 * @param time the beginning of the period of the plan
+	 * @param hours the length of the period of the plan, at most a week
+	 * @param trucks
+	 * @param truckCapacity the number of bikes a truck can carry
+	 * @throws InexistingNetworkNameException 
+	 * @throws InvalidArgumentsException 
+	 * @see RebalancingPlanner
+	 */
+	public void rebalance(String netName, LocalDateTime time, int hours, int trucks, int truckCapacity) throws InexistingNetworkNameException, InvalidArgumentsException {
+		Network net = nm.findNetworkByName(netName);
+		if (hours <= 0 || hours > 7*24 || trucks <= 0 || truckCapacity <= 0) {
 			throw new InvalidArgumentsException();
 		}
+		cld.display(new RebalancingPlanner(net).plan(time, hours, trucks, truckCapacity, RebalancingPlanner.DEFAULT_TIME_BUDGET));
 	}
 	
 	/**
@@ -516,71 +518,50 @@ public class CommandLineController {
 	 * This method applies command line instructions of the form: <br>
 	 * {@code runtest <filename>} <br>
 	 * The files have to be in the {@code testfiles} folder of the project.
-	 * @param args
-	 * @throws InvalidArgumentsException 
+	 * <br> The file is run as a {@code CommandBatch}: it is parsed before it is run, the instructions on different networks are run in parallel,
+	 * and the result is written to the result file by groups of instructions.
+	 * @param filename
 	 */
-	public void runtest(String[] args) throws InvalidArgumentsException {
-		if (args.length == 1) {
-			String filename = args[0];
-			String path = System.getProperty("user.dir") + "\\eval\\";
-			String writeFileName = path + filename.substring(0, filename.lastIndexOf('.')) + "Result.txt";
-			FileReader file = null;
-			BufferedReader reader = null;
-			PrintStream oldStream = System.out;
-			PrintStream writerStream = null;
-			try {
-				this.runSetupTestFile();
-				writerStream = new PrintStream(writeFileName);
-				System.setOut(writerStream);
-				file = new FileReader(path + filename);
-				reader = new BufferedReader(file);
-				String line;
-				line = reader.readLine();
-				while (line != null) {
-					try {
-						clr.interpreteCommand(line, this);
-					} catch (InvalidCommandException | ExistingNameException | InvalidArgumentsException
-							| InexistingNetworkNameException | InexistingStationIdException | InexistingSlotIdException
-							| NegativeTimeException | TypeStationException | StationSamePositionException
-							| InexistingUserIdException | NullDateException | NoSlotAvailableException
-							| NoOngoingRideException | StationOfflineException | OngoingRideException
-							| NoBikeAvailableException e) {
-						cld.display(e.getMessage());
-						line = reader.readLine();
-						continue;
-					} catch (Exception e) {
-						cld.display("An unknown error has occured.");
-						e.printStackTrace();
-						line = reader.readLine();
-						continue;
-					}
-					line = reader.readLine();
-				}
-				this.nm.resetNetworks();
-				cld.display("Test completed");
-				System.setOut(oldStream);
-				cld.display("Test result written in file " + writeFileName + '\n' + "Networks reset.");
-			} catch (FileNotFoundException e) {
-				cld.display("Test File not found");
-			} catch (IOException e) {
-			} finally {
-				if (file != null) {
-					try { file.close(); } catch (IOException e) {}
-				}
-				if (reader != null) {
-					try { reader.close(); } catch (IOException e) {}
-				}
-				if (writerStream != null) {
-					writerStream.close(); 
-				}
+	public void runtest(String filename) {
+		String path = System.getProperty("user.dir") + "\\eval\\";
+		String writeFileName = path + filename.substring(0, filename.lastIndexOf('.')) + "Result.txt";
+		FileReader file = null;
+		BufferedReader reader = null;
+		PrintStream oldStream = System.out;
+		PrintStream writerStream = null;
+		try {
+			this.runSetupTestFile();
+			writerStream = new PrintStream(new BufferedOutputStream(new FileOutputStream(writeFileName)));
+			System.setOut(writerStream);
+			file = new FileReader(path + filename);
+			reader = new BufferedReader(file);
+			CommandBatch batch = CommandBatch.read(reader, this.clr);
+			try (NetworkExecutor ex = new NetworkExecutor(this.nm)) {
+				batch.run(this, ex);
+			}
+			this.nm.resetNetworks();
+			cld.display("Test completed");
+			CommandBatch.awaitNotifications();
+			System.setOut(oldStream);
+			cld.display("Test result written in file " + writeFileName + '\n' + "Networks reset.");
+		} catch (FileNotFoundException e) {
+			cld.display("Test File not found");
+		} catch (IOException e) {
+		} finally {
+			if (file != null) {
+				try { file.close(); } catch (IOException e) {}
+			}
+			if (reader != null) {
+				try { reader.close(); } catch (IOException e) {}
+			}
+			if (writerStream != null) {
+				writerStream.close(); 
 			}
-		} else {
-			throw new InvalidArgumentsException();
 		}
 	}
 	
 	/**
-	 * This method loads a setup file
+	 * This method loads a setup file. The file is parsed before it is run, and it is not run if an instruction is not valid.
 	 */
 	private void runSetupFile(String filename) {
 		nm.resetNetworks();
@@ -590,11 +571,14 @@ public class CommandLineController {
 		try {
 			file = new FileReader(path + "\\eval\\" + filename);
 			reader = new BufferedReader(file);
-			String line;
-			line = reader.readLine();
-			while (line != null) {
-				clr.interpreteCommand(line, this);
-				line = reader.readLine();
+			CommandBatch batch = CommandBatch.read(reader, this.clr);
+			if (batch.getErrors() > 0) {
+				throw new InvalidArgumentsException();
+			}
+			try (NetworkExecutor ex = new NetworkExecutor(this.nm)) {
+				if (batch.run(this, ex) > 0) {
+					throw new InvalidArgumentsException();
+				}
 			}
 		} catch (Exception e) {
 			cld.display("Error: could not setup correctly.");
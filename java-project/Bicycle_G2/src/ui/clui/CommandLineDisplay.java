@@ -1,13 +1,21 @@
 package ui.clui;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.function.Predicate;
+
 import bike.ElectricBike;
 import card.Card;
+import metrics.NetworkMetrics;
+import metrics.StationLatencies;
+import rebalancing.RebalancingPlan;
 import ride.Itinerary;
 import ride.Network;
 import sorting.station.SortingStrategy;
 import station.NoSlotStateAtDateException;
+import station.NotificationDispatcher;
 import station.Slot;
 import station.Station;
 import tools.NegativeTimeException;
@@ -16,133 +24,441 @@ import user.User;
 
 /**
  * This class displays objects on the console.
+ * <br> The text displayed by a thread can be captured instead, with {@link #startCapture()} and {@link #stopCapture()}, so that a {@code CommandBatch}
+ * can run commands on several threads and write their outputs in the order of the commands. The observers of the stations display their notifications
+ * in the capture of the thread which changed the station, although they run in the threads of the {@code NotificationDispatcher} (see {@link #bind(Runnable)}):
+ * the captures are therefore written under their own lock.
+ * <br> The networks and the lists of stations are written to an {@code Appendable} as they are read, with the {@code write} methods: they are displayed
+ * on the console by chunks of {@link #CHUNK_SIZE} characters, through a buffer which each thread reuses, so that the memory used does not depend on the size of the network.
+ * The lists of stations can also be filtered and displayed by pages.
  * @author Pietro Dellino
  */
 public class CommandLineDisplay {
-	
-	
+
+	/**
+	 * The number of characters from which the text written on the console is printed.
+	 */
+	public static final int CHUNK_SIZE = 8192;
+
+	private static final ThreadLocal<StringBuilder> capture = new ThreadLocal<StringBuilder>();
+	private static final ThreadLocal<Console> console = ThreadLocal.withInitial(Console::new);
+
+	static {
+		NotificationDispatcher.getInstance().setContext(CommandLineDisplay::bind);
+	}
+
+	/**
+	 * This class is the {@code Appendable} of the console of a thread: the text is kept in a buffer, which is printed (or captured) when it is full.
+	 */
+	private static class Console implements Appendable {
+
+		private StringBuilder chunk = new StringBuilder(CHUNK_SIZE);
+
+		@Override
+		public Console append(CharSequence csq) {
+			this.chunk.append(csq);
+			if (this.chunk.length() >= CHUNK_SIZE) this.flush();
+			return this;
+		}
+
+		@Override
+		public Console append(CharSequence csq, int start, int end) {
+			this.chunk.append(csq, start, end);
+			if (this.chunk.length() >= CHUNK_SIZE) this.flush();
+			return this;
+		}
+
+		@Override
+		public Console append(char c) {
+			this.chunk.append(c);
+			if (this.chunk.length() >= CHUNK_SIZE) this.flush();
+			return this;
+		}
+
+		void flush() {
+			StringBuilder sb = capture.get();
+			if (sb != null) {
+				synchronized (sb) {
+					sb.append(this.chunk);
+				}
+			} else {
+				System.out.print(this.chunk);
+			}
+			this.chunk.setLength(0);
+		}
+
+	}
+
 	public CommandLineDisplay() {
 		super();
 	}
-	
-	private String display(Station s, boolean show) {
-		String disp = "";
-		disp += "Station: id:" + s.getId() + '\n';
+
+	/**
+	 * This method makes the text displayed by the current thread be kept until {@link #stopCapture()} is called, instead of being printed.
+	 * The whole text is kept in memory, so that the networks and the lists of stations should be displayed without capture.
+	 */
+	static void startCapture() { capture.set(new StringBuilder()); }
+
+	/**
+	 * This method stops the capture of the current thread. The notifications asked by the thread while it was captured are still added to the capture
+	 * when they are sent, so that it should be read under its lock, once {@link NotificationDispatcher#awaitIdle(long)} has returned.
+	 * @return the text displayed by the current thread since {@link #startCapture()}
+	 */
+	static StringBuilder stopCapture() {
+		StringBuilder sb = capture.get();
+		capture.remove();
+		return sb == null ? new StringBuilder() : sb;
+	}
+
+	/**
+	 * This method is the {@code Context} of the {@code NotificationDispatcher}: the notification displays its text in the capture of the current thread, if there is one.
+	 * @param send
+	 * @return the notification
+	 */
+	private static Runnable bind(Runnable send) {
+		StringBuilder sb = capture.get();
+		if (sb == null) return send;
+		return () -> {
+			StringBuilder previous = capture.get();
+			capture.set(sb);
+			try {
+				send.run();
+			} finally {
+				if (previous == null) {
+					capture.remove();
+				} else {
+					capture.set(previous);
+				}
+			}
+		};
+	}
+
+	private static void print(String s) {
+		StringBuilder sb = capture.get();
+		if (sb != null) {
+			synchronized (sb) {
+				sb.append(s).append(System.lineSeparator());
+			}
+		} else {
+			System.out.println(s);
+		}
+	}
+
+	/**
+	 * This method gives the console of the current thread to a writer, and prints the end of the text, followed by a line separator.
+	 */
+	private static void stream(TextWriter w) {
+		Console c = console.get();
+		try {
+			w.write(c);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			c.append(System.lineSeparator());
+			c.flush();
+		}
+	}
+
+	/**
+	 * This interface writes a text to an {@code Appendable}.
+	 */
+	private interface TextWriter {
+		void write(Appendable out) throws IOException;
+	}
+
+	/**
+	 * This method displays a text which is written to a {@code StringBuilder}.
+	 * @return the text
+	 */
+	private static String build(TextWriter w) {
+		StringBuilder sb = new StringBuilder();
+		try {
+			w.write(sb);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		String disp = sb.toString();
+		print(disp);
+		return disp;
+	}
+
+	/**
+	 * This method writes the description of a station and of its slots.
+	 * @param s
+	 * @param out
+	 * @throws IOException
+	 */
+	public void write(Station s, Appendable out) throws IOException {
+		out.append("Station: id:").append(String.valueOf(s.getId())).append('\n');
 		float x = (float) (Math.round(s.getP().getX()*1000)/1000.0);
 		float y = (float) (Math.round(s.getP().getY()*1000)/1000.0);
-		disp += '\t' + "Position: x=" + x + " y=" + y + '\n';
-		disp += "Slots: " + s.getParkingSlots().size() + '\n';
+		out.append('\t').append("Position: x=").append(String.valueOf(x)).append(" y=").append(String.valueOf(y)).append('\n');
+		out.append("Slots: ").append(String.valueOf(s.getParkingSlots().size())).append('\n');
 		for (Slot slot : s.getParkingSlots()) {
-			disp += '\t' + "id:" + slot.getId() + '\t' + (slot.isOnline() ? "Online" : "Offline") +'\t' + (slot.getisOccupied() ? "Occupied" : "Free");
+			out.append('\t').append("id:").append(String.valueOf(slot.getId()))
+				.append('\t').append(slot.isOnline() ? "Online" : "Offline").append('\t').append(slot.getisOccupied() ? "Occupied" : "Free");
 			if (slot.getisOccupied()) {
-				disp += '\t' + "Bike id:" + slot.getBike().getId();
+				out.append('\t').append("Bike id:").append(String.valueOf(slot.getBike().getId()));
 				String bt = slot.getBike() instanceof ElectricBike ? "Electric" : "Mechanic";
-				disp += '\t' + "Type: " + bt;
+				out.append('\t').append("Type: ").append(bt);
 			}
-			disp += '\n';
+			out.append('\n');
 		}
-		if (show) System.out.println(disp);
-		return disp;
 	}
-	
+
 	public String display(Station s) {
-		String disp = this.display(s, true);
-		return disp;
+		return build(out -> this.write(s, out));
 	}
-	
-	private String display(Card c, boolean show) {
-		String disp = "";
-		disp += "Card: id:" + c.getId() + '\n';
-		disp += '\t' + "Owner: " + c.getUser().getUserName() + '\n';
-		disp += '\t' + "Type: " + c.getTypeString() + '\n';
-		disp += '\t' + "Credit: " + c.getTimeCredit() + " minutes" + '\n';
-		if (show) System.out.println(disp);
-		return disp;
+
+	/**
+	 * This method writes the description of a card.
+	 * @param c
+	 * @param out
+	 * @throws IOException
+	 */
+	public void write(Card c, Appendable out) throws IOException {
+		out.append("Card: id:").append(String.valueOf(c.getId())).append('\n');
+		out.append('\t').append("Owner: ").append(c.getUser().getUserName()).append('\n');
+		out.append('\t').append("Type: ").append(c.getTypeString()).append('\n');
+		out.append('\t').append("Credit: ").append(String.valueOf(c.getTimeCredit())).append(" minutes").append('\n');
 	}
-	
+
 	public String display(Card c) {
-		String disp = this.display(c, true);
-		return disp;
+		return build(out -> this.write(c, out));
 	}
-	
-	private String display(User u, boolean show) {
+
+	/**
+	 * This method writes the description of a user and of its statistics.
+	 * @param u
+	 * @param out
+	 * @throws IOException
+	 */
+	public void write(User u, Appendable out) throws IOException {
 		double credit = Math.round(u.getUserStat().getTotalAmount()*100)/100.0;
-		String disp = "";
-		disp += "User: id:" + u.getId() + '\n';
-		disp += '\t' + "Name: " + u.getUserName() + '\n';
-		disp += '\t' + "Total amount paid: " + credit + " euros" + '\n';
-		disp += '\t' + "Total number of rides: " + u.getUserStat().getNumberRides() + '\n';
-		disp += '\t' + "Total ride time: " + Math.round(u.getUserStat().getTotalTime()) + " minutes" + '\n';
-		disp += '\t' + "Total credit earned: " + Math.round(u.getUserStat().getTotalCreditEarned()) + " minutes" + '\n';
-		if (show) System.out.println(disp);
-		return disp;
+		out.append("User: id:").append(String.valueOf(u.getId())).append('\n');
+		out.append('\t').append("Name: ").append(u.getUserName()).append('\n');
+		out.append('\t').append("Total amount paid: ").append(String.valueOf(credit)).append(" euros").append('\n');
+		out.append('\t').append("Total number of rides: ").append(String.valueOf(u.getUserStat().getNumberRides())).append('\n');
+		out.append('\t').append("Total ride time: ").append(String.valueOf(Math.round(u.getUserStat().getTotalTime()))).append(" minutes").append('\n');
+		out.append('\t').append("Total credit earned: ").append(String.valueOf(Math.round(u.getUserStat().getTotalCreditEarned()))).append(" minutes").append('\n');
 	}
-	
+
 	public String display(User u) {
-		String disp = this.display(u, true);
-		return disp;
+		return build(out -> this.write(u, out));
 	}
-	
+
 	public String display(String s) {
-		System.out.println(s);
+		print(s);
 		return s;
 	}
-	
-	public String display(Network net) {
-		String disp = "";
-		disp += "Network: " + net.getName() + '\n' + "List of stations:" + '\n';
+
+	/**
+	 * This method writes the description of a network: its stations, its cards and its users.
+	 * @param net
+	 * @param out
+	 * @throws IOException
+	 */
+	public void write(Network net, Appendable out) throws IOException {
+		out.append("Network: ").append(net.getName()).append('\n').append("List of stations:").append('\n');
 		for (Station s : net.getStations()) {
-			disp += this.display(s, false);
+			this.write(s, out);
 		}
-		disp += "List of cards:" + '\n';
+		out.append("List of cards:").append('\n');
 		for (Card c : net.getCards()) {
-			disp += this.display(c, false);
+			this.write(c, out);
 		}
-		disp += "List of users:" + '\n';
+		out.append("List of users:").append('\n');
 		for (Card c : net.getCards()) {
-			disp += this.display(c.getUser(), false);
+			this.write(c.getUser(), out);
 		}
-		System.out.println(disp);
-		return disp;
 	}
-	
-	private String display(Itinerary it, boolean show) {
-		String disp = "";
-		disp += "Pickup station:\n";
-		disp += this.display(it.getStartStation(), false);
-		disp += "Return station:\n";
-		disp += this.display(it.getEndStation(), false);
-		if (show) System.out.println(disp);
-		return disp;
+
+	/**
+	 * This method displays a network on the console while it is written, so that its description is never kept in memory.
+	 * @param net
+	 * @see #write(Network, Appendable)
+	 */
+	public void display(Network net) {
+		stream(out -> this.write(net, out));
+	}
+
+	/**
+	 * This method writes a page of the stations which are accepted by a filter.
+	 * @param stations
+	 * @param filter the stations to write, or {@code null} to write all the stations
+	 * @param first the number of accepted stations to skip
+	 * @param max the maximal number of stations to write
+	 * @param out
+	 * @return the number of stations accepted by the filter, so that the number of pages can be computed
+	 * @throws IOException
+	 */
+	public int writeStations(Iterable<Station> stations, Predicate<? super Station> filter, int first, int max, Appendable out) throws IOException {
+		int accepted = 0;
+		for (Station s : stations) {
+			if (filter != null && !filter.test(s)) continue;
+			if (accepted >= first && accepted - first < max) {
+				this.write(s, out);
+			}
+			accepted++;
+		}
+		return accepted;
+	}
+
+	/**
+	 * This method displays a page of the stations of a network which are accepted by a filter.
+	 * @param net
+	 * @param filter the stations to display, or {@code null} to display all the stations
+	 * @param first the number of accepted stations to skip
+	 * @param max the maximal number of stations to display
+	 * @return the number of stations accepted by the filter
+	 * @see #writeStations(Iterable, Predicate, int, int, Appendable)
+	 */
+	public int displayStations(Network net, Predicate<? super Station> filter, int first, int max) {
+		int[] accepted = new int[1];
+		stream(out -> {
+			out.append("Stations ").append(String.valueOf(first)).append(" to ").append(String.valueOf((long) first + max - 1))
+				.append(" of network ").append(net.getName()).append('\n');
+			accepted[0] = this.writeStations(net.getStations(), filter, first, max, out);
+		});
+		return accepted[0];
+	}
+
+	/**
+	 * This method displays the metrics of a network, in the format of {@link metrics.MetricsRegistry#write(Appendable)}.
+	 * @param metrics
+	 */
+	public void display(NetworkMetrics metrics) {
+		stream(out -> metrics.write(out));
 	}
-	
+
+	/**
+	 * This method displays the latencies of the operations of the stations of a network.
+	 * @param metrics
+	 * @see NetworkMetrics#writeLatencies(Appendable)
+	 */
+	public void displayLatencies(NetworkMetrics metrics) {
+		stream(out -> metrics.writeLatencies(out));
+	}
+
+	/**
+	 * This method displays the latencies of the operations of a station.
+	 * @param s
+	 */
+	public void displayLatencies(Station s) {
+		stream(out -> {
+			out.append("Latencies of station ").append(String.valueOf(s.getId())).append(":\n");
+			StationLatencies.write(s.getLatencies().snapshot(), out);
+		});
+	}
+
+	/**
+	 * This method displays the routes of the trucks of a rebalancing plan.
+	 * @param plan
+	 */
+	public void display(RebalancingPlan plan) {
+		stream(out -> plan.write(out));
+	}
+
 	public String display(Itinerary it) {
-		return this.display(it, true);
-	}
-	
-	private String displayStationStat(Station s, LocalDateTime startTime, LocalDateTime endTime, boolean show) throws NoSlotStateAtDateException, NegativeTimeException, NullDateException {
-		String disp = "";
-		disp += "Station: id:" + s.getId() + '\n'
-				+ '\t' + "Total rents: " + s.getTotalRents() + '\n'
-				+ '\t' + "Total returns: " + s.getTotalReturns() + '\n'
-				+ '\t' + "Total operations: " + s.getTotalOperations() + '\n'
-				+ '\t' + "Occupation rate: " + s.getRateOccupation(startTime, endTime) + '\n';
-		if (show) System.out.println(disp);
-		return disp;
+		return build(out -> {
+			out.append("Pickup station:\n");
+			this.write(it.getStartStation(), out);
+			out.append("Return station:\n");
+			this.write(it.getEndStation(), out);
+		});
 	}
-	
+
+	/**
+	 * This method writes the statistics of a station.
+	 * @param s
+	 * @param startTime
+	 * @param endTime
+	 * @param out
+	 * @throws IOException
+	 * @throws NoSlotStateAtDateException
+	 * @throws NegativeTimeException
+	 * @throws NullDateException
+	 */
+	public void writeStationStat(Station s, LocalDateTime startTime, LocalDateTime endTime, Appendable out) throws IOException, NoSlotStateAtDateException, NegativeTimeException, NullDateException {
+		out.append("Station: id:").append(String.valueOf(s.getId())).append('\n')
+			.append('\t').append("Total rents: ").append(String.valueOf(s.getTotalRents())).append('\n')
+			.append('\t').append("Total returns: ").append(String.valueOf(s.getTotalReturns())).append('\n')
+			.append('\t').append("Total operations: ").append(String.valueOf(s.getTotalOperations())).append('\n')
+			.append('\t').append("Occupation rate: ").append(String.valueOf(s.getRateOccupation(startTime, endTime))).append('\n');
+	}
+
 	public String displayStationStat(Station s, LocalDateTime startTime, LocalDateTime endTime) throws NoSlotStateAtDateException, NegativeTimeException, NullDateException {
-		return this.displayStationStat(s, startTime, endTime, true);
+		StringBuilder sb = new StringBuilder();
+		try {
+			this.writeStationStat(s, startTime, endTime, sb);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		String disp = sb.toString();
+		print(disp);
+		return disp;
 	}
-	
-	public String displaySortedStations(Network net, SortingStrategy strat, LocalDateTime startTime, LocalDateTime endTime) throws NoSlotStateAtDateException, NegativeTimeException, NullDateException {
+
+	/**
+	 * This method writes the statistics of a page of the stations of a network, sorted with a strategy.
+	 * @param net
+	 * @param strat
+	 * @param startTime
+	 * @param endTime
+	 * @param first the number of sorted stations to skip
+	 * @param max the maximal number of stations to write
+	 * @param out
+	 * @throws IOException
+	 * @throws NoSlotStateAtDateException
+	 * @throws NegativeTimeException
+	 * @throws NullDateException
+	 */
+	public void writeSortedStations(Network net, SortingStrategy strat, LocalDateTime startTime, LocalDateTime endTime, int first, int max, Appendable out) throws IOException, NoSlotStateAtDateException, NegativeTimeException, NullDateException {
 		ArrayList<Station> sortedStations = net.sortingStations(strat);
-		String disp = "Sorted stations of network " + net.getName() + " according to strategy " + strat.toString() + '\n';
-		for (Station s : sortedStations) {
-			disp += this.displayStationStat(s, startTime, endTime, false);
+		out.append("Sorted stations of network ").append(net.getName()).append(" according to strategy ").append(strat.toString()).append('\n');
+		int end = (int) Math.min(sortedStations.size(), (long) first + max);
+		for (int i = Math.max(first, 0); i < end; i++) {
+			this.writeStationStat(sortedStations.get(i), startTime, endTime, out);
 		}
-		System.out.println(disp);
-		return disp;
 	}
-	
+
+	/**
+	 * This method displays the statistics of all the stations of a network, sorted with a strategy, while they are written.
+	 * @param net
+	 * @param strat
+	 * @param startTime
+	 * @param endTime
+	 * @throws NoSlotStateAtDateException
+	 * @throws NegativeTimeException
+	 * @throws NullDateException
+	 * @see #writeSortedStations(Network, SortingStrategy, LocalDateTime, LocalDateTime, int, int, Appendable)
+	 */
+	public void displaySortedStations(Network net, SortingStrategy strat, LocalDateTime startTime, LocalDateTime endTime) throws NoSlotStateAtDateException, NegativeTimeException, NullDateException {
+		this.displaySortedStations(net, strat, startTime, endTime, 0, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * This method displays the statistics of a page of the stations of a network, sorted with a strategy, while they are written.
+	 * @param net
+	 * @param strat
+	 * @param startTime
+	 * @param endTime
+	 * @param first the number of sorted stations to skip
+	 * @param max the maximal number of stations to display
+	 * @throws NoSlotStateAtDateException
+	 * @throws NegativeTimeException
+	 * @throws NullDateException
+	 */
+	public void displaySortedStations(Network net, SortingStrategy strat, LocalDateTime startTime, LocalDateTime endTime, int first, int max) throws NoSlotStateAtDateException, NegativeTimeException, NullDateException {
+		Console c = console.get();
+		try {
+			this.writeSortedStations(net, strat, startTime, endTime, first, max, c);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			c.append(System.lineSeparator());
+			c.flush();
+		}
+	}
+
 }
@@ -1,7 +1,10 @@
 package ui.clui;
 
+import java.time.DateTimeException;
 import java.util.Scanner;
 
+import tools.Point;
+
 import controller.ExistingNameException;
 import controller.InexistingNetworkNameException;
 import controller.InexistingSlotIdException;
@@ -28,10 +31,12 @@ import tools.NullDateException;
 public class CommandLineReader {
 	
 	private Scanner sc;
+	private InstructionParser parser;
 	
 	public CommandLineReader() {
 		super();
 		sc = new Scanner(System.in);
+		parser = new InstructionParser();
 	}
 	
 	/**
@@ -59,13 +64,8 @@ public class CommandLineReader {
 	 * @throws InvalidCommandException
 	 */
 	public Command parseCommand(String s) throws InvalidCommandException {
-		String com = s.split(" ")[0];
-		for (Command c : Command.values()) {
-			if (com.equals(c.getKeyword())) {
-				return c;
-			}
-		}
-		throw new InvalidCommandException(com);
+		int end = s.indexOf(' ');
+		return InstructionParser.findCommand(s, 0, end < 0 ? s.length() : end);
 	}
 	
 	/**
@@ -115,62 +115,135 @@ public class CommandLineReader {
 	 * @throws NoSlotStateAtDateException 
 	 */
 	public void interpreteCommand(String instruction, CommandLineController clc) throws InvalidCommandException, ExistingNameException, InvalidArgumentsException, InexistingNetworkNameException, InexistingStationIdException, InexistingSlotIdException, NegativeTimeException, TypeStationException, StationSamePositionException, InexistingUserIdException, NullDateException, NoSlotAvailableException, NoOngoingRideException, StationOfflineException, OngoingRideException, NoBikeAvailableException, NoElectricBikeAvailableException, NoMechanicBikeAvailableException, NoSlotStateAtDateException {
-		Command com = this.parseCommand(instruction);
-		String[] args = this.parseArgs(instruction);
-		switch (com) {
+		this.parser.parse(instruction);
+		this.interpreteCommand(this.parser, clc);
+	}
+	
+	/**
+	 * This method calls the method of the {@code CommandLineController} corresponding to an instruction parsed by an {@code InstructionParser}.
+	 * The arguments are converted by the parser while they are given to the method, without being kept in another object.
+	 * @param p an {@code InstructionParser} which has parsed the instruction
+	 * @param clc
+	 * @see #interpreteCommand(String, CommandLineController)
+	 */
+	public void interpreteCommand(InstructionParser p, CommandLineController clc) throws ExistingNameException, InvalidArgumentsException, InexistingNetworkNameException, InexistingStationIdException, InexistingSlotIdException, NegativeTimeException, TypeStationException, StationSamePositionException, InexistingUserIdException, NullDateException, NoSlotAvailableException, NoOngoingRideException, StationOfflineException, OngoingRideException, NoBikeAvailableException, NoElectricBikeAvailableException, NoMechanicBikeAvailableException, NoSlotStateAtDateException {
+		p.checkLength();
+		try {
+			this.run(p, clc);
+		} catch (NumberFormatException | DateTimeException e) {
+			throw new InvalidArgumentsException();
+		}
+	}
+	
+	/**
+	 * This method calls the method of the {@code CommandLineController} corresponding to an instruction whose arguments are already converted,
+	 * such as an instruction of a {@code CommandBatch}.
+	 * @param p
+	 * @param clc
+	 * @see InstructionParser#convert()
+	 */
+	public void interpreteCommand(ParsedInstruction p, CommandLineController clc) throws ExistingNameException, InvalidArgumentsException, InexistingNetworkNameException, InexistingStationIdException, InexistingSlotIdException, NegativeTimeException, TypeStationException, StationSamePositionException, InexistingUserIdException, NullDateException, NoSlotAvailableException, NoOngoingRideException, StationOfflineException, OngoingRideException, NoBikeAvailableException, NoElectricBikeAvailableException, NoMechanicBikeAvailableException, NoSlotStateAtDateException {
+		this.run(p, clc);
+	}
+	
+	/**
+	 * This method calls the method of the {@code CommandLineController} for an instruction, with the arguments read by the getters of the instruction.
+	 * Since the arguments of a call are all read before the method is called, an argument which cannot be converted stops the instruction before it changes anything.
+	 * @param p
+	 * @param clc
+	 */
+	private void run(Instruction p, CommandLineController clc) throws ExistingNameException, InvalidArgumentsException, InexistingNetworkNameException, InexistingStationIdException, InexistingSlotIdException, NegativeTimeException, TypeStationException, StationSamePositionException, InexistingUserIdException, NullDateException, NoSlotAvailableException, NoOngoingRideException, StationOfflineException, OngoingRideException, NoBikeAvailableException, NoElectricBikeAvailableException, NoMechanicBikeAvailableException, NoSlotStateAtDateException {
+		switch (p.getCommand()) {
 		case SETUP:
-			clc.setup(args);
+			if (p.getArgCount() == 1) {
+				clc.setup(p.getString(0));
+			} else {
+				clc.setup(p.getString(0), p.getInt(1), p.getInt(2), p.getDouble(3), p.getInt(4));
+			}
 			break;
 		case RUNTEST:
-			clc.runtest(args);
+			clc.runtest(p.getString(0));
 			break;
 		case STATION_ONLINE:
-			clc.stationOnline(args);
+			clc.stationOnline(p.getString(0), p.getInt(1));
 			break;
 		case STATION_OFFLINE:
-			clc.stationOffline(args);
+			clc.stationOffline(p.getString(0), p.getInt(1));
 			break;
 		case SLOT_ONLINE:
-			clc.slotOnline(args);
+			clc.slotOnline(p.getString(0), p.getInt(1), p.getTime(2));
 			break;
 		case SLOT_OFFLINE:
-			clc.slotOffline(args);
+			clc.slotOffline(p.getString(0), p.getInt(1), p.getTime(2));
 			break;
 		case ADD_STATION:
-			clc.addStation(args);
+			clc.addStation(p.getString(0), p.getString(1), p.getInt(2), p.getDouble(3), p.getDouble(4));
 			break;
 		case ADD_SLOT:
-			clc.addSlot(args);
+			clc.addSlot(p.getString(0), p.getInt(1), p.getInt(2));
 			break;
 		case ADD_USER:
-			clc.addUser(args);
+			clc.addUser(p.getString(0), p.getCardType(1), p.getString(2));
 			break;
 		case ADD_BIKE:
-			clc.addBike(args);
+			if (p.getArgCount() == 3) {
+				clc.addBike(p.getString(0), p.getBikeType(1), p.getTime(2));
+			} else {
+				clc.addBike(p.getString(0), p.getInt(1), p.getBikeType(2), p.getTime(3));
+			}
 			break;
 		case RETURN_BIKE:
-			clc.returnBike(args);
+			clc.returnBike(p.getInt(0), p.getInt(1), p.getTime(2), p.getString(3));
 			break;
 		case RENT_BIKE:
-			clc.rentBike(args);
+			if (p.getArgCount() == 4) {
+				clc.rentBike(p.getInt(0), p.getInt(1), p.getTime(2), p.getString(3));
+			} else {
+				int bikeType = p.getBikeType(2);
+				clc.rentBike(p.getInt(0), p.getInt(1), bikeType, p.getTime(3), p.getString(4));
+			}
 			break;
 		case DISPLAY_USER:
-			clc.displayUser(args);
+			clc.displayUser(p.getString(0), p.getInt(1));
 			break;
 		case DISPLAY_STATION:
-			clc.displayStation(args);
+			clc.displayStation(p.getString(0), p.getInt(1));
 			break;
 		case DISPLAY:
-			clc.display(args);
+			clc.display(p.getString(0));
 			break;
 		case SORT_STATION:
-			clc.sortStation(args);
+			clc.sortStation(p.getString(0), p.getString(1), p.getTime(2), p.getTime(3));
 			break;
 		case CALCULATE_ITINERARY:
-			clc.calculateItinerary(args);
+			Point start = new Point(p.getDouble(2), p.getDouble(3));
+			Point destination = new Point(p.getDouble(4), p.getDouble(5));
+			clc.calculateItinerary(p.getString(0), p.getInt(1), start, destination, p.getString(6));
 			break;
 		case DISPLAY_ITINERARY:
-			clc.displayItinerary(args);
+			clc.displayItinerary(p.getString(0), p.getInt(1));
+			break;
+		case METRICS:
+			clc.metrics(p.getString(0));
+			break;
+		case LATENCY:
+			if (p.getArgCount() == 1) {
+				clc.latency(p.getString(0));
+			} else {
+				clc.latency(p.getString(0), p.getInt(1));
+			}
+			break;
+		case LATENCY_LOG:
+			clc.latencyLog(p.getString(0), p.getString(1), p.getInt(2));
+			break;
+		case LOAD_ROAD_GRAPH:
+			clc.loadRoadGraph(p.getString(0), p.getString(1));
+			break;
+		case ARCHIVE_RIDES:
+			clc.archiveRides(p.getString(0), p.getString(1), p.getInt(2));
+			break;
+		case REBALANCE:
+			clc.rebalance(p.getString(0), p.getTime(1), p.getInt(2), p.getInt(3), p.getInt(4));
 		}
 	}
 	
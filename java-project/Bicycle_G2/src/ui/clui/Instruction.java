@@ -0,0 +1,41 @@
+package ui.clui;
+
+import java.time.LocalDateTime;
+
+/**
+ * This interface gives the command of an instruction of the CLUI and its arguments, converted to the types of the method of the {@code CommandLineController}
+ * (see {@link InstructionParser#argumentTypes(Command, int)}). An instruction typed on the console is read from the {@code InstructionParser} which has just parsed it,
+ * and an instruction of a {@code CommandBatch} from the {@code ParsedInstruction} in which its arguments were converted when the file was read.
+ * @author Pietro Dellino
+ * @see CommandLineReader#interpreteCommand(InstructionParser, CommandLineController)
+ * @see CommandLineReader#interpreteCommand(ParsedInstruction, CommandLineController)
+ */
+interface Instruction {
+
+	Command getCommand();
+
+	int getArgCount();
+
+	String getString(int i);
+
+	int getInt(int i);
+
+	double getDouble(int i);
+
+	LocalDateTime getTime(int i);
+
+	/**
+	 * @param i
+	 * @return the type of bike of the i-th argument, as a constant of {@code BikeFactory}
+	 * @throws InvalidArgumentsException
+	 */
+	int getBikeType(int i) throws InvalidArgumentsException;
+
+	/**
+	 * @param i
+	 * @return the type of card of the i-th argument, as a constant of {@code CardFactory}
+	 * @throws InvalidArgumentsException
+	 */
+	int getCardType(int i) throws InvalidArgumentsException;
+
+}
@@ -0,0 +1,465 @@
+package ui.clui;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+
+import bike.BikeFactory;
+import card.CardFactory;
+import tools.Date;
+
+/**
+ * This class parses the instructions of the CLUI, of the form {@code keyword <arg> <arg> ...}, without splitting them in {@code String}s.
+ * <br> The keyword is found in a perfect hash table of the keywords of {@link Command}, built when the class is loaded, and the arguments are kept as
+ * positions in the instruction, which are converted only when they are read with {@link #getInt(int)}, {@link #getDouble(int)}, {@link #getTime(int)}
+ * or {@link #getString(int)}. The instruction can be any {@code CharSequence}, for example a {@code String} or a {@code CharBuffer} of a file.
+ * <br> An {@code InstructionParser} keeps its positions from one instruction to the next, hence it must not be shared by several threads.
+ * @author Pietro Dellino
+ * @see CommandLineReader#interpreteCommand(InstructionParser, CommandLineController)
+ */
+public class InstructionParser implements Instruction {
+
+	/**
+	 * The maximal number of arguments of an instruction.
+	 */
+	public static final int MAX_ARGS = 8;
+
+	private static final Command[] KEYWORDS;
+	private static final int MASK;
+
+	private static final double[] POWERS = new double[23];
+
+	/**
+	 * The size of the cache of the names which are read with {@link #getString(int)}.
+	 */
+	private static final int CACHE_SIZE = 64;
+
+	static {
+		Command[] commands = Command.values();
+		int size = Integer.highestOneBit(commands.length) << 1;
+		Command[] table = null;
+		while (table == null) {
+			table = new Command[size];
+			for (Command c : commands) {
+				String k = c.getKeyword();
+				int i = hash(k, 0, k.length()) & (size - 1);
+				if (table[i] != null) {
+					table = null;
+					size <<= 1;
+					break;
+				}
+				table[i] = c;
+			}
+		}
+		KEYWORDS = table;
+		MASK = size - 1;
+		POWERS[0] = 1;
+		for (int i = 1; i < POWERS.length; i++) {
+			POWERS[i] = POWERS[i - 1] * 10;
+		}
+	}
+
+	private CharSequence instruction;
+	private Command command;
+	private int argCount;
+	private int[] starts = new int[MAX_ARGS];
+	private int[] ends = new int[MAX_ARGS];
+	private String[] cache = new String[CACHE_SIZE];
+
+	private static int hash(CharSequence s, int start, int end) {
+		int h = 0;
+		for (int i = start; i < end; i++) {
+			h = 31 * h + s.charAt(i);
+		}
+		return h ^ (h >>> 7) ^ (h >>> 16);
+	}
+
+	private static boolean regionEquals(CharSequence s, int start, int end, String word, boolean ignoreCase) {
+		if (end - start != word.length()) return false;
+		for (int i = start; i < end; i++) {
+			char c = s.charAt(i);
+			char w = word.charAt(i - start);
+			if (c != w && !(ignoreCase && Character.toLowerCase(c) == Character.toLowerCase(w))) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * This method finds the command of a keyword.
+	 * @param s
+	 * @param start the index of the first character of the keyword
+	 * @param end the index after the last character of the keyword
+	 * @return the {@link Command} whose keyword is the one given
+	 * @throws InvalidCommandException
+	 */
+	public static Command findCommand(CharSequence s, int start, int end) throws InvalidCommandException {
+		Command c = KEYWORDS[hash(s, start, end) & MASK];
+		if (c == null || !regionEquals(s, start, end, c.getKeyword(), false)) {
+			throw new InvalidCommandException(s.subSequence(start, end).toString());
+		}
+		return c;
+	}
+
+	/**
+	 * This method parses the type of a bike, which is "electric" or "mechanic", whatever the case.
+	 * @param s
+	 * @param start
+	 * @param end
+	 * @return a constant of {@code BikeFactory}
+	 * @throws InvalidArgumentsException
+	 */
+	public static int bikeType(CharSequence s, int start, int end) throws InvalidArgumentsException {
+		if (regionEquals(s, start, end, "electric", true)) return BikeFactory.ELECTRIC;
+		if (regionEquals(s, start, end, "mechanic", true)) return BikeFactory.MECHANIC;
+		throw new InvalidArgumentsException();
+	}
+
+	/**
+	 * This method parses the type of a card, which is "vlibre", "vmax" or "credit", whatever the case.
+	 * @param s
+	 * @param start
+	 * @param end
+	 * @return a constant of {@code CardFactory}
+	 * @throws InvalidArgumentsException
+	 */
+	public static int cardType(CharSequence s, int start, int end) throws InvalidArgumentsException {
+		if (regionEquals(s, start, end, "vlibre", true)) return CardFactory.VLIBRE;
+		if (regionEquals(s, start, end, "vmax", true)) return CardFactory.VMAX;
+		if (regionEquals(s, start, end, "credit", true)) return CardFactory.CREDIT;
+		throw new InvalidArgumentsException();
+	}
+
+	/**
+	 * This method gives the types of the arguments of the method of {@code CommandLineController} for a command, in a short form:
+	 * {@code S} for a {@code String}, {@code I} for an {@code int}, {@code D} for a {@code double}, {@code T} for a time, {@code B} for a type of bike
+	 * and {@code C} for a type of card.
+	 * @param c
+	 * @param n a number of arguments accepted by the command
+	 * @return the types of the arguments
+	 */
+	private static String signature(Command c, int n) {
+		switch (c) {
+		case SETUP:
+			return n == 1 ? "S" : "SIIDI";
+		case RUNTEST:
+		case DISPLAY:
+		case METRICS:
+			return "S";
+		case STATION_ONLINE:
+		case STATION_OFFLINE:
+		case DISPLAY_USER:
+		case DISPLAY_STATION:
+		case DISPLAY_ITINERARY:
+			return "SI";
+		case LOAD_ROAD_GRAPH:
+			return "SS";
+		case LATENCY:
+			return n == 1 ? "S" : "SI";
+		case SLOT_ONLINE:
+		case SLOT_OFFLINE:
+			return "SIT";
+		case ADD_SLOT:
+			return "SII";
+		case ADD_USER:
+			return "SCS";
+		case LATENCY_LOG:
+		case ARCHIVE_RIDES:
+			return "SSI";
+		case ADD_BIKE:
+			return n == 3 ? "SBT" : "SIBT";
+		case RETURN_BIKE:
+			return "IITS";
+		case SORT_STATION:
+			return "SSTT";
+		case RENT_BIKE:
+			return n == 4 ? "IITS" : "IIBTS";
+		case ADD_STATION:
+			return "SSIDD";
+		case REBALANCE:
+			return "STIII";
+		case CALCULATE_ITINERARY:
+			return "SIDDDDS";
+		default:
+			return "";
+		}
+	}
+	
+	/**
+	 * @param c
+	 * @param n a number of arguments accepted by the command (see {@link Command#isValidLength(int)})
+	 * @return the types to which the arguments are converted before the method of {@code CommandLineController} for the command is called
+	 */
+	public static ArgumentType[] argumentTypes(Command c, int n) {
+		String signature = signature(c, n);
+		ArgumentType[] types = new ArgumentType[signature.length()];
+		for (int i = 0; i < types.length; i++) {
+			switch (signature.charAt(i)) {
+			case 'I':
+				types[i] = ArgumentType.INT;
+				break;
+			case 'D':
+				types[i] = ArgumentType.DOUBLE;
+				break;
+			case 'T':
+				types[i] = ArgumentType.TIME;
+				break;
+			case 'B':
+				types[i] = ArgumentType.BIKE_TYPE;
+				break;
+			case 'C':
+				types[i] = ArgumentType.CARD_TYPE;
+				break;
+			default:
+				types[i] = ArgumentType.STRING;
+			}
+		}
+		return types;
+	}
+
+	/**
+	 * This method parses an instruction: the keyword is the text before the first space, and the arguments are the texts between {@code <} and {@code >}.
+	 * Like {@link CommandLineReader#parseArgs(String)}, an argument ends at a {@code >} which is the last one of the instruction or which is followed by spaces and a {@code <}.
+	 * @param s the instruction
+	 * @throws InvalidCommandException if the keyword is not the one of a command
+	 * @throws InvalidArgumentsException if there is no argument, or too many of them
+	 */
+	public void parse(CharSequence s) throws InvalidCommandException, InvalidArgumentsException {
+		this.instruction = s;
+		this.command = null;
+		this.argCount = 0;
+		int n = s.length();
+		int i = 0;
+		while (i < n && s.charAt(i) != ' ') i++;
+		this.command = findCommand(s, 0, i);
+		int last = n - 1;
+		while (last >= 0 && s.charAt(last) != '>') last--;
+		while (i < n && s.charAt(i) != '<') i++;
+		if (i >= last) {
+			throw new InvalidArgumentsException();
+		}
+		int start = i + 1;
+		for (int j = start; j <= last; j++) {
+			if (s.charAt(j) != '>') continue;
+			int k = j + 1;
+			while (k < last && s.charAt(k) == ' ') k++;
+			if (j == last || (k < last && s.charAt(k) == '<')) {
+				if (this.argCount == MAX_ARGS) {
+					throw new InvalidArgumentsException();
+				}
+				this.starts[this.argCount] = start;
+				this.ends[this.argCount] = j;
+				this.argCount++;
+				start = k + 1;
+				j = k;
+			}
+		}
+	}
+
+	/**
+	 * @return the command of the last instruction parsed
+	 */
+	@Override
+	public Command getCommand() { return command; }
+
+	@Override
+	public int getArgCount() { return argCount; }
+
+	/**
+	 * This method checks the number of arguments of the last instruction parsed.
+	 * @throws InvalidArgumentsException if the method of {@code CommandLineController} for the command does not accept this number of arguments
+	 * @see Command#isValidLength(int)
+	 */
+	public void checkLength() throws InvalidArgumentsException {
+		if (!this.command.isValidLength(this.argCount)) {
+			throw new InvalidArgumentsException();
+		}
+	}
+
+	/**
+	 * This method converts all the arguments of the last instruction parsed to the types of the method of {@code CommandLineController} for its command,
+	 * so that an instruction whose arguments are not valid is found before it is run.
+	 * @return the instruction, with its arguments converted
+	 * @throws InvalidArgumentsException if the number of arguments is not valid, or if an argument cannot be converted to its type
+	 * @see #argumentTypes(Command, int)
+	 */
+	public ParsedInstruction convert() throws InvalidArgumentsException {
+		this.checkLength();
+		ArgumentType[] types = argumentTypes(this.command, this.argCount);
+		Object[] values = new Object[this.argCount];
+		try {
+			for (int i = 0; i < values.length; i++) {
+				switch (types[i]) {
+				case INT:
+					values[i] = this.getInt(i);
+					break;
+				case DOUBLE:
+					values[i] = this.getDouble(i);
+					break;
+				case TIME:
+					values[i] = this.getTime(i);
+					break;
+				case BIKE_TYPE:
+					values[i] = this.getBikeType(i);
+					break;
+				case CARD_TYPE:
+					values[i] = this.getCardType(i);
+					break;
+				default:
+					values[i] = this.getString(i);
+				}
+			}
+		} catch (NumberFormatException | DateTimeException e) {
+			throw new InvalidArgumentsException();
+		}
+		return new ParsedInstruction(this.command, values);
+	}
+
+	/**
+	 * @param i
+	 * @return the i-th argument, as a {@code String}. The names which are read again and again, like the names of the networks, are not copied each time.
+	 */
+	@Override
+	public String getString(int i) {
+		int start = this.starts[i];
+		int end = this.ends[i];
+		int slot = hash(this.instruction, start, end) & (CACHE_SIZE - 1);
+		String s = this.cache[slot];
+		if (s == null || !regionEquals(this.instruction, start, end, s, false)) {
+			s = this.instruction.subSequence(start, end).toString();
+			this.cache[slot] = s;
+		}
+		return s;
+	}
+
+	/**
+	 * @return all the arguments, as {@code String}s
+	 */
+	public String[] getArgs() {
+		String[] args = new String[this.argCount];
+		for (int i = 0; i < args.length; i++) {
+			args[i] = this.getString(i);
+		}
+		return args;
+	}
+
+	/**
+	 * @param i
+	 * @return the type of bike written by the i-th argument, as a constant of {@code BikeFactory}
+	 * @throws InvalidArgumentsException
+	 */
+	@Override
+	public int getBikeType(int i) throws InvalidArgumentsException {
+		return bikeType(this.instruction, this.starts[i], this.ends[i]);
+	}
+
+	/**
+	 * @param i
+	 * @return the type of card written by the i-th argument, as a constant of {@code CardFactory}
+	 * @throws InvalidArgumentsException
+	 */
+	@Override
+	public int getCardType(int i) throws InvalidArgumentsException {
+		return cardType(this.instruction, this.starts[i], this.ends[i]);
+	}
+
+	/**
+	 * @param i
+	 * @return the i-th argument, as an {@code int}
+	 * @throws NumberFormatException like {@link Integer#parseInt(String)}
+	 */
+	@Override
+	public int getInt(int i) {
+		int start = this.starts[i];
+		int end = this.ends[i];
+		int k = start;
+		boolean negative = k < end && this.instruction.charAt(k) == '-';
+		if (negative) k++;
+		if (k == end || end - k > 9) {
+			return Integer.parseInt(this.getString(i));
+		}
+		int value = 0;
+		for (; k < end; k++) {
+			int d = this.instruction.charAt(k) - '0';
+			if (d < 0 || d > 9) {
+				return Integer.parseInt(this.getString(i));
+			}
+			value = 10 * value + d;
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * This method converts the digits of the i-th argument in a {@code long} and divides it by a power of ten, which are both exact,
+	 * so that the result is rounded like the one of {@link Double#parseDouble(String)}. The other arguments are given to {@code Double.parseDouble}.
+	 * @param i
+	 * @return the i-th argument, as a {@code double}
+	 * @throws NumberFormatException like {@link Double#parseDouble(String)}
+	 */
+	@Override
+	public double getDouble(int i) {
+		int start = this.starts[i];
+		int end = this.ends[i];
+		int k = start;
+		boolean negative = k < end && this.instruction.charAt(k) == '-';
+		if (negative) k++;
+		long mantissa = 0;
+		int digits = 0;
+		int decimals = -1;
+		for (; k < end; k++) {
+			char c = this.instruction.charAt(k);
+			if (c == '.' && decimals < 0) {
+				decimals = 0;
+			} else if (c >= '0' && c <= '9') {
+				mantissa = 10 * mantissa + (c - '0');
+				digits++;
+				if (decimals >= 0) decimals++;
+			} else {
+				digits = 0;
+				break;
+			}
+		}
+		if (digits == 0 || digits > 15 || decimals >= POWERS.length) {
+			return Double.parseDouble(this.getString(i));
+		}
+		double value = decimals > 0 ? mantissa / POWERS[decimals] : mantissa;
+		return negative ? -value : value;
+	}
+
+	/**
+	 * @param i
+	 * @return the i-th argument, with the format "yyyy-MM-dd HH:mm", as a {@code LocalDateTime}
+	 * @throws java.time.format.DateTimeParseException like {@link Date#dateInput(String)}
+	 */
+	@Override
+	public LocalDateTime getTime(int i) {
+		int start = this.starts[i];
+		CharSequence s = this.instruction;
+		if (this.ends[i] - start == 16 && s.charAt(start + 4) == '-' && s.charAt(start + 7) == '-'
+				&& s.charAt(start + 10) == ' ' && s.charAt(start + 13) == ':') {
+			int year = this.digits(start, 4);
+			int month = this.digits(start + 5, 2);
+			int day = this.digits(start + 8, 2);
+			int hour = this.digits(start + 11, 2);
+			int minute = this.digits(start + 14, 2);
+			if (year > 0 && (month | day | hour | minute) >= 0) {
+				try {
+					return LocalDateTime.of(year, month, day, hour, minute);
+				} catch (DateTimeException e) {}
+			}
+		}
+		return Date.dateInput(this.getString(i));
+	}
+
+	/**
+	 * @return the number written by the n digits at index start of the instruction, or -1 if they are not all digits
+	 */
+	private int digits(int start, int n) {
+		int value = 0;
+		for (int k = start; k < start + n; k++) {
+			int d = this.instruction.charAt(k) - '0';
+			if (d < 0 || d > 9) return -1;
+			value = 10 * value + d;
+		}
+		return value;
+	}
+
+}
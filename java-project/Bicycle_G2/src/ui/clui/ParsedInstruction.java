@@ -0,0 +1,54 @@
+package ui.clui;
+
+import java.time.LocalDateTime;
+
+/**
+ * This class is an instruction of the CLUI whose arguments are converted to the types of the method of the {@code CommandLineController}
+ * (see {@link InstructionParser#argumentTypes(Command, int)}). It does not depend on the text of the instruction any more, so that it can be kept and run later,
+ * by any thread, without being parsed again: it is only created for the instructions of a {@code CommandBatch}, which are all parsed before the first one is run.
+ * @author Pietro Dellino
+ * @see InstructionParser#convert()
+ */
+public class ParsedInstruction implements Instruction {
+
+	private final Command command;
+	private final Object[] values;
+
+	ParsedInstruction(Command command, Object[] values) {
+		this.command = command;
+		this.values = values;
+	}
+
+	@Override
+	public Command getCommand() { return command; }
+
+	@Override
+	public int getArgCount() { return values.length; }
+
+	@Override
+	public String getString(int i) { return (String) values[i]; }
+
+	@Override
+	public int getInt(int i) { return (Integer) values[i]; }
+
+	@Override
+	public double getDouble(int i) { return (Double) values[i]; }
+
+	@Override
+	public LocalDateTime getTime(int i) { return (LocalDateTime) values[i]; }
+
+	/**
+	 * @param i
+	 * @return the type of bike of the i-th argument, as a constant of {@code BikeFactory}
+	 */
+	@Override
+	public int getBikeType(int i) { return (Integer) values[i]; }
+
+	/**
+	 * @param i
+	 * @return the type of card of the i-th argument, as a constant of {@code CardFactory}
+	 */
+	@Override
+	public int getCardType(int i) { return (Integer) values[i]; }
+
+}
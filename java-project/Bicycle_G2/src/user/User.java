@@ -7,14 +7,15 @@ import ride.Ride;
 import ride.path.PathStrategy;
 import station.NoOngoingRideException;
 import station.OngoingRideException;
+import station.Reservation;
 import station.Station;
 import tools.NegativeTimeException;
 import tools.NullDateException;
 import tools.Point;
 import ui.clui.CommandLineDisplay;
-import ui.clui.CommandLineReader;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicReference;
 import bike.Bike;
 import card.Card;
 
@@ -31,8 +32,10 @@ public class User implements Observer {
 	private String userName;
 	private Point position;
 	private final int id;
-	private Ride ongoingRide;
-	private Itinerary itinerary;
+	private AtomicReference<Ride> ongoingRide;
+	private volatile Itinerary itinerary;
+	private volatile Reservation reservation;
+	private volatile boolean autoReroute = true;
 	private UserStat userStat;
 	
 	
@@ -41,23 +44,34 @@ public class User implements Observer {
 		this.userName = userName;
 		id = UserIdGenerator.getInstance().getNextUserID();
 		position = new Point (0,0);
-		ongoingRide = null;
+		ongoingRide = new AtomicReference<Ride>();
 		itinerary = null;
 		userStat = new UserStat();
 	}
 	
 	public User(String userName, Point position) {
+		this(UserIdGenerator.getInstance().getNextUserID(), userName, position);
+	}
+	
+	/**
+	 * This constructor creates again a user who had the given id, when a journal or a snapshot is read.
+	 * @param id
+	 * @param userName
+	 * @param position
+	 */
+	public User(int id, String userName, Point position) {
 		super();
 		this.userName = userName;
-		id = UserIdGenerator.getInstance().getNextUserID();
+		this.id = UserIdGenerator.getInstance().restoreId(id);
 		this.position = position;
-		ongoingRide = null;
+		ongoingRide = new AtomicReference<Ride>();
 		itinerary = null;
 		userStat = new UserStat();
 	}
 	
 	/**
 	 * If the {@code User} does not have an ongoing {@code Ride}, this method sets a new ongoing {@code Ride}. 
+	 * The ride is set with a compare-and-set, so that two stations cannot start a ride for the same user at the same time.
 	 * @param net
 	 * @param bike
 	 * @param startRide
@@ -65,9 +79,9 @@ public class User implements Observer {
 	 * @throws OngoingRideException  
 	 */
 	public void startOngoingRide (Network net, Bike bike, LocalDateTime startRide, Card card) throws OngoingRideException {
-		if (ongoingRide == null) {
-			this.ongoingRide = new Ride (net, bike, this, card, startRide);
-		} else {throw new OngoingRideException();}
+		if (!this.ongoingRide.compareAndSet(null, new Ride (net, bike, this, card, startRide))) {
+			throw new OngoingRideException();
+		}
 	}
 	
 	/**
@@ -80,18 +94,22 @@ public class User implements Observer {
 	 * @throws OngoingRideException
 	 */
 	public double endOngoingRide(LocalDateTime endRide) throws NegativeTimeException, NullDateException, NoOngoingRideException, OngoingRideException {
-		if (this.ongoingRide != null) {
+		Ride ride = this.ongoingRide.get();
+		if (ride != null) {
 			if (this.itinerary != null) {
 				this.itinerary.getEndStation().removeObserver(this);
 				this.itinerary = null;	
 			}
-			ongoingRide.endRide(endRide);
-			int timeRide = ongoingRide.getRideTime();
-			double price = ongoingRide.getBike().ridePrice(ongoingRide.getCard(), timeRide);
+			this.updateReservation();
+			ride.endRide(endRide);
+			int timeRide = ride.getRideTime();
+			double price = ride.getBike().ridePrice(ride.getCard(), timeRide);
 			this.userStat.addRide();
 			this.userStat.addAmount((double)price);	
 			this.userStat.addTime(timeRide);
-			this.ongoingRide = null;
+			ride.setPrice(price);
+			this.ongoingRide.compareAndSet(ride, null);
+			ride.getNet().archiveRide(ride);
 			return price;
 		} else {throw new NoOngoingRideException();}
 	}
@@ -126,10 +144,12 @@ public class User implements Observer {
 	
 	
 	/**
-	 * This method sets the {@code Itinerary} of a {@code User}. The {@code User} is added to the observer list of the arrival {@code Station}.
+	 * This method sets the {@code Itinerary} of a {@code User}. The {@code User} is added to the observer list of the arrival {@code Station},
+	 * and a free slot of the arrival {@code Station} is reserved for him.
+	 * The method holds the lock of the {@code User}, like the operations of the stations, because it is also called by the threads of the {@code NotificationDispatcher}.
 	 * @param itinerary
 	 */
-	public void setItinerary(Itinerary itinerary) { 
+	public synchronized void setItinerary(Itinerary itinerary) { 
 		if (this.itinerary == null) {
 			if (itinerary != null) {
 				itinerary.getEndStation().registerObserver(this);
@@ -147,43 +167,68 @@ public class User implements Observer {
 				this.itinerary = itinerary; 
 			}		
 		}
+		this.updateReservation();
 	}
 	
 	/**
-	 * The {@code User} is notified if he has an {@code Itinerary}, an ongoing {@code Ride} and if the arrival {@code Station} of its {@code Itinerary} becomes full. He has the possibility to recalculte the ending {@code Station}.
+	 * This method cancels the reservation of the {@code User}, and reserves a slot of the arrival {@code Station} of his {@code Itinerary} if he has one.
+	 * It is called when the itinerary or its arrival station changes, with the lock of the {@code User}.
+	 */
+	public synchronized void updateReservation() {
+		Reservation r = this.reservation;
+		Itinerary itinerary = this.itinerary;
+		if (r != null && (itinerary == null || r.getStation() != itinerary.getEndStation() || !r.isActive())) {
+			r.cancel();
+			r = null;
+		}
+		if (r == null && itinerary != null) {
+			r = itinerary.getEndStation().reserve(this);
+		}
+		this.reservation = r;
+	}
+	
+	/**
+	 * The {@code User} is notified if he has an {@code Itinerary}, an ongoing {@code Ride} and if the arrival {@code Station} of its {@code Itinerary} becomes full. If he has chosen to be rerouted automatically (see {@link #setAutoReroute(boolean)}),
+	 * the new ending {@code Station} is then chosen by the {@code Station}, together with the ones of the other users who recalculate their itinerary.
+	 * <br> This method is called in a thread of the {@code NotificationDispatcher}, so that it does not ask anything on the console, which is read by the CLUI.
+	 * Its text is displayed with the output of the instruction which changed the station (see {@link CommandLineDisplay}).
+	 * @return 1 if the arrival station must be recalculated, 0 if the itinerary must be dropped
 	 */
 	@Override
 	public int update() {
-		CommandLineReader clr = new CommandLineReader();
 		CommandLineDisplay cld = new CommandLineDisplay();
 		cld.display("Notification : The destination Station does not have any more available slots or is offline.");
-		if (this.ongoingRide != null) {
-			String s = clr.readCommand("Do you want to recalculate arrival station ? Answer 'yes' if you do.");
-			if (s.equals("yes")) {
-				if (this.itinerary != null) {
-					PathStrategy ps = this.itinerary.getPs();
-					Station s1 = ps.findEndStation(this.itinerary.getStartStation().getP(), this.itinerary.getEnd(), this.getOngoingRide().getBike());
-					this.itinerary.setEndStation(s1);
-					s1.registerObserver(this);
-				}
-				return 1;
-			} 
-			else {
-				return 0;}
+		if (this.autoReroute && this.ongoingRide.get() != null) {
+			return 1;
 		} else {
 			return 0;
-			
-			}
+		}
 	}
 	
+	/**
+	 * @return whether the arrival station of the {@code User} is recalculated when it becomes full or offline
+	 */
+	public boolean isAutoReroute() { return autoReroute; }
+	
+	/**
+	 * This method sets whether the arrival station of the {@code User} is recalculated when it becomes full or offline, or whether his itinerary is dropped.
+	 * @param autoReroute
+	 */
+	public void setAutoReroute(boolean autoReroute) { this.autoReroute = autoReroute; }
+	
 	public String getUserName() { return userName; }
 
 	public Point getPosition() { return position; }
 	public void setPosition(Point position) { this.position = position; }
 
-	public Ride getOngoingRide() { return ongoingRide; }
+	public Ride getOngoingRide() { return ongoingRide.get(); }
 
 	public Itinerary getItinerary() { return itinerary; }
+	
+	/**
+	 * @return the reservation of the arrival {@code Station} of the {@code Itinerary}, which may have ended, or {@code null} if there is none
+	 */
+	public Reservation getReservation() { return reservation; }
 
 	public int getId() { return id; }
 
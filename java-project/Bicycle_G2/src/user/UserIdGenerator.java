@@ -30,7 +30,19 @@ public class UserIdGenerator implements Serializable {
 		return instance;
 	}
 	
-	public synchronized int getNextUserID() { return num ++; }
+	public synchronized int getNextUserID() {
+		return num++;
+	}
+	
+	/**
+	 * @param id the id of a user read in a journal or a snapshot
+	 * @return id, which is not given to the next users
+	 * @see User#User(int, String, tools.Point)
+	 */
+	synchronized int restoreId(int id) {
+		if (id >= this.num) this.num = id + 1;
+		return id;
+	}
 	
 	/**
 	 * This methods ensures that even when an {@code UserIDGenerator} is serialized, the unique instance is always returned.
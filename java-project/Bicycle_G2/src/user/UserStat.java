@@ -23,21 +23,21 @@ public class UserStat {
 		this.totalCreditEarned = 0;
 	}
 
-	public int getNumberRides() { return numberRides; }
+	public synchronized int getNumberRides() { return numberRides; }
 
-	public void addRide() { this.numberRides++;	}
+	public synchronized void addRide() { this.numberRides++;	}
 
-	public double getTotalTime() { return totalTime; }
+	public synchronized double getTotalTime() { return totalTime; }
 
-	public void addTime(double time) { this.totalTime += time;	}
+	public synchronized void addTime(double time) { this.totalTime += time;	}
 
-	public double getTotalAmount() { return totalAmount; }
+	public synchronized double getTotalAmount() { return totalAmount; }
 
-	public void addAmount(double amount) { this.totalAmount += amount; }	
+	public synchronized void addAmount(double amount) { this.totalAmount += amount; }	
 
-	public double getTotalCreditEarned() { return totalCreditEarned; }
+	public synchronized double getTotalCreditEarned() { return totalCreditEarned; }
 
-	public void addCreditEarned(double creditEarned) { this.totalCreditEarned += creditEarned;	}
+	public synchronized void addCreditEarned(double creditEarned) { this.totalCreditEarned += creditEarned;	}
 	
 
 }